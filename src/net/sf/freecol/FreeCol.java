@@ -28,6 +28,7 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.net.JarURLConnection;
 import java.util.Locale;
+import java.util.Map;
 import java.util.jar.Manifest;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -51,7 +52,9 @@ import net.sf.freecol.common.model.StringTemplate;
 import net.sf.freecol.common.model.Turn;
 import net.sf.freecol.common.networking.NoRouteToServerException;
 import net.sf.freecol.common.option.OptionGroup;
+import net.sf.freecol.common.resources.ImageCache;
 import net.sf.freecol.server.FreeColServer;
+import net.sf.freecol.server.Simulation;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -141,6 +144,7 @@ public final class FreeCol {
     // Cli values.  Often set to null so the default can be applied in
     // the accessor function.
     private static boolean checkIntegrity = false,
+                           binaryProtocol = true,
                            consoleLogging = false,
                            debugStart = false,
                            fastStart = false,
@@ -148,6 +152,7 @@ public final class FreeCol {
                            introVideo = true,
                            javaCheck = true,
                            memoryCheck = true,
+                           parallelAI = false,
                            publicServer = true,
                            sound = true,
                            standAloneServer = false;
@@ -174,6 +179,18 @@ public final class FreeCol {
     private static int serverPort = -1;
     private static String serverName = null;
 
+    /**
+     * The maximum number of server message handler threads, zero to
+     * start a thread for each message.
+     */
+    private static int serverThreads = 0;
+
+    /** The number of server network selector threads, zero if none. */
+    private static int serverSelectors = 0;
+
+    /** The number of turns to simulate, if positive. */
+    private static int simulateTurns = 0;
+
     /** Where the splash file lives. */
     private static String splashFilename = SPLASH_FILE_DEFAULT;
 
@@ -482,6 +499,11 @@ public final class FreeCol {
         options.addOption(OptionBuilder.withLongOpt("headless")
                           .withDescription(Messages.message("cli.headless"))
                           .create());
+        options.addOption(OptionBuilder.withLongOpt("image-cache")
+                          .withDescription(Messages.message("cli.image-cache"))
+                          .withArgName(Messages.message("cli.arg.megabytes"))
+                          .hasArg()
+                          .create());
         options.addOption(OptionBuilder.withLongOpt("load-savegame")
                           .withDescription(Messages.message("cli.load-savegame"))
                           .withArgName(Messages.message("cli.arg.file"))
@@ -505,6 +527,9 @@ public final class FreeCol {
                           .withArgName(Messages.message("cli.arg.name"))
                           .hasArg()
                           .create());
+        options.addOption(OptionBuilder.withLongOpt("no-binary")
+                          .withDescription(Messages.message("cli.no-binary"))
+                          .create());
         options.addOption(OptionBuilder.withLongOpt("no-intro")
                           .withDescription(Messages.message("cli.no-intro"))
                           .create());
@@ -517,6 +542,9 @@ public final class FreeCol {
         options.addOption(OptionBuilder.withLongOpt("no-sound")
                           .withDescription(Messages.message("cli.no-sound"))
                           .create());
+        options.addOption(OptionBuilder.withLongOpt("parallel-ai")
+                          .withDescription(Messages.message("cli.parallel-ai"))
+                          .create());
         options.addOption(OptionBuilder.withLongOpt("private")
                           .withDescription(Messages.message("cli.private"))
                           .create());
@@ -535,6 +563,21 @@ public final class FreeCol {
                           .withArgName(Messages.message("cli.arg.name"))
                           .hasArg()
                           .create());
+        options.addOption(OptionBuilder.withLongOpt("server-nio")
+                          .withDescription(Messages.message("cli.server-nio"))
+                          .withArgName(Messages.message("cli.arg.threads"))
+                          .hasOptionalArg()
+                          .create());
+        options.addOption(OptionBuilder.withLongOpt("server-threads")
+                          .withDescription(Messages.message("cli.server-threads"))
+                          .withArgName(Messages.message("cli.arg.threads"))
+                          .hasArg()
+                          .create());
+        options.addOption(OptionBuilder.withLongOpt("simulate")
+                          .withDescription(Messages.message("cli.simulate"))
+                          .withArgName(Messages.message("cli.arg.turns"))
+                          .hasArg()
+                          .create());
         options.addOption(OptionBuilder.withLongOpt("splash")
                           .withDescription(Messages.message("cli.splash"))
                           .withArgName(Messages.message("cli.arg.file"))
@@ -688,6 +731,14 @@ public final class FreeCol {
                 headless = true;
             }
 
+            if (line.hasOption("image-cache")) {
+                String arg = line.getOptionValue("image-cache");
+                if (!setImageCacheSize(arg)) { // Not fatal
+                    gripe(StringTemplate.template("cli.error.imageCache")
+                        .addName("%string%", arg));
+                }
+            }
+
             if (line.hasOption("load-savegame")) {
                 String arg = line.getOptionValue("load-savegame");
                 if (!FreeColDirectories.setSavegameFile(arg)) {
@@ -710,6 +761,9 @@ public final class FreeCol {
                 setName(line.getOptionValue("name"));
             }
 
+            if (line.hasOption("no-binary")) {
+                binaryProtocol = false;
+            }
             if (line.hasOption("no-intro")) {
                 introVideo = false;
             }
@@ -723,6 +777,9 @@ public final class FreeCol {
                 sound = false;
             }
 
+            if (line.hasOption("parallel-ai")) {
+                parallelAI = true;
+            }
             if (line.hasOption("private")) {
                 publicServer = false;
             }
@@ -743,6 +800,31 @@ public final class FreeCol {
                 FreeColSeed.setFreeColSeed(line.getOptionValue("seed"));
             }
 
+            if (line.hasOption("server-nio")) {
+                String arg = line.getOptionValue("server-nio");
+                if (!setServerSelectors(arg)) { // Not fatal
+                    gripe(StringTemplate.template("cli.error.serverSelectors")
+                        .addName("%string%", arg));
+                }
+            }
+            if (line.hasOption("server-threads")) {
+                String arg = line.getOptionValue("server-threads");
+                if (!setServerThreads(arg)) { // Not fatal
+                    gripe(StringTemplate.template("cli.error.serverThreads")
+                        .addName("%string%", arg));
+                }
+            }
+
+            if (line.hasOption("simulate")) {
+                String arg = line.getOptionValue("simulate");
+                if (!setSimulateTurns(arg)) {
+                    fatal(StringTemplate.template("cli.error.simulate")
+                        .addName("%string%", arg));
+                }
+                publicServer = false;
+                standAloneServer = true;
+            }
+
             if (line.hasOption("splash")) {
                 splashFilename = line.getOptionValue("splash");
             }
@@ -1161,6 +1243,125 @@ public final class FreeCol {
         return null;
     }
 
+    /**
+     * Sets the maximum size of the cache of scaled and grayscale images.
+     *
+     * @param arg A string containing the size in megabytes.
+     * @return True if the size was set.
+     */
+    public static boolean setImageCacheSize(String arg) {
+        try {
+            long result = Long.parseLong(arg);
+            if (result >= 0) {
+                ImageCache.getInstance().setMaximumSize(result * 1024 * 1024);
+                return true;
+            }
+        } catch (NumberFormatException nfe) {}
+        return false;
+    }
+
+    /**
+     * Should the AI players plan their colonies in parallel?
+     *
+     * @return True if the AI colonies are planned in parallel.
+     */
+    public static boolean getParallelAI() {
+        return parallelAI;
+    }
+
+    /**
+     * Should network connections use the compact binary message
+     * format where the peer supports it?
+     *
+     * @return True if the binary format may be negotiated at login.
+     */
+    public static boolean getBinaryProtocol() {
+        return binaryProtocol;
+    }
+
+    /**
+     * Gets the maximum number of threads the server uses to handle
+     * incoming messages.
+     *
+     * By default a new thread is started for each message.  With a
+     * limit, the messages from each client are handled one at a time,
+     * so a handler waiting for an answer from its client holds up
+     * the later messages from that client until it gets one.
+     *
+     * @return The maximum number of message handler threads, zero
+     *     if a new thread should be started for each message.
+     */
+    public static int getServerThreads() {
+        return serverThreads;
+    }
+
+    /**
+     * Sets the maximum number of server message handler threads.
+     *
+     * @param arg A string containing the number of threads.
+     * @return True if the number of threads was set.
+     */
+    public static boolean setServerThreads(String arg) {
+        try {
+            int result = Integer.parseInt(arg);
+            if (result >= 0) {
+                serverThreads = result;
+                return true;
+            }
+        } catch (NumberFormatException nfe) {}
+        return false;
+    }
+
+    /**
+     * Gets the number of selector threads the server uses to read
+     * from its client connections.
+     *
+     * @return The number of selector threads, zero if each connection
+     *     should have its own receiving thread.
+     */
+    public static int getServerSelectors() {
+        return serverSelectors;
+    }
+
+    /**
+     * Sets the number of server selector threads.
+     *
+     * @param arg A string containing the number of threads, if null
+     *     or empty use a single selector thread.
+     * @return True if the number of threads was set.
+     */
+    public static boolean setServerSelectors(String arg) {
+        if (arg == null || arg.isEmpty()) {
+            serverSelectors = 1;
+            return true;
+        }
+        try {
+            int result = Integer.parseInt(arg);
+            if (result >= 0) {
+                serverSelectors = result;
+                return true;
+            }
+        } catch (NumberFormatException nfe) {}
+        return false;
+    }
+
+    /**
+     * Sets the number of turns to simulate.
+     *
+     * @param arg A string containing the number of turns.
+     * @return True if the number of turns was set.
+     */
+    public static boolean setSimulateTurns(String arg) {
+        try {
+            int result = Integer.parseInt(arg);
+            if (result > 0) {
+                simulateTurns = result;
+                return true;
+            }
+        } catch (NumberFormatException nfe) {}
+        return false;
+    }
+
     /**
      * Gets the timeout.
      * Use the command line specified one if any, otherwise default
@@ -1323,13 +1524,16 @@ public final class FreeCol {
     private static void startServer() {
         logger.info("Starting stand-alone server.");
         final FreeColServer freeColServer;
+        // Simulations do not take connections, so open no socket.
+        final int port = (simulateTurns > 0) ? FreeColServer.NO_PORT
+            : serverPort;
         File saveGame = FreeColDirectories.getSavegameFile();
         if (saveGame != null) {
             try {
                 final FreeColSavegameFile fis
                     = new FreeColSavegameFile(saveGame);
                 freeColServer = new FreeColServer(fis, (Specification)null,
-                                                  serverPort, serverName);
+                                                  port, serverName);
                 if (checkIntegrity) {
                     boolean integrityOK = freeColServer.getIntegrity() > 0;
                     gripe((integrityOK)
@@ -1347,7 +1551,7 @@ public final class FreeCol {
             Specification spec = FreeCol.getTCSpecification();
             try {
                 freeColServer = new FreeColServer(publicServer, false, spec,
-                                                  serverPort, serverName);
+                                                  port, serverName);
             } catch (NoRouteToServerException nrtse) {
                 fatal(Messages.message("server.noRouteToServer"));
                 return;
@@ -1358,6 +1562,11 @@ public final class FreeCol {
             }
         }
 
+        if (simulateTurns > 0) {
+            simulate(freeColServer);
+            return;
+        }
+
         String quit = FreeCol.SERVER_THREAD + "Quit Game";
         Runtime.getRuntime().addShutdownHook(new Thread(quit) {
                 @Override
@@ -1366,4 +1575,31 @@ public final class FreeCol {
                 }
             });
     }
+
+    /**
+     * Run an AI-only simulation on the server, report the results
+     * and quit.
+     *
+     * @param freeColServer The <code>FreeColServer</code> to run on.
+     */
+    private static void simulate(FreeColServer freeColServer) {
+        logger.info("Simulating " + simulateTurns + " turns.");
+        Map<String, String> stats = null;
+        try {
+            stats = new Simulation(freeColServer).run(simulateTurns);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Simulation failed", e);
+        } finally {
+            freeColServer.getController().shutdown();
+        }
+        if (stats == null) {
+            fatal(Messages.message("cli.simulate.failure"));
+            return;
+        }
+        for (Map.Entry<String, String> e : stats.entrySet()) {
+            logger.info("Simulation " + e.getKey() + ": " + e.getValue());
+            System.out.println(e.getKey() + ": " + e.getValue());
+        }
+        System.exit(0);
+    }
 }
@@ -797,6 +797,7 @@ public final class FreeColClient {
      */
     public void quit() {
         getConnectController().quitGame(isSinglePlayer());
+        getInGameController().finishAutoSaves();
         try { // delete outdated autosave files
             long validPeriod = 1000L * 24L * 60L * 60L // days to ms
                 * clientOptions.getInteger(ClientOptions.AUTOSAVE_VALIDITY);
@@ -27,6 +27,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -104,7 +108,9 @@ import net.sf.freecol.common.util.LogBuilder;
 import net.sf.freecol.common.networking.NetworkConstants;
 import net.sf.freecol.common.networking.ServerAPI;
 import net.sf.freecol.common.option.BooleanOption;
+import net.sf.freecol.common.resources.ImageCache;
 import net.sf.freecol.server.FreeColServer;
+import net.sf.freecol.server.SavegameSnapshot;
 
 
 /**
@@ -208,6 +214,9 @@ public final class InGameController implements NetworkConstants {
     /** The messages in the last turn report. */
     private final List<ModelMessage> turnReportMessages = new ArrayList<>();
 
+    /** The executor that writes the autosaves, created when needed. */
+    private ExecutorService autoSaveExecutor = null;
+
 
     /**
      * The constructor to use.
@@ -502,6 +511,10 @@ public final class InGameController implements NetworkConstants {
      * Creates at least one autosave game file of the currently played
      * game in the autosave directory.  Does nothing if there is no
      * game running.
+     *
+     * Only a snapshot of the game is taken here.  Rotating the old
+     * autosaves and writing the new ones is done in the background,
+     * in order, by the autosave executor.
      */
     private void autoSaveGame () {
         final Game game = freeColClient.getGame();
@@ -517,22 +530,108 @@ public final class InGameController implements NetworkConstants {
             + options.getText(ClientOptions.BEFORE_LAST_TURN_NAME)
             + FreeCol.FREECOL_SAVE_EXTENSION;
         File autoSaveDir = FreeColDirectories.getAutosaveDirectory();
-        File lastTurnFile = new File(autoSaveDir, lastTurnName);
-        File beforeLastTurnFile = new File(autoSaveDir, beforeLastTurnName);
-        // if "last-turn" file exists, shift it to "before-last-turn" file
-        if (lastTurnFile.exists()) {
-            beforeLastTurnFile.delete();
-            lastTurnFile.renameTo(beforeLastTurnFile);
-        }
-        saveGame(lastTurnFile);
+        final File lastTurnFile = new File(autoSaveDir, lastTurnName);
+        final File beforeLastTurnFile = new File(autoSaveDir, beforeLastTurnName);
 
         // conditional save after user-set period
         int saveGamePeriod = options.getInteger(ClientOptions.AUTOSAVE_PERIOD);
         int turnNumber = game.getTurn().getNumber();
-        if (saveGamePeriod >= 1 && turnNumber % saveGamePeriod == 0) {
-            String fileName = prefix + "-" + getSaveGameString(game)
-                + FreeCol.FREECOL_SAVE_EXTENSION;
-            saveGame(new File(autoSaveDir, fileName));
+        final File periodFile = (saveGamePeriod >= 1
+            && turnNumber % saveGamePeriod == 0)
+            ? new File(autoSaveDir, prefix + "-" + getSaveGameString(game)
+                + FreeCol.FREECOL_SAVE_EXTENSION)
+            : null;
+
+        final FreeColServer server = freeColClient.getFreeColServer();
+        final SavegameSnapshot snapshot;
+        try {
+            server.setActiveUnit(gui.getActiveUnit());
+            snapshot = server.takeSnapshot(options, null);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Autosave snapshot failed", e);
+            gui.showErrorMessage(FreeCol.badSave(lastTurnFile));
+            return;
+        }
+        getAutoSaveExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    // if "last-turn" file exists, shift it to "before-last-turn" file
+                    if (lastTurnFile.exists()) {
+                        beforeLastTurnFile.delete();
+                        lastTurnFile.renameTo(beforeLastTurnFile);
+                    }
+                    writeAutoSave(snapshot, lastTurnFile);
+                    if (periodFile != null) writeAutoSave(snapshot, periodFile);
+                }
+            });
+    }
+
+    /**
+     * Gets the executor that writes the autosaves, creating it if
+     * needed.  It has a single thread, so the autosaves are written
+     * in the order they were taken.
+     *
+     * @return The autosave <code>ExecutorService</code>.
+     */
+    private synchronized ExecutorService getAutoSaveExecutor() {
+        if (autoSaveExecutor == null) {
+            autoSaveExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, FreeCol.CLIENT_THREAD
+                                              + "Autosave");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        }
+        return autoSaveExecutor;
+    }
+
+    /**
+     * Write an autosave snapshot to a file, complaining on failure.
+     * Called on the autosave thread.
+     *
+     * @param snapshot The <code>SavegameSnapshot</code> to write.
+     * @param file The <code>File</code> to write to.
+     */
+    private void writeAutoSave(SavegameSnapshot snapshot, final File file) {
+        final long start = System.currentTimeMillis();
+        try {
+            snapshot.write(file);
+            logger.info("Autosaved " + snapshot.getSize() + " bytes to "
+                + file.getName() + " in "
+                + (System.currentTimeMillis() - start) + "ms");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Autosave to " + file + " failed", e);
+            SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        gui.showErrorMessage(FreeCol.badSave(file));
+                    }
+                });
+        }
+    }
+
+    /**
+     * Wait for any autosaves still being written to finish.
+     *
+     * Called from FreeColClient.quit.
+     */
+    public void finishAutoSaves() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = autoSaveExecutor;
+            autoSaveExecutor = null;
+        }
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warning("Autosave did not finish");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -3366,7 +3465,10 @@ public final class InGameController implements NetworkConstants {
      * @return A <code>Map</code> containing the client statistics.
      */
     public java.util.Map<String, String> getClientStatistics() {
-        return freeColClient.getGame().getStatistics();
+        java.util.Map<String, String> stats
+            = freeColClient.getGame().getStatistics();
+        stats.putAll(ImageCache.getInstance().getStatistics());
+        return stats;
     }
 
     /**
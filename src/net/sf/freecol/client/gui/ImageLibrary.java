@@ -33,6 +33,7 @@ import java.awt.TexturePaint;
 import java.awt.image.BufferedImage;
 import java.awt.image.RescaleOp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Set;
@@ -64,6 +65,7 @@ import net.sf.freecol.common.model.TileImprovementStyle;
 import net.sf.freecol.common.model.TileType;
 import net.sf.freecol.common.model.Unit;
 import net.sf.freecol.common.model.UnitType;
+import net.sf.freecol.common.resources.ImageResource;
 import net.sf.freecol.common.resources.ResourceManager;
 
 import static net.sf.freecol.common.util.StringUtils.*;
@@ -141,6 +143,203 @@ public final class ImageLibrary {
         }
     };
 
+    /** The number of beach edge and corner styles. */
+    private static final int BEACH_STYLES = 16;
+
+    /** The keys of the beach images, by style and parity. */
+    private static final String[][] BEACH_EDGE_KEYS
+        = new String[BEACH_STYLES][2],
+        BEACH_CORNER_KEYS = new String[BEACH_STYLES][2];
+    static {
+        for (int i = 0; i < BEACH_STYLES; i++) {
+            for (int parity = 0; parity < 2; parity++) {
+                BEACH_EDGE_KEYS[i][parity] = "image.tile.model.tile.beach.edge"
+                    + i + ".r" + parity;
+                BEACH_CORNER_KEYS[i][parity]
+                    = "image.tile.model.tile.beach.corner" + i + ".r" + parity;
+            }
+        }
+    }
+
+    /** The keys of the river mouth images, by direction and size. */
+    private static final String[][] RIVER_MOUTH_KEYS
+        = new String[Direction.NUMBER_OF_DIRECTIONS][2];
+    static {
+        for (Direction d : Direction.values()) {
+            RIVER_MOUTH_KEYS[d.ordinal()][0]
+                = "image.tile.model.tile.delta." + d + ".small";
+            RIVER_MOUTH_KEYS[d.ordinal()][1]
+                = "image.tile.model.tile.delta." + d + ".large";
+        }
+    }
+
+    /** The slots of the images in a TileTypeImages. */
+    private static final int CENTER = 0,
+        BORDER = CENTER + 2,
+        FOREST = BORDER + 2 * Direction.NUMBER_OF_DIRECTIONS,
+        SLOTS = FOREST + 1;
+
+    /** The number of scales the images of a tile type are kept for. */
+    private static final int TILE_IMAGE_SCALES = 4;
+
+    /**
+     * The images of a tile type at one scale, taken from the
+     * resources when first needed.
+     */
+    private static final class ScaledTileImages {
+
+        /** The scale of the images. */
+        public final float scale;
+
+        /** The images, by slot. */
+        public final BufferedImage[] images = new BufferedImage[SLOTS];
+
+        /** The overlay images, in the order of the overlay resources. */
+        public final BufferedImage[] overlays;
+
+
+        /**
+         * Create the images of a tile type at a scale.
+         *
+         * @param scale The scale of the images.
+         * @param overlayCount The number of overlay images.
+         */
+        public ScaledTileImages(float scale, int overlayCount) {
+            this.scale = scale;
+            this.overlays = new BufferedImage[overlayCount];
+        }
+    }
+
+    /**
+     * The terrain image resources of a tile type, which are drawn for
+     * every tile on the map.  The keys are made once, and each
+     * resource is looked up when it is first needed.  The images are
+     * taken from the resources once per scale and kept here, so that
+     * drawing a tile neither allocates nor takes a lock.
+     */
+    private static final class TileTypeImages {
+
+        /** The tile type, null for unexplored tiles. */
+        public final TileType type;
+
+        /** The resource mapping version the resources come from. */
+        public final int version;
+
+        /** The keys of the images. */
+        private final String[] keys = new String[SLOTS];
+
+        /** The resources of the images, null until needed. */
+        private final ImageResource[] resources = new ImageResource[SLOTS];
+
+        /** The overlay image resources, sorted by key. */
+        private final ImageResource[] overlays;
+
+        /** The images at the latest scales, most recent first. */
+        private volatile ScaledTileImages[] scaled = new ScaledTileImages[0];
+
+
+        /**
+         * Create the images of a tile type.
+         *
+         * @param type The <code>TileType</code>, null for unexplored.
+         * @param version The current resource mapping version.
+         */
+        public TileTypeImages(TileType type, int version) {
+            this.type = type;
+            this.version = version;
+            final String id = (type == null) ? "model.tile.unexplored"
+                : type.getId();
+            for (int parity = 0; parity < 2; parity++) {
+                keys[CENTER + parity] = "image.tile." + id + ".center.r"
+                    + parity;
+                for (Direction d : Direction.values()) {
+                    keys[BORDER + 2 * d.ordinal() + parity] = "image.tile."
+                        + id + ".border." + d + ".r" + parity;
+                }
+            }
+            keys[FOREST] = "image.tileforest." + id;
+            ArrayList<String> overlayKeys = (type == null)
+                ? new ArrayList<String>()
+                : ResourceManager.getImageKeys("image.tileoverlay." + id
+                    + ".r");
+            Collections.sort(overlayKeys);
+            overlays = new ImageResource[overlayKeys.size()];
+            for (int i = 0; i < overlays.length; i++) {
+                overlays[i] = ResourceManager.getImageResource(overlayKeys.get(i));
+            }
+        }
+
+        /**
+         * Gets the images at a scale.  Only the few most recently
+         * added scales are kept.
+         *
+         * @param scale The scale of the images.
+         * @return The <code>ScaledTileImages</code> for the scale.
+         */
+        private ScaledTileImages getScaled(float scale) {
+            for (ScaledTileImages sti : scaled) {
+                if (sti.scale == scale) return sti;
+            }
+            synchronized (this) {
+                ScaledTileImages[] old = scaled;
+                for (ScaledTileImages sti : old) {
+                    if (sti.scale == scale) return sti;
+                }
+                ScaledTileImages[] s = new ScaledTileImages[Math.min(
+                    old.length + 1, TILE_IMAGE_SCALES)];
+                s[0] = new ScaledTileImages(scale, overlays.length);
+                System.arraycopy(old, 0, s, 1, s.length - 1);
+                scaled = s;
+                return s[0];
+            }
+        }
+
+        /**
+         * Gets an image.
+         *
+         * @param slot The slot of the image.
+         * @param scale The scale of the image.
+         * @return The image.
+         */
+        public BufferedImage getImage(int slot, float scale) {
+            final ScaledTileImages sti = getScaled(scale);
+            BufferedImage image = sti.images[slot];
+            if (image == null) {
+                ImageResource r = resources[slot];
+                if (r == null) {
+                    r = ResourceManager.getImageResource(keys[slot]);
+                    resources[slot] = r;
+                }
+                image = ResourceManager.getImage(r, scale);
+                sti.images[slot] = image;
+            }
+            return image;
+        }
+
+        /**
+         * Gets an overlay image.
+         *
+         * @param id A string used to choose a random image.
+         * @param scale The scale of the image.
+         * @return The overlay image, or null if there is none.
+         */
+        public BufferedImage getOverlayImage(String id, float scale) {
+            if (overlays.length == 0) return null;
+            final int i = Math.abs(id.hashCode() % overlays.length);
+            final ScaledTileImages sti = getScaled(scale);
+            BufferedImage image = sti.overlays[i];
+            if (image == null) {
+                image = ResourceManager.getImage(overlays[i], scale);
+                sti.overlays[i] = image;
+            }
+            return image;
+        }
+    }
+
+    /** The images of the tile types, by tile type index. */
+    private static volatile TileTypeImages[] tileTypeImages
+        = new TileTypeImages[0];
+
 
     /**
      * The scaling factor used when creating this
@@ -235,6 +434,30 @@ public final class ImageLibrary {
         return ((y % 8 <= 2) || ((x + y) % 2 == 0 ));
     }
 
+    /**
+     * Gets the images of a tile type, making them if they are missing
+     * or the resource mappings have changed.
+     *
+     * Races between threads at worst make the same images twice.
+     *
+     * @param type The <code>TileType</code>, null for unexplored tiles.
+     * @return The <code>TileTypeImages</code> of the type.
+     */
+    private static TileTypeImages getTileTypeImages(TileType type) {
+        final int index = (type == null) ? 0 : type.getIndex() + 1;
+        final int version = ResourceManager.getVersion();
+        final TileTypeImages[] table = tileTypeImages;
+        TileTypeImages tti = (index < table.length) ? table[index] : null;
+        if (tti == null || tti.type != type || tti.version != version) {
+            tti = new TileTypeImages(type, version);
+            TileTypeImages[] newTable = Arrays.copyOf(table,
+                Math.max(table.length, index + 1));
+            newTable[index] = tti;
+            tileTypeImages = newTable;
+        }
+        return tti;
+    }
+
     /**
      * Returns the beach corner image at the given index.
      *
@@ -244,8 +467,8 @@ public final class ImageLibrary {
      * @return The image at the given index.
      */
     public BufferedImage getBeachCornerImage(int index, int x, int y) {
-        return ResourceManager.getImage("image.tile.model.tile.beach.corner" + index
-                                        + ".r" + ((isEven(x, y)) ? "0" : "1"),
+        return ResourceManager.getImage(BEACH_CORNER_KEYS[index]
+                                        [(isEven(x, y)) ? 0 : 1],
                                         scalingFactor);
     }
 
@@ -258,8 +481,8 @@ public final class ImageLibrary {
      * @return The image at the given index.
      */
     public BufferedImage getBeachEdgeImage(int index, int x, int y) {
-        return ResourceManager.getImage("image.tile.model.tile.beach.edge" + index
-                                        + ".r"+ ((isEven(x, y)) ? "0" : "1"),
+        return ResourceManager.getImage(BEACH_EDGE_KEYS[index]
+                                        [(isEven(x, y)) ? 0 : 1],
                                         scalingFactor);
     }
 
@@ -276,10 +499,8 @@ public final class ImageLibrary {
      */
     public BufferedImage getBorderImage(TileType type, Direction direction,
                                 int x, int y) {
-        String key = (type == null) ? "model.tile.unexplored" : type.getId();
-        return ResourceManager.getImage("image.tile." + key + ".border." + direction
-                                        + ".r" + ((isEven(x, y)) ?  "0" : "1")
-                                        , scalingFactor);
+        return getTileTypeImages(type).getImage(BORDER + 2 * direction.ordinal()
+            + ((isEven(x, y)) ? 0 : 1), scalingFactor);
     }
 
     /**
@@ -297,7 +518,7 @@ public final class ImageLibrary {
     }
 
     public static BufferedImage getForestImage(TileType type, float scale) {
-        return ResourceManager.getImage("image.tileforest." + type.getId(), scale);
+        return getTileTypeImages(type).getImage(FOREST, scale);
     }
 
     public static BufferedImage getForestImage(TileType type, TileImprovementStyle riverStyle, float scale) {
@@ -314,7 +535,7 @@ public final class ImageLibrary {
             // end @compat
                 return ResourceManager.getImage(key, scale);
         }
-        return ResourceManager.getImage("image.tileforest." + type.getId(), scale);
+        return getForestImage(type, scale);
     }
 
     /**
@@ -523,44 +744,7 @@ public final class ImageLibrary {
      * @return The terrain-image at the given index.
      */
     public static BufferedImage getOverlayImage(TileType type, String id, float scale) {
-        String prefix = "image.tileoverlay." + type.getId();
-        ArrayList<String> keys = ResourceManager.getImageKeys(prefix);
-        return getRandomizedImage(keys, id, scale);
-    }
-
-    public static Set<String> createOverlayCache() {
-        return ResourceManager.getImageKeySet("image.tileoverlay.");
-    }
-
-    public BufferedImage getOverlayImage(Tile tile, Set<String> overlayCache) {
-        return getOverlayImage(tile.getType(), tile.getId(), scalingFactor,
-                               overlayCache);
-    }
-
-    public static BufferedImage getOverlayImage(TileType type, String id, float scale,
-                                        Set<String> overlayCache) {
-        String prefix = "image.tileoverlay." + type.getId() + ".r";
-        ArrayList<String> keys = new ArrayList<>();
-        for (String key : overlayCache) {
-            if (key.startsWith(prefix)) {
-                keys.add(key);
-            }
-        }
-        return getRandomizedImage(keys, id, scale);
-    }
-
-    private static BufferedImage getRandomizedImage(ArrayList<String> keys, String id, float scale) {
-        int count = keys.size();
-        switch(count) {
-            case 0:
-                return null;
-            case 1:
-                return ResourceManager.getImage(keys.get(0), scale);
-            default:
-                Collections.sort(keys);
-                return ResourceManager.getImage(
-                    keys.get(Math.abs(id.hashCode() % count)), scale);
-        }
+        return getTileTypeImages(type).getOverlayImage(id, scale);
     }
 
     /**
@@ -652,9 +836,9 @@ public final class ImageLibrary {
      */
     public BufferedImage getRiverMouthImage(Direction direction, int magnitude,
                                     int x, int y) {
-        String key = "image.tile.model.tile.delta." + direction
-            + (magnitude == 1 ? ".small" : ".large");
-        return ResourceManager.getImage(key, scalingFactor);
+        return ResourceManager.getImage(RIVER_MOUTH_KEYS[direction.ordinal()]
+                                        [(magnitude == 1) ? 0 : 1],
+                                        scalingFactor);
     }
 
     public BufferedImage getSmallSettlementImage(Settlement settlement) {
@@ -731,9 +915,8 @@ public final class ImageLibrary {
     }
 
     public static BufferedImage getTerrainImage(TileType type, int x, int y, float scale) {
-        String key = (type == null) ? "model.tile.unexplored" : type.getId();
-        return ResourceManager.getImage("image.tile." + key + ".center.r"
-            + (isEven(x, y) ? "0" : "1"), scale);
+        return getTileTypeImages(type).getImage(CENTER
+            + ((isEven(x, y)) ? 0 : 1), scale);
     }
 
     public BufferedImage getSmallerUnitImage(Unit unit) {
@@ -162,6 +162,12 @@ public final class MapViewer {
 
     private RoadPainter rp;
 
+    /** The cached base terrain, drawn with the image library. */
+    private TerrainCache terrainCache;
+
+    /** The fonts at the scale of the image library. */
+    private FontLibrary fontLibrary;
+
     private TerrainCursor cursor;
     private volatile boolean blinkingMarqueeEnabled;
 
@@ -587,7 +593,6 @@ public final class MapViewer {
      *      of the <code>Tile</code> objects for.
      */
     public void displayColonyTiles(Graphics2D g, Tile[][] tiles, Colony colony) {
-        Set<String> overlayCache = ImageLibrary.createOverlayCache();
         final Tile tile = colony.getTile();
         Dimension tileSize = lib.calculateTileSize(tile);
         for (int x = 0; x < 3; x++) {
@@ -596,7 +601,7 @@ public final class MapViewer {
                     int xx = (((2 - x) + y) * tileSize.width) / 2;
                     int yy = ((x + y) * tileSize.height) / 2;
                     g.translate(xx, yy);
-                    Image overlayImage = lib.getOverlayImage(tiles[x][y], overlayCache);
+                    Image overlayImage = lib.getOverlayImage(tiles[x][y]);
                     displayColonyTile(g, tiles[x][y], colony, overlayImage);
                     g.translate(-xx, -yy);
                 }
@@ -1401,7 +1406,7 @@ public final class MapViewer {
      * @param drawUnexploredBorders If true; draws border between explored and
      *        unexplored terrain.
      */
-    private static void displayTileWithBeachAndBorder(Graphics2D g,
+    static void displayTileWithBeachAndBorder(Graphics2D g,
                                                       ImageLibrary library,
                                                       Tile tile,
                                                       boolean drawUnexploredBorders) {
@@ -1565,7 +1570,6 @@ public final class MapViewer {
         AffineTransform originTransform = g.getTransform();
         Rectangle clipBounds = g.getClipBounds();
         Map map = freeColClient.getGame().getMap();
-        FontLibrary fontLibrary = new FontLibrary(lib.getScalingFactor());
 
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                            RenderingHints.VALUE_ANTIALIAS_ON);
@@ -1636,22 +1640,8 @@ public final class MapViewer {
         AffineTransform baseTransform = g.getTransform();
         AffineTransform rowTransform = null;
 
-        // Row per row; start with the top modified row
-        for (int row = firstRow; row <= lastRow; row++) {
-            rowTransform = g.getTransform();
-            if ((row & 1) == 1) {
-                g.translate(halfWidth, 0);
-            }
-
-            // Column per column; start at the left side to display the tiles.
-            for (int column = firstColumn; column <= lastColumn; column++) {
-                Tile tile = map.getTile(column, row);
-                displayTileWithBeachAndBorder(g, lib, tile, true);
-                g.translate(tileWidth, 0);
-            }
-            g.setTransform(rowTransform);
-            g.translate(0, halfHeight);
-        }
+        terrainCache.display(g, map, firstColumn, firstRow,
+                             lastColumn, lastRow);
         g.setTransform(baseTransform);
 
         /*
@@ -1664,7 +1654,6 @@ public final class MapViewer {
         List<AffineTransform> unitTransforms = new ArrayList<>();
         List<Settlement> settlements = new ArrayList<>();
         List<AffineTransform> settlementTransforms = new ArrayList<>();
-        Set<String> overlayCache = ImageLibrary.createOverlayCache();
 
         int colonyLabels = options.getInteger(ClientOptions.COLONY_LABELS);
         boolean withNumbers = colonyLabels == ClientOptions.COLONY_LABELS_CLASSIC;
@@ -1702,7 +1691,7 @@ public final class MapViewer {
                                 0, 0, null);
                         }
                     }
-                    Image overlayImage = lib.getOverlayImage(tile, overlayCache);
+                    Image overlayImage = lib.getOverlayImage(tile);
                     displayTileItems(g, tile, overlayImage);
                     displaySettlementWithChipsOrPopulationNumber(freeColClient,
                         lib, g, tile, tileWidth, tileHeight, withNumbers);
@@ -1770,6 +1759,9 @@ public final class MapViewer {
         */
         if (!settlements.isEmpty()
             && colonyLabels != ClientOptions.COLONY_LABELS_NONE) {
+            Font font = fontLibrary.createScaledFont(FontLibrary.FontType.NORMAL, FontLibrary.FontSize.SMALLER, Font.BOLD);
+            Font italicFont = fontLibrary.createScaledFont(FontLibrary.FontType.NORMAL, FontLibrary.FontSize.SMALLER, Font.BOLD | Font.ITALIC);
+            Font productionFont = fontLibrary.createScaledFont(FontLibrary.FontType.NORMAL, FontLibrary.FontSize.TINY, Font.BOLD);
             for (int index = 0; index < settlements.size(); index++) {
                 final Settlement settlement = settlements.get(index);
                 if (settlement.isDisposed()) {
@@ -1782,9 +1774,6 @@ public final class MapViewer {
                 if (name == null) continue;
                 Color backgroundColor = settlement.getOwner().getNationColor();
                 if (backgroundColor == null) backgroundColor = Color.WHITE;
-                Font font = fontLibrary.createScaledFont(FontLibrary.FontType.NORMAL, FontLibrary.FontSize.SMALLER, Font.BOLD);
-                Font italicFont = fontLibrary.createScaledFont(FontLibrary.FontType.NORMAL, FontLibrary.FontSize.SMALLER, Font.BOLD | Font.ITALIC);
-                Font productionFont = fontLibrary.createScaledFont(FontLibrary.FontType.NORMAL, FontLibrary.FontSize.TINY, Font.BOLD);
                 // int yOffset = lib.getSettlementImage(settlement).getHeight(null) + 1;
                 int yOffset = tileHeight;
                 g.setTransform(settlementTransforms.get(index));
@@ -2733,6 +2722,8 @@ public final class MapViewer {
         halfHeight = tileHeight/2;
         tileWidth = unexplored.getWidth(null);
         halfWidth = tileWidth/2;
+        terrainCache = new TerrainCache(lib, tileWidth, tileHeight);
+        fontLibrary = new FontLibrary(lib.getScalingFactor());
 
         int dx = tileWidth/16;
         int dy = tileHeight/16;
@@ -0,0 +1,256 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.client.gui;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import net.sf.freecol.common.model.Direction;
+import net.sf.freecol.common.model.Map;
+import net.sf.freecol.common.model.Tile;
+import net.sf.freecol.common.model.TileImprovement;
+
+
+/**
+ * A cache of the base terrain of the map, drawn in blocks of tiles.
+ *
+ * The base terrain of a tile (its type, beaches and the borders with
+ * its neighbours) changes rarely, but is made of several images that
+ * were composited for every tile on every repaint.  Here each block is
+ * drawn once into an off-screen image, along with a stamp made from
+ * the terrain of the tiles in and around it.  When the block is
+ * displayed again, it is redrawn only if the stamp has changed, that
+ * is, only if an update from the server has changed the terrain or
+ * exploration of one of those tiles.
+ *
+ * The cache is tied to one image library, and so to one scale.
+ * Everything else on the map is drawn on top by the map viewer.
+ */
+final class TerrainCache {
+
+    /**
+     * The number of tile columns and rows in a block.  It is even so
+     * that every block starts on an even row.  The block images
+     * cover adjacent rectangles of the map, each BLOCK_SIZE tiles
+     * wide and BLOCK_SIZE half tiles high, and contain all of every
+     * tile that overlaps them, drawn in the same order as the tiles
+     * of the whole map would be.
+     */
+    private static final int BLOCK_SIZE = 8;
+
+    /** The most pixels to hold in cached blocks. */
+    private static final long MAX_PIXELS = 16L * 1024 * 1024;
+
+    /** A block of terrain drawn off-screen. */
+    private static final class Block {
+
+        /** The image of the block. */
+        public final BufferedImage image;
+
+        /** The stamp of the terrain the image was drawn from. */
+        public final long stamp;
+
+
+        /**
+         * Create a new block.
+         *
+         * @param image The image of the block.
+         * @param stamp The stamp of the terrain.
+         */
+        public Block(BufferedImage image, long stamp) {
+            this.image = image;
+            this.stamp = stamp;
+        }
+    }
+
+    /** The image library to draw the terrain with. */
+    private final ImageLibrary lib;
+
+    /** The size of the tiles. */
+    private final int tileWidth, tileHeight, halfWidth, halfHeight;
+
+    /** The size of the block images. */
+    private final int blockWidth, blockHeight;
+
+    /** The map the blocks were drawn from. */
+    private Map map = null;
+
+    /** The blocks, in least recently used order. */
+    private final LinkedHashMap<Long, Block> blocks
+        = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The number of pixels in the cached blocks. */
+    private long pixels = 0;
+
+
+    /**
+     * Create a new terrain cache.
+     *
+     * @param lib The <code>ImageLibrary</code> to draw with.
+     * @param tileWidth The width of a tile.
+     * @param tileHeight The height of a tile.
+     */
+    public TerrainCache(ImageLibrary lib, int tileWidth, int tileHeight) {
+        this.lib = lib;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.halfWidth = tileWidth / 2;
+        this.halfHeight = tileHeight / 2;
+        this.blockWidth = BLOCK_SIZE * tileWidth;
+        this.blockHeight = BLOCK_SIZE * halfHeight;
+    }
+
+
+    /**
+     * Discard all the cached blocks.
+     */
+    public void clear() {
+        blocks.clear();
+        pixels = 0;
+    }
+
+    /**
+     * Display the base terrain of a range of tiles.
+     *
+     * The graphics origin is where the tile at the first column and
+     * row would be drawn if that row were even.
+     *
+     * @param g The <code>Graphics2D</code> to draw on.
+     * @param map The <code>Map</code> to draw.
+     * @param firstColumn The first column to draw.
+     * @param firstRow The first row to draw.
+     * @param lastColumn The last column to draw.
+     * @param lastRow The last row to draw.
+     */
+    public void display(Graphics2D g, Map map, int firstColumn, int firstRow,
+                        int lastColumn, int lastRow) {
+        if (map != this.map) {
+            clear();
+            this.map = map;
+        }
+        final int bx0 = Math.max(0, firstColumn) / BLOCK_SIZE;
+        final int by0 = Math.max(0, firstRow) / BLOCK_SIZE;
+        final int bx1 = Math.min(map.getWidth(), lastColumn + 1) / BLOCK_SIZE;
+        final int by1 = Math.min(map.getHeight(), lastRow + 1) / BLOCK_SIZE;
+        for (int by = by0; by <= by1; by++) {
+            for (int bx = bx0; bx <= bx1; bx++) {
+                BufferedImage image = getBlockImage(g, map, bx, by);
+                g.drawImage(image,
+                    (bx * BLOCK_SIZE - firstColumn) * tileWidth,
+                    (by * BLOCK_SIZE - firstRow) * halfHeight, null);
+            }
+        }
+    }
+
+    /**
+     * Gets the image of a block, drawing it if it is not cached or
+     * the terrain has changed.
+     *
+     * @param g The <code>Graphics2D</code> the image will be drawn on.
+     * @param map The <code>Map</code> to draw.
+     * @param bx The block column.
+     * @param by The block row.
+     * @return The image of the block.
+     */
+    private BufferedImage getBlockImage(Graphics2D g, Map map, int bx, int by) {
+        final Long key = ((long)bx << 32) | (by & 0xffffffffL);
+        final long stamp = makeStamp(map, bx, by);
+        Block block = blocks.get(key);
+        if (block != null && block.stamp == stamp) return block.image;
+
+        BufferedImage image = (block != null) ? block.image
+            : g.getDeviceConfiguration().createCompatibleImage(blockWidth,
+                blockHeight, Transparency.TRANSLUCENT);
+        Graphics2D bg = image.createGraphics();
+        bg.setComposite(AlphaComposite.Clear);
+        bg.fillRect(0, 0, blockWidth, blockHeight);
+        bg.setComposite(AlphaComposite.SrcOver);
+        final int c0 = bx * BLOCK_SIZE, r0 = by * BLOCK_SIZE;
+        for (int r = r0 - 1; r < r0 + BLOCK_SIZE; r++) {
+            for (int c = c0 - 1; c <= c0 + BLOCK_SIZE; c++) {
+                Tile tile = map.getTile(c, r);
+                if (tile == null) continue;
+                int x = (c - c0) * tileWidth + (((r & 1) == 1) ? halfWidth : 0);
+                int y = (r - r0) * halfHeight;
+                bg.translate(x, y);
+                MapViewer.displayTileWithBeachAndBorder(bg, lib, tile, true);
+                bg.translate(-x, -y);
+            }
+        }
+        bg.dispose();
+
+        if (block == null) {
+            pixels += (long)blockWidth * blockHeight;
+            Iterator<Block> it = blocks.values().iterator();
+            while (pixels > MAX_PIXELS && it.hasNext()) {
+                Block old = it.next();
+                pixels -= (long)old.image.getWidth() * old.image.getHeight();
+                it.remove();
+            }
+        }
+        blocks.put(key, new Block(image, stamp));
+        return image;
+    }
+
+    /**
+     * Make a stamp of the terrain that a block is drawn from, which
+     * includes the tiles around those drawn as they determine the
+     * borders.
+     *
+     * @param map The <code>Map</code> to draw.
+     * @param bx The block column.
+     * @param by The block row.
+     * @return The stamp of the block.
+     */
+    private static long makeStamp(Map map, int bx, int by) {
+        final int c0 = bx * BLOCK_SIZE, r0 = by * BLOCK_SIZE;
+        long stamp = 17;
+        for (int r = r0 - 3; r < r0 + BLOCK_SIZE + 2; r++) {
+            for (int c = c0 - 2; c <= c0 + BLOCK_SIZE + 1; c++) {
+                stamp = stamp * 1000003 + tileStamp(map.getTile(c, r));
+            }
+        }
+        return stamp;
+    }
+
+    /**
+     * Make a stamp of the terrain of a tile.
+     *
+     * @param tile The <code>Tile</code> to stamp, which may be null.
+     * @return The stamp of the tile.
+     */
+    private static int tileStamp(Tile tile) {
+        if (tile == null) return 0;
+        if (tile.getType() == null) return 1;
+        int stamp = ((tile.getType().getIndex() + 2) << 8) | tile.getStyle();
+        TileImprovement river = tile.getRiver();
+        if (river != null) {
+            stamp = stamp * 31 + river.getMagnitude();
+            for (Direction d : Direction.values()) {
+                stamp = stamp * 2 + ((river.isConnectedTo(d)) ? 1 : 0);
+            }
+        }
+        return stamp;
+    }
+}
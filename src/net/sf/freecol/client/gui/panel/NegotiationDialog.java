@@ -132,7 +132,7 @@ public final class NegotiationDialog extends FreeColDialog<DiplomaticTrade> {
             this.addButton.addActionListener(this);
             this.addButton.setActionCommand(ADD);
             this.label = Utility.localizedLabel(Messages.getName("model.tradeItem.colony"));
-            this.allColonies = source.getColonies();
+            this.allColonies = new ArrayList<>(source.getColonies());
 
             setLayout(new MigLayout("wrap 1", "", ""));
             setBorder(Utility.SIMPLE_LINE_BORDER);
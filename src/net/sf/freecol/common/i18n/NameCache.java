@@ -117,22 +117,22 @@ public class NameCache {
      * Initialize the cities of Cibola collection.
      *
      * Public for FreeColServer to initialize with a new game.
+     * Any cities left over from a previous game are discarded, so
+     * the shuffle depends only on the random source.
      *
      * @param random A pseudo-random number source.
      */
     public static void requireCitiesOfCibola(Random random) {
         synchronized (cibolaLock) {
-            if (cibolaKeys == null) {
-                cibolaKeys = new ArrayList<>();
-                collectNames(CIBOLA_PREFIX, cibolaKeys);
-                int count = cibolaKeys.size();
-                // Actually, store the keys.
-                cibolaKeys.clear();
-                for (int i = 0; i < count; i++) {
-                    cibolaKeys.add(CIBOLA_PREFIX + i);
-                }
-                randomShuffle(logger, "Cibola", cibolaKeys, random);
+            cibolaKeys = new ArrayList<>();
+            collectNames(CIBOLA_PREFIX, cibolaKeys);
+            int count = cibolaKeys.size();
+            // Actually, store the keys.
+            cibolaKeys.clear();
+            for (int i = 0; i < count; i++) {
+                cibolaKeys.add(CIBOLA_PREFIX + i);
             }
+            randomShuffle(logger, "Cibola", cibolaKeys, random);
         }
     }
 
@@ -180,6 +180,22 @@ public class NameCache {
         }
     }
 
+    /**
+     * Forget the region and river names handed out so far.
+     *
+     * Public for FreeColServer to reset with a new game, so that a
+     * game does not depend on the names used by a previous one.
+     */
+    public static void clearRegionNames() {
+        synchronized (regionNameLock) {
+            regionNames.clear();
+            regionIndex.clear();
+        }
+        synchronized (riverNameLock) {
+            riverNames = null;
+        }
+    }
+
     /**
      * Initialize the riverNames collection.
      */
@@ -118,6 +118,22 @@ public class FreeColSavegameFile extends FreeColDataFile {
         return new FreeColXMLReader(getSavegameInputStream());
     }
 
+    /**
+     * Creates a <code>FreeColXMLReader</code> for reading this saved
+     * game, that decompresses the savegame data in a separate thread
+     * while it is parsed.
+     *
+     * @param threadName The name for the decompressing thread.
+     * @return The <code>FreeColXMLReaderr</code>.
+     * @exception IOException if thrown while loading the game or if a
+     *     <code>XMLStreamException</code> have been thrown by the parser.
+     */
+    public FreeColXMLReader getReadAheadFreeColXMLReader(String threadName)
+        throws IOException {
+        return new FreeColXMLReader(new ReadAheadInputStream(
+                getSavegameInputStream(), threadName));
+    }
+
     /**
      * File endings that are supported for this type of data file.
      * @return An array of: ".fsg" and ".zip".
@@ -37,6 +37,7 @@ import java.util.logging.Logger;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.util.StreamReaderDelegate;
 
 import net.sf.freecol.common.model.FreeColObject;
@@ -118,6 +119,20 @@ public class FreeColXMLReader extends StreamReaderDelegate
         this.readScope = ReadScope.NORMAL;
     }
 
+    /**
+     * Creates a new <code>FreeColXMLReader</code> that reads from
+     * another stream reader, such as that of an
+     * <code>XMLEventBuffer</code>.
+     *
+     * @param xmlStreamReader The <code>XMLStreamReader</code> to read from.
+     */
+    public FreeColXMLReader(XMLStreamReader xmlStreamReader) {
+        super(xmlStreamReader);
+
+        this.inputStream = null;
+        this.readScope = ReadScope.NORMAL;
+    }
+
 
     /**
      * Should reads from this stream intern their objects into the
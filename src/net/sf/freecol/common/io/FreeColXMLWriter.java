@@ -40,6 +40,7 @@ import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -47,6 +48,8 @@ import net.sf.freecol.common.model.FreeColObject;
 import net.sf.freecol.common.model.Location;
 import net.sf.freecol.common.model.Player;
 
+import org.w3c.dom.Node;
+
 
 /**
  * A wrapper for <code>XMLStreamWriter</code> and potentially an
@@ -70,22 +73,42 @@ public class FreeColXMLWriter implements Closeable, XMLStreamWriter {
         "{http://xml.apache.org/xslt}indent-amount", "2"
     };
 
-    /** The scope of a FreeCol object write. */
-    public static enum WriteScope {
-        CLIENT,  // Only the client-visible information
-        SERVER,  // Full server-visible information
-        SAVE;    // Absolutely everything needed to save the game state
+    /**
+     * The scope of a FreeCol object write.
+     *
+     * Client scopes carry the player to write to, so a new one is
+     * made for each client write and they are safe to use from
+     * several threads at once.  The server and save scopes are shared.
+     */
+    public static final class WriteScope {
+
+        private static enum Scope {
+            CLIENT,  // Only the client-visible information
+            SERVER,  // Full server-visible information
+            SAVE;    // Absolutely everything needed to save the game state
+        }
+
+        private static final WriteScope SERVER
+            = new WriteScope(Scope.SERVER, null);
+
+        private static final WriteScope SAVE
+            = new WriteScope(Scope.SAVE, null);
+
+        private final Scope scope;
 
-        private Player player = null; // The player to write to.
+        private final Player player; // The player to write to.
 
 
+        private WriteScope(Scope scope, Player player) {
+            this.scope = scope;
+            this.player = player;
+        }
+
         public static WriteScope toClient(Player player) {
             if (player == null) {
                 throw new IllegalArgumentException("Null player.");
             }
-            WriteScope ret = WriteScope.CLIENT;
-            ret.player = player;
-            return ret;
+            return new WriteScope(Scope.CLIENT, player);
         }            
 
         public static WriteScope toServer() {
@@ -97,20 +120,28 @@ public class FreeColXMLWriter implements Closeable, XMLStreamWriter {
         }
 
         public boolean isValid() {
-            return (this == WriteScope.CLIENT) == (player != null);
+            return (this.scope == Scope.CLIENT) == (player != null);
         }
 
         public boolean validForSave() {
-            return this == WriteScope.SAVE;
+            return this.scope == Scope.SAVE;
         }
 
         public boolean validFor(Player player) {
-            return this != WriteScope.CLIENT || this.player == player;
+            return this.scope != Scope.CLIENT || this.player == player;
         }
 
         public Player getClient() {
             return this.player;
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return this.scope.toString();
+        }
     }
 
 
@@ -156,6 +187,41 @@ public class FreeColXMLWriter implements Closeable, XMLStreamWriter {
         this(writer, scope, false);
     }
 
+    /**
+     * Creates a new <code>FreeColXMLWriter</code> that builds DOM nodes
+     * directly under a given node, rather than writing text.
+     *
+     * @param node The <code>Node</code> to append to.
+     * @param scope The <code>WriteScope</code> to use for FreeCol
+     *     object writes.
+     * @exception IOException if thrown while creating the
+     *     <code>XMLStreamWriter</code>.
+     */
+    public FreeColXMLWriter(Node node, WriteScope scope) throws IOException {
+        try {
+            this.xmlStreamWriter = getFactory()
+                .createXMLStreamWriter(new DOMResult(node));
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        this.writeScope = scope;
+    }
+
+    /**
+     * Creates a new <code>FreeColXMLWriter</code> that writes to
+     * another stream writer, such as that of an
+     * <code>XMLEventBuffer</code>.
+     *
+     * @param xmlStreamWriter The <code>XMLStreamWriter</code> to write to.
+     * @param scope The <code>WriteScope</code> to use for FreeCol
+     *     object writes.
+     */
+    public FreeColXMLWriter(XMLStreamWriter xmlStreamWriter,
+                            WriteScope scope) {
+        this.xmlStreamWriter = xmlStreamWriter;
+        this.writeScope = scope;
+    }
+
     /**
      * Creates a new <code>FreeColXMLWriter</code>.
      *
@@ -0,0 +1,220 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * An input stream that reads ahead from another stream in a separate
+ * thread.
+ *
+ * Reading a saved game spends much of its time decompressing the
+ * savegame entry, and much parsing the XML and building the game.
+ * Wrapping the decompressing stream in one of these lets the two
+ * proceed at the same time.  The data is passed over in chunks
+ * through a bounded queue, so the reading thread only gets a little
+ * way ahead of the consumer.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    private static final Logger logger = Logger.getLogger(ReadAheadInputStream.class.getName());
+
+    /** The default size of a chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /** The default number of chunks to read ahead. */
+    public static final int DEFAULT_CHUNKS = 16;
+
+    /** A chunk marking the end of the data. */
+    private static final byte[] END = new byte[0];
+
+    /** The chunks read ahead. */
+    private final BlockingQueue<byte[]> chunks;
+
+    /** The thread reading ahead. */
+    private final Thread reader;
+
+    /** The exception that stopped the reading thread, if any. */
+    private volatile IOException failure = null;
+
+    /** Has this stream been closed? */
+    private volatile boolean closed = false;
+
+    /** The chunk being consumed. */
+    private byte[] chunk = null;
+
+    /** The position in the current chunk. */
+    private int position = 0;
+
+
+    /**
+     * Create a new read ahead stream with the default buffering.
+     *
+     * @param in The <code>InputStream</code> to read from.
+     * @param name The name of the reading thread.
+     */
+    public ReadAheadInputStream(InputStream in, String name) {
+        this(in, name, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNKS);
+    }
+
+    /**
+     * Create a new read ahead stream.
+     *
+     * @param in The <code>InputStream</code> to read from, which is
+     *     closed when the reading thread finishes.
+     * @param name The name of the reading thread.
+     * @param chunkSize The size of the chunks to read.
+     * @param maxChunks The most chunks to read ahead.
+     */
+    public ReadAheadInputStream(final InputStream in, String name,
+                                final int chunkSize, int maxChunks) {
+        this.chunks = new ArrayBlockingQueue<>(maxChunks);
+        this.reader = new Thread(name) {
+                @Override
+                public void run() {
+                    try {
+                        for (;;) {
+                            byte[] buf = new byte[chunkSize];
+                            int n = 0, r = 0;
+                            while (n < chunkSize
+                                && (r = in.read(buf, n, chunkSize - n)) >= 0) {
+                                n += r;
+                            }
+                            if (n > 0) {
+                                if (n < chunkSize) {
+                                    byte[] b = new byte[n];
+                                    System.arraycopy(buf, 0, b, 0, n);
+                                    buf = b;
+                                }
+                                if (!deliver(buf)) return;
+                            }
+                            if (r < 0) break;
+                        }
+                    } catch (IOException ioe) {
+                        failure = ioe;
+                    } finally {
+                        try {
+                            in.close();
+                        } catch (IOException ioe) {
+                            logger.log(Level.WARNING, "Error closing stream.",
+                                       ioe);
+                        }
+                    }
+                    deliver(END);
+                }
+            };
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+
+    /**
+     * Pass a chunk to the consumer, waiting for space in the queue.
+     *
+     * @param buf The chunk to pass.
+     * @return False if the stream was closed before the chunk was passed.
+     */
+    private boolean deliver(byte[] buf) {
+        try {
+            while (!closed) {
+                if (chunks.offer(buf, 100, TimeUnit.MILLISECONDS)) return true;
+            }
+        } catch (InterruptedException ie) {
+            // Closed
+        }
+        return false;
+    }
+
+    /**
+     * Make sure there is a current chunk with data left in it.
+     *
+     * @return False if the end of the data has been reached.
+     * @exception IOException if the reading thread failed, or this
+     *     thread was interrupted.
+     */
+    private boolean fill() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        while (chunk == null || position >= chunk.length) {
+            if (chunk == END) {
+                if (failure != null) throw failure;
+                return false;
+            }
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException ie) {
+                throw new InterruptedIOException("Read interrupted");
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+
+    // Override InputStream
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        return (fill()) ? chunk[position++] & 0xff : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!fill()) return -1;
+        int n = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() throws IOException {
+        return (closed || chunk == null) ? 0 : chunk.length - position;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        reader.interrupt();
+        chunks.clear();
+        chunk = null;
+    }
+}
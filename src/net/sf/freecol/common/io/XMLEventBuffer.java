@@ -0,0 +1,755 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+
+/**
+ * An in-memory buffer of XML elements, attributes and text.
+ *
+ * The buffer is filled through the stream writer it provides, and
+ * can then be read back any number of times through stream readers.
+ * The element and attribute names and values are kept as strings, so
+ * nothing is escaped, encoded or parsed on the way.  This makes
+ * passing a game object through the buffer a cheap way to copy it,
+ * using the same code that saves and loads it.
+ *
+ * Only elements, attributes and text are kept.  Namespaces,
+ * comments, processing instructions and the like are dropped.
+ */
+public final class XMLEventBuffer {
+
+    /** The types of the events. */
+    private int[] types = new int[256];
+
+    /**
+     * The name of the element of each element event, or the text of
+     * each text event.
+     */
+    private String[] values = new String[256];
+
+    /**
+     * The position of the first attribute of each start element event
+     * in the attribute arrays.
+     */
+    private int[] firstAttributes = new int[256];
+
+    /** The number of events. */
+    private int size = 0;
+
+    /** The attribute names. */
+    private String[] attributeNames = new String[1024];
+
+    /** The attribute values. */
+    private String[] attributeValues = new String[1024];
+
+    /** The number of attributes. */
+    private int attributeCount = 0;
+
+
+    /**
+     * Create a new empty buffer.
+     */
+    public XMLEventBuffer() {}
+
+
+    /**
+     * Gets a stream writer that appends to this buffer.
+     *
+     * @return A new <code>XMLStreamWriter</code>.
+     */
+    public XMLStreamWriter getWriter() {
+        return new Writer();
+    }
+
+    /**
+     * Gets a stream reader that reads this buffer from the start.
+     *
+     * @return A new <code>XMLStreamReader</code>.
+     */
+    public XMLStreamReader getReader() {
+        return new Reader();
+    }
+
+    /**
+     * Gets the number of events in this buffer.
+     *
+     * @return The number of events.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Append an event.
+     *
+     * @param type The event type.
+     * @param value The element name or text.
+     */
+    private void add(int type, String value) {
+        if (size >= types.length) {
+            types = Arrays.copyOf(types, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+            firstAttributes = Arrays.copyOf(firstAttributes, 2 * size);
+        }
+        types[size] = type;
+        values[size] = value;
+        firstAttributes[size] = attributeCount;
+        size++;
+    }
+
+    /**
+     * Append an attribute to the last event.
+     *
+     * @param name The attribute name.
+     * @param value The attribute value.
+     */
+    private void addAttribute(String name, String value) {
+        if (attributeCount >= attributeNames.length) {
+            attributeNames = Arrays.copyOf(attributeNames, 2 * attributeCount);
+            attributeValues = Arrays.copyOf(attributeValues,
+                                            2 * attributeCount);
+        }
+        attributeNames[attributeCount] = name;
+        attributeValues[attributeCount] = value;
+        attributeCount++;
+    }
+
+
+    /** A stream writer that appends to the buffer. */
+    private final class Writer implements XMLStreamWriter {
+
+        /** The names of the open elements. */
+        private final List<String> open = new ArrayList<>();
+
+        /** Can attributes be added to the last event? */
+        private boolean inStart = false;
+
+        /** Is the last element empty, and so due to be closed? */
+        private boolean inEmpty = false;
+
+
+        /**
+         * Finish the last start element, closing it if it was empty.
+         */
+        private void finishStart() {
+            if (inEmpty) {
+                add(XMLStreamConstants.END_ELEMENT, values[size - 1]);
+                inEmpty = false;
+            }
+            inStart = false;
+        }
+
+        /**
+         * Start an element.
+         *
+         * @param localName The element name.
+         * @param empty If true, the element is empty.
+         */
+        private void start(String localName, boolean empty) {
+            finishStart();
+            add(XMLStreamConstants.START_ELEMENT, localName);
+            if (!empty) open.add(localName);
+            inStart = true;
+            inEmpty = empty;
+        }
+
+        /**
+         * Add an attribute to the current start element.
+         *
+         * @param localName The attribute name.
+         * @param value The attribute value.
+         * @exception XMLStreamException if there is no current start
+         *     element.
+         */
+        private void attribute(String localName, String value)
+            throws XMLStreamException {
+            if (!inStart) {
+                throw new XMLStreamException("Attribute outside element: "
+                    + localName);
+            }
+            addAttribute(localName, value);
+        }
+
+        /**
+         * Add some text.
+         *
+         * @param text The text to add.
+         */
+        private void text(String text) {
+            finishStart();
+            if (text.isEmpty()) return;
+            if (size > 0 && types[size - 1] == XMLStreamConstants.CHARACTERS) {
+                values[size - 1] += text;
+            } else {
+                add(XMLStreamConstants.CHARACTERS, text);
+            }
+        }
+
+        // Implement XMLStreamWriter
+
+        @Override
+        public void writeStartElement(String localName) {
+            start(localName, false);
+        }
+
+        @Override
+        public void writeStartElement(String namespaceURI, String localName) {
+            start(localName, false);
+        }
+
+        @Override
+        public void writeStartElement(String prefix, String localName,
+                                      String namespaceURI) {
+            start(localName, false);
+        }
+
+        @Override
+        public void writeEmptyElement(String namespaceURI, String localName) {
+            start(localName, true);
+        }
+
+        @Override
+        public void writeEmptyElement(String prefix, String localName,
+                                      String namespaceURI) {
+            start(localName, true);
+        }
+
+        @Override
+        public void writeEmptyElement(String localName) {
+            start(localName, true);
+        }
+
+        @Override
+        public void writeEndElement() throws XMLStreamException {
+            finishStart();
+            if (open.isEmpty()) {
+                throw new XMLStreamException("No element to end");
+            }
+            add(XMLStreamConstants.END_ELEMENT, open.remove(open.size() - 1));
+        }
+
+        @Override
+        public void writeEndDocument() throws XMLStreamException {
+            while (!open.isEmpty()) writeEndElement();
+            finishStart();
+        }
+
+        @Override
+        public void close() throws XMLStreamException {
+            writeEndDocument();
+        }
+
+        @Override
+        public void flush() {
+            // Nothing to flush
+        }
+
+        @Override
+        public void writeAttribute(String localName, String value)
+            throws XMLStreamException {
+            attribute(localName, value);
+        }
+
+        @Override
+        public void writeAttribute(String prefix, String namespaceURI,
+                                   String localName, String value)
+            throws XMLStreamException {
+            attribute(localName, value);
+        }
+
+        @Override
+        public void writeAttribute(String namespaceURI, String localName,
+                                   String value) throws XMLStreamException {
+            attribute(localName, value);
+        }
+
+        @Override
+        public void writeNamespace(String prefix, String namespaceURI) {
+            // Namespaces are dropped
+        }
+
+        @Override
+        public void writeDefaultNamespace(String namespaceURI) {
+            // Namespaces are dropped
+        }
+
+        @Override
+        public void writeComment(String data) {
+            finishStart();
+        }
+
+        @Override
+        public void writeProcessingInstruction(String target) {
+            finishStart();
+        }
+
+        @Override
+        public void writeProcessingInstruction(String target, String data) {
+            finishStart();
+        }
+
+        @Override
+        public void writeCData(String data) {
+            text(data);
+        }
+
+        @Override
+        public void writeDTD(String dtd) {
+            // DTDs are dropped
+        }
+
+        @Override
+        public void writeEntityRef(String name) throws XMLStreamException {
+            throw new XMLStreamException("Entity references not supported");
+        }
+
+        @Override
+        public void writeStartDocument() {
+            // Implicit
+        }
+
+        @Override
+        public void writeStartDocument(String version) {
+            // Implicit
+        }
+
+        @Override
+        public void writeStartDocument(String encoding, String version) {
+            // Implicit
+        }
+
+        @Override
+        public void writeCharacters(String text) {
+            text(text);
+        }
+
+        @Override
+        public void writeCharacters(char[] text, int start, int len) {
+            text(new String(text, start, len));
+        }
+
+        @Override
+        public String getPrefix(String uri) {
+            return null;
+        }
+
+        @Override
+        public void setPrefix(String prefix, String uri) {
+            // Namespaces are dropped
+        }
+
+        @Override
+        public void setDefaultNamespace(String uri) {
+            // Namespaces are dropped
+        }
+
+        @Override
+        public void setNamespaceContext(NamespaceContext context) {
+            // Namespaces are dropped
+        }
+
+        @Override
+        public NamespaceContext getNamespaceContext() {
+            return null;
+        }
+
+        @Override
+        public Object getProperty(String name) {
+            throw new IllegalArgumentException("Unsupported property: "
+                + name);
+        }
+    }
+
+
+    /** A stream reader that reads the buffer. */
+    private final class Reader implements XMLStreamReader, Location {
+
+        /**
+         * The index of the current event, -1 at the start of the
+         * document and size at the end.
+         */
+        private int index = -1;
+
+
+        /**
+         * Gets the type of the current event.
+         *
+         * @return The event type.
+         */
+        private int type() {
+            return (index < 0) ? XMLStreamConstants.START_DOCUMENT
+                : (index >= size) ? XMLStreamConstants.END_DOCUMENT
+                : types[index];
+        }
+
+        /**
+         * Check that the current event is an element.
+         *
+         * @exception IllegalStateException if not.
+         */
+        private void checkElement() {
+            if (!isStartElement() && !isEndElement()) {
+                throw new IllegalStateException("Not at an element");
+            }
+        }
+
+        /**
+         * Gets the position of an attribute of the current element.
+         *
+         * @param i The attribute number.
+         * @return The position in the attribute arrays.
+         * @exception IllegalStateException if not at a start element.
+         * @exception IndexOutOfBoundsException if there is no such
+         *     attribute.
+         */
+        private int attributePosition(int i) {
+            if (i < 0 || i >= getAttributeCount()) {
+                throw new IndexOutOfBoundsException("No attribute " + i);
+            }
+            return firstAttributes[index] + i;
+        }
+
+        // Implement XMLStreamReader
+
+        @Override
+        public Object getProperty(String name) {
+            return null;
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            if (index >= size) {
+                throw new IllegalStateException("No more events");
+            }
+            index++;
+            return type();
+        }
+
+        @Override
+        public void require(int type, String namespaceURI, String localName)
+            throws XMLStreamException {
+            if (type != type()
+                || (localName != null && !localName.equals(getLocalName()))) {
+                throw new XMLStreamException("Expected " + type + ":"
+                    + localName + " at " + type() + ":"
+                    + ((hasName()) ? getLocalName() : null));
+            }
+        }
+
+        @Override
+        public String getElementText() throws XMLStreamException {
+            if (!isStartElement()) {
+                throw new XMLStreamException("Not at a start element");
+            }
+            StringBuilder sb = new StringBuilder();
+            for (;;) {
+                int t = next();
+                if (t == XMLStreamConstants.END_ELEMENT) break;
+                if (t != XMLStreamConstants.CHARACTERS) {
+                    throw new XMLStreamException("Element text expected");
+                }
+                sb.append(values[index]);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public int nextTag() throws XMLStreamException {
+            int t = next();
+            while (t == XMLStreamConstants.CHARACTERS && isWhiteSpace()) {
+                t = next();
+            }
+            if (t != XMLStreamConstants.START_ELEMENT
+                && t != XMLStreamConstants.END_ELEMENT) {
+                throw new XMLStreamException("Tag expected at " + t);
+            }
+            return t;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+
+        @Override
+        public String getNamespaceURI(String prefix) {
+            return null;
+        }
+
+        @Override
+        public boolean isStartElement() {
+            return type() == XMLStreamConstants.START_ELEMENT;
+        }
+
+        @Override
+        public boolean isEndElement() {
+            return type() == XMLStreamConstants.END_ELEMENT;
+        }
+
+        @Override
+        public boolean isCharacters() {
+            return type() == XMLStreamConstants.CHARACTERS;
+        }
+
+        @Override
+        public boolean isWhiteSpace() {
+            return isCharacters() && values[index].trim().isEmpty();
+        }
+
+        @Override
+        public String getAttributeValue(String namespaceURI,
+                                        String localName) {
+            if (!isStartElement()) {
+                throw new IllegalStateException("Not at a start element");
+            }
+            final int end = firstAttributes[index] + getAttributeCount();
+            for (int i = firstAttributes[index]; i < end; i++) {
+                if (attributeNames[i].equals(localName)) {
+                    return attributeValues[i];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public int getAttributeCount() {
+            if (!isStartElement()) {
+                throw new IllegalStateException("Not at a start element");
+            }
+            int end = (index + 1 < size) ? firstAttributes[index + 1]
+                : attributeCount;
+            return end - firstAttributes[index];
+        }
+
+        @Override
+        public QName getAttributeName(int i) {
+            return new QName(getAttributeLocalName(i));
+        }
+
+        @Override
+        public String getAttributeNamespace(int i) {
+            attributePosition(i);
+            return null;
+        }
+
+        @Override
+        public String getAttributeLocalName(int i) {
+            return attributeNames[attributePosition(i)];
+        }
+
+        @Override
+        public String getAttributePrefix(int i) {
+            attributePosition(i);
+            return XMLConstants.DEFAULT_NS_PREFIX;
+        }
+
+        @Override
+        public String getAttributeType(int i) {
+            attributePosition(i);
+            return "CDATA";
+        }
+
+        @Override
+        public String getAttributeValue(int i) {
+            return attributeValues[attributePosition(i)];
+        }
+
+        @Override
+        public boolean isAttributeSpecified(int i) {
+            attributePosition(i);
+            return true;
+        }
+
+        @Override
+        public int getNamespaceCount() {
+            checkElement();
+            return 0;
+        }
+
+        @Override
+        public String getNamespacePrefix(int i) {
+            throw new IndexOutOfBoundsException("No namespace " + i);
+        }
+
+        @Override
+        public String getNamespaceURI(int i) {
+            throw new IndexOutOfBoundsException("No namespace " + i);
+        }
+
+        @Override
+        public NamespaceContext getNamespaceContext() {
+            return null;
+        }
+
+        @Override
+        public int getEventType() {
+            return type();
+        }
+
+        @Override
+        public String getText() {
+            if (!isCharacters()) {
+                throw new IllegalStateException("Not at text");
+            }
+            return values[index];
+        }
+
+        @Override
+        public char[] getTextCharacters() {
+            return getText().toCharArray();
+        }
+
+        @Override
+        public int getTextCharacters(int sourceStart, char[] target,
+                                     int targetStart, int length) {
+            final String text = getText();
+            int n = Math.max(0, Math.min(length, text.length() - sourceStart));
+            text.getChars(sourceStart, sourceStart + n, target, targetStart);
+            return n;
+        }
+
+        @Override
+        public int getTextStart() {
+            getText();
+            return 0;
+        }
+
+        @Override
+        public int getTextLength() {
+            return getText().length();
+        }
+
+        @Override
+        public String getEncoding() {
+            return null;
+        }
+
+        @Override
+        public boolean hasText() {
+            return isCharacters();
+        }
+
+        @Override
+        public Location getLocation() {
+            return this;
+        }
+
+        @Override
+        public QName getName() {
+            return new QName(getLocalName());
+        }
+
+        @Override
+        public String getLocalName() {
+            checkElement();
+            return values[index];
+        }
+
+        @Override
+        public boolean hasName() {
+            return isStartElement() || isEndElement();
+        }
+
+        @Override
+        public String getNamespaceURI() {
+            return null;
+        }
+
+        @Override
+        public String getPrefix() {
+            return null;
+        }
+
+        @Override
+        public String getVersion() {
+            return null;
+        }
+
+        @Override
+        public boolean isStandalone() {
+            return false;
+        }
+
+        @Override
+        public boolean standaloneSet() {
+            return false;
+        }
+
+        @Override
+        public String getCharacterEncodingScheme() {
+            return null;
+        }
+
+        @Override
+        public String getPITarget() {
+            return null;
+        }
+
+        @Override
+        public String getPIData() {
+            return null;
+        }
+
+        // Implement Location, giving the event number as the line.
+
+        @Override
+        public int getLineNumber() {
+            return index + 1;
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return -1;
+        }
+
+        @Override
+        public int getCharacterOffset() {
+            return -1;
+        }
+
+        @Override
+        public String getPublicId() {
+            return null;
+        }
+
+        @Override
+        public String getSystemId() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.model;
+
+
+/**
+ * Labels the connected components of a boolean map, using the same
+ * (isometric) neighbours as the game map.
+ *
+ * The whole map is labelled in two passes over a primitive array,
+ * joining each set position to the set neighbours already visited
+ * with a union-find structure, so the cost does not depend on the
+ * number of components.  The components are numbered from zero in
+ * the order their first position is met scanning the rows from the
+ * top, which is the order repeated flood fills from such a scan
+ * would find them in.
+ */
+public final class ComponentLabeller {
+
+    /** The label of a position that is not in any component. */
+    public static final int NONE = -1;
+
+    /** The size of the labelled map. */
+    private final int width, height;
+
+    /** The labels, by row. */
+    private final int[] labels;
+
+    /** The number of components. */
+    private int count = 0;
+
+    /** The size of each component. */
+    private int[] sizes;
+
+    /** The bounding box of each component. */
+    private int[] minX, minY, maxX, maxY;
+
+
+    /**
+     * Label the components of a boolean map.
+     *
+     * @param map The map to label, indexed by x then y, where true
+     *     positions are joined to their true neighbours.
+     */
+    public ComponentLabeller(boolean[][] map) {
+        this.width = map.length;
+        this.height = (width == 0) ? 0 : map[0].length;
+        this.labels = new int[width * height];
+
+        // Join each position to the neighbours earlier in the scan,
+        // which are those to the west and in the rows above.  The
+        // root of a set is always its earliest position.
+        final int[] parent = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            final boolean odd = (y & 1) != 0;
+            for (int x = 0; x < width; x++) {
+                final int i = y * width + x;
+                if (!map[x][y]) {
+                    parent[i] = NONE;
+                    continue;
+                }
+                parent[i] = i;
+                if (x > 0 && map[x-1][y]) join(parent, i, i - 1);
+                if (y > 1 && map[x][y-2]) join(parent, i, i - 2 * width);
+                if (y > 0) {
+                    int ne = (odd) ? x + 1 : x, nw = ne - 1;
+                    if (ne < width && map[ne][y-1]) {
+                        join(parent, i, i - width + ne - x);
+                    }
+                    if (nw >= 0 && map[nw][y-1]) {
+                        join(parent, i, i - width + nw - x);
+                    }
+                }
+            }
+        }
+
+        // Number the roots in scan order, then count and bound.
+        // A root precedes the rest of its set, so it is always
+        // numbered before the other positions look it up.
+        int capacity = 16;
+        sizes = new int[capacity];
+        minX = new int[capacity];
+        minY = new int[capacity];
+        maxX = new int[capacity];
+        maxY = new int[capacity];
+        for (int y = 0, i = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i++) {
+                if (parent[i] == NONE) {
+                    labels[i] = NONE;
+                    continue;
+                }
+                final int root = find(parent, i);
+                int c;
+                if (root == i) {
+                    if (count >= capacity) {
+                        capacity *= 2;
+                        sizes = copy(sizes, capacity);
+                        minX = copy(minX, capacity);
+                        minY = copy(minY, capacity);
+                        maxX = copy(maxX, capacity);
+                        maxY = copy(maxY, capacity);
+                    }
+                    c = count++;
+                    minX[c] = maxX[c] = x;
+                    minY[c] = maxY[c] = y;
+                } else {
+                    c = labels[root];
+                    if (x < minX[c]) minX[c] = x;
+                    if (x > maxX[c]) maxX[c] = x;
+                    maxY[c] = y;
+                }
+                sizes[c]++;
+                labels[i] = c;
+            }
+        }
+    }
+
+
+    /**
+     * Find the root of a set, halving the path to it.
+     *
+     * @param parent The parent array.
+     * @param i The position to start from.
+     * @return The root position.
+     */
+    private static int find(int[] parent, int i) {
+        while (parent[i] < i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Join the sets of two positions.
+     *
+     * @param parent The parent array.
+     * @param i The current position.
+     * @param j An earlier position.
+     */
+    private static void join(int[] parent, int i, int j) {
+        int ri = find(parent, i), rj = find(parent, j);
+        if (ri < rj) {
+            parent[rj] = ri;
+        } else if (rj < ri) {
+            parent[ri] = rj;
+        }
+    }
+
+    /**
+     * Copy an array into a longer one.
+     *
+     * @param a The array to copy.
+     * @param length The new length.
+     * @return The new array.
+     */
+    private static int[] copy(int[] a, int length) {
+        int[] result = new int[length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        return result;
+    }
+
+    /**
+     * Gets the width of the labelled map.
+     *
+     * @return The width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the labelled map.
+     *
+     * @return The height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of components.
+     *
+     * @return The number of components.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the component a position belongs to.
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The component number, or <code>NONE</code> if the
+     *     position is not set or is off the map.
+     */
+    public int getLabel(int x, int y) {
+        return (x < 0 || x >= width || y < 0 || y >= height) ? NONE
+            : labels[y * width + x];
+    }
+
+    /**
+     * Gets the number of positions in a component.
+     *
+     * @param c The component number.
+     * @return The size of the component.
+     */
+    public int getSize(int c) {
+        return sizes[c];
+    }
+
+    /**
+     * Gets the least x coordinate in a component.
+     *
+     * @param c The component number.
+     * @return The least x coordinate.
+     */
+    public int getMinX(int c) {
+        return minX[c];
+    }
+
+    /**
+     * Gets the least y coordinate in a component.
+     *
+     * @param c The component number.
+     * @return The least y coordinate.
+     */
+    public int getMinY(int c) {
+        return minY[c];
+    }
+
+    /**
+     * Gets the greatest x coordinate in a component.
+     *
+     * @param c The component number.
+     * @return The greatest x coordinate.
+     */
+    public int getMaxX(int c) {
+        return maxX[c];
+    }
+
+    /**
+     * Gets the greatest y coordinate in a component.
+     *
+     * @param c The component number.
+     * @return The greatest y coordinate.
+     */
+    public int getMaxY(int c) {
+        return maxY[c];
+    }
+}
@@ -18,13 +18,11 @@
  */
 package net.sf.freecol.common.model;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -57,6 +55,21 @@ public final class FeatureContainer {
     /** The modifiers in the container. */
     private Map<String, Set<Modifier>> modifiers = null;
 
+    /**
+     * The modifiers with a given identifier that apply to a given
+     * object type (which may be null), sorted ready to apply.  The
+     * time limits are still checked as the modifiers are used.
+     * Guarded by the modifiers lock.
+     */
+    private Map<String, Map<FreeColGameObjectType, Modifier[]>> resolved
+        = null;
+
+    /** Incremented whenever the modifiers change. */
+    private int modifiersVersion = 0;
+
+    /** The modifiers version the resolved modifiers are valid for. */
+    private int resolvedVersion = -1;
+
 
     /**
      * Have the abilities map been created?
@@ -222,6 +235,58 @@ public final class FeatureContainer {
     }
 
 
+    /**
+     * Gets the sorted modifiers with the given identifier that apply
+     * to an object type, resolving them if they have not been since
+     * the modifiers last changed.
+     *
+     * @param id The object identifier.
+     * @param fcgot An optional <code>FreeColGameObjectType</code> the
+     *     modifier applies to.
+     * @return A sorted array of modifiers, not to be changed, or
+     *     null if there are none.
+     */
+    private Modifier[] resolveModifiers(String id,
+                                        FreeColGameObjectType fcgot) {
+        synchronized (modifiersLock) {
+            if (modifiers == null) return null;
+            if (resolved == null || resolvedVersion != modifiersVersion) {
+                resolved = new HashMap<>();
+                resolvedVersion = modifiersVersion;
+            }
+            Map<FreeColGameObjectType, Modifier[]> byType = resolved.get(id);
+            if (byType == null) {
+                byType = new HashMap<>();
+                resolved.put(id, byType);
+            } else if (byType.containsKey(fcgot)) {
+                return byType.get(fcgot);
+            }
+            Modifier[] result = null;
+            Set<Modifier> mset = modifiers.get(id);
+            if (mset != null && !mset.isEmpty()) {
+                Modifier[] all = new Modifier[mset.size()];
+                int n = 0;
+                for (Modifier m : mset) {
+                    if (m.appliesTo(fcgot)) all[n++] = m;
+                }
+                if (n > 0) {
+                    result = (n == all.length) ? all : Arrays.copyOf(all, n);
+                    Arrays.sort(result);
+                }
+            }
+            byType.put(fcgot, result);
+            return result;
+        }
+    }
+
+    /**
+     * Note that the modifiers have changed.  Must be called with the
+     * modifiers lock held.
+     */
+    private void modifiersChanged() {
+        modifiersVersion++;
+    }
+
     /**
      * Gets the set of modifiers with the given identifier from this
      * container.
@@ -235,15 +300,17 @@ public final class FeatureContainer {
     public Set<Modifier> getModifiers(String id, FreeColGameObjectType fcgot,
                                       Turn turn) {
         Set<Modifier> result = new HashSet<>();
-        if (modifiersPresent()) {
+        if (id != null) {
+            Modifier[] mods = resolveModifiers(id, fcgot);
+            if (mods != null) {
+                for (Modifier m : mods) {
+                    if (m.appliesTo(turn)) result.add(m);
+                }
+            }
+        } else if (modifiersPresent()) {
             synchronized (modifiersLock) {
-                if (id == null) {
-                    for (Set<Modifier> mset : modifiers.values()) {
-                        result.addAll(mset);
-                    }
-                } else {
-                    Set<Modifier> mset = modifiers.get(id);
-                    if (mset != null) result.addAll(mset);
+                for (Set<Modifier> mset : modifiers.values()) {
+                    result.addAll(mset);
                 }
             }
             Iterator<Modifier> it = result.iterator();
@@ -268,7 +335,11 @@ public final class FeatureContainer {
      */
     public final float applyModifiers(float number, Turn turn,
                                       String id, FreeColGameObjectType fcgot) {
-        return applyModifiers(number, turn, getModifiers(id, fcgot, turn));
+        if (id == null) {
+            return applyModifiers(number, turn, getModifiers(id, fcgot, turn));
+        }
+        Modifier[] mods = resolveModifiers(id, fcgot);
+        return (mods == null) ? number : applyModifiers(number, turn, mods);
     }
 
     /**
@@ -282,8 +353,8 @@ public final class FeatureContainer {
     public static float applyModifiers(float number, Turn turn,
                                        Collection<Modifier> mods) {
         if (mods == null || mods.isEmpty()) return number;
-        List<Modifier> modifiers = new ArrayList<>(mods);
-        Collections.sort(modifiers);
+        Modifier[] modifiers = mods.toArray(new Modifier[mods.size()]);
+        if (modifiers.length > 1) Arrays.sort(modifiers);
         float result = number;
         for (Modifier m : modifiers) {
             float value = m.getValue(turn);
@@ -293,6 +364,27 @@ public final class FeatureContainer {
         return result;
     }
 
+    /**
+     * Applies a sorted array of modifiers to the given float value,
+     * skipping those that do not apply to the turn.
+     *
+     * @param number The number to modify.
+     * @param turn An optional applicable <code>Turn</code>.
+     * @param mods The sorted <code>Modifier</code>s to apply.
+     * @return The modified number.
+     */
+    private static float applyModifiers(float number, Turn turn,
+                                        Modifier[] mods) {
+        float result = number;
+        for (Modifier m : mods) {
+            if (!m.appliesTo(turn)) continue;
+            float value = m.getValue(turn);
+            if (value == Modifier.UNKNOWN) return value;
+            result = m.apply(result, value);
+        }
+        return result;
+    }
+
     /**
      * Adds a modifier to a container.
      *
@@ -309,6 +401,7 @@ public final class FeatureContainer {
                 modifierSet = new HashSet<>();
                 modifiers.put(modifier.getId(), modifierSet);
             }
+            modifiersChanged();
             return modifierSet.add(modifier);
         }
     }
@@ -323,6 +416,7 @@ public final class FeatureContainer {
         if (modifier == null || !modifiersPresent()) return null;
 
         synchronized (modifiersLock) {
+            modifiersChanged();
             Set<Modifier> modifierSet = modifiers.get(modifier.getId());
             return (modifierSet == null
                 || !modifierSet.remove(modifier)) ? null
@@ -339,6 +433,7 @@ public final class FeatureContainer {
         if (!modifiersPresent()) return;
 
         synchronized (modifiersLock) {
+            modifiersChanged();
             modifiers.remove(id);
         }
     }
@@ -377,6 +472,7 @@ public final class FeatureContainer {
                 cm = new HashMap<>(c.modifiers);
             }
             synchronized (modifiersLock) {
+                modifiersChanged();
                 for (Entry<String, Set<Modifier>> e : cm.entrySet()) {
                     Set<Modifier> modifierSet = modifiers.get(e.getKey());
                     if (modifierSet == null) {
@@ -421,6 +517,7 @@ public final class FeatureContainer {
                 cm.addAll(c.modifiers.keySet());
             }
             synchronized (modifiersLock) {
+                modifiersChanged();
                 for (String key : cm) {
                     Set<Modifier> modifierSet = modifiers.get(key);
                     if (modifierSet == null) continue;
@@ -443,6 +540,7 @@ public final class FeatureContainer {
         }
         if (modifiersPresent()) {
             synchronized (modifiersLock) {
+                modifiersChanged();
                 modifiers.clear();
             }
         }
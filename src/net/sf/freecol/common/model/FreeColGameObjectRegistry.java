@@ -0,0 +1,435 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+/**
+ * The registry of the objects in a game.
+ *
+ * Each registered object is given a small integer handle alongside
+ * its string identifier, and is held by a weak reference in an array
+ * slot indexed by that handle.  Handles of removed objects are reused,
+ * so the array stays dense.  Handles are only meaningful within one
+ * registry, and are not serialized.
+ *
+ * Side indices hold the handles of the objects of chosen types, so
+ * that all the objects of one of those types can be found without
+ * scanning the whole registry.
+ *
+ * Looking up an object by identifier does not lock.  Other reads
+ * share a read lock, and changes take the write lock, so reads may
+ * proceed concurrently.
+ */
+public final class FreeColGameObjectRegistry {
+
+    /** A registered object, with its identifier and handle. */
+    private static final class Slot extends WeakReference<FreeColGameObject> {
+
+        /** The identifier the object was registered with. */
+        public final String id;
+
+        /** The handle of the object. */
+        public final int handle;
+
+
+        /**
+         * Create a new slot.
+         *
+         * @param id The object identifier.
+         * @param handle The object handle.
+         * @param fcgo The <code>FreeColGameObject</code> to refer to.
+         */
+        public Slot(String id, int handle, FreeColGameObject fcgo) {
+            super(fcgo);
+            this.id = id;
+            this.handle = handle;
+        }
+    }
+
+    /** The handles of the registered objects of one type. */
+    private static final class Index {
+
+        /** The type of the indexed objects. */
+        public final Class<?> type;
+
+        /** The handles of the indexed objects, in no particular order. */
+        public int[] handles = new int[64];
+
+        /** The number of indexed objects. */
+        public int size = 0;
+
+        /**
+         * One more than the position of each handle in the handles
+         * array, or zero if the handle is not in this index.
+         */
+        public int[] positions = new int[0];
+
+
+        /**
+         * Create a new index.
+         *
+         * @param type The type of the objects to index.
+         */
+        public Index(Class<?> type) {
+            this.type = type;
+        }
+
+        /**
+         * Add a handle to the index.
+         *
+         * @param handle The handle to add.
+         */
+        public void add(int handle) {
+            if (size >= handles.length) {
+                handles = Arrays.copyOf(handles, 2 * handles.length);
+            }
+            if (handle >= positions.length) {
+                positions = Arrays.copyOf(positions,
+                    Math.max(handle + 1, 2 * positions.length));
+            }
+            handles[size] = handle;
+            positions[handle] = ++size;
+        }
+
+        /**
+         * Remove a handle from the index, if present.
+         *
+         * @param handle The handle to remove.
+         */
+        public void remove(int handle) {
+            if (handle >= positions.length || positions[handle] == 0) return;
+            int position = positions[handle] - 1;
+            int last = handles[--size];
+            handles[position] = last;
+            positions[last] = position + 1;
+            positions[handle] = 0;
+        }
+    }
+
+    /** The registered objects by identifier. */
+    private final ConcurrentHashMap<String, Slot> ids;
+
+    /** The registered objects by handle. */
+    private Slot[] slots;
+
+    /** One more than the highest handle in use. */
+    private int limit = 0;
+
+    /** The handles below the limit that are free to reuse. */
+    private int[] free = new int[64];
+
+    /** The number of free handles. */
+    private int freeCount = 0;
+
+    /** The side indices. */
+    private final List<Index> indices = new ArrayList<>();
+
+    /** The lock on the slots and indices. */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * Create a new registry.
+     *
+     * @param capacity The expected number of objects.
+     * @param types The types of object to keep side indices for.
+     */
+    public FreeColGameObjectRegistry(int capacity, Class<?>... types) {
+        this.ids = new ConcurrentHashMap<>(capacity);
+        this.slots = new Slot[Math.max(16, capacity)];
+        for (Class<?> type : types) indices.add(new Index(type));
+    }
+
+
+    /**
+     * Keep a side index for a type of object.
+     *
+     * Objects already registered are added to the new index.
+     *
+     * @param type The type of object to index.
+     */
+    public void addIndex(Class<?> type) {
+        lock.writeLock().lock();
+        try {
+            if (getIndex(type) != null) return;
+            Index index = new Index(type);
+            for (int h = 0; h < limit; h++) {
+                Slot slot = slots[h];
+                if (slot != null && type.isInstance(slot.get())) index.add(h);
+            }
+            indices.add(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of registered objects, including any that have
+     * been collected but not yet removed.
+     *
+     * @return The number of registered objects.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Gets one more than the highest handle in use.
+     *
+     * @return The handle limit.
+     */
+    public int getLimit() {
+        lock.readLock().lock();
+        try {
+            return limit;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Is an identifier registered?  The object may have been collected.
+     *
+     * @param id The object identifier.
+     * @return True if the identifier is registered.
+     */
+    public boolean contains(String id) {
+        return ids.containsKey(id);
+    }
+
+    /**
+     * Gets a registered object by identifier.
+     *
+     * @param id The object identifier.
+     * @return The object, or null if not registered or collected.
+     */
+    public FreeColGameObject get(String id) {
+        final Slot slot = ids.get(id);
+        return (slot == null) ? null : slot.get();
+    }
+
+    /**
+     * Gets the handle of a registered object.
+     *
+     * @param id The object identifier.
+     * @return The handle, or negative if the identifier is not registered.
+     */
+    public int getHandle(String id) {
+        final Slot slot = ids.get(id);
+        return (slot == null) ? -1 : slot.handle;
+    }
+
+    /**
+     * Gets a registered object by handle.
+     *
+     * @param handle The object handle.
+     * @return The object, or null if the handle is not in use or the
+     *     object has been collected.
+     */
+    public FreeColGameObject get(int handle) {
+        lock.readLock().lock();
+        try {
+            final Slot slot = (handle < 0 || handle >= limit) ? null
+                : slots[handle];
+            return (slot == null) ? null : slot.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the identifier a handle was registered with.
+     *
+     * @param handle The object handle.
+     * @return The identifier, or null if the handle is not in use.
+     */
+    public String getId(int handle) {
+        lock.readLock().lock();
+        try {
+            final Slot slot = (handle < 0 || handle >= limit) ? null
+                : slots[handle];
+            return (slot == null) ? null : slot.id;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets all the registered objects of a type.  If there is a side
+     * index for the type, only the objects of that type are visited.
+     *
+     * @param type The type of object to find.
+     * @return A list of the objects of the type.
+     */
+    public <T> List<T> getAll(Class<T> type) {
+        List<T> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            final Index index = getIndex(type);
+            if (index != null) {
+                for (int i = 0; i < index.size; i++) {
+                    FreeColGameObject fcgo = slots[index.handles[i]].get();
+                    if (fcgo != null) result.add(type.cast(fcgo));
+                }
+            } else {
+                for (int h = 0; h < limit; h++) {
+                    FreeColGameObject fcgo = (slots[h] == null) ? null
+                        : slots[h].get();
+                    if (type.isInstance(fcgo)) result.add(type.cast(fcgo));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Register an object.  Any object already registered with the
+     * identifier is replaced.
+     *
+     * @param id The object identifier.
+     * @param fcgo The <code>FreeColGameObject</code> to register.
+     * @return The handle of the object.
+     */
+    public int add(String id, FreeColGameObject fcgo) {
+        lock.writeLock().lock();
+        try {
+            Slot old = ids.get(id);
+            if (old != null) release(old);
+            int handle;
+            if (freeCount > 0) {
+                handle = free[--freeCount];
+            } else {
+                if (limit >= slots.length) {
+                    slots = Arrays.copyOf(slots, 2 * slots.length);
+                }
+                handle = limit++;
+            }
+            Slot slot = new Slot(id, handle, fcgo);
+            slots[handle] = slot;
+            ids.put(id, slot);
+            for (Index index : indices) {
+                if (index.type.isInstance(fcgo)) index.add(handle);
+            }
+            return handle;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove an object.
+     *
+     * @param id The object identifier.
+     * @return True if the identifier was registered.
+     */
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Slot slot = ids.get(id);
+            if (slot == null) return false;
+            release(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove an object by handle, if it has been collected.
+     *
+     * @param handle The object handle.
+     * @return The identifier of the removed object, or null if the
+     *     handle is not in use or its object is still alive.
+     */
+    public String expire(int handle) {
+        lock.writeLock().lock();
+        try {
+            Slot slot = (handle < 0 || handle >= limit) ? null
+                : slots[handle];
+            if (slot == null || slot.get() != null) return null;
+            release(slot);
+            return slot.id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove an object by handle.
+     *
+     * @param handle The object handle.
+     * @return The identifier of the removed object, or null if the
+     *     handle is not in use.
+     */
+    public String remove(int handle) {
+        lock.writeLock().lock();
+        try {
+            Slot slot = (handle < 0 || handle >= limit) ? null
+                : slots[handle];
+            if (slot == null) return null;
+            release(slot);
+            return slot.id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the side index for a type.
+     *
+     * @param type The type to find.
+     * @return The <code>Index</code> for the type, or null if none.
+     */
+    private Index getIndex(Class<?> type) {
+        for (Index index : indices) {
+            if (index.type == type) return index;
+        }
+        return null;
+    }
+
+    /**
+     * Release a slot and its handle.  The write lock must be held.
+     *
+     * @param slot The <code>Slot</code> to release.
+     */
+    private void release(Slot slot) {
+        final int handle = slot.handle;
+        ids.remove(slot.id, slot);
+        slots[handle] = null;
+        for (Index index : indices) index.remove(handle);
+        if (handle == limit - 1) {
+            limit--;
+        } else {
+            if (freeCount >= free.length) {
+                free = Arrays.copyOf(free, 2 * free.length);
+            }
+            free[freeCount++] = handle;
+        }
+    }
+}
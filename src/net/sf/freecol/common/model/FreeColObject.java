@@ -37,9 +37,6 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.Transformer;
@@ -52,15 +49,15 @@ import net.sf.freecol.common.ObjectWithId;
 import net.sf.freecol.common.io.FreeColXMLReader;
 import net.sf.freecol.common.io.FreeColXMLWriter;
 import net.sf.freecol.common.io.FreeColXMLWriter.WriteScope;
+import net.sf.freecol.common.io.XMLEventBuffer;
 import net.sf.freecol.common.util.Introspector;
 import net.sf.freecol.common.util.LogBuilder;
 import static net.sf.freecol.common.util.StringUtils.*;
 import net.sf.freecol.common.util.Utils;
 
 import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 
 /**
@@ -812,10 +809,11 @@ public abstract class FreeColObject
      */
     private Element toXMLElement(Document document, WriteScope writeScope,
                                  String[] fields) {
-        StringWriter sw = new StringWriter();
+        // Build the nodes directly in the target document.
+        DocumentFragment fragment = document.createDocumentFragment();
         FreeColXMLWriter xw = null;
         try {
-            xw = new FreeColXMLWriter(sw, writeScope);
+            xw = new FreeColXMLWriter(fragment, writeScope);
         } catch (IOException ioe) {
             logger.log(Level.WARNING, "Error creating FreeColXMLWriter,", ioe);
             return null;
@@ -828,20 +826,12 @@ public abstract class FreeColObject
                 toXMLPartial(xw, fields);
             }
             xw.close();
-
-            DocumentBuilderFactory factory
-                = DocumentBuilderFactory.newInstance();
-            Document tempDocument = null;
-            try {
-                DocumentBuilder builder = factory.newDocumentBuilder();
-                tempDocument = builder.parse(new InputSource(new StringReader(sw.toString())));
-                return (Element)document.importNode(tempDocument.getDocumentElement(), true);
-            } catch (IOException|ParserConfigurationException|SAXException ex) {
-                throw new RuntimeException("Parse fail", ex);
-            }
         } catch (XMLStreamException e) {
             throw new IllegalStateException("Error writing stream", e);
         }
+        Element result = (Element)fragment.getFirstChild();
+        fragment.removeChild(result);
+        return result;
     }
 
     // @compat 0.10.x
@@ -1071,14 +1061,28 @@ public abstract class FreeColObject
      * to the copied colony and the copied colony refer to the copied
      * tile, but both will refer to the original uncopied owning player. 
      *
+     * The object is written to and read back from an in-memory
+     * buffer of its elements and attributes, rather than through
+     * text, as copies are made often by the AI when planning.
+     *
      * @param game The <code>Game</code> to add the object to.
      * @param returnClass The required object class.
      * @return The copied object, or null on error.
      */
     public <T extends FreeColObject> T copy(Game game, Class<T> returnClass) {
         T ret = null;
+        XMLEventBuffer buffer = new XMLEventBuffer();
+        try (
+            FreeColXMLWriter xw = new FreeColXMLWriter(buffer.getWriter(),
+                WriteScope.toServer());
+        ) {
+            this.toXML(xw);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to write copy: " + getId(), e);
+            return null;
+        }
         try (
-            FreeColXMLReader xr = new FreeColXMLReader(new StringReader(this.serialize()));
+            FreeColXMLReader xr = new FreeColXMLReader(buffer.getReader());
         ) {
             ret = xr.copy(game, returnClass);
         } catch (Exception e) {
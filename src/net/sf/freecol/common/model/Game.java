@@ -19,7 +19,6 @@
 
 package net.sf.freecol.common.model;
 
-import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.io.IOException;
 import java.io.StringReader;
@@ -156,12 +155,14 @@ public class Game extends FreeColGameObject {
     private Specification specification = null;
 
     /**
-     * References to all objects created in this game.
+     * References to all objects created in this game, with side
+     * indices of the players, units, settlements and tiles.
      * Serialization is not needed directly as these must be completely
      * within { players, unknownEnemy, map } which are directly serialized.
      */
-    protected final HashMap<String, WeakReference<FreeColGameObject>> freeColGameObjects
-        = new HashMap<>(10000);
+    protected final FreeColGameObjectRegistry freeColGameObjects
+        = new FreeColGameObjectRegistry(10000,
+            Player.class, Unit.class, Settlement.class, Tile.class);
 
     /**
      * The combat model this game uses. At the moment, the only combat
@@ -292,16 +293,35 @@ public class Game extends FreeColGameObject {
      */
     public FreeColGameObject getFreeColGameObject(String id) {
         if (id == null || id.isEmpty()) return null;
-        final WeakReference<FreeColGameObject> ro = freeColGameObjects.get(id);
-        if (ro == null) return null;
-        final FreeColGameObject o = ro.get();
-        if (o == null) {
+        final FreeColGameObject o = freeColGameObjects.get(id);
+        if (o == null && freeColGameObjects.contains(id)) {
             removeFreeColGameObject(id, "missed");
-            return null;
         }
         return o;
     }
 
+    /**
+     * Gets the <code>FreeColGameObject</code> with the given handle.
+     *
+     * @param handle The object handle.
+     * @return The game object, or null if not found.
+     */
+    public FreeColGameObject getFreeColGameObject(int handle) {
+        return freeColGameObjects.get(handle);
+    }
+
+    /**
+     * Gets the handle of a registered <code>FreeColGameObject</code>.
+     * Handles are small integers that are reused once an object is
+     * removed, and are not preserved when a game is saved.
+     *
+     * @param id The object identifier.
+     * @return The object handle, or negative if not found.
+     */
+    public int getFreeColGameObjectHandle(String id) {
+        return (id == null) ? -1 : freeColGameObjects.getHandle(id);
+    }
+
     /**
      * Gets the <code>FreeColGameObject</code> with the specified
      * identifier and class.
@@ -345,9 +365,7 @@ public class Game extends FreeColGameObject {
         }
 
         //logger.finest("Added FCGO: " + id);
-        final WeakReference<FreeColGameObject> wr
-            = new WeakReference<>(fcgo);
-        freeColGameObjects.put(id, wr);
+        freeColGameObjects.add(id, fcgo);
         notifySetFreeColGameObject(id, fcgo);
     }
 
@@ -406,14 +424,14 @@ public class Game extends FreeColGameObject {
     public Iterator<FreeColGameObject> getFreeColGameObjectIterator() {
         return new Iterator<FreeColGameObject>() {
 
-            /** An iterator over the freeColGameObjects map. */
-            private final Iterator<Entry<String,
-                                         WeakReference<FreeColGameObject>>> it
-                = freeColGameObjects.entrySet().iterator();
+            /** The next handle to visit. */
+            private int handle = 0;
 
-            /** Read ahead to this next entry. */
-            private Entry<String, WeakReference<FreeColGameObject>> readAhead
-                = null;
+            /** The handle of the read ahead object. */
+            private int readAheadHandle = -1;
+
+            /** Read ahead to this next object. */
+            private FreeColGameObject readAhead = null;
 
             /** State of the readahead value. */
             private FcgoState fcgoState = FcgoState.INVALID;
@@ -422,36 +440,43 @@ public class Game extends FreeColGameObject {
             @Override
             public boolean hasNext() {
                 if (this.fcgoState == FcgoState.VALID) return true;
-                while (this.it.hasNext()) {
-                    this.readAhead = this.it.next();
-                    if (this.readAhead.getValue().get() != null) {
+                while (this.handle < freeColGameObjects.getLimit()) {
+                    final int h = this.handle++;
+                    this.readAhead = freeColGameObjects.get(h);
+                    if (this.readAhead != null) {
+                        this.readAheadHandle = h;
                         this.fcgoState = FcgoState.VALID;
                         return true;
                     }
-                    this.fcgoState = FcgoState.CONSUMED;
-                    remove();
+                    final String key = freeColGameObjects.expire(h);
+                    if (key != null) {
+                        logger.finest("removeFCGO/expire: " + key);
+                        notifyRemoveFreeColGameObject(key);
+                    }
                 }
+                this.fcgoState = FcgoState.INVALID;
                 return false;
             }
 
             @Override
             public FreeColGameObject next() {
                 if (!hasNext()) throw new NoSuchElementException();
-                FreeColGameObject fcgo = this.readAhead.getValue().get();
                 this.fcgoState = FcgoState.CONSUMED;
-                return fcgo;
+                return this.readAhead;
             }
 
             @Override
             public void remove() {
-                if (this.fcgoState == FcgoState.INVALID) {
+                if (this.fcgoState != FcgoState.CONSUMED) {
                     throw new IllegalStateException("No current entry");
                 }
-                final String key = this.readAhead.getKey();
                 this.fcgoState = FcgoState.INVALID;
-                this.it.remove();
-                logger.finest("removeFCGO/expire: " + key);
-                notifyRemoveFreeColGameObject(key);
+                final String key
+                    = freeColGameObjects.remove(this.readAheadHandle);
+                if (key != null) {
+                    logger.finest("removeFCGO/iterator: " + key);
+                    notifyRemoveFreeColGameObject(key);
+                }
             }
         };
     }
@@ -470,6 +495,18 @@ public class Game extends FreeColGameObject {
         };
     }
 
+    /**
+     * Gets all the <code>FreeColGameObject</code>s of a given type.
+     * Players, units, settlements and tiles are found without
+     * visiting the other objects in the game.
+     *
+     * @param type The type of object to find.
+     * @return A list of the objects of that type.
+     */
+    public <T> List<T> getFreeColGameObjects(Class<T> type) {
+        return freeColGameObjects.getAll(type);
+    }
+
     /**
      * Gets the unique identifier for this game. 
      * A game UUID persists in save game files.
@@ -480,6 +517,15 @@ public class Game extends FreeColGameObject {
        return uuid;
     }
 
+    /**
+     * Sets the unique identifier for this game.
+     *
+     * @param uuid The new game <code>UUID</code>.
+     */
+    protected void setUUID(UUID uuid) {
+        this.uuid = uuid;
+    }
+
     /**
      * Get all the players in the game.
      *
@@ -1128,6 +1174,22 @@ public class Game extends FreeColGameObject {
      */
     @Override
     public int checkIntegrity(boolean fix) {
+        int result = checkObjectIntegrity(fix);
+        for (FreeColGameObject part : getIntegrityParts()) {
+            result = Math.min(result, part.checkIntegrity(fix));
+        }
+        return result;
+    }
+
+    /**
+     * Check the integrity of the game object registry, dropping
+     * uninitialized objects if fixing.
+     *
+     * @param fix If true, fix problems if possible.
+     * @return Negative if there are problems remaining, zero if
+     *     problems were fixed, positive if no problems found at all.
+     */
+    protected int checkObjectIntegrity(boolean fix) {
         int result = super.checkIntegrity(fix);
         LogBuilder lb = new LogBuilder(512);
         lb.add("Uninitialized game ids: ");
@@ -1150,17 +1212,22 @@ public class Game extends FreeColGameObject {
             if (fix) lb.add(" (dropped)");
             lb.log(logger, Level.WARNING);
         }
-
-        Map map = getMap();
-        if (map != null) {
-            result = Math.min(result, getMap().checkIntegrity(fix));
-        }
-        for (Player player : getPlayers()) {
-            result = Math.min(result, player.checkIntegrity(fix));
-        }
         return result;
     }
 
+    /**
+     * Gets the parts of the game whose integrity is checked separately,
+     * that is the map and the players.
+     *
+     * @return A list of <code>FreeColGameObject</code>s to check.
+     */
+    protected List<FreeColGameObject> getIntegrityParts() {
+        List<FreeColGameObject> parts = new ArrayList<>();
+        if (map != null) parts.add(map);
+        parts.addAll(players);
+        return parts;
+    }
+
 
     // Override Object
     //
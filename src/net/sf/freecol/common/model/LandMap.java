@@ -269,9 +269,14 @@ public class LandMap {
      * Remove any 1x1 islands on the map.
      */
     private void cleanMap() {
+        ComponentLabeller labeller = new ComponentLabeller(map);
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                if (isSingleTile(x, y)) map[x][y] = false;
+                int c = labeller.getLabel(x, y);
+                if (c != ComponentLabeller.NONE && labeller.getSize(c) == 1) {
+                    map[x][y] = false;
+                    numberOfLandTiles--;
+                }
             }
         }
     }
@@ -19,17 +19,14 @@
 
 package net.sf.freecol.common.model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -73,6 +70,34 @@ public class Map extends FreeColGameObject implements Location {
      */
     public final static int POLAR_HEIGHT = 2;
 
+    /** The largest radius with precomputed ring offsets. */
+    private static final int RING_OFFSETS_RADIUS = 16;
+
+    /** The maximum number of path search states kept for reuse. */
+    private static final int MAX_SEARCH_STATES
+        = Runtime.getRuntime().availableProcessors();
+
+    /** The directions stepped along each quarter of a ring. */
+    private static final Direction[] RING_DIRECTIONS = {
+        Direction.SE, Direction.SW, Direction.NW, Direction.NE
+    };
+
+    /**
+     * The offsets of the positions in the rings around a center
+     * position, by the parity of the center row and then by radius.
+     * Each ring is an array of alternating x and y offsets, in the
+     * order the circle iterator visits them.
+     */
+    private static final int[][][] RING_OFFSETS
+        = new int[2][RING_OFFSETS_RADIUS + 1][];
+    static {
+        for (int parity = 0; parity < 2; parity++) {
+            for (int r = 1; r <= RING_OFFSETS_RADIUS; r++) {
+                RING_OFFSETS[parity][r] = makeRingOffsets(parity, r);
+            }
+        }
+    }
+
     /**
      * The layers included in the map. The RIVERS layer includes all
      * natural tile improvements that are not resources. The NATIVES
@@ -248,6 +273,19 @@ public class Map extends FreeColGameObject implements Location {
     /** The tiles that this map contains. */
     private Tile[][] tiles;
 
+    /**
+     * The tiles adjacent to each tile, indexed by position and then
+     * direction.  Built on demand, and discarded when a tile is set.
+     */
+    private volatile Tile[][][] adjacentTiles = null;
+
+    /**
+     * Path search states kept for reuse, at most MAX_SEARCH_STATES.
+     * Discarded when a tile is set.
+     */
+    private final ArrayDeque<PathSearchState> searchStates
+        = new ArrayDeque<>();
+
     /** The highest map layer included. */
     private Layer layer;
 
@@ -386,6 +424,8 @@ public class Map extends FreeColGameObject implements Location {
      */
     public void setTile(Tile tile, int x, int y) {
         tiles[x][y] = tile;
+        adjacentTiles = null;
+        clearSearchStates();
     }
 
     /**
@@ -406,6 +446,16 @@ public class Map extends FreeColGameObject implements Location {
         return (tiles == null) ? 0 : tiles[0].length;
     }
 
+    /**
+     * Gets the dense index of a tile, as used by the path search.
+     *
+     * @param tile The <code>Tile</code> to index.
+     * @return The tile index, <code>x + y * width</code>.
+     */
+    private int getTileIndex(Tile tile) {
+        return tile.getX() + tile.getY() * getWidth();
+    }
+
     public final Layer getLayer() {
         return layer;
     }
@@ -626,8 +676,37 @@ public class Map extends FreeColGameObject implements Location {
      *     direction, or null if invalid.
      */
     public Tile getAdjacentTile(int x, int y, Direction direction) {
-        Position step = direction.step(x, y);
-        return getTile(step.x, step.y);
+        if (!isValid(x, y)) {
+            Position step = direction.step(x, y);
+            return getTile(step.x, step.y);
+        }
+        return getAdjacentTiles()[x][y][direction.ordinal()];
+    }
+
+    /**
+     * Gets the table of adjacent tiles, building it if needed.
+     *
+     * @return The adjacent tiles, indexed by position and direction.
+     */
+    private Tile[][][] getAdjacentTiles() {
+        Tile[][][] adjacent = adjacentTiles;
+        if (adjacent == null) {
+            final int width = getWidth(), height = getHeight();
+            final Direction[] directions = Direction.values();
+            adjacent = new Tile[width][height][];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    Tile[] a = new Tile[directions.length];
+                    for (Direction d : directions) {
+                        Position step = d.step(x, y);
+                        a[d.ordinal()] = getTile(step.x, step.y);
+                    }
+                    adjacent[x][y] = a;
+                }
+            }
+            adjacentTiles = adjacent;
+        }
+        return adjacent;
     }
 
     /**
@@ -1306,27 +1385,17 @@ public class Map extends FreeColGameObject implements Location {
         /**
          * Replace a given path with that of this candidate move.
          *
-         * @param openMap The list of available nodes.
-         * @param openMapQueue The queue of available nodes.
-         * @param f The heuristic values for A*.
+         * @param state The <code>PathSearchState</code> of the search.
+         * @param index The index of the destination tile.
          * @param sh An optional <code>SearchHeuristic</code> to apply.
          */
-        public void improve(HashMap<String, PathNode> openMap,
-                            PriorityQueue<PathNode> openMapQueue,
-                            HashMap<String, Integer> f,
+        public void improve(PathSearchState state, int index,
                             SearchHeuristic sh) {
-            PathNode best = openMap.get(dst.getId());
-            if (best != null) {
-                openMap.remove(dst.getId());
-                openMapQueue.remove(best);
-            }
             int fcost = cost;
             if (sh != null && dst.getTile() != null) {
                 fcost += sh.getValue(dst.getTile());
             }
-            f.put(dst.getId(), fcost);
-            openMap.put(dst.getId(), path);
-            openMapQueue.offer(path);
+            state.putOpen(index, path, fcost);
         }
 
         /**
@@ -1351,21 +1420,14 @@ public class Map extends FreeColGameObject implements Location {
      * Searches for a path to a goal determined by the given
      * <code>GoalDecider</code>.
      *
-     * Using A* with a List (closedMap) for marking the visited nodes
-     * and using a PriorityQueue (openMapQueue) for getting the next
-     * edge with the least cost.  This implementation could be
-     * improved by having the visited attribute stored on each Tile in
-     * order to avoid both of the HashMaps currently being used to
-     * serve this purpose.
+     * Using A* with the open and closed sets held in a
+     * {@link PathSearchState}, indexed by the tile position.  This
+     * gives O(1) membership tests, and O(log N) for remove-best,
+     * insertions and cost improvements of open nodes.
      *
      * If the SearchHeuristic is not supplied, then the algorithm
      * degrades gracefully to Dijkstra's algorithm.
      *
-     * The data structure for the open list is a combined structure: using a
-     * HashMap for membership tests and a PriorityQueue for getting the node
-     * with the minimal f (cost+heuristics). This gives O(1) on membership
-     * test and O(log N) for remove-best and insertions.
-     *
      * @param unit The <code>Unit</code> to find a path for.
      * @param start The <code>Tile</code> to start the search from.
      * @param goalDecider The object responsible for determining whether a
@@ -1387,19 +1449,82 @@ public class Map extends FreeColGameObject implements Location {
                                final int maxTurns, final Unit carrier,
                                final SearchHeuristic searchHeuristic,
                                final LogBuilder lb) {
-        final HashMap<String, PathNode> openMap = new HashMap<>();
-        final HashMap<String, PathNode> closedMap = new HashMap<>();
-        final HashMap<String, Integer> f = new HashMap<>();
-        final PriorityQueue<PathNode> openMapQueue = new PriorityQueue<>(1024,
-                new Comparator<PathNode>() {
-                    @Override
-                    public int compare(PathNode p1, PathNode p2) {
-                        return (f.get(p1.getLocation().getId())
-                            - f.get(p2.getLocation().getId()));
-                    }
-                });
-        final Europe europe = (unit == null) ? null
-            : unit.getOwner().getEurope();
+        final PathSearchState state = acquireSearchState();
+        try {
+            return searchMap(unit, start, goalDecider, costDecider, maxTurns,
+                             carrier, searchHeuristic, lb, state);
+        } finally {
+            releaseSearchState(state);
+        }
+    }
+
+    /**
+     * Get a search state to search this map with.  A search that
+     * starts while another is running, such as from within a goal
+     * decider, gets a state of its own.
+     *
+     * @return A clear <code>PathSearchState</code>.
+     */
+    private PathSearchState acquireSearchState() {
+        final int size = getWidth() * getHeight();
+        PathSearchState state;
+        synchronized (searchStates) {
+            state = searchStates.poll();
+        }
+        return (state != null && state.getSize() == size) ? state
+            : new PathSearchState(size);
+    }
+
+    /**
+     * Clear a search state and keep it for reuse, unless enough
+     * states are already kept.
+     *
+     * @param state The <code>PathSearchState</code> to release.
+     */
+    private void releaseSearchState(PathSearchState state) {
+        state.clear();
+        if (state.getSize() != getWidth() * getHeight()) return;
+        synchronized (searchStates) {
+            if (searchStates.size() < MAX_SEARCH_STATES) {
+                searchStates.add(state);
+            }
+        }
+    }
+
+    /**
+     * Discard the search states kept for reuse.
+     */
+    void clearSearchStates() {
+        synchronized (searchStates) {
+            searchStates.clear();
+        }
+    }
+
+    /**
+     * Searches for a path to a goal, using a given search state.
+     *
+     * @param unit The <code>Unit</code> to find a path for.
+     * @param start The <code>Tile</code> to start the search from.
+     * @param goalDecider The object responsible for determining whether a
+     *     given <code>PathNode</code> is a goal or not.
+     * @param costDecider An optional <code>CostDecider</code>
+     *     responsible for determining the path cost.
+     * @param maxTurns The maximum number of turns the given
+     *     <code>Unit</code> is allowed to move.
+     * @param carrier An optional naval carrier <code>Unit</code> to use.
+     * @param searchHeuristic An optional <code>SearchHeuristic</code>.
+     * @param lb An optional <code>LogBuilder</code> to log to.
+     * @param state The <code>PathSearchState</code> to search with.
+     * @return A path to a goal determined by the given
+     *     <code>GoalDecider</code>.
+     */
+    private PathNode searchMap(final Unit unit, final Tile start,
+                               final GoalDecider goalDecider,
+                               final CostDecider costDecider,
+                               final int maxTurns, final Unit carrier,
+                               final SearchHeuristic searchHeuristic,
+                               final LogBuilder lb,
+                               final PathSearchState state) {
         final Unit offMapUnit = (carrier != null) ? carrier : unit;
         Unit currentUnit = (start.isLand())
             ? ((start.hasSettlement()
@@ -1416,18 +1541,16 @@ public class Map extends FreeColGameObject implements Location {
         final PathNode firstNode = new PathNode(start,
             ((currentUnit != null) ? currentUnit.getMovesLeft() : -1),
             0, carrier != null && currentUnit == carrier, null, null);
-        f.put(start.getId(), (searchHeuristic == null) ? 0
-                : searchHeuristic.getValue(start));
-        openMap.put(start.getId(), firstNode);
-        openMapQueue.offer(firstNode);
+        state.putOpen(getTileIndex(start), firstNode,
+            (searchHeuristic == null) ? 0 : searchHeuristic.getValue(start));
 
         PathNode best = null;
         int bestScore = INFINITY;
-        while (!openMap.isEmpty()) {
+        while (!state.isOpenEmpty()) {
             // Choose the node with the lowest f.
-            final PathNode currentNode = openMapQueue.poll();
-            final Location currentLocation = currentNode.getLocation();
-            openMap.remove(currentLocation.getId());
+            final PathNode currentNode = state.pollOpen();
+            final Tile currentTile = currentNode.getTile();
+            final int currentIndex = getTileIndex(currentTile);
             if (lb != null) lb.add("\n  ", currentNode);
 
             // Reset current unit to that of this node.
@@ -1445,7 +1568,7 @@ public class Map extends FreeColGameObject implements Location {
 
             // Skip nodes that can not beat the current best path.
             if (bestScore < currentNode.getCost()) {
-                closedMap.put(currentLocation.getId(), currentNode);
+                state.setClosed(currentIndex, currentNode);
                 if (lb != null) lb.add(" ...goal cost wins(",
                     bestScore, " < ", currentNode.getCost(), ")...");
                 continue;
@@ -1458,7 +1581,7 @@ public class Map extends FreeColGameObject implements Location {
             }
 
             // Valid candidate for the closed list.
-            closedMap.put(currentLocation.getId(), currentNode);
+            state.setClosed(currentIndex, currentNode);
             if (lb != null) lb.add("...close");
 
             // Collect the parameters for the current node.
@@ -1466,15 +1589,6 @@ public class Map extends FreeColGameObject implements Location {
             final int currentTurns = currentNode.getTurns();
             final boolean currentOnCarrier = currentNode.isOnCarrier();
 
-            final Tile currentTile = currentNode.getTile();
-            if (currentTile == null) { // Must be in Europe.
-                // FIXME: Do not consider tiles "adjacent" to Europe, yet.
-                // There may indeed be cases where going to Europe and
-                // coming back on the other side of the map is faster.
-                if (lb != null) lb.add("...skip Europe");
-                continue;
-            }
-
             // Try the tiles in each direction
             PathNode closed;
             for (Tile moveTile : currentTile.getSurroundingTiles(1)) {
@@ -1487,8 +1601,9 @@ public class Map extends FreeColGameObject implements Location {
                 }
 
                 // Skip neighbouring tiles already too expensive.
+                final int moveIndex = getTileIndex(moveTile);
                 int cc;
-                if ((closed = closedMap.get(moveTile.getId())) != null
+                if ((closed = state.getClosed(moveIndex)) != null
                     && (cc = closed.getCost()) <= currentNode.getCost()) {
                     if (lb != null) lb.add(" ", cc);
                     continue;
@@ -1631,16 +1746,14 @@ public class Map extends FreeColGameObject implements Location {
                     // Tighten the bounds on a previously seen case if possible
                     if (closed != null) {
                         if (move.canImprove(closed)) {
-                            closedMap.remove(moveTile.getId());
-                            move.improve(openMap, openMapQueue, f,
-                                         searchHeuristic);
+                            state.setClosed(moveIndex, null);
+                            move.improve(state, moveIndex, searchHeuristic);
                             stepLog = "^" + Integer.toString(move.getCost());
                         } else {
                             stepLog = ".";
                         }
-                    } else if (move.canImprove(openMap.get(moveTile.getId()))){
-                        move.improve(openMap, openMapQueue, f,
-                                     searchHeuristic);
+                    } else if (move.canImprove(state.getOpen(moveIndex))) {
+                        move.improve(state, moveIndex, searchHeuristic);
                         stepLog = "+" + Integer.toString(move.getCost());
                     } else {
                         stepLog = "-";
@@ -1691,6 +1804,85 @@ public class Map extends FreeColGameObject implements Location {
     
     // Support for various kinds of map iteration.
 
+    /**
+     * Makes the offsets of the positions in a ring around a center
+     * position.
+     *
+     * @param parity The parity of the row of the center position.
+     * @param radius The radius of the ring.
+     * @return An array of alternating x and y offsets.
+     */
+    private static int[] makeRingOffsets(int parity, int radius) {
+        int[] result = new int[2 * 8 * radius];
+        int x = 0, y = parity;
+        Position step;
+        for (int i = 1; i < radius; i++) {
+            step = Direction.N.step(x, y);
+            x = step.x;
+            y = step.y;
+        }
+        step = Direction.NE.step(x, y);
+        x = step.x;
+        y = step.y;
+        result[0] = x;
+        result[1] = y - parity;
+        for (int n = 1; n < 8 * radius; n++) {
+            step = RING_DIRECTIONS[n / (2 * radius)].step(x, y);
+            x = step.x;
+            y = step.y;
+            result[2 * n] = x;
+            result[2 * n + 1] = y - parity;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the offsets of the positions in a ring around a center
+     * position.
+     *
+     * @param y The y-coordinate of the center position.
+     * @param radius The radius of the ring.
+     * @return An array of alternating x and y offsets, not to be
+     *     changed.
+     */
+    private static int[] getRingOffsets(int y, int radius) {
+        return (radius <= RING_OFFSETS_RADIUS) ? RING_OFFSETS[y & 1][radius]
+            : makeRingOffsets(y & 1, radius);
+    }
+
+    /**
+     * Adds the tiles in the rings around a center tile to a list, in
+     * the order a circle iterator would visit them.  Unlike the
+     * circle iterator, this does not allocate anything beyond what
+     * the list needs, so callers that reuse a list can scan
+     * neighbourhoods cheaply.
+     *
+     * @param center The center <code>Tile</code>.
+     * @param rangeMin The inclusive minimum radius, at least one.
+     * @param rangeMax The inclusive maximum radius.
+     * @param result The list of <code>Tile</code>s to add to.
+     * @return The result list.
+     */
+    public List<Tile> getRingTiles(Tile center, int rangeMin, int rangeMax,
+                                   List<Tile> result) {
+        final int cx = center.getX(), cy = center.getY();
+        for (int r = Math.max(1, rangeMin); r <= rangeMax; r++) {
+            final int[] offsets = getRingOffsets(cy, r);
+            boolean found = false;
+            for (int i = 0; i < offsets.length; i += 2) {
+                int x = cx + offsets[i], y = cy + offsets[i + 1];
+                if (isValid(x, y)) {
+                    result.add(tiles[x][y]);
+                    found = true;
+                }
+            }
+            // The rings beyond a ring that is wholly off the map
+            // are also off the map.
+            if (!found) break;
+        }
+        return result;
+    }
+
     /**
      * An iterator returning positions in a spiral starting at a given
      * center tile.  The center tile is never included in the returned
@@ -1698,12 +1890,18 @@ public class Map extends FreeColGameObject implements Location {
      */
     private final class CircleIterator implements Iterator<Tile> {
 
+        /** The center position. */
+        private final int cx, cy;
         /** The maximum radius. */
         private final int radius;
         /** The current radius of the iteration. */
         private int currentRadius;
-        /** The current index in the circle with the current radius: */
+        /** The offsets of the positions in the current ring. */
+        private int[] offsets;
+        /** The index of the next offset to try in the current ring. */
         private int n;
+        /** Has a valid position been found in the current ring? */
+        private boolean found;
         /** The current position in the circle. */
         private int x, y;
 
@@ -1719,29 +1917,15 @@ public class Map extends FreeColGameObject implements Location {
             if (center == null) {
                 throw new IllegalArgumentException("center must not be null.");
             }
-            this.radius = radius;
+            cx = center.getX();
+            cy = center.getY();
+            // A radius below one still yields the adjacent tiles.
+            this.radius = Math.max(1, radius);
+            currentRadius = (isFilled) ? 1 : this.radius;
+            offsets = getRingOffsets(cy, currentRadius);
             n = 0;
-
-            Position step;
-            if (isFilled || radius == 1) {
-                step = Direction.NE.step(center.getX(), center.getY());
-                x = step.x;
-                y = step.y;
-                currentRadius = 1;
-            } else {
-                this.currentRadius = radius;
-                x = center.getX();
-                y = center.getY();
-                for (int i = 1; i < radius; i++) {
-                    step = Direction.N.step(x, y);
-                    x = step.x;
-                    y = step.y;
-                }
-                step = Direction.NE.step(x, y);
-                x = step.x;
-                y = step.y;
-            }
-            if (!isValid(x, y)) nextTile();
+            found = false;
+            nextTile();
         }
 
         /**
@@ -1758,50 +1942,24 @@ public class Map extends FreeColGameObject implements Location {
          * Finds the next position.
          */
         private void nextTile() {
-            boolean started = n != 0;
-            do {
-                n++;
-                final int width = currentRadius * 2;
-                if (n >= width * 4) {
-                    currentRadius++;
-                    if (currentRadius > radius) {
-                        x = y = UNDEFINED;
-                        break;
-                    } else if (!started) {
-                        x = y = UNDEFINED;
-                        break;
-                    } else {
-                        n = 0;
-                        started = false;
-                        Position step = Direction.NE.step(x, y);
-                        x = step.x;
-                        y = step.y;
-                    }
-                } else {
-                    int i = n / width;
-                    Direction direction;
-                    switch (i) {
-                    case 0:
-                        direction = Direction.SE;
-                        break;
-                    case 1:
-                        direction = Direction.SW;
-                        break;
-                    case 2:
-                        direction = Direction.NW;
-                        break;
-                    case 3:
-                        direction = Direction.NE;
-                        break;
-                    default:
-                        throw new IllegalStateException("i=" + i + ", n=" + n
-                                                        + ", width=" + width);
+            for (;;) {
+                while (n < offsets.length) {
+                    x = cx + offsets[n];
+                    y = cy + offsets[n + 1];
+                    n += 2;
+                    if (isValid(x, y)) {
+                        found = true;
+                        return;
                     }
-                    Position step = direction.step(x, y);
-                    x = step.x;
-                    y = step.y;
                 }
-            } while (!isValid(x, y));
+                // The rings beyond a ring that is wholly off the map
+                // are also off the map.
+                if (!found || ++currentRadius > radius) break;
+                offsets = getRingOffsets(cy, currentRadius);
+                n = 0;
+                found = false;
+            }
+            x = y = UNDEFINED;
         }
 
         /**
@@ -1987,25 +2145,44 @@ public class Map extends FreeColGameObject implements Location {
      */
     public static boolean[][] floodFill(boolean[][] boolmap, int x, int y,
                                         int limit) {
-        Position p = new Position(x, y);
-        Queue<Position> q = new LinkedList<>();
-        boolean[][] visited = new boolean[boolmap.length][boolmap[0].length];
-        visited[p.getX()][p.getY()] = true;
+        final int width = boolmap.length, height = boolmap[0].length;
+        final Direction[] directions = Direction.values();
+        final int[] evenDX = new int[directions.length],
+            evenDY = new int[directions.length],
+            oddDX = new int[directions.length],
+            oddDY = new int[directions.length];
+        for (int i = 0; i < directions.length; i++) {
+            Position even = directions[i].step(0, 0);
+            Position odd = directions[i].step(0, 1);
+            evenDX[i] = even.getX();
+            evenDY[i] = even.getY();
+            oddDX[i] = odd.getX();
+            oddDY[i] = odd.getY() - 1;
+        }
+
+        // Breadth first, queueing positions packed as y * width + x.
+        boolean[][] visited = new boolean[width][height];
+        int[] queue = new int[Math.max(1, Math.min(limit, width * height))];
+        int head = 0, tail = 0;
+        visited[x][y] = true;
         limit--;
-        do {
-            for (Direction direction : Direction.values()) {
-                Position n = new Position(p, direction);
-                if (n.isValid(boolmap.length, boolmap[0].length)
-                    && boolmap[n.getX()][n.getY()]
-                    && !visited[n.getX()][n.getY()] && limit > 0) {
-                    visited[n.getX()][n.getY()] = true;
+        for (;;) {
+            final boolean odd = (y & 1) != 0;
+            for (int i = 0; i < directions.length && limit > 0; i++) {
+                int nx = x + ((odd) ? oddDX[i] : evenDX[i]);
+                int ny = y + ((odd) ? oddDY[i] : evenDY[i]);
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height
+                    && boolmap[nx][ny] && !visited[nx][ny]) {
+                    visited[nx][ny] = true;
                     limit--;
-                    q.add(n);
+                    queue[tail++] = ny * width + nx;
                 }
             }
-
-            p = q.poll();
-        } while (p != null && limit > 0);
+            if (head >= tail || limit <= 0) break;
+            x = queue[head] % width;
+            y = queue[head] / width;
+            head++;
+        }
         return visited;
     }
 
@@ -2013,74 +2190,31 @@ public class Map extends FreeColGameObject implements Location {
      * Sets the contiguity identifier for all tiles.
      */
     public void resetContiguity() {
-        // Create the water map.  It is an error for any tile not to
-        // have a region at this point.
-        boolean[][] waterMap = new boolean[getWidth()][getHeight()];
-        for (int y = 0; y < getHeight(); y++) {
-            for (int x = 0; x < getWidth(); x++) {
-                if (isValid(x, y)) {
-                    waterMap[x][y] = !getTile(x,y).isLand();
-                    Tile tile = getTile(x, y);
-                    tile.setContiguity(-1);
-                }
-            }
-        }
-
-        // Flood fill each contiguous water region, setting the
-        // contiguity number.
-        int contig = 0;
-        for (int y = 0; y < getHeight(); y++) {
-            for (int x = 0; x < getWidth(); x++) {
-                if (waterMap[x][y]) {
-                    Tile tile = getTile(x, y);
-                    if (tile.getContiguity() >= 0) continue;
-                    
-                    boolean[][] found = floodFill(waterMap, x, y);
-                    for (int yy = 0; yy < getHeight(); yy++) {
-                        for (int xx = 0; xx < getWidth(); xx++) {
-                            if (found[xx][yy]) {
-                                Tile t = getTile(xx, yy);
-                                if (t.getContiguity() < 0) {
-                                    t.setContiguity(contig);
-                                }
-                            }
-                        }
-                    }
-                    contig++;
-                }
-            }
-        }
-
-        // Complement the waterMap, it is now the land map.
-        for (int y = 0; y < getHeight(); y++) {
-            for (int x = 0; x < getWidth(); x++) {
-                if (isValid(x, y)) waterMap[x][y] = !waterMap[x][y];
+        // Label the contiguous water regions, then the contiguous
+        // land regions, numbering the land after the water.
+        final int width = getWidth(), height = getHeight();
+        boolean[][] waterMap = new boolean[width][height];
+        boolean[][] landMap = new boolean[width][height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean land = getTile(x, y).isLand();
+                waterMap[x][y] = !land;
+                landMap[x][y] = land;
             }
         }
-
-        // Flood fill again for each contiguous land region.
-        for (int y = 0; y < getHeight(); y++) {
-            for (int x = 0; x < getWidth(); x++) {
-                if (waterMap[x][y]) {
-                    Tile tile = getTile(x, y);
-                    if (tile.getContiguity() >= 0) continue;
-                    
-                    boolean[][] found = floodFill(waterMap, x, y);
-                    for (int yy = 0; yy < getHeight(); yy++) {
-                        for (int xx = 0; xx < getWidth(); xx++) {
-                            if (found[xx][yy]) {
-                                Tile t = getTile(xx, yy);
-                                if (t.getContiguity() < 0) {
-                                    t.setContiguity(contig);
-                                }
-                            }
-                        }
-                    }
-                    contig++;
+        ComponentLabeller water = new ComponentLabeller(waterMap);
+        ComponentLabeller land = new ComponentLabeller(landMap);
+        final int offset = water.getCount();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int contig = water.getLabel(x, y);
+                if (contig == ComponentLabeller.NONE) {
+                    contig = offset + land.getLabel(x, y);
                 }
+                getTile(x, y).setContiguity(contig);
             }
         }
-    }        
+    }
 
     /**
      * Places the "high seas"-tiles on the border of this map.
@@ -2504,6 +2638,7 @@ public class Map extends FreeColGameObject implements Location {
             }
 
             tiles = new Tile[width][height];
+            clearSearchStates();
         }
 
         minimumLatitude = xr.getAttribute(MINIMUM_LATITUDE_TAG, -90);
@@ -191,6 +191,24 @@ public class PathNode {
         return n;
     }
         
+    /**
+     * Copy the rest of this path, starting with this node.
+     *
+     * @return A new <code>PathNode</code> with copies of this and
+     *     the following nodes.
+     */
+    public PathNode copy() {
+        PathNode head = new PathNode(location, movesLeft, turns, onCarrier,
+                                     null, null);
+        PathNode tail = head;
+        for (PathNode p = next; p != null; p = p.next) {
+            tail.next = new PathNode(p.location, p.movesLeft, p.turns,
+                                     p.onCarrier, tail, null);
+            tail = tail.next;
+        }
+        return head;
+    }
+
     /**
      * Gets the direction to move in order to get to this path node.
      *
@@ -0,0 +1,261 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.model;
+
+import java.util.Arrays;
+
+
+/**
+ * The open and closed sets of a {@link Map} path search.
+ *
+ * Tiles are identified by their dense index <code>x + y * width</code>,
+ * so the sets are plain arrays rather than maps keyed on identifier
+ * strings.  The open set is an indexed binary heap ordered on the
+ * estimated total cost, which supports changing the cost of a node
+ * already in the heap.
+ *
+ * Allocating arrays the size of the map for each search would be
+ * expensive, so the map keeps a few states for reuse.  Only the
+ * entries touched by a search are reset when it is cleared, which
+ * also drops the references to the path nodes.
+ */
+final class PathSearchState {
+
+    /** The number of tiles the arrays are sized for. */
+    private final int size;
+
+    /** The open node for each tile, if any. */
+    private final PathNode[] open;
+
+    /** The closed node for each tile, if any. */
+    private final PathNode[] closed;
+
+    /** The estimated total cost of the open node of each tile. */
+    private final int[] f;
+
+    /** The position of each tile in the heap, or -1 if absent. */
+    private final int[] heapPosition;
+
+    /** The heap of open tile indexes, smallest f first. */
+    private final int[] heap;
+
+    /** The number of entries in the heap. */
+    private int heapSize = 0;
+
+    /** The tile indexes touched by the current search. */
+    private int[] touched;
+
+    /** The number of touched indexes. */
+    private int touchedSize = 0;
+
+    /** Has each tile been touched by the current search? */
+    private final boolean[] isTouched;
+
+
+    /**
+     * Create a new search state.
+     *
+     * @param size The number of tiles in the map.
+     */
+    PathSearchState(int size) {
+        this.size = size;
+        this.open = new PathNode[size];
+        this.closed = new PathNode[size];
+        this.f = new int[size];
+        this.heapPosition = new int[size];
+        Arrays.fill(this.heapPosition, -1);
+        this.heap = new int[size];
+        this.touched = new int[Math.min(size, 1024)];
+        this.isTouched = new boolean[size];
+    }
+
+    /**
+     * Gets the number of tiles this state is sized for.
+     *
+     * @return The size.
+     */
+    int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Clear this state at the end of a search, resetting the entries
+     * it touched.
+     */
+    void clear() {
+        for (int i = 0; i < touchedSize; i++) {
+            int index = touched[i];
+            open[index] = null;
+            closed[index] = null;
+            heapPosition[index] = -1;
+            isTouched[index] = false;
+        }
+        touchedSize = 0;
+        heapSize = 0;
+    }
+
+    /**
+     * Note that an index has been touched by this search.
+     *
+     * @param index The tile index.
+     */
+    private void touch(int index) {
+        if (isTouched[index]) return;
+        isTouched[index] = true;
+        if (touchedSize >= touched.length) {
+            touched = Arrays.copyOf(touched,
+                Math.min(size, 2 * touched.length));
+        }
+        touched[touchedSize++] = index;
+    }
+
+    // The closed set
+
+    /**
+     * Gets the closed node for a tile.
+     *
+     * @param index The tile index.
+     * @return The closed <code>PathNode</code>, or null if none.
+     */
+    PathNode getClosed(int index) {
+        return closed[index];
+    }
+
+    /**
+     * Sets the closed node for a tile.
+     *
+     * @param index The tile index.
+     * @param node The <code>PathNode</code> to close, or null to remove.
+     */
+    void setClosed(int index, PathNode node) {
+        touch(index);
+        closed[index] = node;
+    }
+
+    // The open set
+
+    /**
+     * Is the open set empty?
+     *
+     * @return True if there are no open nodes.
+     */
+    boolean isOpenEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Gets the open node for a tile.
+     *
+     * @param index The tile index.
+     * @return The open <code>PathNode</code>, or null if none.
+     */
+    PathNode getOpen(int index) {
+        return open[index];
+    }
+
+    /**
+     * Adds a node to the open set, or replaces the open node of its
+     * tile with a new estimated cost.
+     *
+     * @param index The tile index.
+     * @param node The <code>PathNode</code> to open.
+     * @param cost The estimated total cost through the node.
+     */
+    void putOpen(int index, PathNode node, int cost) {
+        touch(index);
+        open[index] = node;
+        f[index] = cost;
+        int pos = heapPosition[index];
+        if (pos < 0) {
+            pos = heapSize++;
+            heap[pos] = index;
+            heapPosition[index] = pos;
+            siftUp(pos);
+        } else {
+            siftDown(siftUp(pos));
+        }
+    }
+
+    /**
+     * Removes and returns the open node with the lowest estimated cost.
+     *
+     * @return The best open <code>PathNode</code>.
+     */
+    PathNode pollOpen() {
+        int index = heap[0];
+        PathNode node = open[index];
+        open[index] = null;
+        heapPosition[index] = -1;
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPosition[heap[0]] = 0;
+            siftDown(0);
+        }
+        return node;
+    }
+
+    /**
+     * Move a heap entry towards the root until it is in order.
+     *
+     * @param pos The heap position to start at.
+     * @return The final heap position of the entry.
+     */
+    private int siftUp(int pos) {
+        final int index = heap[pos];
+        final int cost = f[index];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            int p = heap[parent];
+            if (f[p] <= cost) break;
+            heap[pos] = p;
+            heapPosition[p] = pos;
+            pos = parent;
+        }
+        heap[pos] = index;
+        heapPosition[index] = pos;
+        return pos;
+    }
+
+    /**
+     * Move a heap entry away from the root until it is in order.
+     *
+     * @param pos The heap position to start at.
+     */
+    private void siftDown(int pos) {
+        final int index = heap[pos];
+        final int cost = f[index];
+        final int half = heapSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < heapSize && f[heap[right]] < f[c]) {
+                child = right;
+                c = heap[child];
+            }
+            if (cost <= f[c]) break;
+            heap[pos] = c;
+            heapPosition[c] = pos;
+            pos = child;
+        }
+        heap[pos] = index;
+        heapPosition[index] = pos;
+    }
+}
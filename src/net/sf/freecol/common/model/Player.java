@@ -22,16 +22,21 @@ package net.sf.freecol.common.model;
 import java.awt.Color;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Locale;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.xml.stream.XMLStreamException;
@@ -118,6 +123,16 @@ public class Player extends FreeColGameObject implements Nameable {
      */
     public abstract class UnitPredicate {
         public abstract boolean obtains(Unit unit);
+
+        /**
+         * Gets the units of a player that might satisfy this predicate.
+         *
+         * @param owner The <code>Player</code> that owns the units.
+         * @return A read-only list of candidate <code>Unit</code>s.
+         */
+        public List<Unit> getCandidates(Player owner) {
+            return owner.getUnits();
+        }
     }
 
     /**
@@ -136,6 +151,17 @@ public class Player extends FreeColGameObject implements Nameable {
             return unit.couldMove()
                 && unit.getState() != Unit.UnitState.SKIPPED;
         }
+
+        /**
+         * Only active units can move.
+         *
+         * @param owner The <code>Player</code> that owns the units.
+         * @return A read-only list of the active <code>Unit</code>s.
+         */
+        @Override
+        public List<Unit> getCandidates(Player owner) {
+            return owner.getUnits(Unit.UnitState.ACTIVE);
+        }
     }
 
     /**
@@ -213,7 +239,7 @@ public class Player extends FreeColGameObject implements Nameable {
          */
         private final void update() {
             units.clear();
-            for (Unit u : owner.getUnits()) {
+            for (Unit u : predicate.getCandidates(owner)) {
                 if (predicate.obtains(u)) units.add(u);
             }
             Collections.sort(units, xyComparator);
@@ -296,6 +322,50 @@ public class Player extends FreeColGameObject implements Nameable {
         }
     }
 
+    /**
+     * What a source of vision can see, the position it is at and
+     * its line of sight.
+     */
+    private static final class Sight {
+
+        /** The position of the source. */
+        public final int x, y;
+
+        /** The line of sight of the source. */
+        public final int radius;
+
+
+        /**
+         * Create a new sight.
+         *
+         * @param tile The <code>Tile</code> the source is at.
+         * @param radius The line of sight.
+         */
+        public Sight(Tile tile, int radius) {
+            this.x = tile.getX();
+            this.y = tile.getY();
+            this.radius = radius;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Sight)) return false;
+            Sight other = (Sight)o;
+            return x == other.x && y == other.y && radius == other.radius;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return (x * 31 + y) * 31 + radius;
+        }
+    }
+
 
     //
     // Constants
@@ -455,8 +525,12 @@ public class Player extends FreeColGameObject implements Nameable {
      *
      * Only used by AI, but resist the temptation to move it to AIPlayer, the
      * complexity is not worth it.
+     *
+     * Concurrent, as the updates for several players are serialized
+     * in parallel, and getTension fills in missing entries.
      */
-    protected final java.util.Map<Player, Tension> tension = new HashMap<>();
+    protected final ConcurrentHashMap<Player, Tension> tension
+        = new ConcurrentHashMap<>();
 
     /** A list of players who can not establish missions to this player. */
     protected Set<Player> bannedMissions = null;
@@ -484,9 +558,31 @@ public class Player extends FreeColGameObject implements Nameable {
     /** The units this player owns. */
     private final List<Unit> units = new ArrayList<>();
 
+    /**
+     * A read-only copy of the units, and read-only lists of the units
+     * by state and by type.  These are replaced rather than changed,
+     * so they can be handed out without copying and are safe to
+     * iterate over while the units change.  Do not access them
+     * without taking the units lock.
+     */
+    private List<Unit> unitsView = null;
+    private final java.util.Map<Unit.UnitState, List<Unit>> unitsByState
+        = new EnumMap<>(Unit.UnitState.class);
+    private final java.util.Map<UnitType, List<Unit>> unitsByType
+        = new HashMap<>();
+    /** The state and type each unit is indexed under. */
+    private final java.util.Map<Unit, Unit.UnitState> indexedStates
+        = new IdentityHashMap<>();
+    private final java.util.Map<Unit, UnitType> indexedTypes
+        = new IdentityHashMap<>();
+
     /** The settlements this player owns. */
     protected final List<Settlement> settlements = new ArrayList<>();
 
+    /** Read-only lists of the colonies and native settlements. */
+    private volatile List<Colony> coloniesView = null;
+    private volatile List<IndianSettlement> indianSettlementsView = null;
+
     /** The tiles the player can see. */
     private boolean[][] canSeeTiles = null;
     /** Are the canSeeTiles valid or do they need to be recalculated? */
@@ -494,6 +590,29 @@ public class Player extends FreeColGameObject implements Nameable {
     /** Do not access canSeeTiles without taking canSeeLock. */
     private final Object canSeeLock = new Object();
 
+    /**
+     * With fog of war, the number of vision sources that can see
+     * each tile.  Only touched while holding the visionLock.
+     */
+    private int[][] visionCounts = null;
+    /** The map the vision counts were made for. */
+    private Map visionMap = null;
+    /** The sources of vision that were counted. */
+    private final java.util.Map<FreeColGameObject, Sight> visionSources
+        = new HashMap<>();
+    /** Tiles whose vision counts changed since the last update. */
+    private final Set<Tile> visionTouched = new HashSet<>();
+    /**
+     * The tiles whose visibility has changed since the changes were
+     * last taken, with their visibility before the first change.
+     */
+    private final java.util.Map<Tile, Boolean> visionChanges
+        = new LinkedHashMap<>();
+    /** A list to gather the tiles in sight into, reused to save garbage. */
+    private final List<Tile> visionScratch = new ArrayList<>();
+    /** Serializes updates of the canSeeTiles. */
+    private final Object visionLock = new Object();
+
     /** A container for the abilities and modifiers of this type. */
     protected final FeatureContainer featureContainer = new FeatureContainer();
 
@@ -1985,16 +2104,122 @@ public class Player extends FreeColGameObject implements Nameable {
     }
 
     /**
-     * Get a copy of the players units.
+     * Get the players units.
      *
-     * @return A list of the player <code>Unit</code>s.
+     * @return A read-only list of the player <code>Unit</code>s.
      */
     public List<Unit> getUnits() {
         synchronized (units) {
-            return new ArrayList<>(units);
+            if (unitsView == null) {
+                unitsView = Collections.unmodifiableList(new ArrayList<>(units));
+            }
+            return unitsView;
+        }
+    }
+
+    /**
+     * Get the player units in a given state.
+     *
+     * @param state The <code>UnitState</code> to look for.
+     * @return A read-only list of the <code>Unit</code>s in that state.
+     */
+    public List<Unit> getUnits(Unit.UnitState state) {
+        synchronized (units) {
+            List<Unit> result = unitsByState.get(state);
+            return (result == null) ? Collections.<Unit>emptyList() : result;
+        }
+    }
+
+    /**
+     * Get the player units of a given type.
+     *
+     * @param type The <code>UnitType</code> to look for.
+     * @return A read-only list of the <code>Unit</code>s of that type.
+     */
+    public List<Unit> getUnits(UnitType type) {
+        synchronized (units) {
+            List<Unit> result = unitsByType.get(type);
+            return (result == null) ? Collections.<Unit>emptyList() : result;
         }
     }
 
+    /**
+     * Update the unit indices after the state or type of one of the
+     * player units has changed.
+     *
+     * @param unit The <code>Unit</code> that changed.
+     */
+    public void reindexUnit(Unit unit) {
+        synchronized (units) {
+            if (!indexedStates.containsKey(unit)
+                || (indexedStates.get(unit) == unit.getState()
+                    && indexedTypes.get(unit) == unit.getType())) return;
+            unindexUnit(unit);
+            indexUnit(unit);
+        }
+    }
+
+    /**
+     * Add a unit to the unit indices.  Take the units lock first.
+     *
+     * @param unit The <code>Unit</code> to add.
+     */
+    private void indexUnit(Unit unit) {
+        final Unit.UnitState state = unit.getState();
+        final UnitType type = unit.getType();
+        indexedStates.put(unit, state);
+        indexedTypes.put(unit, type);
+        unitsByState.put(state, addToIndex(unitsByState.get(state), unit));
+        unitsByType.put(type, addToIndex(unitsByType.get(type), unit));
+        unitsView = null;
+    }
+
+    /**
+     * Remove a unit from the unit indices.  Take the units lock first.
+     *
+     * @param unit The <code>Unit</code> to remove.
+     */
+    private void unindexUnit(Unit unit) {
+        final Unit.UnitState state = indexedStates.remove(unit);
+        final UnitType type = indexedTypes.remove(unit);
+        List<Unit> l = removeFromIndex(unitsByState.get(state), unit);
+        if (l == null) unitsByState.remove(state);
+        else unitsByState.put(state, l);
+        l = removeFromIndex(unitsByType.get(type), unit);
+        if (l == null) unitsByType.remove(type);
+        else unitsByType.put(type, l);
+        unitsView = null;
+    }
+
+    /**
+     * Make a copy of a read-only unit list with a unit added.
+     *
+     * @param list The list to copy, which may be null.
+     * @param unit The <code>Unit</code> to add.
+     * @return A new read-only list.
+     */
+    private static List<Unit> addToIndex(List<Unit> list, Unit unit) {
+        List<Unit> result = (list == null) ? new ArrayList<Unit>(4)
+            : new ArrayList<>(list);
+        result.add(unit);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Make a copy of a read-only unit list with a unit removed.
+     *
+     * @param list The list to copy, which may be null.
+     * @param unit The <code>Unit</code> to remove.
+     * @return A new read-only list, or null if it would be empty.
+     */
+    private static List<Unit> removeFromIndex(List<Unit> list, Unit unit) {
+        if (list == null) return null;
+        List<Unit> result = new ArrayList<>(list.size());
+        for (Unit u : list) if (u != unit) result.add(u);
+        return (result.isEmpty()) ? null
+            : Collections.unmodifiableList(result);
+    }
+
     /**
      * Get a player unit by name.
      *
@@ -2038,6 +2263,7 @@ public class Player extends FreeColGameObject implements Nameable {
         if (hasUnit(newUnit)) return false;
 
         synchronized (units) {
+            indexUnit(newUnit);
             return units.add(newUnit);
         }
     }
@@ -2056,8 +2282,11 @@ public class Player extends FreeColGameObject implements Nameable {
         nextTradeRouteUnitIterator.remove(oldUnit);
 
         synchronized (units) {
-            return units.remove(oldUnit);
+            if (!units.remove(oldUnit)) return false;
+            unindexUnit(oldUnit);
         }
+        removeVisionSource(oldUnit);
+        return true;
     }
 
     /**
@@ -2112,8 +2341,10 @@ public class Player extends FreeColGameObject implements Nameable {
      * @return True if this player owns at least one of the specified unit type.
      */
     public boolean hasUnitType(String typeId) {
-        for (Unit u : getUnits()) {
-            if (typeId.equals(u.getType().getId())) return true;
+        synchronized (units) {
+            for (UnitType type : unitsByType.keySet()) {
+                if (type != null && typeId.equals(type.getId())) return true;
+            }
         }
         return false;
     }
@@ -2340,6 +2571,8 @@ public class Player extends FreeColGameObject implements Nameable {
         }
         if (hasSettlement(settlement)) return false;
         settlements.add(settlement);
+        coloniesView = null;
+        indianSettlementsView = null;
         return true;
     }
 
@@ -2350,7 +2583,11 @@ public class Player extends FreeColGameObject implements Nameable {
      * @return True if the settlements container changed.
      */
     public boolean removeSettlement(Settlement settlement) {
-        return settlements.remove(settlement);
+        if (!settlements.remove(settlement)) return false;
+        coloniesView = null;
+        indianSettlementsView = null;
+        removeVisionSource(settlement);
+        return true;
     }
 
     /**
@@ -2394,13 +2631,16 @@ public class Player extends FreeColGameObject implements Nameable {
     }
 
     /**
-     * Gets a fresh list of all colonies this player owns.
+     * Gets a list of all colonies this player owns.
      * It is an error to call this on non-European players.
      *
-     * @return A fresh list of the <code>Colony</code>s this player owns.
+     * @return A read-only list of the <code>Colony</code>s this
+     *     player owns.
      */
     public List<Colony> getColonies() {
-        List<Colony> colonies = new ArrayList<>();
+        List<Colony> colonies = coloniesView;
+        if (colonies != null) return colonies;
+        colonies = new ArrayList<>();
         for (Settlement s : getSettlements()) {
             if (s instanceof Colony) {
                 colonies.add((Colony)s);
@@ -2408,7 +2648,7 @@ public class Player extends FreeColGameObject implements Nameable {
                 throw new RuntimeException("getColonies found: " + s);
             }
         }
-        return colonies;
+        return coloniesView = Collections.unmodifiableList(colonies);
     }
 
     /**
@@ -2418,7 +2658,7 @@ public class Player extends FreeColGameObject implements Nameable {
      * @return A fresh list of the <code>Colony</code>s this player owns.
      */
     public List<Colony> getSortedColonies(Comparator<Colony> c) {
-        List<Colony> colonies = getColonies();
+        List<Colony> colonies = new ArrayList<>(getColonies());
         Collections.sort(colonies, c);
         return colonies;
     }
@@ -2430,7 +2670,9 @@ public class Player extends FreeColGameObject implements Nameable {
      * @return The indian settlements this player owns.
      */
     public List<IndianSettlement> getIndianSettlements() {
-        List<IndianSettlement> indianSettlements = new ArrayList<>();
+        List<IndianSettlement> indianSettlements = indianSettlementsView;
+        if (indianSettlements != null) return indianSettlements;
+        indianSettlements = new ArrayList<>();
         for (Settlement s : getSettlements()) {
             if (s instanceof IndianSettlement) {
                 indianSettlements.add((IndianSettlement)s);
@@ -2438,7 +2680,8 @@ public class Player extends FreeColGameObject implements Nameable {
                 throw new RuntimeException("getIndianSettlements found: " + s);
             }
         }
-        return indianSettlements;
+        return indianSettlementsView
+            = Collections.unmodifiableList(indianSettlements);
     }
 
     /**
@@ -2706,8 +2949,10 @@ public class Player extends FreeColGameObject implements Nameable {
      *
      * Ideally then when any of these events occurs we should call
      * invalidateCanSeeTiles().  However while iCST is quick and
-     * cheap, as soon as we then call canSee() the big expensive
-     * makeCanSeeTiles will be run.  Often the situation in the server
+     * cheap, as soon as we then call canSee() makeCanSeeTiles will
+     * be run, which at least has to look at every unit and
+     * settlement even though it only updates the tiles around those
+     * that have changed.  Often the situation in the server
      * is that several routines with visibility implications will be
      * called in succession.  Usually there, the best solution is to
      * make all the changes and issue the iCST at the end.  So, to
@@ -2737,14 +2982,75 @@ public class Player extends FreeColGameObject implements Nameable {
         Map map = getGame().getMap();
         if (map == null) return false;
 
-        boolean[][] cST = makeCanSeeTiles(map);
-        synchronized (canSeeLock) {
-            canSeeTiles = cST;
-            canSeeValid = true;
+        synchronized (visionLock) {
+            // Another thread may have done the work while we waited.
+            synchronized (canSeeLock) {
+                if (canSeeValid) return true;
+            }
+            boolean[][] cST = makeCanSeeTiles(map);
+            synchronized (canSeeLock) {
+                canSeeTiles = cST;
+                canSeeValid = true;
+            }
         }
         return true;
     }
 
+    /**
+     * Takes the tiles whose visibility to this player has changed
+     * since the changes were last taken, bringing the "can see"-tiles
+     * up to date first.  Tiles that changed and then changed back
+     * are left out.
+     *
+     * @param visible A collection to add the newly visible tiles to.
+     * @param fogged A collection to add the newly fogged tiles to.
+     */
+    public void takeVisibilityChanges(Collection<Tile> visible,
+                                      Collection<Tile> fogged) {
+        if (!resetCanSeeTiles()) return;
+        synchronized (visionLock) {
+            synchronized (canSeeLock) {
+                for (Entry<Tile, Boolean> e : visionChanges.entrySet()) {
+                    final Tile t = e.getKey();
+                    boolean see = canSeeTiles[t.getX()][t.getY()];
+                    if (see != e.getValue()) {
+                        ((see) ? visible : fogged).add(t);
+                    }
+                }
+            }
+            visionChanges.clear();
+        }
+    }
+
+    /**
+     * Notes a change to the visibility of a tile.
+     *
+     * Must be called holding the visionLock.
+     *
+     * @param tile The <code>Tile</code> that changed.
+     * @param before Whether the tile was visible before the change.
+     */
+    private void noteVisionChange(Tile tile, boolean before) {
+        if (!visionChanges.containsKey(tile)) visionChanges.put(tile, before);
+    }
+
+    /**
+     * Withdraws a source of vision that has gone away, rather than
+     * keeping it until the next update.  The "can see"-tiles still
+     * change only on that update.
+     *
+     * @param source The <code>FreeColGameObject</code> that may have
+     *     been a source of vision.
+     */
+    void removeVisionSource(FreeColGameObject source) {
+        synchronized (visionLock) {
+            Sight sight = visionSources.remove(source);
+            if (sight != null && visionCounts != null) {
+                changeVision(visionMap, sight, -1, visionTouched);
+            }
+        }
+    }
+
     /**
      * Checks if this player has explored the given tile.
      *
@@ -2758,12 +3064,20 @@ public class Player extends FreeColGameObject implements Nameable {
     /**
      * Builds a canSeeTiles array.
      *
+     * With fog of war, the array is maintained incrementally.  Each
+     * tile has a count of the vision sources (units, settlements,
+     * missions and colonies seen by Coronado) that can see it.  Only
+     * the sources that have appeared, moved, changed their line of
+     * sight or disappeared since the last update change the counts,
+     * and the tiles whose counts go to or from zero are recorded as
+     * newly visible or fogged.  Without fog of war, the tiles that
+     * were explored since the last update are recorded as visible.
+     * Nothing is recorded when the array is first built.
+     *
      * Note that tiles must be tested for null as they may be both
      * valid tiles but yet null during a save game load.
      *
-     * Note the use of copies of the unit and settlement lists to
-     * avoid nasty surprises due to asynchronous disappearance of
-     * members of either.  FIXME: see if this can be relaxed.
+     * Must be called holding the visionLock.
      *
      * @param map The <code>Map</code> to use.
      * @return A canSeeTiles array.
@@ -2773,55 +3087,111 @@ public class Player extends FreeColGameObject implements Nameable {
         // Simple case when there is no fog of war: a tile is
         // visible once it is explored.
         if (!spec.getBoolean(GameOptions.FOG_OF_WAR)) {
-            boolean[][] cST = (canSeeTiles != null) ? canSeeTiles
-                : new boolean[map.getWidth()][map.getHeight()];
-            for (Tile t : getGame().getMap().getAllTiles()) {
-                if (t != null) {
-                    cST[t.getX()][t.getY()] = hasExplored(t);
+            boolean[][] cST = canSeeTiles;
+            boolean fresh = cST == null || cST.length != map.getWidth()
+                || cST[0].length != map.getHeight();
+            if (fresh) {
+                cST = new boolean[map.getWidth()][map.getHeight()];
+                visionChanges.clear();
+            }
+            for (Tile t : map.getAllTiles()) {
+                if (t == null) continue;
+                final int x = t.getX(), y = t.getY();
+                boolean see = hasExplored(t);
+                if (see != cST[x][y]) {
+                    if (!fresh) noteVisionChange(t, cST[x][y]);
+                    cST[x][y] = see;
                 }
             }
+            visionCounts = null;
+            visionMap = null;
+            visionSources.clear();
+            visionTouched.clear();
             return cST;
         }
 
         // When there is fog, have to trace all locations where the
         // player has units, settlements, (optionally) missions, and
-        // extra visibility.
-        // Set the PET for visible tiles to the tile itself.
-        boolean[][] cST = new boolean[map.getWidth()][map.getHeight()];
+        // extra visibility.  Start again if the map has changed.
+        boolean[][] cST = canSeeTiles;
+        boolean fresh = visionCounts == null || visionMap != map
+            || cST == null || cST.length != map.getWidth()
+            || cST[0].length != map.getHeight();
+        if (fresh) {
+            visionCounts = new int[map.getWidth()][map.getHeight()];
+            visionMap = map;
+            visionSources.clear();
+            visionTouched.clear();
+            visionChanges.clear();
+            cST = new boolean[map.getWidth()][map.getHeight()];
+        }
 
+        // Withdraw the sources that have gone or changed, then add
+        // the new ones, noting the tiles touched.  Sources that were
+        // withdrawn when they went away have already touched theirs.
+        java.util.Map<FreeColGameObject, Sight> sources
+            = collectVisionSources(spec);
+        Set<Tile> touched = new HashSet<>(visionTouched);
+        visionTouched.clear();
+        for (Entry<FreeColGameObject, Sight> e : visionSources.entrySet()) {
+            if (!e.getValue().equals(sources.get(e.getKey()))) {
+                changeVision(map, e.getValue(), -1, touched);
+            }
+        }
+        for (Entry<FreeColGameObject, Sight> e : sources.entrySet()) {
+            if (!e.getValue().equals(visionSources.get(e.getKey()))) {
+                changeVision(map, e.getValue(), 1, touched);
+            }
+        }
+        visionSources.clear();
+        visionSources.putAll(sources);
+
+        for (Tile t : touched) {
+            final int x = t.getX(), y = t.getY();
+            boolean see = visionCounts[x][y] > 0;
+            if (see != cST[x][y]) {
+                if (!fresh) noteVisionChange(t, cST[x][y]);
+                cST[x][y] = see;
+            }
+        }
+        return cST;
+    }
+
+    /**
+     * Collects the current sources of vision for this player.
+     *
+     * Note the use of copies of the unit and settlement lists to
+     * avoid nasty surprises due to asynchronous disappearance of
+     * members of either.  FIXME: see if this can be relaxed.
+     *
+     * @param spec The <code>Specification</code> to use.
+     * @return A map of the vision sources to what they can see.
+     */
+    private java.util.Map<FreeColGameObject, Sight>
+        collectVisionSources(Specification spec) {
+        java.util.Map<FreeColGameObject, Sight> sources = new HashMap<>();
         for (Unit unit : getUnits()) {
             // Only consider units directly on the map, not those on a
             // carrier or in Europe.
             if (!(unit.getLocation() instanceof Tile)) continue;
-
-            // All the units.
-            for (Tile t : ((Tile)unit.getLocation()).getSurroundingTiles(0,
-                    unit.getLineOfSight())) {
-                cST[t.getX()][t.getY()] = true;
-                t.seeTile(this);
-            }
+            sources.put(unit, new Sight((Tile)unit.getLocation(),
+                                        unit.getLineOfSight()));
         }
         // All the settlements.
         for (Settlement settlement : getSettlements()) {
-            for (Tile t : settlement.getTile().getSurroundingTiles(0,
-                    settlement.getLineOfSight())) {
-                cST[t.getX()][t.getY()] = true;
-                t.seeTile(this);
-            }
+            if (settlement.getTile() == null) continue;
+            sources.put(settlement, new Sight(settlement.getTile(),
+                                              settlement.getLineOfSight()));
         }
         // All missions if using enhanced missionaries.
         if (isEuropean()
                 && spec.getBoolean(GameOptions.ENHANCED_MISSIONARIES)) {
             for (Player other : getGame().getLiveNativePlayers(this)) {
                 for (IndianSettlement is : other.getIndianSettlements()) {
-                    if (!is.hasMissionary(this)) {
-                        continue;
-                    }
-                    for (Tile t : is.getTile().getSurroundingTiles(0,
-                            is.getLineOfSight())) {
-                        cST[t.getX()][t.getY()] = true;
-                        t.seeTile(this);
-                    }
+                    if (!is.hasMissionary(this)
+                        || is.getTile() == null) continue;
+                    sources.put(is, new Sight(is.getTile(),
+                                              is.getLineOfSight()));
                 }
             }
         }
@@ -2829,17 +3199,42 @@ public class Player extends FreeColGameObject implements Nameable {
         if (isEuropean() && hasAbility(Ability.SEE_ALL_COLONIES)) {
             for (Player other : getGame().getLiveEuropeanPlayers(this)) {
                 for (Colony colony : other.getColonies()) {
-                    for (Tile t : colony.getTile().getSurroundingTiles(0,
-                            colony.getLineOfSight())) {
-                        cST[t.getX()][t.getY()] = true;
-                        t.seeTile(this);
-                    }
+                    if (colony.getTile() == null) continue;
+                    sources.put(colony, new Sight(colony.getTile(),
+                                                  colony.getLineOfSight()));
                 }
             }
         }
-        return cST;
+        return sources;
     }
 
+    /**
+     * Adds or withdraws a source of vision from the vision counts.
+     * Tiles that come into view are seen.
+     *
+     * @param map The <code>Map</code> to use.
+     * @param sight The <code>Sight</code> of the source.
+     * @param delta The change to the count, 1 or -1.
+     * @param touched A set of <code>Tile</code>s to add the tiles
+     *     in sight to.
+     */
+    private void changeVision(Map map, Sight sight, int delta,
+                              Set<Tile> touched) {
+        Tile center = map.getTile(sight.x, sight.y);
+        if (center == null) return;
+        visionScratch.clear();
+        visionScratch.add(center);
+        if (sight.radius > 0) {
+            map.getRingTiles(center, 1, sight.radius, visionScratch);
+        }
+        for (Tile t : visionScratch) {
+            if (t == null) continue;
+            visionCounts[t.getX()][t.getY()] += delta;
+            touched.add(t);
+            if (delta > 0) t.seeTile(this);
+        }
+        visionScratch.clear();
+    }
 
     //
     // Foreign relations
@@ -2856,7 +3251,8 @@ public class Player extends FreeColGameObject implements Nameable {
         Tension newTension = tension.get(player);
         if (newTension == null) {
             newTension = new Tension(Tension.TENSION_MIN);
-            tension.put(player, newTension);
+            Tension old = tension.putIfAbsent(player, newTension);
+            if (old != null) newTension = old;
         }
         return newTension;
     }
@@ -2869,7 +3265,11 @@ public class Player extends FreeColGameObject implements Nameable {
      */
     public void setTension(Player player, Tension newTension) {
         if (player == this || player == null) return;
-        tension.put(player, newTension);
+        if (newTension == null) {
+            tension.remove(player);
+        } else {
+            tension.put(player, newTension);
+        }
     }
 
     /**
@@ -453,6 +453,10 @@ public abstract class Settlement extends GoodsLocation
             // destroyed there is a race between this code and some
             // display routines that still need to know who owned the
             // dead settlement.
+            // Missions and Coronado also let other players see.
+            for (Player p : getGame().getLiveEuropeanPlayers(owner)) {
+                p.removeVisionSource(this);
+            }
         }
         super.disposeResources();
     }
@@ -1233,18 +1233,8 @@ public final class Tile extends UnitLocation implements Named, Ownable {
         if (rangeMin > rangeMax || rangeMin < 0) return result;
 
         if (rangeMin == 0) result.add(this);
-
         if (rangeMax > 0) {
-            for (Tile t : getSurroundingTiles(rangeMax)) {
-                // add all tiles up to rangeMax
-                result.add(t);
-            }
-        }
-        if (rangeMin > 1) {
-            for (Tile t : getSurroundingTiles(rangeMin - 1)) {
-                // remove the tiles closer than rangeMin
-                result.remove(t);
-            }
+            getMap().getRingTiles(this, rangeMin, rangeMax, result);
         }
         return result;
     }
@@ -2458,8 +2448,9 @@ public final class Tile extends UnitLocation implements Named, Ownable {
                 // confusing the client by referring to the disposed
                 // settlement.  So clear out such cases.  This is an
                 // information leak, but a better option than the
-                // crashes caused by the alternative.
-                this.owningSettlement = null;
+                // crashes caused by the alternative.  Client writes
+                // may run in parallel, so they only skip the attribute.
+                if (xw.getClientPlayer() == null) this.owningSettlement = null;
             } else {
                 xw.writeAttribute(OWNING_SETTLEMENT_TAG, owningSettlement);
             }
@@ -463,6 +463,7 @@ public class Unit extends GoodsLocation
      */
     public void setType(UnitType unitType) {
         this.unitType = unitType;
+        if (owner != null) owner.reindexUnit(this);
     }
 
     /**
@@ -700,6 +701,7 @@ public class Unit extends GoodsLocation
             setWorkLeft(-1);
         }
         state = s;
+        if (owner != null) owner.reindexUnit(this);
     }
 
     /**
@@ -4311,6 +4313,7 @@ public class Unit extends GoodsLocation
                               UnitType.class, (UnitType)null);
 
         state = xr.getAttribute(STATE_TAG, UnitState.class, UnitState.ACTIVE);
+        if (owner != null) owner.reindexUnit(this);
 
         role = xr.getRole(spec, ROLE_TAG, Role.class,
                           spec.getDefaultRole());
@@ -567,10 +567,13 @@ public abstract class UnitLocation extends FreeColGameObject implements Location
         synchronized (units) {
             for (Unit unit : units) {
                 if (unit.getLocation() != this) {
+                    // Client writes may run in parallel, so only
+                    // fix the location in server and save writes.
+                    boolean fix = xw.getClientPlayer() == null;
                     logger.warning("UnitLocation contains unit " + unit
                         + " with bogus location " + unit.getLocation()
-                        + ", fixing.");
-                    unit.setLocationNoUpdate(this);
+                        + ((fix) ? ", fixing." : "."));
+                    if (fix) unit.setLocationNoUpdate(this);
                 }
                 unit.toXML(xw);
             }
@@ -0,0 +1,376 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+
+/**
+ * A compact binary encoding of the messages, negotiated at login.
+ *
+ * Each message is a frame starting with {@link #FRAME_MARKER}, which
+ * can never start an XML message, followed by a four byte payload
+ * length and the payload.  Receivers check the first byte of each
+ * message, so binary and XML messages may be mixed on a connection.
+ *
+ * Tag names, attribute names and short non-numeric values are
+ * interned in a {@link StringTable} shared by the encoding and
+ * decoding ends of a connection direction, so repeated strings such
+ * as <code>model.unit.freeColonist</code> are sent only once.
+ * Frames must therefore be decoded in the order they were encoded.
+ *
+ * String encoding:
+ *   varint 0, varint length, UTF-8 bytes: a new string, interned
+ *   varint 1, varint length, UTF-8 bytes: a literal string
+ *   varint n+2: the n'th interned string
+ *
+ * Element encoding:
+ *   string tag, varint attribute count, (string name, string value)*,
+ *   varint child count, (byte CHILD_ELEMENT, element
+ *                       | byte CHILD_TEXT, string text)*
+ */
+public final class BinaryCodec {
+
+    /** The first byte of a binary frame. */
+    public static final int FRAME_MARKER = 0;
+
+    /** The length of the frame header, marker and payload length. */
+    public static final int HEADER_LENGTH = 5;
+
+    /**
+     * The longest payload accepted.  Larger messages are sent as
+     * XML, so a peer can not make the receiver allocate without limit.
+     */
+    public static final int MAX_FRAME_LENGTH = 8 * 1024 * 1024;
+
+    /** Child node types. */
+    private static final int CHILD_ELEMENT = 1, CHILD_TEXT = 2;
+
+    /** String reference types. */
+    private static final int STRING_NEW = 0, STRING_LITERAL = 1,
+        STRING_INDEX = 2;
+
+    /** The longest string to intern. */
+    private static final int MAX_INTERN_LENGTH = 64;
+
+    /** The maximum number of interned strings. */
+    private static final int MAX_INTERNED = 65536;
+
+    /** The wire character set. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The interned strings for one direction of a connection.
+     */
+    public static final class StringTable {
+
+        /** The strings by index, for decoding. */
+        private final List<String> strings = new ArrayList<>();
+
+        /** The indexes by string, for encoding. */
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+
+        /**
+         * Gets the number of interned strings.
+         *
+         * @return The table size.
+         */
+        public int size() {
+            return this.strings.size();
+        }
+
+        private boolean isFull() {
+            return this.strings.size() >= MAX_INTERNED;
+        }
+
+        private void add(String s) {
+            this.indexes.put(s, this.strings.size());
+            this.strings.add(s);
+        }
+
+        private void truncate(int size) {
+            while (this.strings.size() > size) {
+                this.indexes.remove(this.strings.remove(this.strings.size() - 1));
+            }
+        }
+    }
+
+
+    private BinaryCodec() {} // Hide constructor
+
+
+    // Encoding
+
+    /**
+     * Write an element as a binary frame.  Nothing is written if the
+     * frame would be too long for the receiver to accept, and the
+     * strings interned for it are dropped again.
+     *
+     * @param element The <code>Element</code> to write.
+     * @param out The <code>OutputStream</code> to write to.
+     * @param table The <code>StringTable</code> for this direction.
+     * @return True if the frame was written.
+     * @exception IOException if the write fails.
+     */
+    public static boolean write(Element element, OutputStream out,
+                                StringTable table) throws IOException {
+        final int interned = table.size();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(1024);
+        writeElement(element, payload, table);
+        int n = payload.size();
+        if (!isValidLength(n)) {
+            table.truncate(interned);
+            return false;
+        }
+        out.write(FRAME_MARKER);
+        out.write(n >>> 24);
+        out.write(n >>> 16);
+        out.write(n >>> 8);
+        out.write(n);
+        payload.writeTo(out);
+        return true;
+    }
+
+    private static void writeElement(Element element,
+                                     ByteArrayOutputStream out,
+                                     StringTable table) {
+        writeString(element.getTagName(), true, out, table);
+        NamedNodeMap attributes = element.getAttributes();
+        final int n = attributes.getLength();
+        writeVarint(n, out);
+        for (int i = 0; i < n; i++) {
+            Attr attr = (Attr)attributes.item(i);
+            String value = attr.getValue();
+            writeString(attr.getName(), true, out, table);
+            writeString(value, shouldIntern(value), out, table);
+        }
+        int children = 0;
+        for (Node c = element.getFirstChild(); c != null;
+             c = c.getNextSibling()) {
+            if (isChild(c)) children++;
+        }
+        writeVarint(children, out);
+        for (Node c = element.getFirstChild(); c != null;
+             c = c.getNextSibling()) {
+            if (!isChild(c)) continue;
+            if (c.getNodeType() == Node.ELEMENT_NODE) {
+                out.write(CHILD_ELEMENT);
+                writeElement((Element)c, out, table);
+            } else {
+                out.write(CHILD_TEXT);
+                writeString(c.getNodeValue(), false, out, table);
+            }
+        }
+    }
+
+    /**
+     * Is a node a child that is encoded?
+     *
+     * @param node The <code>Node</code> to test.
+     * @return True for elements and text.
+     */
+    private static boolean isChild(Node node) {
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+        case Node.TEXT_NODE: case Node.CDATA_SECTION_NODE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Should an attribute value be interned?  Identifiers with
+     * numbers in them are mostly unique, and numbers are short anyway,
+     * so only intern values without digits.
+     *
+     * @param value The value to test.
+     * @return True if the value should be interned.
+     */
+    private static boolean shouldIntern(String value) {
+        final int n = value.length();
+        if (n > MAX_INTERN_LENGTH) return false;
+        for (int i = 0; i < n; i++) {
+            if (Character.isDigit(value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static void writeString(String s, boolean intern,
+                                    ByteArrayOutputStream out,
+                                    StringTable table) {
+        Integer index = table.indexes.get(s);
+        if (index != null) {
+            writeVarint(index + STRING_INDEX, out);
+            return;
+        }
+        if (intern && !table.isFull()) {
+            table.add(s);
+            writeVarint(STRING_NEW, out);
+        } else {
+            writeVarint(STRING_LITERAL, out);
+        }
+        byte[] b = s.getBytes(UTF8);
+        writeVarint(b.length, out);
+        out.write(b, 0, b.length);
+    }
+
+    private static void writeVarint(int v, ByteArrayOutputStream out) {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    // Decoding
+
+    /**
+     * Read the payload length from a frame header.
+     *
+     * @param b The buffer containing the header.
+     * @param off The offset of the header.
+     * @return The payload length.
+     */
+    public static int readLength(byte[] b, int off) {
+        return ((b[off+1] & 0xFF) << 24) | ((b[off+2] & 0xFF) << 16)
+            | ((b[off+3] & 0xFF) << 8) | (b[off+4] & 0xFF);
+    }
+
+    /**
+     * Is a payload length read from a frame header valid?  Every
+     * frame holds at least one element, so it can not be empty, and
+     * the buffer for it must not be allowed to grow without limit.
+     *
+     * @param length The payload length.
+     * @return True if the length is valid.
+     */
+    public static boolean isValidLength(int length) {
+        return length > 0 && length <= MAX_FRAME_LENGTH;
+    }
+
+    /**
+     * Decode a frame payload into a new document.
+     *
+     * @param b The buffer containing the payload.
+     * @param off The offset of the payload.
+     * @param len The payload length.
+     * @param table The <code>StringTable</code> for this direction.
+     * @return A new <code>Document</code> containing the message.
+     * @exception IOException if the payload is malformed.
+     */
+    public static Document read(byte[] b, int off, int len,
+                                StringTable table) throws IOException {
+        Document doc = MessageCodec.newDocument();
+        Reader r = new Reader(b, off, len, table);
+        try {
+            doc.appendChild(r.readElement(doc));
+        } catch (DOMException|IndexOutOfBoundsException e) {
+            throw new IOException("Malformed binary message", e);
+        }
+        if (r.pos != off + len) {
+            throw new IOException("Trailing data in binary message");
+        }
+        return doc;
+    }
+
+    /** The decoding state. */
+    private static final class Reader {
+
+        private final byte[] b;
+        private final int end;
+        private final StringTable table;
+        private int pos;
+
+
+        Reader(byte[] b, int off, int len, StringTable table) {
+            this.b = b;
+            this.pos = off;
+            this.end = off + len;
+            this.table = table;
+        }
+
+        Element readElement(Document doc) throws IOException {
+            Element e = doc.createElement(readString());
+            for (int n = readVarint(); n > 0; n--) {
+                String name = readString();
+                e.setAttribute(name, readString());
+            }
+            for (int n = readVarint(); n > 0; n--) {
+                switch (readByte()) {
+                case CHILD_ELEMENT:
+                    e.appendChild(readElement(doc));
+                    break;
+                case CHILD_TEXT:
+                    e.appendChild(doc.createTextNode(readString()));
+                    break;
+                default:
+                    throw new IOException("Bad child type at " + pos);
+                }
+            }
+            return e;
+        }
+
+        String readString() throws IOException {
+            int v = readVarint();
+            if (v >= STRING_INDEX) return this.table.strings.get(v - STRING_INDEX);
+            int len = readVarint();
+            if (len < 0 || this.pos + len > this.end) {
+                throw new IOException("Bad string length " + len);
+            }
+            String s = new String(this.b, this.pos, len, UTF8);
+            this.pos += len;
+            if (v == STRING_NEW) this.table.add(s);
+            return s;
+        }
+
+        int readVarint() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int c = readByte();
+                v |= (c & 0x7F) << shift;
+                if ((c & 0x80) == 0) return v;
+            }
+            throw new IOException("Bad varint at " + pos);
+        }
+
+        int readByte() throws IOException {
+            if (this.pos >= this.end) {
+                throw new IOException("Truncated binary message");
+            }
+            return this.b[this.pos++] & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+
+/**
+ * An output stream that writes fully to a non-blocking socket channel,
+ * waiting for the channel to drain when the kernel buffer is full.
+ * The socket's own output stream refuses to work once its channel is
+ * in non-blocking mode.
+ */
+final class ChannelOutputStream extends OutputStream {
+
+    /** The channel to write to. */
+    private final SocketChannel channel;
+
+    /** A private selector to wait for writability, created on demand. */
+    private Selector selector = null;
+
+
+    /**
+     * Create a new channel output stream.
+     *
+     * @param channel The <code>SocketChannel</code> to write to.
+     */
+    ChannelOutputStream(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void write(byte[] b, int off, int len)
+        throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+        while (bb.hasRemaining()) {
+            if (this.channel.write(bb) > 0) continue;
+            if (this.selector == null) {
+                this.selector = Selector.open();
+                this.channel.register(this.selector, SelectionKey.OP_WRITE);
+            }
+            this.selector.select();
+            this.selector.selectedKeys().clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.selector != null) {
+            this.selector.close();
+            this.selector = null;
+        }
+        this.channel.close();
+    }
+}
@@ -0,0 +1,384 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLStreamException;
+
+import net.sf.freecol.common.FreeColException;
+import net.sf.freecol.common.io.FreeColXMLReader;
+
+import org.w3c.dom.Element;
+
+
+/**
+ * The receiving side of a connection driven by a
+ * {@link ChannelSelector}.  This is the non-blocking equivalent of
+ * {@link ReceivingThread}: the selector thread hands it whatever
+ * input is available, and it assembles complete messages and routes
+ * them to the connection.
+ */
+final class ChannelReceiver implements MessageReceiver {
+
+    private static final Logger logger = Logger.getLogger(ChannelReceiver.class.getName());
+
+    /** The message terminator. */
+    private static final byte END_OF_MESSAGE = '\n';
+
+    /** The initial size of the message assembly buffer. */
+    private static final int INITIAL_SIZE = 4096;
+
+    /** The connection to receive on. */
+    private final Connection connection;
+
+    /** The channel to read from. */
+    private final SocketChannel channel;
+
+    /** The selector this receiver is registered with. */
+    private final ChannelSelector selector;
+
+    /** A map of network ids to the corresponding waiting thread. */
+    private final Map<Integer, NetworkReplyObject> waitingThreads
+        = Collections.synchronizedMap(new HashMap<Integer, NetworkReplyObject>());
+
+    /** The partial message assembled so far. */
+    private byte[] message = new byte[INITIAL_SIZE];
+
+    /** The length of the partial message. */
+    private int length = 0;
+
+    /**
+     * The total length of the binary frame being assembled, or
+     * negative if assembling an XML message.
+     */
+    private int frameLength = -1;
+
+    /** The strings interned by the binary encoder of the peer. */
+    private final BinaryCodec.StringTable binaryTable
+        = new BinaryCodec.StringTable();
+
+    /** Whether this receiver should run. */
+    private boolean shouldRun = true;
+
+    /** A counter for reply ids. */
+    private int nextNetworkReplyId = 1;
+
+
+    /**
+     * Create a new receiver.
+     *
+     * @param connection The <code>Connection</code> to receive for.
+     * @param channel The <code>SocketChannel</code> to read.
+     * @param selector The <code>ChannelSelector</code> to register with.
+     */
+    ChannelReceiver(Connection connection, SocketChannel channel,
+                    ChannelSelector selector) {
+        this.connection = connection;
+        this.channel = channel;
+        this.selector = selector;
+    }
+
+
+    /**
+     * Gets the channel being read.
+     *
+     * @return The <code>SocketChannel</code>.
+     */
+    SocketChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Start receiving.
+     */
+    void start() {
+        this.selector.register(this);
+    }
+
+    /**
+     * Checks if this receiver should run.
+     */
+    private synchronized boolean shouldRun() {
+        return this.shouldRun;
+    }
+
+    /**
+     * Read the available input, and process any complete messages.
+     * Called from the selector thread when the channel is readable.
+     *
+     * @param buffer A scratch <code>ByteBuffer</code> to read into.
+     * @return False if the channel is finished with.
+     */
+    boolean read(ByteBuffer buffer) {
+        if (!shouldRun()) return false;
+        for (;;) {
+            buffer.clear();
+            int n;
+            try {
+                n = this.channel.read(buffer);
+            } catch (IOException ioe) {
+                if (!shouldRun()) return false;
+                logger.log(Level.WARNING, "IO fail", ioe);
+                disconnect("Unexpected IO failure");
+                return false;
+            }
+            if (n < 0) { // The other end has gone away
+                askToStop();
+                this.connection.reallyClose();
+                return false;
+            }
+            if (n == 0) return true;
+            buffer.flip();
+
+            // Copy each run of bytes up to a terminator in bulk.
+            while (buffer.hasRemaining()) {
+                if (this.length == 0 && this.frameLength < 0
+                    && buffer.get(buffer.position()) == BinaryCodec.FRAME_MARKER) {
+                    if (!this.connection.isBinaryAccepted()) {
+                        disconnect("Binary frame before login");
+                        return false;
+                    }
+                    this.frameLength = BinaryCodec.HEADER_LENGTH;
+                }
+                if (this.frameLength >= 0) {
+                    append(buffer, Math.min(buffer.remaining(),
+                                            this.frameLength - this.length));
+                    if (this.length < this.frameLength) continue;
+                    if (this.frameLength == BinaryCodec.HEADER_LENGTH) {
+                        int size = BinaryCodec.readLength(this.message, 0);
+                        if (!BinaryCodec.isValidLength(size)) {
+                            disconnect("Bad frame length: " + size);
+                            return false;
+                        }
+                        this.frameLength += size;
+                    } else {
+                        this.frameLength = -1;
+                        if (!dispatchBinary()) return false;
+                    }
+                    continue;
+                }
+                int start = buffer.position(), end = buffer.limit(), i;
+                for (i = start; i < end; i++) {
+                    if (buffer.get(i) == END_OF_MESSAGE) break;
+                }
+                append(buffer, i - start);
+                if (i < end) {
+                    buffer.get(); // Skip the terminator
+                    if (!dispatch()) return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Append bytes from a buffer to the current message.
+     *
+     * @param buffer The <code>ByteBuffer</code> to read from.
+     * @param n The number of bytes to append.
+     */
+    private void append(ByteBuffer buffer, int n) {
+        if (this.length + n > this.message.length) {
+            this.message = Arrays.copyOf(this.message,
+                Math.max(this.length + n, 2 * this.message.length));
+        }
+        buffer.get(this.message, this.length, n);
+        this.length += n;
+    }
+
+    /**
+     * Process a complete message.
+     *
+     * @return False if the connection is finished with.
+     */
+    private boolean dispatch() {
+        final int len = this.length;
+        this.length = 0;
+        if (len == 0) return true;
+
+        // The message is fully parsed before this routine returns, so
+        // the assembly buffer can be read in place and reused.
+        ByteArrayInputStream bis
+            = new ByteArrayInputStream(this.message, 0, len);
+        FreeColXMLReader xr = null;
+        try {
+            xr = new FreeColXMLReader(bis);
+            xr.nextTag();
+            String tag = xr.getLocalName();
+            if (Connection.DISCONNECT_TAG.equals(tag)) {
+                askToStop();
+                this.connection.reallyClose();
+                return false;
+
+            } else if (Connection.REPLY_TAG.equals(tag)) {
+                int id = xr.getAttribute(Connection.NETWORK_REPLY_ID_TAG, -1);
+                NetworkReplyObject nro = waitingThreads.remove(id);
+                if (nro == null) {
+                    logger.warning("Could not find networkReplyId: " + id);
+                } else {
+                    nro.setResponse(new DOMMessage(MessageCodec.read(xr)));
+                }
+
+            } else {
+                this.connection.handleAndSendReply(xr);
+            }
+        } catch (IOException|XMLStreamException e) {
+            logger.log(Level.WARNING, "Failed to process message", e);
+        } finally {
+            if (xr != null) xr.close();
+        }
+        if (this.message.length > 16 * INITIAL_SIZE) { // Do not hoard
+            this.message = new byte[INITIAL_SIZE];
+        }
+        return true;
+    }
+
+    /**
+     * Process a complete binary frame.
+     *
+     * @return False if the connection is finished with.
+     */
+    private boolean dispatchBinary() {
+        final int len = this.length;
+        this.length = 0;
+        DOMMessage msg;
+        try {
+            msg = new DOMMessage(BinaryCodec.read(this.message,
+                    BinaryCodec.HEADER_LENGTH, len - BinaryCodec.HEADER_LENGTH,
+                    this.binaryTable));
+        } catch (IOException ioe) {
+            // The string tables are now out of step, give up.
+            logger.log(Level.WARNING, "Failed to decode message", ioe);
+            disconnect("Malformed binary message");
+            return false;
+        }
+        if (this.message.length > 16 * INITIAL_SIZE) { // Do not hoard
+            this.message = new byte[INITIAL_SIZE];
+        }
+
+        Element root = msg.getDocument().getDocumentElement();
+        String tag = root.getTagName();
+        if (Connection.DISCONNECT_TAG.equals(tag)) {
+            askToStop();
+            this.connection.reallyClose();
+            return false;
+
+        } else if (Connection.REPLY_TAG.equals(tag)) {
+            int id;
+            try {
+                id = Integer.parseInt(root.getAttribute(Connection.NETWORK_REPLY_ID_TAG));
+            } catch (NumberFormatException nfe) {
+                id = -1;
+            }
+            NetworkReplyObject nro = waitingThreads.remove(id);
+            if (nro == null) {
+                logger.warning("Could not find networkReplyId: " + id);
+            } else {
+                nro.setResponse(msg);
+            }
+
+        } else {
+            this.connection.handleAndSendReply(msg);
+        }
+        return true;
+    }
+
+    /**
+     * Disconnects this receiver, notifying the message handler.
+     *
+     * The handler may take a while, so it is run after the messages
+     * already received on the connection rather than in the selector
+     * thread, which would hold up the other channels.
+     *
+     * @param reason The reason for disconnecting.
+     */
+    void disconnect(final String reason) {
+        askToStop();
+        final Connection conn = this.connection;
+        conn.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (conn.getMessageHandler() != null) {
+                        try {
+                            conn.getMessageHandler().handle(conn,
+                                DOMMessage.createMessage("disconnect",
+                                    "reason", reason));
+                        } catch (FreeColException e) {
+                            logger.log(Level.WARNING, "Rx disconnect", e);
+                        }
+                    }
+                    conn.reallyClose();
+                }
+            }, conn.getName() + "-disconnect");
+    }
+
+
+    // Implement MessageReceiver
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getNextNetworkReplyId() {
+        return nextNetworkReplyId++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NetworkReplyObject waitForNetworkReply(int networkReplyId) {
+        NetworkReplyObject nro = new NetworkReplyObject(networkReplyId);
+        waitingThreads.put(networkReplyId, nro);
+        return nro;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void askToStop() {
+        if (this.shouldRun) {
+            this.shouldRun = false;
+            synchronized (this.waitingThreads) {
+                for (NetworkReplyObject o : this.waitingThreads.values()) {
+                    o.interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReceiving() {
+        return Thread.currentThread() == this.selector;
+    }
+}
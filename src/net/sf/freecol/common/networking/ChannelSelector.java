@@ -0,0 +1,155 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * A thread that multiplexes the input of many non-blocking socket
+ * channels with a single <code>Selector</code>, replacing one
+ * {@link ReceivingThread} per connection.
+ *
+ * Input is read into a direct buffer owned by this thread, and split
+ * into messages on the '\n' terminator by the {@link ChannelReceiver}
+ * attached to each channel.
+ */
+public final class ChannelSelector extends Thread {
+
+    private static final Logger logger = Logger.getLogger(ChannelSelector.class.getName());
+
+    /** The size of the direct read buffer. */
+    private static final int BUFFER_SIZE = 16384;
+
+    /** The selector. */
+    private final Selector selector;
+
+    /** The read buffer, only ever used by this thread. */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /** Receivers waiting to be registered with the selector. */
+    private final ArrayDeque<ChannelReceiver> pending = new ArrayDeque<>();
+
+    /** Whether the thread should run. */
+    private volatile boolean running = true;
+
+
+    /**
+     * Create a new channel selector.
+     *
+     * @param name The thread name.
+     * @exception IOException if the selector can not be opened.
+     */
+    public ChannelSelector(String name) throws IOException {
+        super(name + "-ChannelSelector");
+
+        this.selector = Selector.open();
+        setDaemon(true);
+    }
+
+
+    /**
+     * Register a receiver with this selector.
+     *
+     * @param receiver The <code>ChannelReceiver</code> to register.
+     */
+    void register(ChannelReceiver receiver) {
+        synchronized (this.pending) {
+            this.pending.add(receiver);
+        }
+        this.selector.wakeup();
+    }
+
+    /**
+     * Register the pending receivers.  Must be called on this thread.
+     */
+    private void registerPending() {
+        for (;;) {
+            ChannelReceiver receiver;
+            synchronized (this.pending) {
+                receiver = this.pending.poll();
+            }
+            if (receiver == null) break;
+            SocketChannel channel = receiver.getChannel();
+            try {
+                channel.register(this.selector, SelectionKey.OP_READ,
+                                 receiver);
+            } catch (IOException ioe) {
+                logger.log(Level.WARNING, "Failed to register " + channel, ioe);
+                receiver.disconnect("Register failure");
+            }
+        }
+    }
+
+    /**
+     * Shut down this selector.  The channels are left to their
+     * connections to close.
+     */
+    public void shutdown() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    /**
+     * Select and read from ready channels until shut down.
+     */
+    @Override
+    public void run() {
+        try {
+            while (this.running) {
+                registerPending();
+                this.selector.select();
+                Iterator<SelectionKey> it
+                    = this.selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid() || !key.isReadable()) continue;
+                    ChannelReceiver receiver
+                        = (ChannelReceiver)key.attachment();
+                    if (!receiver.read(this.buffer)) key.cancel();
+                }
+            }
+        } catch (ClosedSelectorException cse) {
+            ; // Closed underneath us, just finish
+        } catch (IOException ioe) {
+            logger.log(Level.WARNING, "Selector failed", ioe);
+        } finally {
+            for (SelectionKey key : this.selector.keys()) {
+                ((ChannelReceiver)key.attachment()).askToStop();
+            }
+            try {
+                this.selector.close();
+            } catch (IOException ioe) {
+                logger.log(Level.WARNING, "Failed to close selector", ioe);
+            }
+        }
+        logger.info("Finished: " + getName());
+    }
+}
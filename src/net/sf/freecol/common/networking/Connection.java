@@ -19,7 +19,7 @@
 
 package net.sf.freecol.common.networking;
 
-import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.IOException;
@@ -30,23 +30,17 @@ import java.io.Writer;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.xml.stream.XMLStreamException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import net.sf.freecol.common.FreeColException;
 import net.sf.freecol.common.debug.FreeColDebugger;
 import net.sf.freecol.common.io.FreeColXMLReader;
 
 import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
 
 
 /**
@@ -76,16 +70,33 @@ public class Connection implements Closeable {
 
     private OutputStream out;
 
-    private final Transformer xmlTransformer;
-
-    private ReceivingThread thread;
+    private MessageReceiver thread;
 
     private MessageHandler messageHandler;
 
     private String name;
 
+    /** The dispatcher to handle messages with, if any. */
+    private MessageDispatcher dispatcher;
+
+    /** The queue for this connection in the dispatcher, if any. */
+    private MessageDispatcher.MessageQueue queue;
+
+    /** Whether to send messages with the {@link BinaryCodec}. */
+    private volatile boolean binary = false;
+
+    /**
+     * Whether messages in the binary format may be received.  Not
+     * until the format has been agreed at login, so that a peer that
+     * has not logged in can not send binary frames.
+     */
+    private volatile boolean binaryAccepted = false;
+
+    /** The strings interned by the binary encoder of this connection. */
+    private final BinaryCodec.StringTable binaryTable
+        = new BinaryCodec.StringTable();
+
     // Logging variables.
-    private final StreamResult logResult;
     private final Writer logWriter;
 
 
@@ -98,25 +109,15 @@ public class Connection implements Closeable {
         this.in = null;
         this.socket = null;
         this.out = null;
-        Transformer myTransformer = null;
-        try {
-            TransformerFactory factory = TransformerFactory.newInstance();
-            myTransformer = factory.newTransformer();
-            myTransformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION,
-                                            "yes");
-        } catch (TransformerException e) {
-            logger.log(Level.WARNING, "Failed to install transformer!", e);
-        }
-        this.xmlTransformer = myTransformer;
         this.thread = null;
         this.messageHandler = null;
         this.name = name;
+        this.dispatcher = null;
+        this.queue = null;
         if (FreeColDebugger.isInDebugMode(FreeColDebugger.DebugMode.COMMS)) {
             this.logWriter = new BufferedWriter(new OutputStreamWriter(System.err));
-            this.logResult = new StreamResult(this.logWriter);
         } else {
             this.logWriter = null;
-            this.logResult = null;
         }
     }
 
@@ -146,16 +147,77 @@ public class Connection implements Closeable {
      */
     public Connection(Socket socket, MessageHandler messageHandler,
                       String name) throws IOException {
+        this(socket, messageHandler, name, null);
+    }
+
+    /**
+     * Creates a new <code>Connection</code> with the specified
+     * <code>Socket</code> and {@link MessageHandler}, which dispatches
+     * incoming messages with a given {@link MessageDispatcher}.
+     *
+     * @param socket The socket to the client.
+     * @param messageHandler The MessageHandler to call for each message
+     *     received.
+     * @param name The name of the connection.
+     * @param dispatcher An optional <code>MessageDispatcher</code> to
+     *     run the message handlers, if null a new thread is started
+     *     for each message.
+     * @exception IOException
+     */
+    public Connection(Socket socket, MessageHandler messageHandler,
+                      String name, MessageDispatcher dispatcher)
+        throws IOException {
         this(name);
 
+        if (dispatcher != null) {
+            this.dispatcher = dispatcher;
+            this.queue = dispatcher.createQueue(name + "@"
+                + socket.getRemoteSocketAddress());
+        }
         this.socket = socket;
         this.in = socket.getInputStream();
         this.out = socket.getOutputStream();
-        this.thread = new ReceivingThread(this, in, name);
+        ReceivingThread rt = new ReceivingThread(this, in, name);
+        this.thread = rt;
         this.messageHandler = messageHandler;
         this.name = name;
 
-        thread.start();
+        rt.start();
+    }
+
+    /**
+     * Creates a new <code>Connection</code> on a socket channel,
+     * reading with a shared {@link ChannelSelector} rather than a
+     * thread of its own.  The channel is switched to non-blocking mode.
+     *
+     * @param channel The <code>SocketChannel</code> to the client.
+     * @param messageHandler The MessageHandler to call for each message
+     *     received.
+     * @param name The name of the connection.
+     * @param dispatcher An optional <code>MessageDispatcher</code> to
+     *     run the message handlers.
+     * @param selector The <code>ChannelSelector</code> to read with.
+     * @exception IOException
+     */
+    public Connection(SocketChannel channel, MessageHandler messageHandler,
+                      String name, MessageDispatcher dispatcher,
+                      ChannelSelector selector) throws IOException {
+        this(name);
+
+        this.socket = channel.socket();
+        if (dispatcher != null) {
+            this.dispatcher = dispatcher;
+            this.queue = dispatcher.createQueue(name + "@"
+                + socket.getRemoteSocketAddress());
+        }
+        channel.configureBlocking(false);
+        this.in = null;
+        this.out = new BufferedOutputStream(new ChannelOutputStream(channel));
+        ChannelReceiver cr = new ChannelReceiver(this, channel, selector);
+        this.thread = cr;
+        this.messageHandler = messageHandler;
+
+        cr.start();
     }
 
     /**
@@ -220,6 +282,54 @@ public class Connection implements Closeable {
         return name;
     }
 
+    /**
+     * Is this connection sending in the binary format?
+     *
+     * @return True if messages are sent with the <code>BinaryCodec</code>.
+     */
+    public boolean isBinary() {
+        return this.binary;
+    }
+
+    /**
+     * Can messages in the binary format be received on this connection?
+     *
+     * @return True if binary frames are accepted.
+     */
+    public boolean isBinaryAccepted() {
+        return this.binaryAccepted;
+    }
+
+    /**
+     * Sets whether messages in the binary format can be received on
+     * this connection.  A client that asks for the binary format
+     * accepts it from the reply to its login.
+     *
+     * @param binaryAccepted If true accept binary frames.
+     */
+    public void setBinaryAccepted(boolean binaryAccepted) {
+        this.binaryAccepted = binaryAccepted;
+    }
+
+    /**
+     * Sets whether this connection sends in the binary format.  The
+     * receiving side detects the format of each message, so this
+     * only needs to be agreed with the peer, which is done at login.
+     *
+     * @param binary If true send with the <code>BinaryCodec</code>.
+     */
+    public void setBinary(boolean binary) {
+        if (binary) this.binaryAccepted = true;
+        OutputStream os = getOutputStream();
+        if (os == null) {
+            this.binary = binary;
+        } else {
+            synchronized (os) {
+                this.binary = binary;
+            }
+        }
+    }
+
     /**
      * Get the output stream.
      *
@@ -286,6 +396,10 @@ public class Connection implements Closeable {
                 this.socket = null;
             }
         }
+        if (this.queue != null) {
+            this.dispatcher.removeQueue(this.queue);
+            this.queue = null;
+        }
 
         logger.fine("Connection really closed for " + this.name);
     }
@@ -297,29 +411,21 @@ public class Connection implements Closeable {
      * @param send True if sending (else replying).
      */
     protected void log(Element e, boolean send) {
-        log(new DOMSource(e), send);
-    }
-
-    /**
-     * Log transfer of a DOMSource.
-     *
-     * @param source The <code>DOMSource</code> to log.
-     * @param send True if sending (else replying).
-     */
-    protected void log(DOMSource source, boolean send) {
-        if (this.logResult != null) {
-            try {
-                this.logWriter.write(name, 0, name.length());
-                if (send) {
-                    this.logWriter.write(SEND_SUFFIX, 0, SEND_SUFFIX.length());
-                } else {
-                    this.logWriter.write(REPLY_SUFFIX, 0, REPLY_SUFFIX.length());
+        if (this.logWriter != null && e != null) {
+            synchronized (this.logWriter) {
+                try {
+                    this.logWriter.write(name, 0, name.length());
+                    if (send) {
+                        this.logWriter.write(SEND_SUFFIX, 0, SEND_SUFFIX.length());
+                    } else {
+                        this.logWriter.write(REPLY_SUFFIX, 0, REPLY_SUFFIX.length());
+                    }
+                    MessageCodec.write(e, this.logWriter);
+                    this.logWriter.write('\n');
+                    this.logWriter.flush();
+                } catch (IOException ioe) {
+                    ; // Ignore logging failure
                 }
-                this.xmlTransformer.transform(source, this.logResult);
-                this.logWriter.write('\n');
-                this.logWriter.flush();
-            } catch (IOException|TransformerException e) {
-                ; // Ignore logging failure
             }
         }
     }
@@ -334,15 +440,16 @@ public class Connection implements Closeable {
     private void sendInternal(Element element) throws IOException {
         OutputStream os = getOutputStream();
         if (os != null) {
-            DOMSource source = new DOMSource(element);
-            try {
-                xmlTransformer.transform(source, new StreamResult(os));
-            } catch (TransformerException te) {
-                logger.log(Level.WARNING, "Failed to transform", te);
+            synchronized (os) {
+                // Messages too long for a binary frame go as XML.
+                if (!this.binary
+                    || !BinaryCodec.write(element, os, this.binaryTable)) {
+                    MessageCodec.write(element, os);
+                    os.write('\n');
+                }
+                os.flush();
             }
-            os.write('\n');
-            os.flush();
-            log(source, true);
+            log(element, true);
         }
     }
 
@@ -358,7 +465,7 @@ public class Connection implements Closeable {
         int networkReplyId = thread.getNextNetworkReplyId();
         String tag = element.getTagName();
 
-        if (Thread.currentThread() == thread) {
+        if (thread.isReceiving()) {
             throw new IOException("wait(ReceivingThread) for: " + tag);
         }
 
@@ -431,42 +538,58 @@ public class Connection implements Closeable {
      * @param in The stream containing the message.
      * @exception IOException if the streaming fails.
      */
-    public void handleAndSendReply(final BufferedInputStream in) 
+    public void handleAndSendReply(final InputStream in) 
         throws IOException {
-
-        in.mark(200); // Peek at the reply identifier and tag.
-
-        // Extract the reply id and check if this is a question.
-        final String networkReplyId;
-        final boolean question;
         FreeColXMLReader xr = null;
         try {
             xr = new FreeColXMLReader(in);
             xr.nextTag();
-            question = QUESTION_TAG.equals(xr.getLocalName());
-            networkReplyId = xr.getAttribute(NETWORK_REPLY_ID_TAG,
-                                             (String)null);
-
+            handleAndSendReply(xr);
         } catch (XMLStreamException xse) {
             logger.log(Level.WARNING, "XML stream failure", xse);
-            return;
-        } 
+        } finally {
+            if (xr != null) xr.close();
+        }
+    }
 
-        // Reset and build a message.
+    /**
+     * Handles a message using the registered <code>MessageHandler</code>.
+     *
+     * The message is read in one pass from a reader positioned at its
+     * start tag, noting from the header whether it is a question.
+     *
+     * @param xr The <code>FreeColXMLReader</code> to read from.
+     * @exception IOException if the streaming fails.
+     */
+    public void handleAndSendReply(FreeColXMLReader xr) throws IOException {
         final DOMMessage msg;
-        in.reset();
         try {
-            msg = new DOMMessage(in);
-        } catch (SAXException e) {
-            logger.log(Level.WARNING, "Unable to read message.", e);
+            msg = new DOMMessage(MessageCodec.read(xr));
+        } catch (XMLStreamException xse) {
+            logger.log(Level.WARNING, "Unable to read message.", xse);
             return;
-        } finally {
-            if (xr != null) xr.close();
         }
+        handleAndSendReply(msg);
+    }
 
-        // Process the message in its own thread.
+    /**
+     * Handles a decoded message using the registered
+     * <code>MessageHandler</code>, noting from its root element
+     * whether it is a question.
+     *
+     * @param msg The <code>DOMMessage</code> to handle.
+     */
+    public void handleAndSendReply(final DOMMessage msg) {
+        Element root = msg.getDocument().getDocumentElement();
+        final boolean question = QUESTION_TAG.equals(root.getTagName());
+        final String networkReplyId = (root.hasAttribute(NETWORK_REPLY_ID_TAG))
+            ? root.getAttribute(NETWORK_REPLY_ID_TAG)
+            : null;
+
+        // Process the message in the dispatcher if present, otherwise
+        // in its own thread.
         final Connection conn = this;
-        Thread t = new Thread(msg.getType()) {
+        Runnable r = new Runnable() {
                 @Override
                 public void run() {
                     Element element = msg.getDocument().getDocumentElement();
@@ -496,8 +619,24 @@ public class Connection implements Closeable {
                     }
                 }
             };
-        t.setName(name + "-MessageHandler-" + t.getName());
-        t.start();
+        execute(r, name + "-MessageHandler-" + msg.getType());
+    }
+
+    /**
+     * Run a task after the messages already received on this
+     * connection, in the dispatcher if present, otherwise in a new
+     * thread.
+     *
+     * @param runnable The <code>Runnable</code> to run.
+     * @param threadName The name of the new thread, if one is needed.
+     */
+    void execute(Runnable runnable, String threadName) {
+        MessageDispatcher.MessageQueue mq = this.queue;
+        if (mq != null) {
+            mq.execute(runnable);
+        } else {
+            new Thread(runnable, threadName).start();
+        }
     }
 
     /**
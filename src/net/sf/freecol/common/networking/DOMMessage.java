@@ -23,7 +23,6 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -32,11 +31,6 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import net.sf.freecol.common.io.FreeColXMLWriter;
 import net.sf.freecol.common.debug.FreeColDebugger;
@@ -292,15 +286,7 @@ public class DOMMessage {
      * @return the new XML-document.
      */
     public static Document createNewDocument() {
-        try {
-            DocumentBuilderFactory factory
-                = DocumentBuilderFactory.newInstance();
-            return factory.newDocumentBuilder().newDocument();
-        } catch (ParserConfigurationException pce) {
-            // Parser with specified options can't be built
-            logger.log(Level.WARNING, "Parser failure", pce);
-        }
-        return null;
+        return MessageCodec.newDocument();
     }
 
     /**
@@ -446,26 +432,7 @@ public class DOMMessage {
      * @return The <code>String</code> representation of an element.
      */
     public static String elementToString(Element element) {
-        try {
-            TransformerFactory factory = TransformerFactory.newInstance();
-            Transformer xt = factory.newTransformer();
-            StringWriter sw = new StringWriter();
-            xt.transform(new DOMSource(element), new StreamResult(sw));
-            String result = sw.toString();
-
-            // Drop the <?xml...?> part if present to keep logging concise.
-            if (result.startsWith("<?xml")) {
-                final String xmlEnd = "?>";
-                int index = result.indexOf(xmlEnd);
-                if (index > 0) {
-                    result = result.substring(index + xmlEnd.length());
-                }
-            }
-            return result;
-        } catch (TransformerException e) {
-            logger.log(Level.WARNING, "TransformerException", e);
-        }
-        return null;
+        return MessageCodec.toString(element);
     }
 
     /**
@@ -60,6 +60,9 @@ public class LoginMessage extends DOMMessage {
     /** The game. */
     private final Game game;
 
+    /** Whether the server sends in the binary format from now on. */
+    private final boolean binary;
+
         
     /**
      * Create a new <code>LoginMessage</code> with the supplied name
@@ -73,11 +76,13 @@ public class LoginMessage extends DOMMessage {
      * @param currentPlayer True if this player is the current player.
      * @param activeUnit The current active <code>Unit</code>, or null.
      * @param game The entire game.
+     * @param binary True if the server has switched to the binary
+     *     message format.
      */
     public LoginMessage(Player player, String userName, String version,
                         boolean startGame, boolean singlePlayer,
                         boolean currentPlayer, Unit activeUnit,
-                        Game game) {
+                        Game game, boolean binary) {
         super(getXMLElementTagName());
 
         this.player = player;
@@ -89,6 +94,7 @@ public class LoginMessage extends DOMMessage {
         this.currentPlayer = currentPlayer;
         this.activeUnitId = (activeUnit == null) ? null : activeUnit.getId();
         this.game = game;
+        this.binary = binary;
     }
 
     /**
@@ -116,6 +122,8 @@ public class LoginMessage extends DOMMessage {
         NodeList children = element.getChildNodes();
         this.game = (children.getLength() != 1) ? null
             : new Game((Element)children.item(0), this.userName);
+        str = element.getAttribute("binary");
+        this.binary = Boolean.parseBoolean(str);
     }
 
 
@@ -154,6 +162,16 @@ public class LoginMessage extends DOMMessage {
         return game;
     }
 
+    /**
+     * Has the server switched to the binary message format?  If so,
+     * the client should switch too once it has read this message.
+     *
+     * @return True if the server sends in the binary format from now on.
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
 
     /**
      * Handle a "login"-message.
@@ -185,6 +203,7 @@ public class LoginMessage extends DOMMessage {
             "singlePlayer", Boolean.toString(singlePlayer),
             "currentPlayer", Boolean.toString(currentPlayer),
             "activeUnit", activeUnitId);
+        if (binary) result.setAttribute("binary", Boolean.toString(binary));
         result.appendChild(game.toXMLElement(result.getOwnerDocument(), 
                                              player));
         return result;
@@ -0,0 +1,276 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+
+import net.sf.freecol.common.io.FreeColXMLReader;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+
+/**
+ * Streaming encoder and decoder for the wire format of the messages.
+ *
+ * Messages are still handled as DOM elements, but are written
+ * directly to the output without a <code>Transformer</code>, and are
+ * built directly from a {@link FreeColXMLReader} positioned on the
+ * message, so the stream is parsed exactly once.
+ *
+ * The output escapes line breaks, as the '\n' character terminates
+ * each message on the wire.
+ */
+public final class MessageCodec {
+
+    private static final Logger logger = Logger.getLogger(MessageCodec.class.getName());
+
+    /** The wire character set. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** A document builder per thread, as the builders are not safe. */
+    private static final ThreadLocal<DocumentBuilder> builders
+        = new ThreadLocal<DocumentBuilder>() {
+            @Override
+            protected DocumentBuilder initialValue() {
+                try {
+                    return DocumentBuilderFactory.newInstance()
+                        .newDocumentBuilder();
+                } catch (ParserConfigurationException pce) {
+                    logger.log(Level.WARNING, "Parser failure", pce);
+                }
+                return null;
+            }
+        };
+
+
+    private MessageCodec() {} // Hide constructor
+
+
+    /**
+     * Creates a new empty document.
+     *
+     * @return A new <code>Document</code>, or null on failure.
+     */
+    public static Document newDocument() {
+        DocumentBuilder builder = builders.get();
+        return (builder == null) ? null : builder.newDocument();
+    }
+
+    // Encoding
+
+    /**
+     * Write an element to an output stream.  The stream is not
+     * flushed or terminated.
+     *
+     * @param element The <code>Element</code> to write.
+     * @param out The <code>OutputStream</code> to write to.
+     * @exception IOException if the write fails.
+     */
+    public static void write(Element element, OutputStream out)
+        throws IOException {
+        Writer w = new OutputStreamWriter(out, UTF8);
+        write(element, w);
+        w.flush();
+    }
+
+    /**
+     * Write an element to a writer.
+     *
+     * @param element The <code>Element</code> to write.
+     * @param w The <code>Writer</code> to write to.
+     * @exception IOException if the write fails.
+     */
+    public static void write(Element element, Writer w) throws IOException {
+        w.write('<');
+        w.write(element.getTagName());
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attr = (Attr)attributes.item(i);
+            w.write(' ');
+            w.write(attr.getName());
+            w.write("=\"");
+            escape(attr.getValue(), w);
+            w.write('"');
+        }
+        Node child = element.getFirstChild();
+        if (child == null) {
+            w.write("/>");
+            return;
+        }
+        w.write('>');
+        for (; child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                write((Element)child, w);
+                break;
+            case Node.TEXT_NODE: case Node.CDATA_SECTION_NODE:
+                escape(child.getNodeValue(), w);
+                break;
+            default:
+                break;
+            }
+        }
+        w.write("</");
+        w.write(element.getTagName());
+        w.write('>');
+    }
+
+    /**
+     * Write character data, escaping markup and line breaks.
+     *
+     * @param s The <code>String</code> to write.
+     * @param w The <code>Writer</code> to write to.
+     * @exception IOException if the write fails.
+     */
+    private static void escape(String s, Writer w) throws IOException {
+        final int n = s.length();
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            String rep;
+            switch (s.charAt(i)) {
+            case '&':  rep = "&amp;"; break;
+            case '<':  rep = "&lt;"; break;
+            case '>':  rep = "&gt;"; break;
+            case '"':  rep = "&quot;"; break;
+            case '\n': rep = "&#10;"; break;
+            case '\r': rep = "&#13;"; break;
+            case '\t': rep = "&#9;"; break;
+            default: continue;
+            }
+            w.write(s, start, i - start);
+            w.write(rep);
+            start = i + 1;
+        }
+        w.write(s, start, n - start);
+    }
+
+    /**
+     * Convert an element to a string.
+     *
+     * @param element The <code>Element</code> to convert.
+     * @return The encoded element.
+     */
+    public static String toString(Element element) {
+        StringWriter sw = new StringWriter(256);
+        try {
+            write(element, sw);
+        } catch (IOException ioe) {
+            ; // Can not happen with a StringWriter
+        }
+        return sw.toString();
+    }
+
+    // Decoding
+
+    /**
+     * Read a message from a stream positioned at its start tag,
+     * building a new document.
+     *
+     * @param xr The <code>FreeColXMLReader</code> to read from.
+     * @return A new <code>Document</code> containing the message.
+     * @exception XMLStreamException if the stream is malformed.
+     */
+    public static Document read(FreeColXMLReader xr)
+        throws XMLStreamException {
+        Document doc = newDocument();
+        doc.appendChild(read(xr, doc));
+        return doc;
+    }
+
+    /**
+     * Read an element from a stream positioned at its start tag.
+     * On return the stream is positioned at the matching end tag.
+     *
+     * @param xr The <code>FreeColXMLReader</code> to read from.
+     * @param doc The <code>Document</code> to create nodes in.
+     * @return The new <code>Element</code>.
+     * @exception XMLStreamException if the stream is malformed.
+     */
+    public static Element read(FreeColXMLReader xr, Document doc)
+        throws XMLStreamException {
+        Element root = doc.createElement(xr.getLocalName());
+        readAttributes(xr, root);
+        Element current = root;
+        int depth = 1;
+        while (depth > 0) {
+            switch (xr.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                Element e = doc.createElement(xr.getLocalName());
+                readAttributes(xr, e);
+                current.appendChild(e);
+                current = e;
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                if (--depth > 0) current = (Element)current.getParentNode();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                // Keep all text, including whitespace, as a parser
+                // building the document would, joining adjacent runs.
+                Node last = current.getLastChild();
+                if (last != null && last.getNodeType() == Node.TEXT_NODE) {
+                    ((Text)last).appendData(xr.getText());
+                } else {
+                    current.appendChild(doc.createTextNode(xr.getText()));
+                }
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                throw new XMLStreamException("Truncated message: "
+                    + root.getTagName());
+            default:
+                break;
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Copy the attributes of the current start tag to an element.
+     *
+     * @param xr The <code>FreeColXMLReader</code> to read from.
+     * @param e The <code>Element</code> to add attributes to.
+     */
+    private static void readAttributes(FreeColXMLReader xr, Element e) {
+        for (int i = 0; i < xr.getAttributeCount(); i++) {
+            e.setAttribute(xr.getAttributeLocalName(i),
+                           xr.getAttributeValue(i));
+        }
+    }
+}
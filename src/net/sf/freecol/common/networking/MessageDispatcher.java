@@ -0,0 +1,417 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Dispatches incoming messages to their handlers on a bounded pool
+ * of reusable threads, rather than starting a new thread per message.
+ *
+ * Each connection gets its own {@link MessageQueue}, which runs its
+ * messages one at a time in arrival order, so the replies to a
+ * connection are sent in the order its messages arrived.  A handler
+ * that asks the other peer something (see {@link Connection#ask})
+ * keeps its queue while it waits, which is safe as the replies are
+ * picked up by the receiving thread without going through the queue.
+ *
+ * A queue has at most one message in the pool at a time, and the
+ * pool holds a bounded number of waiting messages.  If that is full,
+ * the receiving thread that brought the message waits for room, which
+ * slows down the connection rather than starting more threads.
+ */
+public final class MessageDispatcher {
+
+    private static final Logger logger = Logger.getLogger(MessageDispatcher.class.getName());
+
+    /** How long idle pool threads linger (seconds). */
+    private static final long KEEP_ALIVE = 60L;
+
+    /** The default number of messages that may wait for a thread. */
+    public static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * The per-connection message queue.  Messages are handled in the
+     * order they arrive, one at a time.
+     */
+    public final class MessageQueue {
+
+        /** The queue name. */
+        private final String name;
+
+        /** The messages waiting to be handled. */
+        private final ArrayDeque<Task> pending = new ArrayDeque<>();
+
+        /** The task that currently owns this queue, if any. */
+        private Task current = null;
+
+        /** The number of messages handled. */
+        private final AtomicLong handled = new AtomicLong(0L);
+
+        /** The total latency (enqueue to completion) in nanoseconds. */
+        private final AtomicLong totalLatency = new AtomicLong(0L);
+
+        /** The worst latency seen, in nanoseconds. */
+        private final AtomicLong maxLatency = new AtomicLong(0L);
+
+
+        /**
+         * Create a new message queue.
+         *
+         * @param name The queue name.
+         */
+        private MessageQueue(String name) {
+            this.name = name;
+        }
+
+
+        /**
+         * Gets the queue name.
+         *
+         * @return The queue name.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the number of messages waiting to be handled.
+         *
+         * @return The queue depth.
+         */
+        public synchronized int getDepth() {
+            return this.pending.size();
+        }
+
+        /**
+         * Gets the number of messages handled so far.
+         *
+         * @return The number of messages handled.
+         */
+        public long getHandledCount() {
+            return this.handled.get();
+        }
+
+        /**
+         * Gets the average handling latency, measured from the arrival
+         * of a message to the completion of its handler.
+         *
+         * @return The average latency in milliseconds.
+         */
+        public long getAverageLatency() {
+            long n = this.handled.get();
+            return (n == 0L) ? 0L
+                : TimeUnit.NANOSECONDS.toMillis(this.totalLatency.get() / n);
+        }
+
+        /**
+         * Gets the worst handling latency seen.
+         *
+         * @return The maximum latency in milliseconds.
+         */
+        public long getMaximumLatency() {
+            return TimeUnit.NANOSECONDS.toMillis(this.maxLatency.get());
+        }
+
+        /**
+         * Add a message handler to this queue.
+         *
+         * @param runnable The <code>Runnable</code> that handles the
+         *     message.
+         */
+        public void execute(Runnable runnable) {
+            Task task = new Task(this, runnable);
+            synchronized (this) {
+                if (this.current != null) {
+                    this.pending.add(task);
+                    return;
+                }
+                this.current = task;
+            }
+            submit(task);
+        }
+
+        /**
+         * Release this queue from the given task.
+         *
+         * @param task The <code>Task</code> releasing the queue.
+         * @return The next pending task, which now owns the queue, or
+         *     null if none.
+         */
+        private Task release(Task task) {
+            synchronized (this) {
+                if (this.current != task) return null;
+                if (isShutdown()) this.pending.clear();
+                return this.current = this.pending.poll();
+            }
+        }
+
+        /**
+         * Record the completion of a task, and pass the queue on to
+         * the next pending task.
+         *
+         * @param task The completed <code>Task</code>.
+         * @return The next task, if it has to be run by the caller as
+         *     the pool is full, or null if none.
+         */
+        private Task done(Task task) {
+            long latency = System.nanoTime() - task.created;
+            this.handled.incrementAndGet();
+            this.totalLatency.addAndGet(latency);
+            long max = this.maxLatency.get();
+            while (max < latency
+                && !this.maxLatency.compareAndSet(max, latency)) {
+                max = this.maxLatency.get();
+            }
+            Task next = release(task);
+            return (next == null || handOff(next)) ? null : next;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "[MessageQueue " + this.name
+                + " depth=" + getDepth()
+                + " handled=" + getHandledCount()
+                + " latency=" + getAverageLatency()
+                + "/" + getMaximumLatency() + "ms]";
+        }
+    }
+
+    /** A message handler bound to its queue. */
+    private static final class Task implements Runnable {
+
+        /** The queue this task belongs to. */
+        private final MessageQueue queue;
+
+        /** The actual handler. */
+        private final Runnable runnable;
+
+        /** The creation time, for latency measurement. */
+        private final long created;
+
+
+        private Task(MessageQueue queue, Runnable runnable) {
+            this.queue = queue;
+            this.runnable = runnable;
+            this.created = System.nanoTime();
+        }
+
+        /**
+         * Run this task, then any tasks of the same queue that could
+         * not be handed back to the pool.
+         */
+        @Override
+        public void run() {
+            Task task = this;
+            while (task != null) {
+                try {
+                    task.runnable.run();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Message task failed", e);
+                }
+                task = task.queue.done(task);
+            }
+        }
+    }
+
+    /** The underlying thread pool. */
+    private final ThreadPoolExecutor executor;
+
+    /** The live queues. */
+    private final List<MessageQueue> queues = new ArrayList<>();
+
+    /** The number of times a message had to wait for room in the pool. */
+    private final AtomicLong waits = new AtomicLong(0L);
+
+
+    /**
+     * Create a new message dispatcher.
+     *
+     * @param name The name of the dispatcher.
+     * @param maximumThreads The maximum number of pool threads.
+     */
+    public MessageDispatcher(String name, int maximumThreads) {
+        this(name, maximumThreads, QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create a new message dispatcher.
+     *
+     * @param name The name of the dispatcher.
+     * @param maximumThreads The maximum number of pool threads.
+     * @param queueCapacity The number of messages that may wait for
+     *     a pool thread.
+     */
+    public MessageDispatcher(final String name, int maximumThreads,
+                             int queueCapacity) {
+        final int n = Math.max(1, maximumThreads);
+        final AtomicInteger count = new AtomicInteger(0);
+        this.executor = new ThreadPoolExecutor(n, n,
+            KEEP_ALIVE, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(Math.max(1, queueCapacity)),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, name + "-MessageHandler-"
+                        + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+
+    /**
+     * Has this dispatcher been shut down?
+     *
+     * @return True if no more messages are handled.
+     */
+    public boolean isShutdown() {
+        return this.executor.isShutdown();
+    }
+
+    /**
+     * Create a new queue for a connection.
+     *
+     * @param queueName The name for the new queue.
+     * @return A new <code>MessageQueue</code>.
+     */
+    public MessageQueue createQueue(String queueName) {
+        MessageQueue mq = new MessageQueue(queueName);
+        synchronized (this.queues) {
+            this.queues.add(mq);
+        }
+        return mq;
+    }
+
+    /**
+     * Forget about a queue.
+     *
+     * @param mq The <code>MessageQueue</code> to remove.
+     */
+    public void removeQueue(MessageQueue mq) {
+        synchronized (this.queues) {
+            this.queues.remove(mq);
+        }
+    }
+
+    /**
+     * Gets a list of the current queues.
+     *
+     * @return A list of <code>MessageQueue</code>s.
+     */
+    public List<MessageQueue> getQueues() {
+        synchronized (this.queues) {
+            return new ArrayList<>(this.queues);
+        }
+    }
+
+    /**
+     * Run a task in the pool, waiting for room if it is full.
+     *
+     * @param task The <code>Task</code> to run.
+     */
+    private void submit(Task task) {
+        try {
+            this.executor.execute(task);
+            return;
+        } catch (RejectedExecutionException ree) {
+            if (isShutdown()) {
+                task.queue.release(task);
+                return;
+            }
+        }
+        // All the threads are busy and the pool queue is full, so
+        // this is only reached when there are many more connections
+        // than threads.  The threads do not wait for room themselves,
+        // so the queue drains.
+        this.waits.incrementAndGet();
+        try {
+            this.executor.getQueue().put(task);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            logger.warning("Interrupted, dropping messages for "
+                + task.queue);
+            for (Task t = task; t != null; t = t.queue.release(t));
+        }
+    }
+
+    /**
+     * Hand a task back to the pool from a pool thread, without waiting.
+     *
+     * @param task The <code>Task</code> to hand off.
+     * @return True if the pool took the task, false if it is full
+     *     and the caller should run the task itself.
+     */
+    private boolean handOff(Task task) {
+        return this.executor.getQueue().offer(task);
+    }
+
+    /**
+     * Gets statistics about the dispatcher and its queues.
+     *
+     * @return A map of statistic name to value.
+     */
+    public Map<String, String> getStatistics() {
+        Map<String, String> stats = new HashMap<>();
+        stats.put("dispatcherThreads",
+            Integer.toString(this.executor.getPoolSize()));
+        stats.put("dispatcherActive",
+            Integer.toString(this.executor.getActiveCount()));
+        stats.put("dispatcherWaits", Long.toString(this.waits.get()));
+        for (MessageQueue mq : getQueues()) {
+            String key = "queue." + mq.getName();
+            stats.put(key + ".depth", Integer.toString(mq.getDepth()));
+            stats.put(key + ".handled", Long.toString(mq.getHandledCount()));
+            stats.put(key + ".latency", Long.toString(mq.getAverageLatency()));
+            stats.put(key + ".maxLatency",
+                Long.toString(mq.getMaximumLatency()));
+        }
+        return stats;
+    }
+
+    /**
+     * Stop accepting new messages.  Running handlers complete normally.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+        synchronized (this.queues) {
+            this.queues.clear();
+        }
+    }
+}
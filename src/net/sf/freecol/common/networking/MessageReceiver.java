@@ -0,0 +1,61 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+
+/**
+ * The receiving side of a {@link Connection}.  Implementations read
+ * messages from the peer, route replies to the threads waiting for
+ * them, and pass everything else to the connection message handler.
+ */
+interface MessageReceiver {
+
+    /**
+     * Gets the next network reply identifier that will be used when
+     * identifing a network message.
+     * 
+     * @return The next available network reply identifier.
+     */
+    public int getNextNetworkReplyId();
+
+    /**
+     * Creates and registers a new <code>NetworkReplyObject</code> with the
+     * specified object identifier.
+     * 
+     * @param networkReplyId The identifier of the message the calling
+     *     thread should wait for.
+     * @return The <code>NetworkReplyObject</code> containing the network
+     *     message.
+     */
+    public NetworkReplyObject waitForNetworkReply(int networkReplyId);
+
+    /**
+     * Tells this receiver that it does not need to do any more work.
+     */
+    public void askToStop();
+
+    /**
+     * Is the current thread the one receiving messages?  Such a
+     * thread must not block waiting for a reply.
+     *
+     * @return True if the current thread is receiving messages.
+     */
+    public boolean isReceiving();
+}
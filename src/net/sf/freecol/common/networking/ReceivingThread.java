@@ -20,6 +20,7 @@
 package net.sf.freecol.common.networking;
 
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
@@ -33,13 +34,13 @@ import javax.xml.stream.XMLStreamException;
 import net.sf.freecol.common.FreeColException;
 import net.sf.freecol.common.io.FreeColXMLReader;
 
-import org.xml.sax.SAXException;
+import org.w3c.dom.Element;
 
 
 /**
  * The thread that checks for incoming messages.
  */
-final class ReceivingThread extends Thread {
+final class ReceivingThread extends Thread implements MessageReceiver {
 
     private static final Logger logger = Logger.getLogger(ReceivingThread.class.getName());
 
@@ -117,6 +118,43 @@ final class ReceivingThread extends Thread {
             return true;
         }
 
+        /**
+         * Peeks at the next byte without consuming it.
+         *
+         * @return The next byte, or -1 at the end of the stream.
+         * @exception IOException is thrown by the underlying read.
+         */
+        public int peek() throws IOException {
+            if (this.empty && !fill()) return -1;
+            return buffer[this.bStart] & 0xFF;
+        }
+
+        /**
+         * Reads exactly the given number of bytes, ignoring the
+         * {@link #END_OF_STREAM} token, as used for binary frames.
+         *
+         * @param b The buffer to put the data in.
+         * @param off The offset to use when writing the data.
+         * @param len The number of bytes to read.
+         * @exception EOFException if the stream ends first.
+         * @exception IOException is thrown by the underlying read.
+         */
+        public void readFully(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (this.empty && !fill()) {
+                    throw new EOFException("Truncated binary frame");
+                }
+                int end = (this.bStart < this.bEnd) ? this.bEnd : BUFFER_SIZE;
+                int n = Math.min(len, end - this.bStart);
+                System.arraycopy(buffer, this.bStart, b, off, n);
+                off += n;
+                len -= n;
+                this.bStart += n;
+                if (this.bStart >= BUFFER_SIZE) this.bStart = 0;
+                if (this.bStart == this.bEnd) this.empty = true;
+            }
+        }
+
         /**
          * Reads a single byte.
          * 
@@ -200,6 +238,10 @@ final class ReceivingThread extends Thread {
     /** A counter for reply ids. */
     private int nextNetworkReplyId;
 
+    /** The strings interned by the binary encoder of the peer. */
+    private final BinaryCodec.StringTable binaryTable
+        = new BinaryCodec.StringTable();
+
 
     /**
      * The constructor to use.
@@ -218,24 +260,17 @@ final class ReceivingThread extends Thread {
     }
 
     /**
-     * Gets the next network reply identifier that will be used when
-     * identifing a network message.
-     * 
-     * @return The next available network reply identifier.
+     * {@inheritDoc}
      */
+    @Override
     public synchronized int getNextNetworkReplyId() {
         return nextNetworkReplyId++;
     }
 
     /**
-     * Creates and registers a new <code>NetworkReplyObject</code> with the
-     * specified object identifier.
-     * 
-     * @param networkReplyId The identifier of the message the calling
-     *     thread should wait for.
-     * @return The <code>NetworkReplyObject</code> containing the network
-     *     message.
+     * {@inheritDoc}
      */
+    @Override
     public NetworkReplyObject waitForNetworkReply(int networkReplyId) {
         NetworkReplyObject nro = new NetworkReplyObject(networkReplyId);
         waitingThreads.put(networkReplyId, nro);
@@ -250,8 +285,9 @@ final class ReceivingThread extends Thread {
     }
 
     /**
-     * Tells this thread that it does not need to do any more work.
+     * {@inheritDoc}
      */
+    @Override
     public synchronized void askToStop() {
         if (this.shouldRun) {
             this.shouldRun = false;
@@ -261,6 +297,14 @@ final class ReceivingThread extends Thread {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReceiving() {
+        return Thread.currentThread() == this;
+    }
+
     /**
      * Disconnects this thread.
      */
@@ -282,15 +326,17 @@ final class ReceivingThread extends Thread {
      * each message received.
      * 
      * @throws IOException If thrown by the {@link FreeColNetworkInputStream}.
-     * @throws SAXException if a problem occured during parsing.
      * @throws XMLStreamException if a problem occured during parsing.
      */
-    private void listen() throws IOException, SAXException, XMLStreamException {
+    private void listen() throws IOException, XMLStreamException {
         in.enable();
+        if (in.peek() == BinaryCodec.FRAME_MARKER) {
+            listenBinary();
+            return;
+        }
 
-        final int LOOK_AHEAD = 8192;
-        BufferedInputStream bis = new BufferedInputStream(in, LOOK_AHEAD);
-        bis.mark(LOOK_AHEAD);
+        final int BUFFER_SIZE = 8192;
+        BufferedInputStream bis = new BufferedInputStream(in, BUFFER_SIZE);
 
         FreeColXMLReader xr = new FreeColXMLReader(bis);
         String tag;
@@ -311,22 +357,69 @@ final class ReceivingThread extends Thread {
             if (nro == null) {
                 logger.warning("Could not find networkReplyId: " + id);
             } else {
-                bis.reset();
-                nro.setResponse(new DOMMessage(bis));
+                nro.setResponse(new DOMMessage(MessageCodec.read(xr)));
             }
         
         } else {
             try {
-                bis.reset();
-                connection.handleAndSendReply(bis);
+                connection.handleAndSendReply(xr);
             } catch (IOException ioe) {
                 logger.log(Level.WARNING, "IO error", ioe);
             }
         }
 
+        // The message is read only as far as its end tag, so consume
+        // the rest up to the terminator before the next message.
+        if (shouldRun()) {
+            while (bis.read() >= 0) {}
+        }
         if (xr != null) xr.close();
     }
 
+    /**
+     * Reads a binary frame and dispatches the message it contains.
+     *
+     * @exception IOException if the frame can not be read.
+     */
+    private void listenBinary() throws IOException {
+        if (!connection.isBinaryAccepted()) {
+            throw new IOException("Binary frame before login");
+        }
+        byte[] header = new byte[BinaryCodec.HEADER_LENGTH];
+        in.readFully(header, 0, header.length);
+        int length = BinaryCodec.readLength(header, 0);
+        if (!BinaryCodec.isValidLength(length)) {
+            throw new IOException("Bad frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload, 0, length);
+        DOMMessage msg = new DOMMessage(BinaryCodec.read(payload, 0, length,
+                                                         binaryTable));
+        Element root = msg.getDocument().getDocumentElement();
+        String tag = root.getTagName();
+
+        if (Connection.DISCONNECT_TAG.equals(tag)) {
+            askToStop();
+
+        } else if (Connection.REPLY_TAG.equals(tag)) {
+            int id;
+            try {
+                id = Integer.parseInt(root.getAttribute(Connection.NETWORK_REPLY_ID_TAG));
+            } catch (NumberFormatException nfe) {
+                id = -1;
+            }
+            NetworkReplyObject nro = waitingThreads.remove(id);
+            if (nro == null) {
+                logger.warning("Could not find networkReplyId: " + id);
+            } else {
+                nro.setResponse(msg);
+            }
+
+        } else {
+            connection.handleAndSendReply(msg);
+        }
+    }
+
     /**
      * Receives messages from the network in a loop. This method is
      * invoked when the thread starts and the thread will stop when
@@ -341,7 +434,7 @@ final class ReceivingThread extends Thread {
                 try {
                     listen();
                     timesFailed = 0;
-                } catch (SAXException|XMLStreamException e) {
+                } catch (XMLStreamException e) {
                     if (!shouldRun()) break;
                     logger.log(Level.WARNING, "XML fail", e);
                     if (++timesFailed > MAXIMUM_RETRIES) {
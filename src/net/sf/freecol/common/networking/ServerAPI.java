@@ -1021,17 +1021,34 @@ public abstract class ServerAPI {
 
     /**
      * Server query-response for logging in a player (pre-game).
+     * Also offers the compact binary message format, which the
+     * connection switches to if the server accepts it.  Servers that
+     * do not know the format ignore the offer.
      *
      * @param userName The user name.
      * @param version The client version.
      * @return A <code>LoginMessage</code> on success, or null on error.
      */
     public LoginMessage login(String userName, String version) {
+        Connection c = getConnection();
+        if (FreeCol.getBinaryProtocol() && c != null) {
+            c.setBinaryAccepted(true);
+        }
         Element reply = askExpecting(new TrivialMessage("login",
-                                                        "userName", userName,
-                                                        "version", version),
-                                     "login", null);
-        return (reply == null) ? null : new LoginMessage(null, reply);
+                "userName", userName,
+                "version", version,
+                "binary", Boolean.toString(FreeCol.getBinaryProtocol())),
+            "login", null);
+        if (reply == null) return null;
+        LoginMessage message = new LoginMessage(null, reply);
+        if (c != null) {
+            if (message.isBinary()) {
+                c.setBinary(true);
+            } else {
+                c.setBinaryAccepted(false);
+            }
+        }
+        return message;
     }
 
     /**
@@ -0,0 +1,407 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.resources;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.sf.freecol.common.io.sza.AnimationEvent;
+import net.sf.freecol.common.io.sza.ImageAnimationEvent;
+import net.sf.freecol.common.io.sza.SimpleZippedAnimation;
+
+
+/**
+ * A cache of the modified copies of images made by the resources,
+ * such as scaled and grayscale images and scaled animations.
+ *
+ * The copies are held in least recently used order, up to a maximum
+ * total size in bytes.  Copies evicted from the cache are only softly
+ * referenced, so they can still be found again until the garbage
+ * collector needs the memory.
+ */
+public final class ImageCache {
+
+    /** The default maximum size of the cache, in bytes. */
+    public static final long DEFAULT_MAXIMUM_SIZE = 64L * 1024 * 1024;
+
+    /** The cache shared by all the resources. */
+    private static final ImageCache instance
+        = new ImageCache(DEFAULT_MAXIMUM_SIZE);
+
+    /** A key for a cached copy. */
+    static final class Key {
+
+        /** The resource the copy was made from. */
+        private final Resource resource;
+
+        /** The kind of copy. */
+        private final String kind;
+
+        /** The size of the copy, for copies made to a size. */
+        private final int width, height;
+
+        /** The scale of the copy, for copies made to a scale. */
+        private final float scale;
+
+
+        /**
+         * Create a new key for a copy made to a size.
+         *
+         * @param resource The <code>Resource</code> the copy is made from.
+         * @param kind The kind of copy.
+         * @param width The width of the copy.
+         * @param height The height of the copy.
+         */
+        public Key(Resource resource, String kind, int width, int height) {
+            this(resource, kind, width, height, 0.0f);
+        }
+
+        /**
+         * Create a new key for a copy made to a scale.
+         *
+         * @param resource The <code>Resource</code> the copy is made from.
+         * @param kind The kind of copy.
+         * @param scale The scale of the copy.
+         */
+        public Key(Resource resource, String kind, float scale) {
+            this(resource, kind, -1, -1, scale);
+        }
+
+        /**
+         * Create a new key.
+         *
+         * @param resource The <code>Resource</code> the copy is made from.
+         * @param kind The kind of copy.
+         * @param width The width of the copy.
+         * @param height The height of the copy.
+         * @param scale The scale of the copy.
+         */
+        private Key(Resource resource, String kind, int width, int height,
+                    float scale) {
+            this.resource = resource;
+            this.kind = kind;
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key)o;
+            return resource == other.resource && kind.equals(other.kind)
+                && width == other.width && height == other.height
+                && Float.compare(scale, other.scale) == 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(resource);
+            hash = 31 * hash + kind.hashCode();
+            hash = 31 * hash + width;
+            hash = 31 * hash + height;
+            return 31 * hash + Float.floatToIntBits(scale);
+        }
+    }
+
+    /** A cached copy and its size. */
+    private static final class Entry {
+
+        /** The copy. */
+        public final Object value;
+
+        /** The size of the copy in bytes. */
+        public final long size;
+
+
+        /**
+         * Create a new entry.
+         *
+         * @param value The copy.
+         * @param size The size of the copy.
+         */
+        public Entry(Object value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    /** A soft reference to an evicted copy, which remembers its key. */
+    private static final class Spilled extends SoftReference<Entry> {
+
+        /** The key of the copy. */
+        public final Key key;
+
+
+        /**
+         * Create a new soft reference to an evicted copy.
+         *
+         * @param key The <code>Key</code> of the copy.
+         * @param entry The evicted <code>Entry</code>.
+         * @param queue The <code>ReferenceQueue</code> to register with.
+         */
+        public Spilled(Key key, Entry entry, ReferenceQueue<Entry> queue) {
+            super(entry, queue);
+            this.key = key;
+        }
+    }
+
+    /** The cached copies, in least recently used order. */
+    private final LinkedHashMap<Key, Entry> entries
+        = new LinkedHashMap<>(64, 0.75f, true);
+
+    /** The evicted copies that have not been collected yet. */
+    private final HashMap<Key, Spilled> spilled = new HashMap<>();
+
+    /** The queue the collected evicted copies appear on. */
+    private final ReferenceQueue<Entry> collected = new ReferenceQueue<>();
+
+    /** The maximum size of the cached copies. */
+    private long maximumSize;
+
+    /** The current size of the cached copies. */
+    private long size = 0;
+
+    /** Statistics. */
+    private long hits = 0, softHits = 0, misses = 0, evictions = 0;
+
+
+    /**
+     * Create a new image cache.
+     *
+     * @param maximumSize The maximum size of the cache, in bytes.
+     */
+    public ImageCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+
+    /**
+     * Gets the cache shared by all the resources.
+     *
+     * @return The shared <code>ImageCache</code>.
+     */
+    public static ImageCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets an approximate size of an image in bytes.
+     *
+     * @param image The <code>Image</code> to measure.
+     * @return The size of the image.
+     */
+    public static long getSize(Image image) {
+        if (image instanceof BufferedImage) {
+            BufferedImage bi = (BufferedImage)image;
+            return (long)bi.getWidth() * bi.getHeight()
+                * Math.max(1, bi.getColorModel().getPixelSize() / 8);
+        }
+        return (image == null) ? 0
+            : 4L * image.getWidth(null) * image.getHeight(null);
+    }
+
+    /**
+     * Gets an approximate size of an animation in bytes.
+     *
+     * @param sza The <code>SimpleZippedAnimation</code> to measure.
+     * @return The size of the frames of the animation.
+     */
+    public static long getSize(SimpleZippedAnimation sza) {
+        long result = 0;
+        for (AnimationEvent event : sza) {
+            if (event instanceof ImageAnimationEvent) {
+                result += getSize(((ImageAnimationEvent)event).getImage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the maximum size of the cache.
+     *
+     * @return The maximum size in bytes.
+     */
+    public synchronized long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum size of the cache, evicting copies if needed.
+     *
+     * @param maximumSize The new maximum size in bytes.
+     */
+    public synchronized void setMaximumSize(long maximumSize) {
+        this.maximumSize = Math.max(0, maximumSize);
+        evict();
+    }
+
+    /**
+     * Gets a cached copy.
+     *
+     * @param key The <code>Key</code> of the copy.
+     * @return The copy, or null if it is not cached.
+     */
+    synchronized Object get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            return entry.value;
+        }
+        expunge();
+        Spilled ref = spilled.remove(key);
+        if (ref != null && (entry = ref.get()) != null) {
+            softHits++;
+            add(key, entry);
+            return entry.value;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Add a copy to the cache.
+     *
+     * @param key The <code>Key</code> of the copy.
+     * @param value The copy to cache.
+     * @param bytes The size of the copy.
+     */
+    synchronized void put(Key key, Object value, long bytes) {
+        expunge();
+        spilled.remove(key);
+        add(key, new Entry(value, bytes));
+    }
+
+    /**
+     * Remove all the copies made from a resource.
+     *
+     * @param resource The <code>Resource</code> to remove copies of.
+     */
+    synchronized void remove(Resource resource) {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().resource == resource) {
+                size -= e.getValue().size;
+                it.remove();
+            }
+        }
+        Iterator<Key> kit = spilled.keySet().iterator();
+        while (kit.hasNext()) {
+            if (kit.next().resource == resource) kit.remove();
+        }
+    }
+
+    /**
+     * Count the cached copies made from a resource.
+     *
+     * @param resource The <code>Resource</code> to count copies of.
+     * @return The number of cached copies.
+     */
+    synchronized int count(Resource resource) {
+        int result = 0;
+        for (Key key : entries.keySet()) {
+            if (key.resource == resource) result++;
+        }
+        return result;
+    }
+
+    /**
+     * Discard all the cached copies.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        spilled.clear();
+        size = 0;
+    }
+
+    /**
+     * Gets statistics about the cache.
+     *
+     * @return A map of statistic name to value.
+     */
+    public synchronized Map<String, String> getStatistics() {
+        expunge();
+        Map<String, String> stats = new HashMap<>();
+        stats.put("imageCacheEntries", Integer.toString(entries.size()));
+        stats.put("imageCacheSize", Long.toString(size));
+        stats.put("imageCacheMaximumSize", Long.toString(maximumSize));
+        stats.put("imageCacheSpilled", Integer.toString(spilled.size()));
+        stats.put("imageCacheHits", Long.toString(hits));
+        stats.put("imageCacheSoftHits", Long.toString(softHits));
+        stats.put("imageCacheMisses", Long.toString(misses));
+        stats.put("imageCacheEvictions", Long.toString(evictions));
+        return stats;
+    }
+
+    /**
+     * Add an entry as the most recently used, evicting others if
+     * the cache grows too large.
+     *
+     * @param key The <code>Key</code> of the entry.
+     * @param entry The <code>Entry</code> to add.
+     */
+    private void add(Key key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        if (old != null) size -= old.size;
+        size += entry.size;
+        evict();
+    }
+
+    /**
+     * Evict the least recently used entries until the cache fits its
+     * maximum size, keeping soft references to them.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (size > maximumSize && it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            Key key = e.getKey();
+            Entry entry = e.getValue();
+            it.remove();
+            size -= entry.size;
+            evictions++;
+            spilled.put(key, new Spilled(key, entry, collected));
+        }
+    }
+
+    /**
+     * Forget the evicted entries that have been collected.
+     */
+    private void expunge() {
+        Spilled ref;
+        while ((ref = (Spilled)collected.poll()) != null) {
+            if (spilled.get(ref.key) == ref) spilled.remove(ref.key);
+        }
+    }
+}
@@ -28,7 +28,6 @@ import java.awt.image.ColorConvertOp;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,8 +43,9 @@ public class ImageResource extends Resource
 
     private static final Logger logger = Logger.getLogger(ImageResource.class.getName());
 
-    private HashMap<Dimension, BufferedImage> scaledImages = new HashMap<>();
-    private HashMap<Dimension, BufferedImage> grayscaleImages = new HashMap<>();
+    /** The kinds of copies of the image kept in the image cache. */
+    private static final String SCALED = "scaled", GRAYSCALE = "grayscale";
+
     private volatile BufferedImage image = null;
     private final Object loadingLock = new Object();
 
@@ -89,8 +89,7 @@ public class ImageResource extends Resource
      */
     @Override
     public void clean() {
-        scaledImages = new HashMap<>();
-        grayscaleImages = new HashMap<>();
+        ImageCache.getInstance().remove(this);
     }
 
     /**
@@ -146,7 +145,10 @@ public class ImageResource extends Resource
         if(wNew == w && hNew == h)
             return im;
 
-        final BufferedImage cached = scaledImages.get(d);
+        final ImageCache cache = ImageCache.getInstance();
+        final ImageCache.Key key = new ImageCache.Key(this, SCALED,
+                                                      d.width, d.height);
+        final BufferedImage cached = (BufferedImage)cache.get(key);
         if (cached != null) return cached;
 
         // Directly scaling to less than half size would ignore some pixels.
@@ -176,7 +178,7 @@ public class ImageResource extends Resource
             g.dispose();
             im = scaled;
         }
-        scaledImages.put(d, im);
+        cache.put(key, im, ImageCache.getSize(im));
         return im;
     }
 
@@ -187,7 +189,10 @@ public class ImageResource extends Resource
      * @return The <code>BufferedImage</code>.
      */
     public BufferedImage getGrayscaleImage(Dimension d) {
-        final BufferedImage cached = grayscaleImages.get(d);
+        final ImageCache cache = ImageCache.getInstance();
+        final ImageCache.Key key = new ImageCache.Key(this, GRAYSCALE,
+                                                      d.width, d.height);
+        final BufferedImage cached = (BufferedImage)cache.get(key);
         if (cached != null) return cached;
         final BufferedImage im = getImage(d);
         if (im == null) return null;
@@ -203,7 +208,7 @@ public class ImageResource extends Resource
         ColorConvertOp filter = new ColorConvertOp(
             ColorSpace.getInstance(ColorSpace.CS_GRAY), null);
         final BufferedImage grayscaleImage = filter.filter(srcImage, null);
-        grayscaleImages.put(d, grayscaleImage);
+        cache.put(key, grayscaleImage, ImageCache.getSize(grayscaleImage));
         return grayscaleImage;
     }
 
@@ -222,7 +227,12 @@ public class ImageResource extends Resource
                                                Math.round(im.getHeight() * scale)));
     }
 
+    /**
+     * Gets the number of modified copies of the image that are cached.
+     *
+     * @return The number of cached copies.
+     */
     public int getCount() {
-        return grayscaleImages.size() + scaledImages.size();
+        return ImageCache.getInstance().count(this);
     }
 }
@@ -41,12 +41,10 @@ public class ResourceManager {
 
     private static final Logger logger = Logger.getLogger(ResourceManager.class.getName());
 
-    // TODO: There are no obvious flaws currently, but this could still
-    // profit from deeper verification, including checking ResourceMapping and
-    // all Resource classes another time, by someone knowledgeable
-    // in thread safety issues in Java. 
-    // It is currently assumed changing of mappings can happen on any thread,
-    // but Resources are only retrieved or cleaned from the AWT thread.
+    // Changing the mappings is synchronized and can happen on any
+    // thread.  Each change publishes a new merged mapping, which is
+    // never modified afterwards, so resources are looked up without
+    // locking.  Resources are usually retrieved from the AWT thread.
 
     public static final String REPLACEMENT_IMAGE = "image.miscicon.delete";
     public static final String REPLACEMENT_STRING = "X";
@@ -63,9 +61,13 @@ public class ResourceManager {
 
     /**
      * All the mappings above merged into this single ResourceMapping
-     * according to precendence.
+     * according to precendence.  It is replaced, never modified.
      */
-    private static ResourceMapping mergedContainer;
+    private static volatile ResourceMapping mergedContainer
+        = new ResourceMapping();
+
+    /** The number of times the merged mapping has been replaced. */
+    private static volatile int version = 0;
 
     private static volatile Thread preloadThread = null;
 
@@ -125,34 +127,7 @@ public class ResourceManager {
      * Clean up easily replaced modified copies in caches.
      */
     public static synchronized void clean() {
-        if(baseMapping != null) {
-            for (Map.Entry<String,ImageResource> entry
-                : baseMapping.getImageResources().entrySet()) {
-                ImageResource resource = entry.getValue();
-                resource.clean();
-            }
-        }
-        if(tcMapping != null) {
-            for (Map.Entry<String,ImageResource> entry
-                : tcMapping.getImageResources().entrySet()) {
-                ImageResource resource = entry.getValue();
-                resource.clean();
-            }
-        }
-        if(scenarioMapping != null) {
-            for (Map.Entry<String,ImageResource> entry
-                : scenarioMapping.getImageResources().entrySet()) {
-                ImageResource resource = entry.getValue();
-                resource.clean();
-            }
-        }
-        if(modMapping != null) {
-            for (Map.Entry<String,ImageResource> entry
-                : modMapping.getImageResources().entrySet()) {
-                ImageResource resource = entry.getValue();
-                resource.clean();
-            }
-        }
+        ImageCache.getInstance().clear();
     }
 
     /**
@@ -182,6 +157,18 @@ public class ResourceManager {
         mc.addAll(scenarioMapping);
         mc.addAll(modMapping);
         mergedContainer = mc;
+        version++;
+    }
+
+    /**
+     * Gets the version of the resource mappings, which changes
+     * whenever the mappings do.  Users that resolve resources in
+     * advance should resolve them again when it changes.
+     *
+     * @return The mapping version.
+     */
+    public static int getVersion() {
+        return version;
     }
 
     /**
@@ -231,27 +218,27 @@ public class ResourceManager {
      * @param key The resource to check for.
      * @return true when the resource exists.
      */
-    public static synchronized boolean hasResource(final String key) {
+    public static boolean hasResource(final String key) {
         logger.finest("hasResource(" + key + ")");
         return mergedContainer.containsKey(key);
     }
 
-    public static synchronized boolean hasImageResource(final String key) {
+    public static boolean hasImageResource(final String key) {
         //logger.finest("hasImageResource(" + key + ")");
         return mergedContainer.containsImageKey(key);
     }
 
-    public static synchronized boolean hasColorResource(final String key) {
+    public static boolean hasColorResource(final String key) {
         //logger.finest("hasColorResource(" + key + ")");
         return mergedContainer.containsColorKey(key);
     }
 
-    public static synchronized Map<String, Resource> getResources() {
+    public static Map<String, Resource> getResources() {
         logger.finest("getResources");
         return mergedContainer.getResources();
     }
 
-    public static synchronized Map<String, ImageResource> getImageResources() {
+    public static Map<String, ImageResource> getImageResources() {
         logger.finest("getImageResources");
         return mergedContainer.getImageResources();
     }
@@ -262,7 +249,7 @@ public class ResourceManager {
      * @param prefix the prefix
      * @return a list of all keys starting with the given prefix
      */
-    public static synchronized ArrayList<String> getImageKeys(String prefix) {
+    public static ArrayList<String> getImageKeys(String prefix) {
         //logger.finest("getImageKeys(" + prefix + ")");
         return mergedContainer.getImageKeys(prefix);
     }
@@ -275,7 +262,7 @@ public class ResourceManager {
      * @param suffix the suffix
      * @return a list of all resulting keys
      */
-    public static synchronized ArrayList<String> getImageKeys(String prefix,
+    public static ArrayList<String> getImageKeys(String prefix,
                                                               String suffix) {
         logger.finest("getImageKeys(" + prefix + ", " + suffix + ")");
         return mergedContainer.getImageKeys(prefix, suffix);
@@ -287,7 +274,7 @@ public class ResourceManager {
      * @param prefix the prefix
      * @return a set of all keysstarting with the given prefix
      */
-    public static synchronized Set<String> getImageKeySet(String prefix) {
+    public static Set<String> getImageKeySet(String prefix) {
         //logger.finest("getImageKeySet(" + prefix + ")");
         return mergedContainer.getImageKeySet(prefix);
     }
@@ -299,7 +286,7 @@ public class ResourceManager {
      * @return The resource if there is one with the given
      *     resource key and type, or else <code>null</code>.
      */
-    private static synchronized ColorResource getColorResource(final String key) {
+    private static ColorResource getColorResource(final String key) {
         final ColorResource r = mergedContainer.getColorResource(key);
         if (r == null) {
             logger.warning("getColorResource(" + key + ") failed");
@@ -307,7 +294,7 @@ public class ResourceManager {
         return r;
     }
 
-    private static synchronized FontResource getFontResource(final String key) {
+    private static FontResource getFontResource(final String key) {
         final FontResource r = mergedContainer.getFontResource(key);
         if (r == null) {
             logger.warning("getFontResource(" + key + ") failed");
@@ -315,7 +302,7 @@ public class ResourceManager {
         return r;
     }
 
-    private static synchronized StringResource getStringResource(final String key) {
+    private static StringResource getStringResource(final String key) {
         final StringResource r = mergedContainer.getStringResource(key);
         if (r == null) {
             logger.warning("getStringResource(" + key + ") failed");
@@ -323,7 +310,7 @@ public class ResourceManager {
         return r;
     }
 
-    private static synchronized FAFileResource getFAFileResource(final String key) {
+    private static FAFileResource getFAFileResource(final String key) {
         final FAFileResource r = mergedContainer.getFAFileResource(key);
         if (r == null) {
             logger.warning("getFAFileResource(" + key + ") failed");
@@ -331,7 +318,7 @@ public class ResourceManager {
         return r;
     }
 
-    private static synchronized SZAResource getSZAResource(final String key) {
+    private static SZAResource getSZAResource(final String key) {
         final SZAResource r = mergedContainer.getSZAResource(key);
         if (r == null) {
             logger.warning("getSZAResource(" + key + ") failed");
@@ -339,7 +326,7 @@ public class ResourceManager {
         return r;
     }
 
-    private static synchronized AudioResource getAudioResource(final String key) {
+    private static AudioResource getAudioResource(final String key) {
         final AudioResource r = mergedContainer.getAudioResource(key);
         if (r == null) {
             logger.warning("getAudioResource(" + key + ") failed");
@@ -347,7 +334,7 @@ public class ResourceManager {
         return r;
     }
 
-    private static synchronized VideoResource getVideoResource(final String key) {
+    private static VideoResource getVideoResource(final String key) {
         final VideoResource r = mergedContainer.getVideoResource(key);
         if (r == null) {
             logger.warning("getVideoResource(" + key + ") failed");
@@ -355,11 +342,20 @@ public class ResourceManager {
         return r;
     }
 
-    private static synchronized ImageResource getImageResource(final String key) {
-        ImageResource r = mergedContainer.getImageResource(key);
+    /**
+     * Gets an image resource, which can be used to get the image
+     * repeatedly without looking up its key each time.  A missing
+     * resource is replaced by the replacement image resource.
+     *
+     * @param key The name of the resource to get.
+     * @return The <code>ImageResource</code> found.
+     */
+    public static ImageResource getImageResource(final String key) {
+        final ResourceMapping mc = mergedContainer;
+        ImageResource r = mc.getImageResource(key);
         if (r == null) {
             logger.warning("getImageResource(" + key + ") failed");
-            r = mergedContainer.getImageResource(REPLACEMENT_IMAGE);
+            r = mc.getImageResource(REPLACEMENT_IMAGE);
             if(r == null) {
                 FreeColClient.fatal("Failed getting replacement image.");
             }
@@ -402,9 +398,25 @@ public class ResourceManager {
      * @return The image identified by <code>resource</code>.
      */
     public static BufferedImage getImage(final String key, final float scale) {
-        BufferedImage image = getImageResource(key).getImage(scale);
+        return getImage(getImageResource(key), scale);
+    }
+
+    /**
+     * Gets the image of an image resource at a scale.
+     *
+     * @param resource The <code>ImageResource</code> to get the image of.
+     * @param scale The size of the requested image (with 1 being normal size,
+     *      2 twice the size, 0.5 half the size etc). Rescaling
+     *      will be performed unless using 1.
+     * @return The image of the resource.
+     * @see #getImageResource(String)
+     */
+    public static BufferedImage getImage(final ImageResource resource,
+                                         final float scale) {
+        BufferedImage image = resource.getImage(scale);
         if(image == null) {
-            logger.warning("getImage(" + key + ", " + scale + ") failed");
+            logger.warning("getImage(" + resource.getResourceLocator()
+                + ", " + scale + ") failed");
             image = getImageResource(REPLACEMENT_IMAGE).getImage(scale);
             if(image == null) {
                 FreeColClient.fatal("Failed getting replacement image.");
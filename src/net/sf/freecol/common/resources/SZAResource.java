@@ -21,7 +21,6 @@ package net.sf.freecol.common.resources;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,8 +36,9 @@ import net.sf.freecol.common.io.sza.SimpleZippedAnimation;
 public class SZAResource extends Resource implements Resource.Preloadable {
     private static final Logger logger = Logger.getLogger(SZAResource.class.getName());
 
-    private final HashMap<Float, SimpleZippedAnimation> scaledSzAnimations
-        = new HashMap<>();
+    /** The kind of copies of the animation kept in the image cache. */
+    private static final String SCALED = "scaled";
+
     private volatile SimpleZippedAnimation szAnimation = null;
     private final Object loadingLock = new Object();
 
@@ -102,14 +102,16 @@ public class SZAResource extends Resource implements Resource.Preloadable {
         if (scale == 1.0f) {
             return sza;
         }
+        final ImageCache cache = ImageCache.getInstance();
+        final ImageCache.Key key = new ImageCache.Key(this, SCALED, scale);
         final SimpleZippedAnimation cachedScaledVersion
-            = scaledSzAnimations.get(scale);
+            = (SimpleZippedAnimation)cache.get(key);
         if (cachedScaledVersion != null) {
             return cachedScaledVersion;
         }
         final SimpleZippedAnimation scaledVersion
             = sza.createScaledVersion(scale);
-        scaledSzAnimations.put(scale, scaledVersion);
+        cache.put(key, scaledVersion, ImageCache.getSize(scaledVersion));
         return scaledVersion;
     }
 }
@@ -20,8 +20,8 @@
 package net.sf.freecol.server;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.InetAddress;
@@ -33,12 +33,9 @@ import java.util.Properties;
 import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.imageio.ImageIO;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 
@@ -117,6 +114,9 @@ public final class FreeColServer {
 
     private static final int META_SERVER_UPDATE_INTERVAL = 60000;
 
+    /** The port to ask for when the server takes no connections. */
+    public static final int NO_PORT = Integer.MIN_VALUE;
+
     /**
      * The save game format used for saving games.
      *
@@ -202,7 +202,8 @@ public final class FreeColServer {
      * @param publicServer If true, add to the meta-server.
      * @param singlePlayer True if this is a single player game.
      * @param specification The <code>Specification</code> to use in this game.
-     * @param port The TCP port to use for the public socket.
+     * @param port The TCP port to use for the public socket, or
+     *     NO_PORT to take no connections.
      * @param name An optional name for the server.
      * @exception IOException If the public socket cannot be created.
      * @exception NoRouteToServerException If there is a problem with the
@@ -222,7 +223,13 @@ public final class FreeColServer {
         this.preGameInputHandler = new PreGameInputHandler(this);
         this.inGameInputHandler = new InGameInputHandler(this);
 
-        this.random = new Random(FreeColSeed.getFreeColSeed(true));
+        // Use the seed from the command line if there is one, so
+        // that new games can be reproduced.
+        long seed = FreeColSeed.getFreeColSeed(false);
+        if (seed == FreeColSeed.DEFAULT_SEED) {
+            seed = FreeColSeed.getFreeColSeed(true);
+        }
+        this.random = new Random(seed);
         this.game = new ServerGame(specification);
         this.game.setNationOptions(new NationOptions(specification));
         this.game.randomize(random);
@@ -244,7 +251,8 @@ public final class FreeColServer {
      *
      * @param savegame The file where the game data is located.
      * @param specification An optional <code>Specification</code> to use.
-     * @param port The TCP port to use for the public socket.
+     * @param port The TCP port to use for the public socket, or
+     *     NO_PORT to take no connections.
      * @param name An optional name for the server.
      * @exception IOException If save game can not be found.
      * @exception FreeColException If the savegame could not be loaded.
@@ -356,11 +364,14 @@ public final class FreeColServer {
      *
      * If the port is unspecified (negative), try multiple times.
      *
+     * If the port is NO_PORT, make a server with no public socket.
+     *
      * @param firstPort The port to start trying to connect at.
      * @return A started <code>Server</code>.
      * @exception IOException on failure to open the port.
      */
     private Server serverStart(int firstPort) throws IOException {
+        if (firstPort == NO_PORT) return new Server(this);
         String host = (this.publicServer) ? "0.0.0.0"
             : InetAddress.getLoopbackAddress().getHostAddress();
         int port, tries;
@@ -744,86 +755,91 @@ public final class FreeColServer {
      */
     public void saveGame(File file, OptionGroup options, BufferedImage image)
         throws IOException {
-        final ServerGame game = getGame();
-        try (
-            JarOutputStream fos = new JarOutputStream(new FileOutputStream(file));
-        ) {
-            if (image != null) {
-                fos.putNextEntry(new JarEntry(FreeColSavegameFile.THUMBNAIL_FILE));
-                ImageIO.write(image, "png", fos);
-                fos.closeEntry();
-            }
+        takeSnapshot(options, image).write(file);
+    }
 
-            if (options != null) {
-                fos.putNextEntry(new JarEntry(FreeColSavegameFile.CLIENT_OPTIONS));
-                options.save(fos, FreeColXMLWriter.WriteScope.toSave(), true);
-                fos.closeEntry();
-            }
+    /**
+     * Take an in-memory snapshot of the game, which can be written to
+     * a file later, and on another thread.
+     *
+     * @param options Optional client options to save in the game.
+     * @param image A thumbnail <code>Image</code> value to save in the game.
+     * @return A <code>SavegameSnapshot</code> of the game.
+     * @exception IOException If a problem was encountered while
+     *     serializing the game.
+     */
+    public SavegameSnapshot takeSnapshot(OptionGroup options,
+                                         BufferedImage image)
+        throws IOException {
+        final ServerGame game = getGame();
+        byte[] optionBytes = null;
+        if (options != null) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            options.save(bos, FreeColXMLWriter.WriteScope.toSave(), true);
+            optionBytes = bos.toByteArray();
+        }
 
-            Properties properties = new Properties();
-            properties.put("map.width", Integer.toString(game.getMap().getWidth()));
-            properties.put("map.height", Integer.toString(game.getMap().getHeight()));
-            fos.putNextEntry(new JarEntry(FreeColSavegameFile.SAVEGAME_PROPERTIES));
-            properties.store(fos, null);
-            fos.closeEntry();
+        Properties properties = new Properties();
+        properties.put("map.width", Integer.toString(game.getMap().getWidth()));
+        properties.put("map.height", Integer.toString(game.getMap().getHeight()));
 
-            // save the actual game data
-            fos.putNextEntry(new JarEntry(FreeColSavegameFile.SAVEGAME_FILE));
-            try (
-                FreeColXMLWriter xw = new FreeColXMLWriter(fos,
-                    FreeColXMLWriter.WriteScope.toSave(), false);
-            ) {
-                xw.writeStartDocument("UTF-8", "1.0");
+        // save the actual game data
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1 << 20);
+        try (
+            FreeColXMLWriter xw = new FreeColXMLWriter(bos,
+                FreeColXMLWriter.WriteScope.toSave(), false);
+        ) {
+            xw.writeStartDocument("UTF-8", "1.0");
 
-                xw.writeComment(FreeCol.getConfiguration().toString());
+            xw.writeComment(FreeCol.getConfiguration().toString());
 
-                xw.writeStartElement(SAVED_GAME_TAG);
+            xw.writeStartElement(SAVED_GAME_TAG);
 
-                // Add the attributes:
-                xw.writeAttribute(OWNER_TAG, FreeCol.getName());
+            // Add the attributes:
+            xw.writeAttribute(OWNER_TAG, FreeCol.getName());
 
-                xw.writeAttribute(PUBLIC_SERVER_TAG, publicServer);
+            xw.writeAttribute(PUBLIC_SERVER_TAG, publicServer);
 
-                xw.writeAttribute(SINGLE_PLAYER_TAG, singlePlayer);
+            xw.writeAttribute(SINGLE_PLAYER_TAG, singlePlayer);
 
-                xw.writeAttribute(FreeColSavegameFile.VERSION_TAG,
-                                  SAVEGAME_VERSION);
+            xw.writeAttribute(FreeColSavegameFile.VERSION_TAG,
+                              SAVEGAME_VERSION);
 
-                xw.writeAttribute(RANDOM_STATE_TAG, Utils.getRandomState(random));
+            xw.writeAttribute(RANDOM_STATE_TAG, Utils.getRandomState(random));
 
-                xw.writeAttribute(DEBUG_TAG, FreeColDebugger.getDebugModes());
+            xw.writeAttribute(DEBUG_TAG, FreeColDebugger.getDebugModes());
 
-                if (getActiveUnit() != null) {
-                    xw.writeAttribute(ACTIVE_UNIT_TAG, getActiveUnit());
-                }
+            if (getActiveUnit() != null) {
+                xw.writeAttribute(ACTIVE_UNIT_TAG, getActiveUnit());
+            }
             
-                // Add server side model information:
-                xw.writeStartElement(SERVER_OBJECTS_TAG);
+            // Add server side model information:
+            xw.writeStartElement(SERVER_OBJECTS_TAG);
 
-                for (ServerModelObject smo : game.getServerModelObjects()) {
-                    xw.writeStartElement(smo.getServerXMLElementTagName());
+            for (ServerModelObject smo : game.getServerModelObjects()) {
+                xw.writeStartElement(smo.getServerXMLElementTagName());
 
-                    xw.writeAttribute(FreeColObject.ID_ATTRIBUTE_TAG, smo.getId());
-
-                    xw.writeEndElement();
-                }
+                xw.writeAttribute(FreeColObject.ID_ATTRIBUTE_TAG, smo.getId());
 
                 xw.writeEndElement();
+            }
 
-                game.toXML(xw); // Add the game
+            xw.writeEndElement();
 
-                if (aiMain != null) aiMain.toXML(xw); // Add the AIObjects
+            game.toXML(xw); // Add the game
 
-                xw.writeEndElement();
-                xw.writeEndDocument();
-                xw.flush();
-            }
-            fos.closeEntry();
+            if (aiMain != null) aiMain.toXML(xw); // Add the AIObjects
+
+            xw.writeEndElement();
+            xw.writeEndDocument();
+            xw.flush();
         } catch (XMLStreamException e) {
             throw new IOException("Failed to save (XML)", e);
         } catch (Exception e) {
             throw new IOException("Failed to save", e);
         }
+        return new SavegameSnapshot(bos.toByteArray(), optionBytes, image,
+                                    properties);
     }
 
     /**
@@ -898,7 +914,8 @@ public final class FreeColServer {
 
         ServerGame game = null;
         try (
-            FreeColXMLReader xr = fis.getFreeColXMLReader();
+            FreeColXMLReader xr = fis.getReadAheadFreeColXMLReader(
+                FreeCol.SERVER_THREAD + "SavegameReader");
         ) {
             // Switch to the read scope that creates server objects.
             xr.setReadScope(FreeColXMLReader.ReadScope.SERVER);
@@ -0,0 +1,135 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.imageio.ImageIO;
+
+import net.sf.freecol.common.io.FreeColSavegameFile;
+
+
+/**
+ * An in-memory snapshot of a saved game, ready to be written to a file.
+ *
+ * Taking the snapshot serializes the game, so it must be done while
+ * the game is not changing, but the snapshot itself does not refer to
+ * the game.  Compressing it and writing it out, which is most of the
+ * cost of saving a large game, can then be done on another thread.
+ */
+public final class SavegameSnapshot {
+
+    /** The serialized game. */
+    private final byte[] game;
+
+    /** The serialized client options, or null if none. */
+    private final byte[] options;
+
+    /** A thumbnail image, or null if none. */
+    private final BufferedImage image;
+
+    /** The savegame properties. */
+    private final Properties properties;
+
+
+    /**
+     * Create a new savegame snapshot.
+     *
+     * @param game The serialized game.
+     * @param options The serialized client options, or null if none.
+     * @param image A thumbnail <code>BufferedImage</code>, or null if none.
+     * @param properties The savegame <code>Properties</code>.
+     */
+    public SavegameSnapshot(byte[] game, byte[] options, BufferedImage image,
+                            Properties properties) {
+        this.game = game;
+        this.options = options;
+        this.image = image;
+        this.properties = properties;
+    }
+
+
+    /**
+     * Gets the size of the serialized game.
+     *
+     * @return The size in bytes.
+     */
+    public int getSize() {
+        return game.length;
+    }
+
+    /**
+     * Write this snapshot to a file.
+     *
+     * The savegame is written to a temporary file alongside the
+     * target, which is then moved into place, so an existing file is
+     * only replaced by a complete savegame.
+     *
+     * @param file The <code>File</code> to write to.
+     * @exception IOException If the file can not be written.
+     */
+    public void write(File file) throws IOException {
+        final File tmp = new File(file.getAbsoluteFile().getParentFile(),
+                                  file.getName() + ".tmp");
+        try {
+            try (
+                JarOutputStream fos
+                    = new JarOutputStream(new FileOutputStream(tmp));
+            ) {
+                if (image != null) {
+                    fos.putNextEntry(new JarEntry(FreeColSavegameFile.THUMBNAIL_FILE));
+                    ImageIO.write(image, "png", fos);
+                    fos.closeEntry();
+                }
+                if (options != null) {
+                    fos.putNextEntry(new JarEntry(FreeColSavegameFile.CLIENT_OPTIONS));
+                    fos.write(options);
+                    fos.closeEntry();
+                }
+                fos.putNextEntry(new JarEntry(FreeColSavegameFile.SAVEGAME_PROPERTIES));
+                properties.store(fos, null);
+                fos.closeEntry();
+
+                fos.putNextEntry(new JarEntry(FreeColSavegameFile.SAVEGAME_FILE));
+                fos.write(game);
+                fos.closeEntry();
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(tmp.toPath(), file.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (tmp.exists()) tmp.delete();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import net.sf.freecol.common.FreeColException;
+import net.sf.freecol.common.io.FreeColXMLWriter;
+import net.sf.freecol.common.io.FreeColXMLWriter.WriteScope;
+import net.sf.freecol.server.ai.AIMain;
+import net.sf.freecol.server.ai.AIPlayer;
+import net.sf.freecol.server.control.InGameController;
+import net.sf.freecol.server.control.PreGameController;
+import net.sf.freecol.server.model.ServerGame;
+import net.sf.freecol.server.model.ServerPlayer;
+
+
+/**
+ * Runs a game on a server with no clients, letting the AI play every
+ * player, and measures how fast it goes.
+ *
+ * The turns of the players are run in order in the calling thread:
+ * the AI player works, then the turn is ended through the in-game
+ * controller as if the AI had asked to end it.  While a simulation
+ * runs the controller does not stop the game for lack of human
+ * players, and the AI players do not start their own threads to
+ * work in, so the game proceeds as fast as the server and AI can
+ * manage.  Players that are not played by the AI, such as the human
+ * players of a loaded game, just end their turns.
+ *
+ * The checksum of the final state summarizes the outcome, so runs
+ * can be compared: two runs of a new game from the same seed, or
+ * of the same saved game, end with the same checksum.  Many runs
+ * are best made in separate processes, as the seed is global.
+ */
+public final class Simulation {
+
+    private static final Logger logger = Logger.getLogger(Simulation.class.getName());
+
+    /** The server to run the game on. */
+    private final FreeColServer server;
+
+    /** Time spent, in nanoseconds, by the AI working. */
+    private long aiTime = 0;
+
+    /** Time spent, in nanoseconds, ending the turns of players. */
+    private long endTurnTime = 0;
+
+    /** Time spent, in nanoseconds, ending turns that began a new turn. */
+    private long newTurnTime = 0;
+
+    /** The number of player turns played. */
+    private int playerTurns = 0;
+
+
+    /**
+     * Create a new simulation.
+     *
+     * @param server The <code>FreeColServer</code> to run the game on,
+     *     either about to start a new game, or with a loaded game.
+     */
+    public Simulation(FreeColServer server) {
+        this.server = server;
+    }
+
+
+    /**
+     * Run the simulation.
+     *
+     * @param turns The number of turns to run.
+     * @return A map of statistic name to value.
+     * @exception FreeColException if a new game can not be started.
+     */
+    public Map<String, String> run(int turns) throws FreeColException {
+        if (server.getGameState() != FreeColServer.GameState.IN_GAME) {
+            ((PreGameController)server.getController()).startGame();
+        }
+        final ServerGame game = server.getGame();
+        final InGameController igc = server.getInGameController();
+        if (game.getCurrentPlayer() == null) {
+            game.setCurrentPlayer(game.getFirstPlayer());
+        }
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long gcCount0 = getGarbageCollections(),
+            gcTime0 = getGarbageCollectionTime(),
+            alloc0 = getAllocatedBytes(threads, threadId);
+        final int startTurn = game.getTurn().getNumber();
+        final long start = System.nanoTime();
+        String ended = "turns";
+        igc.setSimulation(true);
+        try {
+            while (game.getTurn().getNumber() - startTurn < turns) {
+                ServerPlayer player = (ServerPlayer)game.getCurrentPlayer();
+                if (player == null) {
+                    ended = "noPlayer";
+                    break;
+                }
+                playTurn(player, igc, game);
+                if (game.checkForWinner() != null) {
+                    ended = "winner";
+                    break;
+                }
+            }
+        } finally {
+            igc.setSimulation(false);
+        }
+        final long elapsed = System.nanoTime() - start;
+        final int played = game.getTurn().getNumber() - startTurn;
+
+        Map<String, String> stats = new LinkedHashMap<>();
+        stats.put("turns", Integer.toString(played));
+        stats.put("finalTurn", game.getTurn().toString());
+        stats.put("ended", ended);
+        stats.put("playerTurns", Integer.toString(playerTurns));
+        stats.put("elapsedMillis", Long.toString(elapsed / 1000000));
+        stats.put("turnsPerSecond", String.format("%.3f",
+                (elapsed <= 0) ? 0.0 : played * 1.0e9 / elapsed));
+        stats.put("aiMillis", Long.toString(aiTime / 1000000));
+        stats.put("endTurnMillis", Long.toString(endTurnTime / 1000000));
+        stats.put("newTurnMillis", Long.toString(newTurnTime / 1000000));
+        long alloc = getAllocatedBytes(threads, threadId);
+        stats.put("allocatedBytes", (alloc < 0 || alloc0 < 0) ? "unknown"
+            : Long.toString(alloc - alloc0));
+        stats.put("garbageCollections",
+            Long.toString(getGarbageCollections() - gcCount0));
+        stats.put("garbageCollectionMillis",
+            Long.toString(getGarbageCollectionTime() - gcTime0));
+        stats.put("checksum", getChecksum(game));
+        return stats;
+    }
+
+    /**
+     * Play the turn of a player.
+     *
+     * @param player The <code>ServerPlayer</code> whose turn it is.
+     * @param igc The <code>InGameController</code> to end the turn with.
+     * @param game The <code>ServerGame</code> being played.
+     */
+    private void playTurn(ServerPlayer player, InGameController igc,
+                          ServerGame game) {
+        final AIMain aiMain = server.getAIMain();
+        final AIPlayer aiPlayer = (player.isAI())
+            ? aiMain.getAIPlayer(player) : null;
+        long t = System.nanoTime();
+        if (aiPlayer != null) {
+            aiMain.getPathCache().begin();
+            try {
+                aiPlayer.startWorking();
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "AI player failed while working!",
+                           e);
+            } finally {
+                aiMain.getPathCache().end();
+            }
+        }
+        long t2 = System.nanoTime();
+        aiTime += t2 - t;
+
+        boolean newTurn = game.isNextPlayerInNewTurn();
+        igc.endTurn(player);
+        t = System.nanoTime() - t2;
+        if (newTurn) newTurnTime += t; else endTurnTime += t;
+        playerTurns++;
+    }
+
+    /**
+     * Gets the bytes allocated so far by a thread, if the virtual
+     * machine can tell.
+     *
+     * @param threads The <code>ThreadMXBean</code> to ask.
+     * @param threadId The thread identifier.
+     * @return The bytes allocated, or negative if unknown.
+     */
+    private static long getAllocatedBytes(ThreadMXBean threads,
+                                          long threadId) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun
+                = (com.sun.management.ThreadMXBean)threads;
+            if (sun.isThreadAllocatedMemorySupported()
+                && sun.isThreadAllocatedMemoryEnabled()) {
+                return sun.getThreadAllocatedBytes(threadId);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of garbage collections so far.
+     *
+     * @return The total number of collections.
+     */
+    private static long getGarbageCollections() {
+        long result = 0;
+        for (GarbageCollectorMXBean gc
+                 : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0, gc.getCollectionCount());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the time spent collecting garbage so far.
+     *
+     * @return The total collection time in milliseconds.
+     */
+    private static long getGarbageCollectionTime() {
+        long result = 0;
+        for (GarbageCollectorMXBean gc
+                 : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0, gc.getCollectionTime());
+        }
+        return result;
+    }
+
+    /**
+     * Gets a checksum of the state of a game, as it would be saved.
+     *
+     * @param game The <code>ServerGame</code> to check.
+     * @return The checksum as a hexadecimal string.
+     */
+    public static String getChecksum(ServerGame game) {
+        CheckedOutputStream cos = new CheckedOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) {}
+
+                @Override
+                public void write(byte[] b, int off, int len) {}
+            }, new CRC32());
+        try (
+            FreeColXMLWriter xw = new FreeColXMLWriter(cos,
+                WriteScope.toSave(), false);
+        ) {
+            game.toXML(xw);
+        } catch (IOException|XMLStreamException e) {
+            logger.log(Level.WARNING, "Failed to checksum game", e);
+            return "unknown";
+        }
+        return String.format("%08x", cos.getChecksum().getValue());
+    }
+}
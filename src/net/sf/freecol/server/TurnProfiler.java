@@ -0,0 +1,374 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import net.sf.freecol.common.util.LogBuilder;
+
+
+/**
+ * Times the phases of the turns of the game.
+ *
+ * Code to be profiled is bracketed by {@link #start} and
+ * {@link #stop}, which add the time taken to a named timer.  Each
+ * timer counts its calls and time, both in total and in the current
+ * turn, and at the end of each turn the time the turn took is added
+ * to a histogram.  Timer names start with the part of the server
+ * they are in, such as "server.", "message." or "ai.", and the
+ * statistics of each part are found with the statistics of the game
+ * and of the AI.  The whole profile is logged at FINE at the end of
+ * every turn, and can also be inspected with JMX under
+ * {@link #OBJECT_NAME}.
+ *
+ * The profiler is shared by all the servers in a virtual machine.
+ */
+public final class TurnProfiler implements TurnProfilerMXBean {
+
+    private static final Logger logger = Logger.getLogger(TurnProfiler.class.getName());
+
+    /** The name the profiler is registered with JMX under. */
+    public static final String OBJECT_NAME
+        = "net.sf.freecol:type=TurnProfiler";
+
+    /** The name of the timer of whole turns. */
+    public static final String TURN = "server.turn";
+
+    /**
+     * The number of histogram buckets.  The first bucket counts the
+     * turns that took less than a millisecond, each later one those
+     * that took less than twice as long as the one before, and the
+     * last all the longer turns.
+     */
+    private static final int BUCKETS = 16;
+
+
+    /** A named timer. */
+    private static final class Timer {
+
+        /** The calls and time in nanoseconds, in total and this turn. */
+        private final AtomicLong calls = new AtomicLong(0);
+        private final AtomicLong nanos = new AtomicLong(0);
+        private final AtomicLong turnCalls = new AtomicLong(0);
+        private final AtomicLong turnNanos = new AtomicLong(0);
+
+        /** The time taken in the last turn, and in the longest turn. */
+        private volatile long lastTurnNanos = 0;
+        private volatile long maxTurnNanos = 0;
+
+        /** The number of turns taking the time of each bucket. */
+        private final AtomicLongArray histogram
+            = new AtomicLongArray(BUCKETS);
+
+
+        /**
+         * Add a call.
+         *
+         * @param time The time the call took in nanoseconds.
+         */
+        public void add(long time) {
+            calls.incrementAndGet();
+            nanos.addAndGet(time);
+            turnCalls.incrementAndGet();
+            turnNanos.addAndGet(time);
+        }
+
+        /**
+         * End the turn, adding it to the histogram if there were
+         * any calls in it.
+         */
+        public void endTurn() {
+            final long n = turnNanos.getAndSet(0);
+            lastTurnNanos = n;
+            if (turnCalls.getAndSet(0) == 0) return;
+            if (n > maxTurnNanos) maxTurnNanos = n;
+            histogram.incrementAndGet(getBucket(n));
+        }
+
+        /**
+         * Add the statistics of this timer to a map.
+         *
+         * @param name The name of the timer.
+         * @param stats The map to add to.
+         */
+        public void addStatistics(String name, Map<String, String> stats) {
+            stats.put(name + ".calls", Long.toString(calls.get()));
+            stats.put(name + ".millis", Long.toString(nanos.get() / 1000000));
+            stats.put(name + ".lastTurnMillis",
+                      Long.toString(lastTurnNanos / 1000000));
+            stats.put(name + ".maxTurnMillis",
+                      Long.toString(maxTurnNanos / 1000000));
+            stats.put(name + ".histogram", getHistogram());
+        }
+
+        /**
+         * Describe the non-empty buckets of the histogram.
+         *
+         * @return A description of the histogram.
+         */
+        public String getHistogram() {
+            StringBuilder sb = new StringBuilder(64);
+            for (int i = 0; i < BUCKETS; i++) {
+                long n = histogram.get(i);
+                if (n == 0) continue;
+                if (sb.length() > 0) sb.append(' ');
+                sb.append((i < BUCKETS - 1) ? "<" + (1L << i)
+                    : ">=" + (1L << (i - 1))).append("ms:").append(n);
+            }
+            return sb.toString();
+        }
+    }
+
+    /** The profiler. */
+    private static final TurnProfiler instance = new TurnProfiler();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(instance, new ObjectName(OBJECT_NAME));
+        } catch (JMException|SecurityException e) {
+            logger.log(Level.WARNING, "Failed to register profiler", e);
+        }
+    }
+
+    /** Is profiling enabled? */
+    private static volatile boolean enabled = true;
+
+    /** The timers, by name. */
+    private final ConcurrentMap<String, Timer> timers
+        = new ConcurrentHashMap<>();
+
+    /** The number of turns profiled. */
+    private final AtomicInteger turns = new AtomicInteger(0);
+
+    /** When the current turn started, or zero if not known. */
+    private volatile long turnStart = 0;
+
+
+    /**
+     * Create the profiler.
+     */
+    private TurnProfiler() {}
+
+
+    /**
+     * Gets the profiler.
+     *
+     * @return The <code>TurnProfiler</code>.
+     */
+    public static TurnProfiler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Start timing.
+     *
+     * @return The start time to pass to {@link #stop}, which is zero
+     *     if profiling is disabled.
+     */
+    public static long start() {
+        return (enabled) ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Stop timing, and add the time taken to a timer.
+     *
+     * @param name The name of the timer.
+     * @param start The start time returned by {@link #start}.
+     */
+    public static void stop(String name, long start) {
+        if (start == 0L) return;
+        instance.getTimer(name).add(System.nanoTime() - start);
+    }
+
+    /**
+     * End the current turn of the game, adding the time taken by
+     * each timer in it to its histogram.
+     */
+    public static void endTurn() {
+        final long now = System.nanoTime();
+        if (!enabled) {
+            instance.turnStart = 0;
+            return;
+        }
+        if (instance.turnStart != 0) {
+            instance.getTimer(TURN).add(now - instance.turnStart);
+            instance.turns.incrementAndGet();
+            for (Timer t : instance.timers.values()) t.endTurn();
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine(instance.describe());
+            }
+        }
+        instance.turnStart = now;
+    }
+
+    /**
+     * Gets the statistics of the timers with a name prefix.
+     *
+     * @param prefix The prefix of the timer names.
+     * @return A map of statistic name to value.
+     */
+    public static Map<String, String> getStatistics(String prefix) {
+        Map<String, String> stats = new HashMap<>();
+        for (Map.Entry<String, Timer> e : instance.timers.entrySet()) {
+            if (e.getKey().startsWith(prefix)) {
+                e.getValue().addStatistics(e.getKey(), stats);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Gets a timer, creating it if needed.
+     *
+     * @param name The name of the timer.
+     * @return The <code>Timer</code>.
+     */
+    private Timer getTimer(String name) {
+        Timer t = timers.get(name);
+        if (t == null) {
+            Timer old = timers.putIfAbsent(name, t = new Timer());
+            if (old != null) t = old;
+        }
+        return t;
+    }
+
+    /**
+     * Gets the bucket of the histogram a time falls in.
+     *
+     * @param time The time in nanoseconds.
+     * @return The bucket index.
+     */
+    private static int getBucket(long time) {
+        final long ms = time / 1000000;
+        return (ms <= 0) ? 0
+            : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(ms));
+    }
+
+    /**
+     * Describe all the timers.
+     *
+     * @return A description of the timers.
+     */
+    private String describe() {
+        List<String> names = new ArrayList<>(timers.keySet());
+        Collections.sort(names);
+        LogBuilder lb = new LogBuilder(64 * (names.size() + 1));
+        lb.add("Turn profile after ", turns.get(), " turns:");
+        for (String name : names) {
+            Timer t = timers.get(name);
+            lb.add("\n  ", name,
+                " calls=", t.calls.get(),
+                " ms=", t.nanos.get() / 1000000,
+                " last=", t.lastTurnNanos / 1000000,
+                " max=", t.maxTurnNanos / 1000000,
+                " [", t.getHistogram(), "]");
+        }
+        return lb.toString();
+    }
+
+
+    // Implement TurnProfilerMXBean
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        TurnProfiler.enabled = enabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getTurns() {
+        return turns.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastTurnMillis() {
+        Timer t = timers.get(TURN);
+        return (t == null) ? 0 : t.lastTurnNanos / 1000000;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMaxTurnMillis() {
+        Timer t = timers.get(TURN);
+        return (t == null) ? 0 : t.maxTurnNanos / 1000000;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> getStatistics() {
+        return getStatistics("");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String dump() {
+        String result = describe();
+        logger.info(result);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        timers.clear();
+        turns.set(0);
+        turnStart = 0;
+    }
+}
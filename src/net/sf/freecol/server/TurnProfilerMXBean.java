@@ -0,0 +1,84 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server;
+
+import java.util.Map;
+
+
+/**
+ * The management interface of the {@link TurnProfiler}, as seen
+ * through JMX.
+ */
+public interface TurnProfilerMXBean {
+
+    /**
+     * Is profiling enabled?
+     *
+     * @return True if profiling is enabled.
+     */
+    public boolean isEnabled();
+
+    /**
+     * Enable or disable profiling.
+     *
+     * @param enabled The new enabled state.
+     */
+    public void setEnabled(boolean enabled);
+
+    /**
+     * Gets the number of turns profiled.
+     *
+     * @return The number of turns.
+     */
+    public int getTurns();
+
+    /**
+     * Gets the time the last turn took.
+     *
+     * @return The length of the last turn in milliseconds.
+     */
+    public long getLastTurnMillis();
+
+    /**
+     * Gets the time the longest turn took.
+     *
+     * @return The length of the longest turn in milliseconds.
+     */
+    public long getMaxTurnMillis();
+
+    /**
+     * Gets the statistics of all the timers.
+     *
+     * @return A map of statistic name to value.
+     */
+    public Map<String, String> getStatistics();
+
+    /**
+     * Describe all the timers, and log the description.
+     *
+     * @return The description.
+     */
+    public String dump();
+
+    /**
+     * Clear all the timers.
+     */
+    public void reset();
+}
@@ -115,6 +115,18 @@ public class AIColony extends AIObject implements PropertyChangeListener {
     /** When should the workers in this Colony be rearranged? */
     private Turn rearrangeTurn = new Turn(0);
 
+    /**
+     * The turn the colony plan was prepared in by {@link #planColony},
+     * or -1 if it has been used or was not prepared.
+     */
+    private int plannedTurn = -1;
+
+    /** The owned tiles the plan was prepared with. */
+    private Set<Tile> plannedTiles = null;
+
+    /** The units the plan was prepared with. */
+    private Set<Unit> plannedUnits = null;
+
     /**
      * Goods that should be completely exported and only exported to
      * prevent the warehouse filling.
@@ -262,6 +274,39 @@ public class AIColony extends AIObject implements PropertyChangeListener {
         updateWishes(lb);
     }
 
+    /**
+     * Prepare the colony plan ahead of {@link #rearrangeWorkers}.
+     *
+     * This only reads the game, and may be called for several colonies
+     * of a player at once.  Colonies that will not be rearranged this
+     * turn are skipped.
+     */
+    public void planColony() {
+        final int turn = getGame().getTurn().getNumber();
+        if (rearrangeTurn.getNumber() > turn
+            && colony.getCurrentlyBuilding() != null) return;
+        if (colonyPlan == null) colonyPlan = new ColonyPlan(getAIMain(), colony);
+        colonyPlan.update();
+        plannedTurn = turn;
+        plannedTiles = new HashSet<>(colony.getOwnedTiles());
+        plannedUnits = new HashSet<>(colony.getUnitList());
+    }
+
+    /**
+     * Is the colony plan prepared by {@link #planColony} still good,
+     * that is, was it prepared this turn for the tiles and units the
+     * colony has now?  The plans are prepared just before the colonies
+     * are rearranged, and rearranging a colony only changes its own
+     * tiles and units, so nothing else needs checking.
+     *
+     * @return True if the prepared plan can be used.
+     */
+    boolean isPlanned() {
+        return plannedTurn == getGame().getTurn().getNumber()
+            && plannedTiles.equals(colony.getOwnedTiles())
+            && plannedUnits.equals(new HashSet<>(colony.getUnitList()));
+    }
+
     /**
      * Rearranges the workers within this colony using the {@link ColonyPlan}.
      *
@@ -317,9 +362,13 @@ public class AIColony extends AIObject implements PropertyChangeListener {
             }
         }
 
-        // Update the colony plan.
+        // Update the colony plan, unless it was prepared this turn
+        // for the same tiles and units.
         if (colonyPlan == null) colonyPlan = new ColonyPlan(aiMain, colony);
-        colonyPlan.update();
+        if (!isPlanned()) colonyPlan.update();
+        plannedTurn = -1;
+        plannedTiles = null;
+        plannedUnits = null;
 
         // Now that we know what raw materials are available in the
         // colony plan, set the current buildable, first backing out
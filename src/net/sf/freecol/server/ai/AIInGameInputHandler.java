@@ -440,6 +440,9 @@ public final class AIInGameInputHandler implements MessageHandler {
         String str = element.getAttribute("player");
         final Player currentPlayer = game.getFreeColGameObject(str, Player.class);
 
+        // In a simulation, the simulation runs the turn.
+        if (freeColServer.getInGameController().isSimulation()) return null;
+
         if (currentPlayer != null
             && serverPlayer.getId().equals(currentPlayer.getId())) {
             logger.finest("Starting new Thread for " + serverPlayer.getName());
@@ -448,10 +451,14 @@ public final class AIInGameInputHandler implements MessageHandler {
             new Thread(nam) {
                 @Override
                 public void run() {
+                    final PathCache pathCache = aiMain.getPathCache();
+                    pathCache.begin();
                     try {
                         getAIPlayer().startWorking();
                     } catch (Exception e) {
                         logger.log(Level.SEVERE, "AI player failed while working!", e);
+                    } finally {
+                        pathCache.end();
                     }
                     AIMessage.askEndTurn(getAIPlayer());
                 }
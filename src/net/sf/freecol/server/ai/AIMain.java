@@ -24,6 +24,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,11 +45,13 @@ import net.sf.freecol.common.model.FreeColGameObjectListener;
 import net.sf.freecol.common.model.FreeColObject;
 import net.sf.freecol.common.model.Game;
 import net.sf.freecol.common.model.Player;
+import net.sf.freecol.common.model.Settlement;
 import net.sf.freecol.common.model.Specification;
 import net.sf.freecol.common.model.Unit;
 import static net.sf.freecol.common.util.RandomUtils.*;
 import static net.sf.freecol.common.util.StringUtils.*;
 import net.sf.freecol.server.FreeColServer;
+import net.sf.freecol.server.TurnProfiler;
 import net.sf.freecol.server.model.ServerPlayer;
 
 
@@ -55,6 +64,12 @@ public class AIMain extends FreeColObject
 
     private static final Logger logger = Logger.getLogger(AIMain.class.getName());
 
+    /** The number of AI objects to validate in each parallel task. */
+    private static final int VALIDATE_BATCH = 1024;
+
+    /** Threads to plan the AI colonies and validate the AI objects. */
+    private static ExecutorService aiExecutor = null;
+
     /** The server that this AI is operating within. */
     private final FreeColServer freeColServer;
 
@@ -67,6 +82,9 @@ public class AIMain extends FreeColObject
      */
     private final Map<String, AIObject> aiObjects = new HashMap<>();
 
+    /** The target paths found by the missions this turn. */
+    private final PathCache pathCache = new PathCache();
+
 
     /**
      * Creates a new <code>AIMain</code> and searches the current
@@ -114,6 +132,83 @@ public class AIMain extends FreeColObject
         return freeColServer.getGame();
     }
 
+    /**
+     * Gets the cache of mission target paths.
+     *
+     * @return The <code>PathCache</code>.
+     */
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * Prepare the plans of some colonies in parallel.
+     *
+     * Called by a player just before it rearranges its colonies, so
+     * the plans are made against the state of the game they will be
+     * used in.  A colony whose plan fails is planned again as it is
+     * rearranged.
+     *
+     * @param aiColonies The list of <code>AIColony</code>s to plan.
+     */
+    public void planColonies(List<AIColony> aiColonies) {
+        if (aiColonies.size() <= 1) {
+            for (AIColony aic : aiColonies) aic.planColony();
+            return;
+        }
+
+        final ExecutorService executor = getExecutor();
+        List<Future<?>> plans = new ArrayList<>();
+        for (final AIColony aic : aiColonies) {
+            plans.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        aic.planColony();
+                    }
+                }));
+        }
+        for (int i = 0; i < plans.size(); i++) {
+            try {
+                plans.get(i).get();
+            } catch (ExecutionException ee) {
+                logger.log(Level.WARNING, "AI planning failed for "
+                    + aiColonies.get(i).getColony().getName(),
+                    ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets the shared executor used to plan the AI colonies and to
+     * validate the AI objects.  The threads are not needed between
+     * turns, so they time out when idle.
+     *
+     * @return The AI <code>ExecutorService</code>.
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (aiExecutor == null) {
+            final int n = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor tpe = new ThreadPoolExecutor(n, n,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private int count = 0;
+
+                    @Override
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "AIMain-" + count++);
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            tpe.allowCoreThreadTimeOut(true);
+            aiExecutor = tpe;
+        }
+        return aiExecutor;
+    }
+
     /**
      * Gets a unique identifier for an <code>AIObject</code>.
      *
@@ -157,6 +252,24 @@ public class AIMain extends FreeColObject
             : false;
     }
 
+    /**
+     * Gets the game objects that should have an AI object.
+     *
+     * @return A list of <code>FreeColGameObject</code>s.
+     */
+    private List<FreeColGameObject> getObjectsNeedingAI() {
+        final Game game = getGame();
+        List<FreeColGameObject> result = new ArrayList<>();
+        for (Player p : game.getFreeColGameObjects(Player.class)) {
+            if (shouldHaveAIObject(p)) result.add(p);
+        }
+        for (Settlement s : game.getFreeColGameObjects(Settlement.class)) {
+            if (shouldHaveAIObject(s)) result.add(s);
+        }
+        result.addAll(game.getFreeColGameObjects(Unit.class));
+        return result;
+    }
+
     /**
      * Searches for new {@link FreeColGameObject FreeColGameObjects}.
      * An AI-object is created for each new object.
@@ -165,9 +278,7 @@ public class AIMain extends FreeColObject
      *     should be overwritten or not.
      */
     public void findNewObjects(boolean overwrite) {
-        for (FreeColGameObject fcgo : freeColServer.getGame()
-                 .getFreeColGameObjects()) {
-            if (!shouldHaveAIObject(fcgo)) continue;
+        for (FreeColGameObject fcgo : getObjectsNeedingAI()) {
             if (overwrite || getAIObject(fcgo) == null) {
                 setFreeColGameObject(fcgo.getId(), fcgo);
             }
@@ -315,22 +426,81 @@ public class AIMain extends FreeColObject
         for (Entry<String, Long> entry : objStats.entrySet()) {
             stats.put(entry.getKey(), Long.toString(entry.getValue()));
         }
+        stats.put("pathCacheHits", Integer.toString(pathCache.getHits()));
+        stats.put("pathCacheMisses", Integer.toString(pathCache.getMisses()));
+        stats.putAll(TurnProfiler.getStatistics("ai."));
 
         return stats;
     }
 
+    /**
+     * Validate a list of AI objects, without fixing them.  Large lists
+     * are split into batches that are checked in parallel.
+     *
+     * @param aios The list of <code>AIObject</code>s to check.
+     * @return The integrity of each object.
+     */
+    private static int[] validate(final List<AIObject> aios) {
+        final int[] result = new int[aios.size()];
+        final int n = Math.min((aios.size() + VALIDATE_BATCH - 1)
+            / VALIDATE_BATCH, Runtime.getRuntime().availableProcessors());
+        boolean done = false;
+        if (n > 1) {
+            final ExecutorService executor = getExecutor();
+            try {
+                List<Future<?>> checks = new ArrayList<>();
+                for (int start = 0; start < result.length;
+                     start += VALIDATE_BATCH) {
+                    final int from = start;
+                    final int to = Math.min(result.length,
+                                            start + VALIDATE_BATCH);
+                    checks.add(executor.submit(new Runnable() {
+                            @Override
+                            public void run() {
+                                for (int i = from; i < to; i++) {
+                                    result[i] = aios.get(i)
+                                        .checkIntegrity(false);
+                                }
+                            }
+                        }));
+                }
+                for (Future<?> f : checks) f.get();
+                done = true;
+            } catch (ExecutionException ee) {
+                // Check again below, so any error is seen in this thread
+                logger.log(Level.WARNING, "Parallel validation failed",
+                           ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!done) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = aios.get(i).checkIntegrity(false);
+            }
+        }
+        return result;
+    }
+
     /**
      * Checks the integrity of this <code>AIMain</code> by checking if
      * there are any invalid objects.
      *
+     * The objects are first validated in parallel, then any with
+     * problems are checked again in this thread to fix them.
+     *
      * @param fix Fix problems if possible.
      * @return Negative if there are problems remaining, zero if
      *     problems were fixed, positive if no problems found at all.
      */
     public int checkIntegrity(boolean fix) {
         int result = 1;
-        for (AIObject aio : getAIObjects()) {
-            int integ = aio.checkIntegrity(fix);
+        final List<AIObject> aios = getAIObjects();
+        final int[] checks = validate(aios);
+        for (int i = 0; i < aios.size(); i++) {
+            final AIObject aio = aios.get(i);
+            int integ = checks[i];
+            if (integ < 0 && fix) integ = aio.checkIntegrity(true);
             if (integ < 0 && fix) {
                 logger.warning("Invalid AIObject: " + aio.getId()
                     + " (" + lastPart(aio.getClass().getName(), ".")
@@ -342,9 +512,8 @@ public class AIMain extends FreeColObject
             result = Math.min(result, integ);
         }
 
-        for (FreeColGameObject fcgo : getGame().getFreeColGameObjects()) {
-            if (shouldHaveAIObject(fcgo)
-                && getAIObject(fcgo.getId()) == null) {
+        for (FreeColGameObject fcgo : getObjectsNeedingAI()) {
+            if (getAIObject(fcgo.getId()) == null) {
                 if (fix) {
                     logger.warning("Added missing AIObject for: " + fcgo.getId());
                     setFreeColGameObject(fcgo.getId(), fcgo);
@@ -374,6 +543,7 @@ public class AIMain extends FreeColObject
      */
     @Override
     public void setFreeColGameObject(String id, FreeColGameObject fcgo) {
+        pathCache.invalidate();
         if (getAIObject(id) != null || !shouldHaveAIObject(fcgo)) return;
         if (!id.equals(fcgo.getId())) {
             throw new IllegalArgumentException("!id.equals(fcgo.getId())");
@@ -410,6 +580,7 @@ public class AIMain extends FreeColObject
      */
     @Override
     public void removeFreeColGameObject(String id) {
+        pathCache.invalidate();
         AIObject o = getAIObject(id);
         if (o != null) o.dispose();
         removeAIObject(id);
@@ -425,6 +596,7 @@ public class AIMain extends FreeColObject
     @Override
     public void ownerChanged(FreeColGameObject source, Player oldOwner,
                              Player newOwner) {
+        pathCache.invalidate();
         AIObject ao = getAIObject(source);
         logger.finest("Owner changed for " + source.getId()
             + " with AI object: " + ao);
@@ -184,6 +184,8 @@ public class AIUnit extends TransportableAIObject {
      * @param mission The new <code>Mission</code>.
      */
     public final void setMission(Mission mission) {
+        // Mission targets feed back into the target searches.
+        if (this.mission != mission) getAIMain().getPathCache().invalidate();
         this.mission = mission;
     }
 
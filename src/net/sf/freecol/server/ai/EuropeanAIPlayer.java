@@ -34,6 +34,7 @@ import java.util.logging.Logger;
 
 import javax.xml.stream.XMLStreamException;
 
+import net.sf.freecol.FreeCol;
 import net.sf.freecol.common.i18n.Messages;
 import net.sf.freecol.common.io.FreeColXMLReader;
 import net.sf.freecol.common.model.Ability;
@@ -85,6 +86,7 @@ import net.sf.freecol.common.util.LogBuilder;
 import net.sf.freecol.common.util.RandomChoice;
 import static net.sf.freecol.common.util.CollectionUtils.*;
 import static net.sf.freecol.common.util.RandomUtils.*;
+import net.sf.freecol.server.TurnProfiler;
 import net.sf.freecol.server.ai.mission.BuildColonyMission;
 import net.sf.freecol.server.ai.mission.CashInTreasureTrainMission;
 import net.sf.freecol.server.ai.mission.DefendSettlementMission;
@@ -834,6 +836,7 @@ public class EuropeanAIPlayer extends AIPlayer {
      * @param lb A <code>LogBuilder</code> to log to.
      */
     public void buildTipMap(LogBuilder lb) {
+        getAIMain().getPathCache().invalidate();
         tipMap.clear();
         for (AIColony aic : getAIColonies()) {
             for (TileImprovementPlan tip : aic.getTileImprovementPlans()) {
@@ -871,6 +874,7 @@ public class EuropeanAIPlayer extends AIPlayer {
      * @param aic The new <code>AIColony</code>.
      */
     private void updateTipMap(AIColony aic) {
+        getAIMain().getPathCache().invalidate();
         for (TileImprovementPlan tip : aic.getTileImprovementPlans()) {
             tipMap.put(tip.getTarget(), tip);
         }
@@ -911,6 +915,7 @@ public class EuropeanAIPlayer extends AIPlayer {
     public void removeTileImprovementPlan(TileImprovementPlan plan) {
         if (plan == null) return;
         if (plan.getTarget() != null) tipMap.remove(plan.getTarget());
+        getAIMain().getPathCache().invalidate();
         for (AIColony aic : getAIColonies()) {
             if (aic.removeTileImprovementPlan(plan)) break;
         }
@@ -2305,6 +2310,7 @@ public class EuropeanAIPlayer extends AIPlayer {
     public void removeAIColony(AIColony aic) {
         final Colony colony = aic.getColony();
         
+        getAIMain().getPathCache().invalidate();
         Set<TileImprovementPlan> tips = new HashSet<>();
         for (Tile t : colony.getOwnedTiles()) {
             TileImprovementPlan tip = tipMap.remove(t);
@@ -2357,6 +2363,7 @@ public class EuropeanAIPlayer extends AIPlayer {
         if (getAIMain().getAIPlayer(player) != this) {
             throw new RuntimeException("EuropeanAIPlayer integrity fail");
         }
+        final long start = TurnProfiler.start();
         sessionRegister.clear();
         clearAIUnits();
         player.clearNationCache();
@@ -2376,7 +2383,9 @@ public class EuropeanAIPlayer extends AIPlayer {
                " v-land-REF=", player.getRebelStrengthRatio(false),
                " v-naval-REF=", player.getRebelStrengthRatio(true));
         if (turn.isFirstTurn()) initializeMissions(lb);
+        long t = TurnProfiler.start();
         determineStances(lb);
+        TurnProfiler.stop("ai.european.determineStances", t);
 
         if (colonyCount > 0) {
             lb.add("\n  Badly defended:"); // FIXME: prioritize defence
@@ -2390,11 +2399,25 @@ public class EuropeanAIPlayer extends AIPlayer {
             lb.add("\n  Update colonies:");
             for (AIColony aic : getAIColonies()) aic.update(lb);
 
+            t = TurnProfiler.start();
             buildTipMap(lb);
+            TurnProfiler.stop("ai.european.buildTipMap", t);
+            t = TurnProfiler.start();
             buildWishMaps(lb);
+            TurnProfiler.stop("ai.european.buildWishMaps", t);
         }
         cheat(lb);
+        t = TurnProfiler.start();
         buildTransportMaps(lb);
+        TurnProfiler.stop("ai.european.buildTransportMaps", t);
+
+        // Prepare the colony plans in parallel, now that the maps
+        // they read are built, and just before they are used.
+        if (FreeCol.getParallelAI() && colonyCount > 0) {
+            t = TurnProfiler.start();
+            getAIMain().planColonies(getAIColonies());
+            TurnProfiler.stop("ai.european.planColonies", t);
+        }
 
         // Note order of operations below.  We allow rearrange et al to run
         // even when there are no movable units left because this expedites
@@ -2406,7 +2429,9 @@ public class EuropeanAIPlayer extends AIPlayer {
             bringGifts(lb);
             demandTribute(lb);
             if (aiUnits.isEmpty()) break;
+            t = TurnProfiler.start();
             aiUnits = doMissions(aiUnits, lb);
+            TurnProfiler.stop("ai.european.doMissions", t);
         }
         lb.log(logger, Level.FINE);
 
@@ -2417,6 +2442,7 @@ public class EuropeanAIPlayer extends AIPlayer {
         wagonsNeeded.clear();
         goodsWishes.clear();
         workerWishes.clear();
+        TurnProfiler.stop("ai.european.startWorking", start);
     }
 
     /**
@@ -58,6 +58,7 @@ import net.sf.freecol.common.networking.NetworkConstants;
 import net.sf.freecol.common.util.LogBuilder;
 import net.sf.freecol.common.util.RandomChoice;
 import static net.sf.freecol.common.util.RandomUtils.*;
+import net.sf.freecol.server.TurnProfiler;
 import net.sf.freecol.server.ai.mission.DefendSettlementMission;
 import net.sf.freecol.server.ai.mission.IndianBringGiftMission;
 import net.sf.freecol.server.ai.mission.IndianDemandMission;
@@ -739,6 +740,7 @@ public class NativeAIPlayer extends AIPlayer {
         final int nSettlements = player.getNumberOfSettlements();
         final Random air = getAIRandom();
 
+        final long start = TurnProfiler.start();
         LogBuilder lb = new LogBuilder(1024);
         lb.add(player.getDebugName(), " in ", turn, "/", turn.getNumber());
 
@@ -771,6 +773,7 @@ public class NativeAIPlayer extends AIPlayer {
         }
         clearAIUnits();
         lb.log(logger, Level.FINEST);
+        TurnProfiler.stop("ai.native.startWorking", start);
     }
 
     /**
@@ -0,0 +1,219 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server.ai;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.freecol.common.model.Game;
+import net.sf.freecol.common.model.Location;
+import net.sf.freecol.common.model.PathNode;
+import net.sf.freecol.common.model.Unit;
+import net.sf.freecol.server.model.ServerGame;
+
+
+/**
+ * A cache of the target paths found by the AI missions.
+ *
+ * Units with the same owner, type, role, moves left, start location,
+ * carrier and home settlement get the same answer to a mission target
+ * search, so when several units are considered for the same mission
+ * in a turn the search is only done once.  The goal deciders of the missions
+ * prune the search as they go, so it is the answers that are cached
+ * rather than whole search trees.  Searches whose goal decider also
+ * depends on the unit itself, such as on its current mission, are
+ * keyed by the unit and so are only shared with later searches by
+ * the same unit.  Callers may change the paths they are given, so
+ * the cache holds its own copies.
+ *
+ * The cache is only used while an AI player is working, between
+ * {@link #begin} and {@link #end}, when the AI changes the game only
+ * by sending messages to the server.  Outside of that, such as when
+ * the test suite changes the model directly, every search is made.
+ *
+ * The cache is cleared whenever the map version of the game changes,
+ * which happens when a change set that touches the tiles, units,
+ * settlements or stances is built, and when the turn changes.  AI
+ * state that the goal deciders depend on must call
+ * {@link #invalidate} when it changes.
+ */
+public final class PathCache {
+
+    /** The most entries to hold before starting again. */
+    private static final int MAX_SIZE = 4096;
+
+    /** The cached paths, which may be null if there was no target. */
+    private final Map<String, PathNode> paths = new HashMap<>();
+
+    /** The map version the cached paths are valid for. */
+    private int mapVersion = -1;
+
+    /** The turn the cached paths are valid for. */
+    private int turn = -1;
+
+    /** The number of AI players working, the cache is used if positive. */
+    private int active = 0;
+
+    /** Statistics. */
+    private int hits = 0, misses = 0;
+
+
+    /**
+     * Make a cache key for a mission target search.
+     *
+     * @param kind The kind of search, which also determines the
+     *     cost decider, usually the mission tag.
+     * @param unit The <code>Unit</code> that is searching.
+     * @param range The range of the search.
+     * @param deferOK Whether the search falls back to a colony.
+     * @param shared Whether the answer may be shared with other units.
+     * @return A key for the search.
+     */
+    public static String makeKey(String kind, Unit unit, int range,
+                                 boolean deferOK, boolean shared) {
+        final Location start = unit.getPathStartLocation();
+        final Unit carrier = unit.getCarrier();
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(kind);
+        if (!shared) sb.append('/').append(unit.getId());
+        sb.append('/').append(unit.getOwner().getId())
+            .append('/').append((start == null) ? "-" : start.getId())
+            .append('/').append(unit.getType().getId())
+            .append('/').append(unit.getRole().getId())
+            .append('/').append(unit.getRoleCount())
+            .append('/').append(unit.getMovesLeft())
+            .append('/').append(unit.getState());
+        if (unit.getHomeIndianSettlement() != null) {
+            sb.append('/').append(unit.getHomeIndianSettlement().getId());
+        }
+        if (carrier != null) {
+            sb.append('/').append(carrier.getId())
+                .append('/').append(carrier.getMovesLeft());
+        }
+        sb.append('/').append(range).append('/').append(deferOK);
+        return sb.toString();
+    }
+
+    /**
+     * Start using the cache, as an AI player starts working.
+     */
+    public synchronized void begin() {
+        active++;
+    }
+
+    /**
+     * Stop using the cache, as an AI player finishes working.
+     * The cached paths are discarded when no player is working.
+     */
+    public synchronized void end() {
+        if (--active <= 0) {
+            active = 0;
+            paths.clear();
+        }
+    }
+
+    /**
+     * Check the cached paths are still valid for a game, clearing
+     * them if not.
+     *
+     * @param game The <code>Game</code> to check.
+     */
+    private void validate(Game game) {
+        final int version = (game instanceof ServerGame)
+            ? ((ServerGame)game).getMapVersion() : 0;
+        final int t = game.getTurn().getNumber();
+        if (version != mapVersion || t != turn || paths.size() >= MAX_SIZE) {
+            paths.clear();
+            mapVersion = version;
+            turn = t;
+        }
+    }
+
+    /**
+     * Is there a cached path for a key?
+     *
+     * @param game The <code>Game</code> the search is in.
+     * @param key The search key.
+     * @return True if a path, or the absence of one, is cached and
+     *     the cache is in use.
+     */
+    public synchronized boolean contains(Game game, String key) {
+        if (active <= 0) return false;
+        validate(game);
+        if (paths.containsKey(key)) {
+            hits++;
+            return true;
+        }
+        misses++;
+        return false;
+    }
+
+    /**
+     * Gets a cached path.
+     *
+     * @param key The search key.
+     * @return A copy of the cached <code>PathNode</code>, or null
+     *     if none.
+     */
+    public synchronized PathNode get(String key) {
+        final PathNode path = paths.get(key);
+        return (path == null) ? null : path.copy();
+    }
+
+    /**
+     * Cache the result of a search.
+     *
+     * @param game The <code>Game</code> the search is in.
+     * @param key The search key.
+     * @param path The <code>PathNode</code> found, or null if none.
+     * @return The path.
+     */
+    public synchronized PathNode put(Game game, String key, PathNode path) {
+        if (active <= 0) return path;
+        validate(game);
+        paths.put(key, (path == null) ? null : path.copy());
+        return path;
+    }
+
+    /**
+     * Discard all cached paths.
+     */
+    public synchronized void invalidate() {
+        paths.clear();
+    }
+
+    /**
+     * Gets the number of searches answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of searches not answered from the cache.
+     *
+     * @return The number of cache misses.
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+}
@@ -194,15 +194,13 @@ public class BuildColonyMission extends Mission {
     public static PathNode findTargetPath(AIUnit aiUnit, int range,
                                           boolean deferOK) {
         if (invalidAIUnitReason(aiUnit) != null) return null;
-        final Unit unit = aiUnit.getUnit();
-        final Location start = unit.getPathStartLocation();
-        final Unit carrier = unit.getCarrier();
         final GoalDecider gd = getGoalDecider(aiUnit, deferOK);
         final CostDecider standardCd
             = CostDeciders.avoidSettlementsAndBlockingUnits();
 
         // Try for something sensible nearby.
-        return unit.search(start, gd, standardCd, range, carrier);
+        return searchCached(getXMLElementTagName(), aiUnit, gd, standardCd,
+                            range, deferOK, true);
     }
 
     /**
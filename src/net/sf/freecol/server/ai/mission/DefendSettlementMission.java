@@ -165,12 +165,12 @@ public class DefendSettlementMission extends Mission {
     public static PathNode findTargetPath(AIUnit aiUnit, int range,
                                           boolean deferOK) {
         if (invalidAIUnitReason(aiUnit) != null) return null;
-        final Unit unit = aiUnit.getUnit();
-        final Location start = unit.getPathStartLocation();
-
-        return unit.search(start, getGoalDecider(aiUnit),
-                           CostDeciders.avoidSettlementsAndBlockingUnits(),
-                           range, unit.getCarrier());
+        // The defenders counted include this unit if it is already
+        // defending, so the answer is not shared.
+        return searchCached(getXMLElementTagName(), aiUnit,
+                            getGoalDecider(aiUnit),
+                            CostDeciders.avoidSettlementsAndBlockingUnits(),
+                            range, false, false);
     }
 
     /**
@@ -30,6 +30,7 @@ import net.sf.freecol.common.model.Ability;
 import net.sf.freecol.common.model.Colony;
 import net.sf.freecol.common.model.Europe;
 import net.sf.freecol.common.model.FreeColGameObject;
+import net.sf.freecol.common.model.Game;
 import net.sf.freecol.common.model.Locatable;
 import net.sf.freecol.common.model.Location;
 import net.sf.freecol.common.model.Map;
@@ -53,6 +54,7 @@ import net.sf.freecol.server.ai.AIObject;
 import net.sf.freecol.server.ai.AIPlayer;
 import net.sf.freecol.server.ai.AIUnit;
 import net.sf.freecol.server.ai.EuropeanAIPlayer;
+import net.sf.freecol.server.ai.PathCache;
 import net.sf.freecol.server.ai.TransportableAIObject;
 
 
@@ -504,6 +506,36 @@ public abstract class Mission extends AIObject {
     }
 
 
+    /**
+     * Search for a mission target, using the answer cached in the
+     * AI if the same search has already been made this turn.
+     *
+     * @param kind The kind of search, usually the mission tag.
+     * @param aiUnit The <code>AIUnit</code> that is searching.
+     * @param gd The <code>GoalDecider</code> that selects targets.
+     * @param cd The <code>CostDecider</code> to use, which must be the
+     *     same for all searches of this kind.
+     * @param range An upper bound on the number of moves.
+     * @param deferOK Whether the goal decider falls back to a colony.
+     * @param shared Whether the goal decider depends only on what
+     *     the cache key records of the unit, so that the answer can be
+     *     shared with other units.
+     * @return The path to the target found, or null if none.
+     */
+    protected static PathNode searchCached(String kind, AIUnit aiUnit,
+                                           GoalDecider gd, CostDecider cd,
+                                           int range, boolean deferOK,
+                                           boolean shared) {
+        final Unit unit = aiUnit.getUnit();
+        final Game game = unit.getGame();
+        final PathCache cache = aiUnit.getAIMain().getPathCache();
+        final String key = PathCache.makeKey(kind, unit, range, deferOK,
+                                             shared);
+        if (cache.contains(game, key)) return cache.get(key);
+        return cache.put(game, key, unit.search(unit.getPathStartLocation(),
+                gd, cd, range, unit.getCarrier()));
+    }
+
     /**
      * Finds a target for a unit without considering its movement
      * abilities.  This is used by missions when the current unit
@@ -177,14 +177,12 @@ public class MissionaryMission extends Mission {
     private static PathNode findTargetPath(AIUnit aiUnit, int range,
                                            boolean deferOK) {
         if (invalidAIUnitReason(aiUnit) != null) return null;
-        final Unit unit = aiUnit.getUnit();
-        final Location start = unit.getPathStartLocation();
-        final Unit carrier = unit.getCarrier();
         final GoalDecider gd = getGoalDecider(aiUnit, deferOK);
         final CostDecider standardCd
             = CostDeciders.avoidSettlementsAndBlockingUnits();
         // Is there a valid target available from the starting tile?
-        return unit.search(start, gd, standardCd, range, carrier);
+        return searchCached(getXMLElementTagName(), aiUnit, gd, standardCd,
+                            range, deferOK, true);
     }
 
     /**
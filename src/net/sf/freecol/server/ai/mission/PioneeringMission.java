@@ -288,15 +288,15 @@ public class PioneeringMission extends Mission {
     public static PathNode findTargetPath(AIUnit aiUnit, int range,
                                           boolean deferOK) {
         if (invalidAIUnitReason(aiUnit) != null) return null;
-        final Unit unit = aiUnit.getUnit();
-        final Location start = unit.getPathStartLocation();
-        final Unit carrier = unit.getCarrier();
         final GoalDecider gd = getGoalDecider(aiUnit, deferOK);
         final CostDecider standardCd
             = CostDeciders.avoidSettlementsAndBlockingUnits();
 
-        // Try for something sensible nearby.
-        return unit.search(start, gd, standardCd, range, carrier);
+        // Try for something sensible nearby.  The plans that are
+        // available depend on the mission of the unit, so the answer
+        // is not shared.
+        return searchCached(getXMLElementTagName(), aiUnit, gd, standardCd,
+                            range, deferOK, false);
     }
 
     /**
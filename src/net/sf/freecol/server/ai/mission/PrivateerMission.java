@@ -212,13 +212,13 @@ public class PrivateerMission extends Mission {
     public static PathNode findTargetPath(AIUnit aiUnit, int range, 
                                           boolean deferOK) {
         if (invalidAIUnitReason(aiUnit) != null) return null;
-        final Unit unit = aiUnit.getUnit();
-        final Location start = unit.getPathStartLocation();
 
         // Can the privateer legally reach a valid target from where
         // it currently is?
-        return unit.search(start, getGoalDecider(aiUnit, deferOK),
-                           CostDeciders.avoidIllegal(), range, null);
+        return searchCached(getXMLElementTagName(), aiUnit,
+                            getGoalDecider(aiUnit, deferOK),
+                            CostDeciders.avoidIllegal(), range, deferOK,
+                            true);
     }
 
     /**
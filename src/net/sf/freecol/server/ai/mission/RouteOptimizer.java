@@ -0,0 +1,274 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server.ai.mission;
+
+import java.util.Arrays;
+
+
+/**
+ * Finds a good order for a carrier to visit the targets of its cargoes.
+ *
+ * The problem is given as travel times, the time from the carrier to
+ * each target and between each pair of targets, along with the space
+ * each cargo takes up or frees in the hold.  An order is scored as in
+ * the old permutation search of the transport mission: primarily by
+ * its total travel time, with ties broken by the hold*turn product so
+ * as to deliver large loads early, and orders that would overfill or
+ * underfill the hold are not allowed.
+ *
+ * The best order is found exactly with a dynamic program over the
+ * subsets of targets visited so far (which determine the hold
+ * occupancy) when there are at most EXACT_LIMIT targets, and with
+ * cheapest insertion followed by 2-opt improvement above that.
+ */
+final class RouteOptimizer {
+
+    /** The most targets to find an exact order for. */
+    public static final int EXACT_LIMIT = 10;
+
+    /** The most passes of 2-opt improvement to make. */
+    private static final int MAX_PASSES = 8;
+
+    /** Weight of the hold*turn product in the score. */
+    private static final double HOLD_WEIGHT = 0.001;
+
+    /** The number of targets. */
+    private final int n;
+
+    /** The travel times from the carrier to each target. */
+    private final double[] fromStart;
+
+    /** The travel times between each pair of targets. */
+    private final double[][] between;
+
+    /** The change in hold occupancy at each target. */
+    private final int[] space;
+
+    /** The initial and maximum hold occupancy. */
+    private final int initialHolds, maxHolds;
+
+
+    /**
+     * Create a new route optimizer.
+     *
+     * @param fromStart The travel times from the carrier to each target.
+     * @param between The travel times between each pair of targets.
+     * @param space The change in hold occupancy at each target.
+     * @param initialHolds The holds occupied at the start.
+     * @param maxHolds The number of holds of the carrier.
+     */
+    public RouteOptimizer(double[] fromStart, double[][] between, int[] space,
+                          int initialHolds, int maxHolds) {
+        this.n = fromStart.length;
+        this.fromStart = fromStart;
+        this.between = between;
+        this.space = space;
+        this.initialHolds = initialHolds;
+        this.maxHolds = maxHolds;
+    }
+
+
+    /**
+     * The cost of a leg of a route.
+     *
+     * @param turns The travel time of the leg.
+     * @param holds The holds occupied during the leg.
+     * @param position The position of the leg in the route.
+     * @return The cost of the leg.
+     */
+    private static double legCost(double turns, int holds, int position) {
+        return turns + HOLD_WEIGHT * holds * turns * (1.0 + 0.1 * position);
+    }
+
+    /**
+     * The travel time from one target to another.
+     *
+     * @param from The target to start from, negative for the carrier.
+     * @param to The target to travel to.
+     * @return The travel time.
+     */
+    private double turns(int from, int to) {
+        return (from < 0) ? fromStart[to] : between[from][to];
+    }
+
+    /**
+     * Score a route.
+     *
+     * @param order The targets in the order they are visited.
+     * @param length The number of targets in the route to score.
+     * @return The score of the route, lower is better, or negative if
+     *     the route would overfill or underfill the hold.
+     */
+    public double score(int[] order, int length) {
+        int holds = initialHolds;
+        int prev = -1;
+        double total = 0.0;
+        for (int k = 0; k < length; k++) {
+            final int j = order[k];
+            total += legCost(turns(prev, j), holds, k);
+            holds += space[j];
+            if (holds < 0 || holds > maxHolds) return -1.0;
+            prev = j;
+        }
+        return total;
+    }
+
+    /**
+     * Find the best route.
+     *
+     * @return The targets in the best order found, or null if no
+     *     route is possible.
+     */
+    public int[] optimize() {
+        return (n <= EXACT_LIMIT) ? optimizeExact() : optimizeHeuristic();
+    }
+
+    /**
+     * Find the best route exactly.
+     *
+     * @return The targets in the best order, or null if no route is
+     *     possible.
+     */
+    private int[] optimizeExact() {
+        if (n == 0) return new int[0];
+        final int full = (1 << n) - 1;
+        final int[] holds = new int[full + 1];
+        holds[0] = initialHolds;
+        for (int mask = 1; mask <= full; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            holds[mask] = holds[mask & (mask - 1)] + space[low];
+        }
+        final double[][] cost = new double[full + 1][n];
+        final int[][] parent = new int[full + 1][n];
+        for (double[] c : cost) Arrays.fill(c, Double.POSITIVE_INFINITY);
+        for (int j = 0; j < n; j++) {
+            int h = holds[1 << j];
+            if (h < 0 || h > maxHolds) continue;
+            cost[1 << j][j] = legCost(fromStart[j], initialHolds, 0);
+            parent[1 << j][j] = -1;
+        }
+        for (int mask = 1; mask <= full; mask++) {
+            final int position = Integer.bitCount(mask);
+            for (int i = 0; i < n; i++) {
+                final double c = cost[mask][i];
+                if (c == Double.POSITIVE_INFINITY) continue;
+                for (int j = 0; j < n; j++) {
+                    if ((mask & (1 << j)) != 0) continue;
+                    final int next = mask | (1 << j);
+                    if (holds[next] < 0 || holds[next] > maxHolds) continue;
+                    double v = c + legCost(between[i][j], holds[mask],
+                                           position);
+                    if (v < cost[next][j]) {
+                        cost[next][j] = v;
+                        parent[next][j] = i;
+                    }
+                }
+            }
+        }
+        int last = -1;
+        for (int j = 0; j < n; j++) {
+            if (cost[full][j] < Double.POSITIVE_INFINITY
+                && (last < 0 || cost[full][j] < cost[full][last])) last = j;
+        }
+        if (last < 0) return null;
+        final int[] order = new int[n];
+        for (int mask = full, k = n - 1; k >= 0; k--) {
+            order[k] = last;
+            int prev = parent[mask][last];
+            mask &= ~(1 << last);
+            last = prev;
+        }
+        return order;
+    }
+
+    /**
+     * Find a good route by cheapest insertion, then improve it with
+     * 2-opt moves.  The route is never worse than visiting the
+     * targets in their given order.
+     *
+     * @return The targets in the best order found, or null if no
+     *     route was found.
+     */
+    private int[] optimizeHeuristic() {
+        // Insert each target where it costs least.
+        int[] order = new int[n];
+        int[] trial = new int[n];
+        for (int j = 0; j < n; j++) {
+            int bestPos = j;
+            double bestValue = Double.POSITIVE_INFINITY;
+            for (int pos = 0; pos <= j; pos++) {
+                insert(order, j, pos, j, trial);
+                double v = score(trial, j + 1);
+                if (v >= 0.0 && v < bestValue) {
+                    bestValue = v;
+                    bestPos = pos;
+                }
+            }
+            insert(order, j, bestPos, j, trial);
+            System.arraycopy(trial, 0, order, 0, j + 1);
+        }
+        double value = score(order, n);
+
+        // Reverse segments while that improves the route.
+        boolean improved = true;
+        for (int pass = 0; improved && pass < MAX_PASSES; pass++) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                for (int k = i + 1; k < n; k++) {
+                    System.arraycopy(order, 0, trial, 0, n);
+                    for (int a = i, b = k; a < b; a++, b--) {
+                        int t = trial[a]; trial[a] = trial[b]; trial[b] = t;
+                    }
+                    double v = score(trial, n);
+                    if (v >= 0.0 && (value < 0.0 || v < value)) {
+                        System.arraycopy(trial, 0, order, 0, n);
+                        value = v;
+                        improved = true;
+                    }
+                }
+            }
+        }
+
+        // Fall back to the given order if it is better.
+        int[] given = new int[n];
+        for (int j = 0; j < n; j++) given[j] = j;
+        double givenValue = score(given, n);
+        if (givenValue >= 0.0 && (value < 0.0 || givenValue <= value)) {
+            return given;
+        }
+        return (value < 0.0) ? null : order;
+    }
+
+    /**
+     * Insert a target into a partial route.
+     *
+     * @param order The partial route.
+     * @param length The length of the partial route.
+     * @param pos The position to insert at.
+     * @param target The target to insert.
+     * @param result An array to put the new route in.
+     */
+    private static void insert(int[] order, int length, int pos, int target,
+                               int[] result) {
+        System.arraycopy(order, 0, result, 0, pos);
+        result[pos] = target;
+        System.arraycopy(order, pos, result, pos + 1, length - pos);
+    }
+}
@@ -194,15 +194,14 @@ public class ScoutingMission extends Mission {
     public static PathNode findTargetPath(AIUnit aiUnit, int range,
                                           boolean deferOK) {
         if (invalidAIUnitReason(aiUnit) != null) return null;
-        final Unit unit = aiUnit.getUnit();
-        final Location start = unit.getPathStartLocation();
-        final Unit carrier = unit.getCarrier();
         final GoalDecider gd = getGoalDecider(aiUnit, deferOK);
         final CostDecider standardCd = CostDeciders.avoidIllegal();
 
         // Can the scout legally reach a valid target from where it
-        // currently is?
-        return unit.search(start, gd, standardCd, range, carrier);
+        // currently is?  Scouts spread out over the targets, so the
+        // answer is not shared between them.
+        return searchCached(getXMLElementTagName(), aiUnit, gd, standardCd,
+                            range, deferOK, false);
     }
 
     /**
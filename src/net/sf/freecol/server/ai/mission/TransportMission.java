@@ -20,6 +20,7 @@
 package net.sf.freecol.server.ai.mission;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Iterator;
 import java.util.logging.Logger;
@@ -88,6 +89,16 @@ public class TransportMission extends Mission {
     /** The current target location to travel to. */
     private Location target;
 
+    /**
+     * The travel times of the carrier between pairs of cargo targets,
+     * valid for the turn in turnsTurn.
+     */
+    private final java.util.Map<Location, java.util.Map<Location, Integer>> turnsCache
+        = new HashMap<>();
+
+    /** The turn the travel times are valid for. */
+    private int turnsTurn = -1;
+
 
     /**
      * Creates a mission for the given <code>AIUnit</code>.
@@ -1090,43 +1101,43 @@ public class TransportMission extends Mission {
     }
 
     /**
-     * Calculates a score for a proposed list of
-     * <code>Cargo</code>s using the current unit.  Disallows
-     * routes that would overfill the carrier.
+     * Gets the number of turns it takes the carrier to travel between
+     * two cargo targets.  The answers are cached for the rest of the
+     * turn, as the targets change much less often than the cargoes
+     * are reordered.
      *
-     * Useful for comparing proposed cargo delivery routes.  The
-     * score is based primarily on the number of turns it takes, but
-     * to break ties we also consider the hold*turn product to reduce
-     * the risk of losses due to enemy action.
-     *
-     * @param initialLocation The initial <code>Location</code>.
-     * @param order An ordering of <code>Cargo</code>s.
-     * @return A score for the cargo ordering.
-     */
-    private float scoreCargoOrder(Location initialLocation, List<Cargo> order) {
-        final Unit carrier = getUnit();
-        final int maxHolds = carrier.getCargoCapacity();
-        int holds = carrier.getCargoSpaceTaken();
-        Location now = initialLocation;
-        float totalHoldTurns = 0.0f;
-        float totalTurns = 0.0f;
-        float favourEarly = 1.0f;
-
-        for (Cargo cargo : order) {
-            int turns = carrier.getTurnsToReach(now, cargo.getCarrierTarget());
-            totalTurns += turns; // Might be INFINITY!
-            totalHoldTurns += holds * turns * favourEarly;
-            holds += cargo.getNewSpace();
-            if (holds < 0 || holds > maxHolds) return -1.0f;
-            now = cargo.getCarrierTarget();
-            favourEarly += 0.1f; // Slight preference for large loads first
+     * @param from The <code>Location</code> to start from.
+     * @param to The <code>Location</code> to travel to.
+     * @return The number of turns, which may be INFINITY.
+     */
+    private int getTurnsBetween(Location from, Location to) {
+        final int turn = getGame().getTurn().getNumber();
+        if (turn != turnsTurn) {
+            turnsCache.clear();
+            turnsTurn = turn;
+        }
+        java.util.Map<Location, Integer> row = turnsCache.get(from);
+        if (row == null) {
+            row = new HashMap<>();
+            turnsCache.put(from, row);
+        }
+        Integer turns = row.get(to);
+        if (turns == null) {
+            turns = getUnit().getTurnsToReach(from, to);
+            row.put(to, turns);
         }
-        return totalTurns + 0.001f * totalHoldTurns;
+        return turns;
     }
 
     /**
      * Sets the current target.
-     * Tries all permutations of cargoes and picks the fastest/safest one.
+     * Finds the fastest/safest order to deliver the cargoes in.
+     *
+     * Orders are scored primarily on the number of turns they take,
+     * but to break ties we also consider the hold*turn product to
+     * reduce the risk of losses due to enemy action.  Orders that
+     * would overfill the carrier are not allowed.  See
+     * <code>RouteOptimizer</code>.
      *
      * Leaves the cargoes in the order they are expected to
      * execute, with valid spaceLeft values.
@@ -1141,25 +1152,40 @@ public class TransportMission extends Mission {
         // that need consideration.
         List<Cargo> ts = wrapCargoes();
         List<Cargo> best = null;
-        if (1 < ts.size() && ts.size() <= DESTINATION_UPPER_BOUND) {
-            // Try all the permutations of visiting order for the
-            // locations, and set the target to the first location
-            // of the best scoring route.
+        if (1 < ts.size()) {
+            // Find the best order of visiting the locations, and
+            // set the target to the first location of the best
+            // scoring route.
             //
             // The target may get recomputed every time a cargo change
             // occurs, so there is no guarantee that the route chosen
             // here is actually executed.  This seems rather
             // inefficient, but we need to be adaptable.
             //
-            final Location current = getUnit().getLocation();
-            float bestValue = INFINITY;
-            for (List<Cargo> tl : getPermutations(ts)) {
-                float value = scoreCargoOrder(current, tl);
-                if (value > 0.0f && bestValue > value) {
-                    bestValue = value;
-                    best = tl;
+            final Unit carrier = getUnit();
+            final Location current = carrier.getLocation();
+            final int n = ts.size();
+            final double[] fromStart = new double[n];
+            final double[][] between = new double[n][n];
+            final int[] space = new int[n];
+            for (int i = 0; i < n; i++) {
+                final Location t = ts.get(i).getCarrierTarget();
+                fromStart[i] = carrier.getTurnsToReach(current, t);
+                space[i] = ts.get(i).getNewSpace();
+                for (int j = 0; j < n; j++) {
+                    if (i != j) {
+                        between[i][j] = getTurnsBetween(t,
+                            ts.get(j).getCarrierTarget());
+                    }
                 }
             }
+            RouteOptimizer ro = new RouteOptimizer(fromStart, between, space,
+                carrier.getCargoSpaceTaken(), carrier.getCargoCapacity());
+            int[] order = ro.optimize();
+            if (order != null && ro.score(order, n) > 0.0) {
+                best = new ArrayList<>(n);
+                for (int i : order) best.add(ts.get(i));
+            }
         }
         if (best != null) {
             tSet(unwrapCargoes(best), true);
@@ -263,13 +263,12 @@ public class UnitSeekAndDestroyMission extends Mission {
     public static PathNode findTargetPath(AIUnit aiUnit, int range,
                                           boolean deferOK) {
         if (invalidAIUnitReason(aiUnit) != null) return null;
-        final Unit unit = aiUnit.getUnit();
-        final Location start = unit.getPathStartLocation();
 
         // Can the unit legally reach a valid target from where it
         // currently is?
-        return unit.search(start, getGoalDecider(aiUnit, false),
-            CostDeciders.avoidIllegal(), range, unit.getCarrier());
+        return searchCached(getXMLElementTagName(), aiUnit,
+            getGoalDecider(aiUnit, false),
+            CostDeciders.avoidIllegal(), range, false, true);
     }
 
     /**
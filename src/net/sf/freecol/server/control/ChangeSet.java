@@ -19,12 +19,21 @@
 
 package net.sf.freecol.server.control;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import net.sf.freecol.common.model.Ability;
 import net.sf.freecol.common.model.Feature;
@@ -48,6 +57,7 @@ import net.sf.freecol.common.model.TradeRoute;
 import net.sf.freecol.common.model.Unit;
 import net.sf.freecol.common.model.WorkLocation;
 import net.sf.freecol.common.networking.DOMMessage;
+import net.sf.freecol.server.model.ServerGame;
 import net.sf.freecol.server.model.ServerPlayer;
 
 import org.w3c.dom.Document;
@@ -307,6 +317,27 @@ public class ChangeSet {
         public abstract Element toElement(ServerPlayer serverPlayer,
                                           Document doc);
 
+        /**
+         * Is the element for this Change the same for all players?
+         * Such elements are built once when a change set is sent to
+         * several players, and copied into each player's update.
+         *
+         * @return False by default.
+         */
+        public boolean isPlayerIndependent() {
+            return false;
+        }
+
+        /**
+         * Does this Change alter the map, that is the tiles, units,
+         * settlements or the stances that govern moves between them?
+         *
+         * @return False by default.
+         */
+        public boolean changesMap() {
+            return false;
+        }
+
         /**
          * Some changes can not be directly specialized, but need to be
          * directly attached to an element.
@@ -334,7 +365,9 @@ public class ChangeSet {
          * captured.  Furthermore for defenders, insufficient
          * information is serialized when a unit is inside a
          * settlement, but if unscoped too much is disclosed.  So we
-         * make a copy and neuter it.
+         * make a copy and neuter it.  This is done here rather than
+         * when the element is built, as the elements for several
+         * players may be built at once.
          *
          * We just have to accept that combat animation is an
          * exception to the normal visibility rules.
@@ -352,9 +385,18 @@ public class ChangeSet {
             this.attacker.setLocationNoUpdate(this.attacker.getTile());
             this.defender = defender.copy(game, Unit.class);
             this.defender.setLocationNoUpdate(this.defender.getTile());
+            this.defender.setWorkType(null);
             this.success = success;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean changesMap() {
+            return true;
+        }
+
         /**
          * Gets the sort priority.
          *
@@ -406,7 +448,6 @@ public class ChangeSet {
                 }
             }
             if (!canSeeUnit(serverPlayer, defender)) {
-                defender.setWorkType(null);
                 element.appendChild(defender.toXMLElement(doc));
             }
             return element;
@@ -547,6 +588,14 @@ public class ChangeSet {
             return priority.getPriority();
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isPlayerIndependent() {
+            return true;
+        }
+
         /**
          * Specialize a MessageChange to a particular player.
          *
@@ -619,6 +668,14 @@ public class ChangeSet {
             this.newTile = newTile;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean changesMap() {
+            return true;
+        }
+
         /**
          * Gets the sort priority.
          *
@@ -735,6 +792,14 @@ public class ChangeSet {
             return this.fcgo == fcgo;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean changesMap() {
+            return fcgo instanceof Location;
+        }
+
         /**
          * Gets the sort priority.
          *
@@ -845,6 +910,14 @@ public class ChangeSet {
             return false;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isPlayerIndependent() {
+            return true;
+        }
+
         /**
          * Specialize a PartialObjectChange to a particular player.
          *
@@ -967,6 +1040,14 @@ public class ChangeSet {
             this.contents = objects;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean changesMap() {
+            return true;
+        }
+
         /**
          * Gets the sort priority.
          *
@@ -1141,6 +1222,14 @@ public class ChangeSet {
             return ChangePriority.CHANGE_OWNED.getPriority();
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isPlayerIndependent() {
+            return true;
+        }
+
         /**
          * Specialize a feature change into an element for a
          * particular player.
@@ -1274,6 +1363,14 @@ public class ChangeSet {
             this.second = second;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean changesMap() {
+            return true;
+        }
+
         /**
          * Gets the sort priority.
          *
@@ -1284,6 +1381,14 @@ public class ChangeSet {
             return ChangePriority.CHANGE_STANCE.getPriority();
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isPlayerIndependent() {
+            return true;
+        }
+
         /**
          * Specialize a StanceChange to a particular player.
          *
@@ -1360,6 +1465,14 @@ public class ChangeSet {
             return priority;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isPlayerIndependent() {
+            return true;
+        }
+
         /**
          * Specialize a TrivialChange into an element with the supplied name.
          *
@@ -1395,6 +1508,42 @@ public class ChangeSet {
         }
     }
 
+    /**
+     * The elements of the player independent changes in a change set
+     * being sent to several players.  Each is built on first use, and
+     * then copied into the update of each player.
+     */
+    private static final class SharedElements {
+
+        /** The document the shared elements are built in. */
+        private final Document doc = DOMMessage.createNewDocument();
+
+        /** The elements built so far. */
+        private final Map<Change, Element> elements = new IdentityHashMap<>();
+
+
+        /**
+         * Gets a copy of the element for a change.
+         *
+         * @param change The player independent <code>Change</code>.
+         * @param serverPlayer The <code>ServerPlayer</code> to build for
+         *     if the element has not been built yet.
+         * @param target The <code>Document</code> to copy into.
+         * @return A copy of the element owned by the target document.
+         */
+        public synchronized Element get(Change change,
+                                        ServerPlayer serverPlayer,
+                                        Document target) {
+            Element element = elements.get(change);
+            if (element == null) {
+                element = change.toElement(serverPlayer, doc);
+                elements.put(change, element);
+            }
+            return (Element)target.importNode(element, true);
+        }
+    }
+
+
     /**
      * Simple constructor.
      */
@@ -1839,22 +1988,45 @@ public class ChangeSet {
      */
     private static List<Element> collapseElementList(List<Element> elements) {
         List<Element> results = new ArrayList<>();
-        if (!elements.isEmpty()) {
-            Element head = elements.remove(0);
-            while (!elements.isEmpty()) {
-                Element e = elements.remove(0);
-                if (collapseOK(head, e)) {
-                    collapseElements(head, e);
-                } else {
-                    results.add(head);
-                    head = e;
-                }
+        Element head = null;
+        for (Element e : elements) {
+            if (head != null && collapseOK(head, e)) {
+                collapseElements(head, e);
+            } else {
+                if (head != null) results.add(head);
+                head = e;
             }
-            results.add(head);
         }
+        if (head != null) results.add(head);
         return results;
     }
 
+    /**
+     * Does this change set alter the map?
+     *
+     * @return True if any change alters tiles, units, settlements
+     *     or stances.
+     */
+    public boolean changesMap() {
+        for (Change c : changes) {
+            if (c.changesMap()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Bump the map version of the game if this change set alters
+     * the map, so that cached map queries are discarded before
+     * the players see the update.
+     *
+     * @param game The <code>Game</code> being changed.
+     */
+    private void noteMapChanges(Game game) {
+        if (game instanceof ServerGame && changesMap()) {
+            ((ServerGame)game).changeMapVersion();
+        }
+    }
+
     /**
      * Build a generalized update.
      * Beware that removing an object does not necessarily update
@@ -1867,22 +2039,97 @@ public class ChangeSet {
      *         consider, or null if there is nothing to report.
      */
     public Element build(ServerPlayer serverPlayer) {
-        List<Change> c = new ArrayList<>(changes);
+        noteMapChanges(serverPlayer.getGame());
+        List<Change> sorted = new ArrayList<>(changes);
+        Collections.sort(sorted, changeComparator);
+        return build(serverPlayer, sorted, null);
+    }
+
+    /**
+     * Build the updates for several players at once, in parallel.
+     *
+     * The elements of player independent changes are built only
+     * once and shared between the updates.
+     *
+     * The model is serialized for several players at once, so nothing
+     * reached from a client scope <code>toXML</code>, or from the
+     * visibility checks of the changes, may modify it.  Lazily filled
+     * caches must be safe for concurrent use, as are
+     * <code>Player.tension</code>, the <code>Player.canSee</code> tiles
+     * and the <code>FeatureContainer</code> caches, and repairs of bad
+     * state are left to server and save writes.
+     *
+     * @param serverPlayers The <code>ServerPlayer</code>s to build for.
+     * @param executor An <code>ExecutorService</code> to build with.
+     * @return A map of player to the corresponding update element,
+     *     which is null if there is nothing to report to that player.
+     */
+    public Map<ServerPlayer, Element> build(List<ServerPlayer> serverPlayers,
+                                            ExecutorService executor) {
+        if (!serverPlayers.isEmpty()) {
+            noteMapChanges(serverPlayers.get(0).getGame());
+        }
+        final List<Change> sorted = new ArrayList<>(changes);
+        Collections.sort(sorted, changeComparator);
+        final SharedElements shared = new SharedElements();
+        Map<ServerPlayer, Future<Element>> futures = new LinkedHashMap<>();
+        for (final ServerPlayer sp : serverPlayers) {
+            if (futures.containsKey(sp)) continue;
+            futures.put(sp, executor.submit(new Callable<Element>() {
+                    @Override
+                    public Element call() {
+                        return build(sp, sorted, shared);
+                    }
+                }));
+        }
+        Map<ServerPlayer, Element> result = new LinkedHashMap<>();
+        for (Map.Entry<ServerPlayer, Future<Element>> e : futures.entrySet()) {
+            Element element;
+            try {
+                element = e.getValue().get();
+            } catch (ExecutionException ee) {
+                throw new RuntimeException("Update build failed for "
+                    + e.getKey().getName(), ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Update build interrupted", ie);
+            }
+            result.put(e.getKey(), element);
+        }
+        return result;
+    }
+
+    /**
+     * Build an update for a player from a sorted list of changes.
+     *
+     * @param serverPlayer The <code>ServerPlayer</code> to send the
+     *     update to.
+     * @param sorted The changes, sorted by priority, which is not
+     *     modified.
+     * @param shared Optional <code>SharedElements</code> to take the
+     *     player independent elements from.
+     * @return An element encapsulating an update of the objects to
+     *     consider, or null if there is nothing to report.
+     */
+    private static Element build(ServerPlayer serverPlayer,
+                                 List<Change> sorted, SharedElements shared) {
+        Deque<Change> c = new ArrayDeque<>(sorted);
         List<Element> elements = new ArrayList<>();
         List<Change> diverted = new ArrayList<>();
         Document doc = DOMMessage.createNewDocument();
 
         // For all sorted changes, if it is notifiable to the target
         // player then convert it to an Element, or divert for later
-        // attachment.  Then add all consequence changes to the list.
-        Collections.sort(c, changeComparator);
+        // attachment.  Then add all consequence changes to the queue.
         while (!c.isEmpty()) {
-            Change change = c.remove(0);
+            Change change = c.removeFirst();
             if (change.isNotifiable(serverPlayer)) {
-                if (change.convertsToElement()) {
-                    elements.add(change.toElement(serverPlayer, doc));
-                } else {
+                if (!change.convertsToElement()) {
                     diverted.add(change);
+                } else if (shared != null && change.isPlayerIndependent()) {
+                    elements.add(shared.get(change, serverPlayer, doc));
+                } else {
+                    elements.add(change.toElement(serverPlayer, doc));
                 }
                 c.addAll(change.consequences(serverPlayer));
             }
@@ -121,6 +121,7 @@ import net.sf.freecol.common.util.Utils;
 import static net.sf.freecol.common.util.CollectionUtils.*;
 import static net.sf.freecol.common.util.RandomUtils.*;
 import net.sf.freecol.server.FreeColServer;
+import net.sf.freecol.server.TurnProfiler;
 import net.sf.freecol.server.ai.AIPlayer;
 import net.sf.freecol.server.ai.REFAIPlayer;
 import net.sf.freecol.server.control.ChangeSet.ChangePriority;
@@ -137,6 +138,7 @@ import net.sf.freecol.server.model.ServerRegion;
 import net.sf.freecol.server.model.ServerUnit;
 import net.sf.freecol.server.model.TradeSession;
 import net.sf.freecol.server.model.TransactionSession;
+import net.sf.freecol.server.networking.Server;
 
 import org.w3c.dom.Element;
 
@@ -156,6 +158,9 @@ public final class InGameController extends Controller {
     private MonarchAction debugMonarchAction = null;
     private ServerPlayer debugMonarchPlayer = null;
 
+    /** Is an AI-only simulation running? */
+    private volatile boolean simulation = false;
+
 
     /**
      * The constructor to use.
@@ -190,6 +195,27 @@ public final class InGameController extends Controller {
         }
     }
 
+    /**
+     * Is an AI-only simulation running?
+     *
+     * @return True if a simulation is running.
+     */
+    public boolean isSimulation() {
+        return simulation;
+    }
+
+    /**
+     * Set whether an AI-only simulation is running.  While it is,
+     * the game does not end when there are no human players, and the
+     * simulation rather than the AI starts each player's turn.
+     *
+     * @param simulation The new simulation state.
+     * @see net.sf.freecol.server.Simulation
+     */
+    public void setSimulation(boolean simulation) {
+        this.simulation = simulation;
+    }
+
     /**
      * Sets a monarch action to debug/test.
      *
@@ -562,13 +588,16 @@ public final class InGameController extends Controller {
             // Check for new turn
             ChangeSet cs = new ChangeSet();
             if (game.isNextPlayerInNewTurn()) {
+                TurnProfiler.endTurn();
                 ChangeSet next = new ChangeSet();
                 game.csNextTurn(next);
                 game.sendToAll(next);
 
                 LogBuilder lb = new LogBuilder(512);
                 lb.add("New turn ", game.getTurn(), " for ");
+                final long start = TurnProfiler.start();
                 game.csNewTurn(random, lb, cs);
+                TurnProfiler.stop("server.csNewTurn", start);
                 lb.shrink(", ");
                 lb.log(logger, Level.FINEST);
                 if (debugOnlyAITurns > 0) {
@@ -609,10 +638,8 @@ public final class InGameController extends Controller {
                 player.csEmigrate(0, MigrationType.SURVIVAL, random, cs);
                 break;
             }
-            // Are there humans left?
-            // FIXME: see if this can be relaxed so we can run large
-            // AI-only simulations.
-            boolean human = false;
+            // Are there humans left?  Simulations run without any.
+            boolean human = simulation;
             for (ServerPlayer sp : game.getConnectedPlayers()) {
                 if (!sp.isAI()) {
                     human = true;
@@ -1908,15 +1935,12 @@ public final class InGameController extends Controller {
         ChangeSet cs = new ChangeSet();
 
         Location newLocation = carrier.getLocation();
-        List<Tile> newTiles = (newLocation.getTile() == null) ? null
-            : serverUnit.collectNewTiles(newLocation.getTile());
         serverUnit.setLocation(newLocation);//-vis(serverPlayer)
         serverPlayer.invalidateCanSeeTiles();//+vis(serverPlayer)
         serverUnit.setMovesLeft(0); // In Col1 disembark consumes whole move.
         cs.add(See.perhaps(), (FreeColGameObject)newLocation);
-        if (newTiles != null) {
-            serverPlayer.csSeeNewTiles(newTiles, cs);
-        }
+        serverPlayer.exploreForUnit(serverUnit);
+        serverPlayer.csSeeNewTiles(cs);
 
         // Others can (potentially) see the location.
         getGame().sendToOthers(serverPlayer, cs);
@@ -4168,6 +4192,10 @@ public final class InGameController extends Controller {
             .getStatistics();
 
         stats.putAll(getFreeColServer().getAIMain().getAIStatistics());
+        Server server = getFreeColServer().getServer();
+        if (server != null && server.getDispatcher() != null) {
+            stats.putAll(server.getDispatcher().getStatistics());
+        }
 
         List<String> all = new ArrayList<>();
         for (Entry<String, String> e : mapEntriesByKey(stats)) {
@@ -32,6 +32,7 @@ import net.sf.freecol.common.networking.ChatMessage;
 import net.sf.freecol.common.networking.MessageHandler;
 import net.sf.freecol.common.networking.NetworkRequestHandler;
 import net.sf.freecol.server.FreeColServer;
+import net.sf.freecol.server.TurnProfiler;
 import net.sf.freecol.server.model.ServerPlayer;
 import net.sf.freecol.server.networking.Server;
 
@@ -115,6 +116,7 @@ public abstract class InputHandler extends FreeColServerHolder implements Messag
         String tagName = element.getTagName();
         NetworkRequestHandler handler = _handlerMap.get(tagName);
         if (handler != null) {
+            final long start = TurnProfiler.start();
             try {
                 logger.log(Level.FINEST, "Handling " + tagName);
                 return handler.handle(connection, element);
@@ -122,6 +124,11 @@ public abstract class InputHandler extends FreeColServerHolder implements Messag
                 // FIXME: should we really catch Exception? The old code did.
                 logger.log(Level.WARNING, "Handler failed", e);
                 sendReconnectSafely(connection);
+            } finally {
+                // Only build the timer name when profiling
+                if (start != 0L) {
+                    TurnProfiler.stop("message." + tagName, start);
+                }
             }
         } else {
             // Should we return an error here? The old handler returned null.
@@ -264,10 +264,16 @@ public final class UserConnectionHandler extends FreeColServerHolder
         } catch (NoRouteToServerException e) {
             logger.log(Level.WARNING, "Unable to update meta-server.", e);
         }
+        // Switch to the binary format if the client asked for it.
+        // The reply is the first message sent that way, which is
+        // fine as the client detects the format of each message.
+        boolean binary = FreeCol.getBinaryProtocol()
+            && Boolean.parseBoolean(element.getAttribute("binary"));
+        if (binary) connection.setBinary(true);
         return new LoginMessage(player, userName, version, !starting,
                                 freeColServer.isSinglePlayer(),
                                 isCurrentPlayer, active,
-                                game).toXMLElement();
+                                game, binary).toXMLElement();
     }
 
     /**
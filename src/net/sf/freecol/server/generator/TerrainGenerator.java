@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Random;
 import java.util.logging.Logger;
 
+import net.sf.freecol.common.model.ComponentLabeller;
 import net.sf.freecol.common.model.Game;
 import net.sf.freecol.common.model.LandMap;
 import net.sf.freecol.common.model.Map;
@@ -382,33 +383,21 @@ public class TerrainGenerator {
             }
         }
 
-        // Flood fill, so that we end up with individual landmasses
-        // numbered in continentmap[][]
+        // Label the individual landmasses, numbering them from one
+        // in continentmap[][]
+        ComponentLabeller labeller = new ComponentLabeller(landmap);
+        continents = labeller.getCount();
         for (int y = 0; y < map.getHeight(); y++) {
             for (int x = 0; x < map.getWidth(); x++) {
-                if (landmap[x][y]) { // Found a new region.
-                    continents++;
-                    boolean[][] continent = Map.floodFill(landmap, x, y);
-
-                    for (int yy = 0; yy < map.getHeight(); yy++) {
-                        for (int xx = 0; xx < map.getWidth(); xx++) {
-                            if (continent[xx][yy]) {
-                                continentmap[xx][yy] = continents;
-                                landmap[xx][yy] = false;
-                            }
-                        }
-                    }
-                }
+                continentmap[x][y] = labeller.getLabel(x, y) + 1;
             }
         }
         lb.add("Number of individual landmasses is ", continents, "\n");
 
         // Get landmass sizes
         int[] continentsize = new int[continents+1];
-        for (int y = 0; y < map.getHeight(); y++) {
-            for (int x = 0; x < map.getWidth(); x++) {
-                continentsize[continentmap[x][y]]++;
-            }
+        for (int c = 1; c <= continents; c++) {
+            continentsize[c] = labeller.getSize(c-1);
         }
 
         // Go through landmasses, split up those too big
@@ -416,12 +405,17 @@ public class TerrainGenerator {
         for (int c = 1; c <= oldcontinents; c++) {
             // c starting at 1, c=0 is all excluded tiles
             if (continentsize[c] > LAND_REGION_MAX_SIZE) {
+                // Only the bounding box of the landmass need be scanned.
+                final int minX = labeller.getMinX(c-1),
+                    maxX = labeller.getMaxX(c-1),
+                    minY = labeller.getMinY(c-1),
+                    maxY = labeller.getMaxY(c-1);
                 boolean[][] splitcontinent
                     = new boolean[map.getWidth()][map.getHeight()];
                 int splitX = 0, splitY = 0;
 
-                for (int x = 0; x < map.getWidth(); x++) {
-                    for (int y = 0; y < map.getHeight(); y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    for (int y = minY; y <= maxY; y++) {
                         if (continentmap[x][y] == c) {
                             splitcontinent[x][y] = true;
                             splitX = x; splitY = y;
@@ -439,8 +433,8 @@ public class TerrainGenerator {
                     continents++; //index of the new region in continentmap[][]
                     boolean[][] newregion = Map.floodFill(splitcontinent,
                         splitX, splitY, targetsize);
-                    for (int x = 0; x < map.getWidth(); x++) {
-                        for (int y = 0; y < map.getHeight(); y++) {
+                    for (int x = minX; x <= maxX; x++) {
+                        for (int y = minY; y <= maxY; y++) {
                             if (newregion[x][y]) {
                                 continentmap[x][y] = continents;
                                 splitcontinent[x][y] = false;
@@ -123,6 +123,15 @@ public class ServerColony extends Colony implements ServerModelObject {
         }
     }
 
+    /**
+     * Bring the production of this colony up to date ahead of
+     * {@link #csNewTurn}.  This only reads the game, so colonies may
+     * be prepared in parallel.
+     */
+    public void prepareNewTurn() {
+        getProductionMap();
+    }
+
     /**
      * New turn for this colony.
      * Try to find out if the colony is going to survive (last colonist does
@@ -27,6 +27,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.xml.stream.XMLStreamException;
@@ -47,6 +58,7 @@ import net.sf.freecol.common.model.Limit;
 import net.sf.freecol.common.model.ModelMessage;
 import net.sf.freecol.common.model.Ownable;
 import net.sf.freecol.common.model.Player;
+import net.sf.freecol.common.model.Settlement;
 import net.sf.freecol.common.model.SimpleCombatModel;
 import net.sf.freecol.common.model.Specification;
 import net.sf.freecol.common.model.StringTemplate;
@@ -55,10 +67,13 @@ import net.sf.freecol.common.model.Unit;
 import net.sf.freecol.common.model.UnitTypeChange.ChangeType;
 import net.sf.freecol.common.util.LogBuilder;
 import static net.sf.freecol.common.util.RandomUtils.*;
+import net.sf.freecol.server.TurnProfiler;
 import net.sf.freecol.server.control.ChangeSet;
 import net.sf.freecol.server.control.ChangeSet.ChangePriority;
 import net.sf.freecol.server.control.ChangeSet.See;
 
+import org.w3c.dom.Element;
+
 
 /**
  * The server representation of the game.
@@ -67,9 +82,24 @@ public class ServerGame extends Game implements ServerModelObject {
 
     private static final Logger logger = Logger.getLogger(ServerGame.class.getName());
 
+    /** Threads to build and send change sets to several players. */
+    private static ExecutorService fanOutExecutor = null;
+
+    /** Threads to prepare the colonies for a new turn. */
+    private static ForkJoinPool newTurnPool = null;
+
+    /** The most colonies a new turn preparation task handles directly. */
+    private static final int NEW_TURN_BATCH = 4;
+
     /** Timestamp of last move, if any.  Do not serialize. */
     private long lastTime = -1L;
 
+    /**
+     * The number of change sets built that changed the map, used to
+     * invalidate caches of map queries.  Do not serialize.
+     */
+    private final AtomicInteger mapVersion = new AtomicInteger(0);
+
 
     /**
      * Creates a new game model.
@@ -83,6 +113,7 @@ public class ServerGame extends Game implements ServerModelObject {
 
         this.combatModel = new SimpleCombatModel();
         currentPlayer = null;
+        freeColGameObjects.addIndex(ServerModelObject.class);
     }
 
     /**
@@ -155,10 +186,95 @@ public class ServerGame extends Game implements ServerModelObject {
     /**
      * Send a change set to a list of players.
      *
+     * With several players the updates are built in parallel, then
+     * sent to the connected human players in parallel, as each send
+     * waits for the client to reply.  AI players are still sent to
+     * in this thread, in order, as their replies are handled
+     * directly by the AI.  Returns when all players have replied.
+     *
      * @param serverPlayers The list of <code>ServerPlayer</code>s to send to.
+     * @param cs The <code>ChangeSet</code> encapsulating the update.
      */
     public void sendToList(List<ServerPlayer> serverPlayers, ChangeSet cs) {
-        for (ServerPlayer s : serverPlayers) s.send(cs);
+        if (serverPlayers.size() <= 1) {
+            for (ServerPlayer s : serverPlayers) s.send(cs);
+            return;
+        }
+
+        final ExecutorService executor = getFanOutExecutor();
+        List<Future<?>> sends = new ArrayList<>();
+        List<Entry<ServerPlayer, Element>> local = new ArrayList<>();
+        long start = TurnProfiler.start();
+        Map<ServerPlayer, Element> updates = cs.build(serverPlayers, executor);
+        TurnProfiler.stop("server.changeSet.build", start);
+        start = TurnProfiler.start();
+        for (Entry<ServerPlayer, Element> e : updates.entrySet()) {
+            final ServerPlayer sp = e.getKey();
+            final Element update = e.getValue();
+            if (update == null) continue;
+            if (sp.isAI()) {
+                local.add(e);
+                continue;
+            }
+            sends.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        sp.askElement(update);
+                    }
+                }));
+        }
+        for (Entry<ServerPlayer, Element> e : local) {
+            e.getKey().askElement(e.getValue());
+        }
+        for (Future<?> f : sends) {
+            try {
+                f.get();
+            } catch (ExecutionException ee) {
+                logger.log(Level.WARNING, "Send failed", ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        TurnProfiler.stop("server.send", start);
+    }
+
+    /**
+     * Gets the map version, which changes whenever a change set that
+     * changes tiles, units, settlements or stances is built.
+     *
+     * @return The current map version.
+     */
+    public int getMapVersion() {
+        return mapVersion.get();
+    }
+
+    /**
+     * Note that the map has changed.
+     */
+    public void changeMapVersion() {
+        mapVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets the shared executor used to fan out change sets.
+     *
+     * @return The fan out <code>ExecutorService</code>.
+     */
+    private static synchronized ExecutorService getFanOutExecutor() {
+        if (fanOutExecutor == null) {
+            fanOutExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                    private int count = 0;
+
+                    @Override
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "ChangeSetFanOut-" + count++);
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        }
+        return fanOutExecutor;
     }
     
 
@@ -187,13 +303,7 @@ public class ServerGame extends Game implements ServerModelObject {
      * @return A list of all the ServerModelObjects in this game.
      */
     public List<ServerModelObject> getServerModelObjects() {
-        List<ServerModelObject> objs = new ArrayList<>();
-        for (FreeColGameObject fcgo : getFreeColGameObjects()) {
-            if (fcgo instanceof ServerModelObject) {
-                objs.add((ServerModelObject)fcgo);
-            }
-        }
-        return objs;
+        return getFreeColGameObjects(ServerModelObject.class);
     }
 
     /**
@@ -225,7 +335,13 @@ public class ServerGame extends Game implements ServerModelObject {
      * @param random A pseudo-random number source.
      */
     public void randomize(Random random) {
-        if (random != null) NameCache.requireCitiesOfCibola(random);
+        if (random != null) {
+            // Draw the UUID from the game random so that a seeded
+            // new game is reproducible.
+            setUUID(new UUID(random.nextLong(), random.nextLong()));
+            NameCache.requireCitiesOfCibola(random);
+            NameCache.clearRegionNames();
+        }
     }
 
     /**
@@ -312,6 +428,7 @@ public class ServerGame extends Game implements ServerModelObject {
     @Override
     public void csNewTurn(Random random, LogBuilder lb, ChangeSet cs) {
         lb.add("GAME ", getId(), ", ");
+        prepareNewTurn();
         for (Player player : getLivePlayers(null)) {
             ((ServerPlayer)player).csNewTurn(random, lb, cs);
         }
@@ -326,6 +443,76 @@ public class ServerGame extends Game implements ServerModelObject {
         }
     }
 
+    /**
+     * Prepare the colonies of all the live players for a new turn.
+     *
+     * Working out the production of each colony is the most expensive
+     * part of the colony new turn, and only depends on the colony
+     * itself, so the production of all colonies is brought up to date
+     * in parallel before the players are processed in order.  The
+     * changes are then made serially, in the same order and with the
+     * same random numbers as before, so the new turn is unchanged.
+     */
+    private void prepareNewTurn() {
+        final List<ServerColony> colonies = new ArrayList<>();
+        for (Player player : getLivePlayers(null)) {
+            for (Settlement s : player.getSettlements()) {
+                if (s instanceof ServerColony) colonies.add((ServerColony)s);
+            }
+        }
+        if (colonies.size() <= NEW_TURN_BATCH) return;
+
+        try {
+            getNewTurnPool().invoke(new PrepareTask(colonies, 0,
+                                                    colonies.size()));
+        } catch (RuntimeException re) {
+            // Not fatal, csNewTurn will work out the production anyway.
+            logger.log(Level.WARNING, "New turn preparation failed", re);
+        }
+    }
+
+    /**
+     * Prepares a range of colonies for a new turn, splitting large
+     * ranges into parallel subtasks.
+     */
+    private static final class PrepareTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ServerColony> colonies;
+        private final int start, end;
+
+
+        PrepareTask(List<ServerColony> colonies, int start, int end) {
+            this.colonies = colonies;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= NEW_TURN_BATCH) {
+                for (int i = start; i < end; i++) {
+                    colonies.get(i).prepareNewTurn();
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new PrepareTask(colonies, start, middle),
+                          new PrepareTask(colonies, middle, end));
+            }
+        }
+    }
+
+    /**
+     * Gets the shared pool used to prepare colonies for a new turn.
+     *
+     * @return The new turn <code>ForkJoinPool</code>.
+     */
+    private static synchronized ForkJoinPool getNewTurnPool() {
+        if (newTurnPool == null) newTurnPool = new ForkJoinPool();
+        return newTurnPool;
+    }
+
     /**
      * Checks for and if necessary performs the War of Spanish
      * Succession changes.
@@ -469,6 +656,73 @@ public class ServerGame extends Game implements ServerModelObject {
     }
 
 
+    // Override FreeColGameObject
+
+    /**
+     * {@inheritDoc}
+     *
+     * The map and the players are validated in parallel, without
+     * fixing anything, as they share colonies and units.  Then any
+     * part with a problem is checked again in this thread to fix it,
+     * in the usual order.
+     */
+    @Override
+    public int checkIntegrity(boolean fix) {
+        int result = checkObjectIntegrity(fix);
+        final List<FreeColGameObject> parts = getIntegrityParts();
+        if (parts.size() <= 1) {
+            for (FreeColGameObject part : parts) {
+                result = Math.min(result, part.checkIntegrity(fix));
+            }
+            return result;
+        }
+
+        final ExecutorService executor = getFanOutExecutor();
+        List<Future<Integer>> checks = new ArrayList<>();
+        for (final FreeColGameObject part : parts) {
+            checks.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return part.checkIntegrity(false);
+                    }
+                }));
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            final FreeColGameObject part = parts.get(i);
+            int integ;
+            try {
+                integ = checks.get(i).get();
+                if (integ < 0 && fix) integ = part.checkIntegrity(true);
+            } catch (ExecutionException ee) {
+                logger.log(Level.WARNING, "Parallel integrity check failed",
+                           ee.getCause());
+                integ = part.checkIntegrity(fix);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                integ = part.checkIntegrity(fix);
+            }
+            result = Math.min(result, integ);
+        }
+        return result;
+    }
+
+
+    // Override Game
+
+    /**
+     * {@inheritDoc}
+     *
+     * Adds the server timers of the turn profiler.
+     */
+    @Override
+    public Map<String, String> getStatistics() {
+        Map<String, String> stats = super.getStatistics();
+        stats.putAll(TurnProfiler.getStatistics("server."));
+        stats.putAll(TurnProfiler.getStatistics("message."));
+        return stats;
+    }
+
+
     // Interface Object
 
     /**
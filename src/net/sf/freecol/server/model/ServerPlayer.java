@@ -96,6 +96,7 @@ import net.sf.freecol.common.networking.MonarchActionMessage;
 import net.sf.freecol.common.util.LogBuilder;
 import net.sf.freecol.common.util.RandomChoice;
 import static net.sf.freecol.common.util.RandomUtils.*;
+import net.sf.freecol.server.TurnProfiler;
 import net.sf.freecol.server.control.ChangeSet;
 import net.sf.freecol.server.control.ChangeSet.ChangePriority;
 import net.sf.freecol.server.control.ChangeSet.See;
@@ -291,16 +292,22 @@ public class ServerPlayer extends Player implements ServerModelObject {
      * @param cs The <code>ChangeSet</code> to send.
      */
     public void send(ChangeSet cs) {
-        askElement(cs.build(this));
+        long start = TurnProfiler.start();
+        Element update = cs.build(this);
+        TurnProfiler.stop("server.changeSet.build", start);
+        start = TurnProfiler.start();
+        askElement(update);
+        TurnProfiler.stop("server.send", start);
     }
     
     /**
      * Send an element to this player.
-     * Do not use (sole use in send() above). This will go away.
+     * Do not use (only for send() above and the change set fan-out in
+     * ServerGame). This will go away.
      *
      * @param request An <code>Element</code> containing the update.
      */
-    private void askElement(Element request) {
+    void askElement(Element request) {
         if (this.connection == null) return;
 
         while (request != null) {
@@ -634,9 +641,9 @@ public class ServerPlayer extends Player implements ServerModelObject {
         }
 
         // Remove settlements.  Update formerly owned tiles.
-        List<Settlement> settlements = getSettlements();
-        while (!settlements.isEmpty()) {
-            csDisposeSettlement(settlements.remove(0), cs);
+        for (Settlement s : new ArrayList<>(getSettlements())) {
+            removeSettlement(s);
+            csDisposeSettlement(s, cs);
         }
 
         // Clean up remaining tile ownerships
@@ -649,7 +656,7 @@ public class ServerPlayer extends Player implements ServerModelObject {
         }
 
         // Remove units
-        List<Unit> units = getUnits();
+        List<Unit> units = new ArrayList<>(getUnits());
         while (!units.isEmpty()) {
             Unit u = units.remove(0);
             if (u.hasTile()) cs.add(See.perhaps(), u.getTile());
@@ -4015,16 +4022,19 @@ public class ServerPlayer extends Player implements ServerModelObject {
     }
 
     /**
-     * Updates the player view for each new tile on a supplied list,
-     * and update a ChangeSet as well.
+     * Updates a ChangeSet with the tiles that this player has seen
+     * come into view or be fogged since the last such update.  Only
+     * those tiles are sent, as tracked by the vision counts, rather
+     * than every tile within sight of the units that moved.
+     *
+     * +vis: Brings the visibility up to date.
      *
-     * @param newTiles A list of <code>Tile</code>s to update.
      * @param cs A <code>ChangeSet</code> to update.
      */
-    public void csSeeNewTiles(Collection<? extends Tile> newTiles,
-                              ChangeSet cs) {
-        exploreTiles(newTiles);
-        cs.add(See.only(this), newTiles);
+    public void csSeeNewTiles(ChangeSet cs) {
+        List<Tile> tiles = new ArrayList<>();
+        takeVisibilityChanges(tiles, tiles);
+        if (!tiles.isEmpty()) cs.add(See.only(this), tiles);
     }
 
     /**
@@ -21,8 +21,6 @@
 package net.sf.freecol.server.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.logging.Logger;
@@ -851,22 +849,6 @@ public class ServerUnit extends Unit implements ServerModelObject {
         }
     }
 
-    /**
-     * Collects the tiles surrounding this unit that the player
-     * can not currently see, but now should as a result of a move.
-     *
-     * @param tile The center tile to look from.
-     * @return A list of new tiles to see.
-     */
-    public List<Tile> collectNewTiles(Tile tile) {
-        List<Tile> newTiles = new ArrayList<>();
-        int los = getLineOfSight();
-        for (Tile t : tile.getSurroundingTiles(0, los)) {
-            if (!getOwner().canSee(t)) newTiles.add(t);
-        }
-        return newTiles;
-    }
-
     /**
      * Move a unit.
      *
@@ -876,14 +858,7 @@ public class ServerUnit extends Unit implements ServerModelObject {
      */
     public void csMove(Tile newTile, Random random, ChangeSet cs) {
         final ServerPlayer serverPlayer = (ServerPlayer)getOwner();
-
-        // Plan to update tiles that could not be seen before but will
-        // now be within the line-of-sight.
         final Location oldLocation = getLocation();
-        List<Tile> oldTiles = (oldLocation.getTile() == null)
-            ? Collections.<Tile>emptyList()
-            : oldLocation.getTile().getSurroundingTiles(1, getLineOfSight());
-        List<Tile> newTiles = collectNewTiles(newTile);
 
         // Update unit state.
         setState(UnitState.ACTIVE);
@@ -917,12 +892,6 @@ public class ServerUnit extends Unit implements ServerModelObject {
         }
         serverPlayer.invalidateCanSeeTiles();//+vis(serverPlayer)
 
-        // Update tiles that are now invisible.
-        Iterator<Tile> it = oldTiles.iterator();
-        while (it.hasNext()) {
-            if (serverPlayer.canSee(it.next())) it.remove();
-        }
-        if (!oldTiles.isEmpty()) cs.add(See.only(serverPlayer), oldTiles);
         // Unless moving in from off-map, update the old location and
         // make sure the move is always visible even if the unit
         // dies (including the animation).  However, dead units
@@ -936,8 +905,11 @@ public class ServerUnit extends Unit implements ServerModelObject {
             cs.add(See.only(serverPlayer), (FreeColGameObject)oldLocation);
         }
         cs.add(See.perhaps().always(serverPlayer), newTile);
+        // Update the tiles that are now fogged, or newly in sight.
+        // Dead units make no discoveries, but their sight is lost.
+        serverPlayer.exploreForUnit(this);
+        serverPlayer.csSeeNewTiles(cs);
         if (isDisposed()) return;
-        serverPlayer.csSeeNewTiles(newTiles, cs);
 
         if (newTile.isLand()) {
             Settlement settlement;
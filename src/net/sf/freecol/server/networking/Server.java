@@ -21,15 +21,19 @@ package net.sf.freecol.server.networking;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.sf.freecol.FreeCol;
+import net.sf.freecol.common.networking.ChannelSelector;
 import net.sf.freecol.common.networking.Connection;
+import net.sf.freecol.common.networking.MessageDispatcher;
 import net.sf.freecol.common.networking.MessageHandler;
 import net.sf.freecol.server.FreeColServer;
 
@@ -55,7 +59,10 @@ public final class Server extends Thread {
     /** Backlog for socket. */
     private static final int BACKLOG_DEFAULT = 10;
 
-    /** The public "well-known" socket to which clients may connect. */
+    /**
+     * The public "well-known" socket to which clients may connect,
+     * or null if this server takes no connections.
+     */
     private final ServerSocket serverSocket;
 
     /** A hash of Connection objects, keyed by the Socket they relate to. */
@@ -79,6 +86,21 @@ public final class Server extends Thread {
     /** For information about this variable see the run method. */
     private final Object shutdownLock = new Object();
 
+    /**
+     * The dispatcher for incoming messages, or null if a new thread
+     * is started for each message.
+     */
+    private final MessageDispatcher dispatcher;
+
+    /**
+     * The selectors reading the client channels, or null if each
+     * connection has its own receiving thread.
+     */
+    private final ChannelSelector[] selectors;
+
+    /** The index of the selector for the next connection. */
+    private int nextSelector = 0;
+
 
     /**
      * Creates a new network server. Use {@link #run server.start()} to start
@@ -96,9 +118,47 @@ public final class Server extends Thread {
         this.freeColServer = freeColServer;
         this.host = host;
         this.port = port;
-        this.serverSocket = new ServerSocket(port, BACKLOG_DEFAULT,
-                                             InetAddress.getByName(host));
-        this.serverSocket.setReuseAddress(true);
+        int n = FreeCol.getServerSelectors();
+        if (n > 0) {
+            // A channel backed server socket accepts sockets with
+            // channels that the selectors can multiplex.
+            this.serverSocket = ServerSocketChannel.open().socket();
+            this.serverSocket.setReuseAddress(true);
+            this.serverSocket.bind(new InetSocketAddress(InetAddress
+                    .getByName(host), port), BACKLOG_DEFAULT);
+            this.selectors = new ChannelSelector[n];
+            for (int i = 0; i < n; i++) {
+                this.selectors[i] = new ChannelSelector(FreeCol.SERVER_THREAD
+                    + "Server-" + i);
+                this.selectors[i].start();
+            }
+        } else {
+            this.serverSocket = new ServerSocket(port, BACKLOG_DEFAULT,
+                                                 InetAddress.getByName(host));
+            this.serverSocket.setReuseAddress(true);
+            this.selectors = null;
+        }
+        int threads = FreeCol.getServerThreads();
+        this.dispatcher = (threads <= 0) ? null
+            : new MessageDispatcher(FreeCol.SERVER_THREAD, threads);
+    }
+
+    /**
+     * Creates a new network server that takes no connections, such
+     * as one running a simulation.  It has no public socket, so only
+     * dummy connections can be added, and it need not be started.
+     *
+     * @param freeColServer The owner of this <code>Server</code>.
+     */
+    public Server(FreeColServer freeColServer) {
+        super(FreeCol.SERVER_THREAD + "Server");
+
+        this.freeColServer = freeColServer;
+        this.host = null;
+        this.port = -1;
+        this.serverSocket = null;
+        this.selectors = null;
+        this.dispatcher = null;
     }
 
 
@@ -120,6 +180,16 @@ public final class Server extends Thread {
         return this.port;
     }
 
+    /**
+     * Gets the message dispatcher.
+     *
+     * @return The <code>MessageDispatcher</code>, or null if none is
+     *     in use.
+     */
+    public MessageDispatcher getDispatcher() {
+        return this.dispatcher;
+    }
+
     /**
      * Gets a <code>Connection</code> identified by a <code>Socket</code>.
      *
@@ -203,6 +273,17 @@ public final class Server extends Thread {
         sendToAll(element, null);
     }
 
+    /**
+     * Choose the selector for a new connection, round robin.
+     *
+     * @return The <code>ChannelSelector</code> to use.
+     */
+    private ChannelSelector nextSelector() {
+        ChannelSelector cs = this.selectors[this.nextSelector];
+        this.nextSelector = (this.nextSelector + 1) % this.selectors.length;
+        return cs;
+    }
+
     /**
      * Start the thread processing.  Contains the loop that is waiting
      * for new connections to the public socket.  When a new client
@@ -226,7 +307,7 @@ public final class Server extends Thread {
         // server thread is finished you can be certain that the
         // ServerSocket is REALLY closed after execution of shutdown.
         synchronized (shutdownLock) {
-            while (running) {
+            while (running && serverSocket != null) {
                 Socket clientSocket = null;
                 try {
                     clientSocket = serverSocket.accept();
@@ -234,10 +315,14 @@ public final class Server extends Thread {
                     logger.info("Got client connection from "
                         + clientSocket.getInetAddress()
                         + ":" + clientSocket.getPort());
-                    Connection connection =
-                        new Connection(clientSocket,
+                    Connection connection = (this.selectors == null)
+                        ? new Connection(clientSocket,
+                            freeColServer.getUserConnectionHandler(),
+                            FreeCol.SERVER_THREAD, this.dispatcher)
+                        : new Connection(clientSocket.getChannel(),
                             freeColServer.getUserConnectionHandler(),
-                            FreeCol.SERVER_THREAD);
+                            FreeCol.SERVER_THREAD, this.dispatcher,
+                            nextSelector());
                     addConnection(connection);
                 } catch (IOException e) {
                     if (running) {
@@ -254,11 +339,14 @@ public final class Server extends Thread {
     public void shutdown() {
         this.running = false;
  
-        try {
-            serverSocket.close();
-            logger.fine("Closed server socket.");
-        } catch (IOException e) {
-            logger.log(Level.WARNING, "Could not close the server socket!", e);
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+                logger.fine("Closed server socket.");
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not close the server socket!",
+                           e);
+            }
         }
 
         synchronized (shutdownLock) {
@@ -270,6 +358,10 @@ public final class Server extends Thread {
             if (c.isAlive()) c.close();
         }
         connections.clear();
+        if (this.dispatcher != null) this.dispatcher.shutdown();
+        if (this.selectors != null) {
+            for (ChannelSelector cs : this.selectors) cs.shutdown();
+        }
 
         freeColServer.removeFromMetaServer();
         logger.fine("Server shutdown.");
@@ -0,0 +1,99 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+import net.sf.freecol.server.ServerTestHelper;
+import net.sf.freecol.server.ai.AIMain;
+import net.sf.freecol.server.ai.EuropeanAIPlayer;
+import net.sf.freecol.server.model.ServerGame;
+import net.sf.freecol.server.model.ServerPlayer;
+
+
+/**
+ * Benchmarks a whole turn of a European AI player, that is
+ * <code>EuropeanAIPlayer.startWorking</code>.  The turn changes the
+ * game, so the game is loaded again before each turn.
+ */
+public class AIBenchmark extends Benchmark {
+
+    /** The game to run on. */
+    private final Fixture fixture;
+
+    private AIMain aiMain;
+
+    /** The player to work. */
+    private EuropeanAIPlayer aiPlayer;
+
+
+    /**
+     * Create a new AI benchmark.
+     *
+     * @param fixture The <code>Fixture</code> to run on.
+     */
+    public AIBenchmark(Fixture fixture) {
+        super("ai.startWorking." + fixture.getName());
+        this.fixture = fixture;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSingleShot() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUpInvocation() throws Exception {
+        final ServerGame game = fixture.start();
+        final ServerPlayer player = Fixture.getEuropeanPlayer(game);
+        game.setCurrentPlayer(player);
+        aiMain = ServerTestHelper.getServer().getAIMain();
+        aiPlayer = (EuropeanAIPlayer)aiMain.getAIPlayer(player);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object run() {
+        aiMain.getPathCache().begin();
+        try {
+            aiPlayer.startWorking();
+        } finally {
+            aiMain.getPathCache().end();
+        }
+        return aiPlayer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tearDown() {
+        aiMain = null;
+        aiPlayer = null;
+        fixture.stop();
+    }
+}
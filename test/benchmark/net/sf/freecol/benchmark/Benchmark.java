@@ -0,0 +1,108 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+
+/**
+ * A benchmark, run by the {@link BenchmarkRunner}.
+ *
+ * Benchmarks follow the life cycle of a JMH benchmark: the trial is
+ * set up once, the operation is then run repeatedly in timed
+ * iterations, and finally the trial is torn down.  Operations that
+ * change the state they work on should be single shot, in which case
+ * the state is set up again, untimed, before each operation.
+ */
+public abstract class Benchmark {
+
+    /** Where results go, so the operations can not be optimized away. */
+    private static volatile Object sink = null;
+
+    /** The name of this benchmark. */
+    private final String name;
+
+
+    /**
+     * Create a new benchmark.
+     *
+     * @param name The name of the benchmark.
+     */
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+
+
+    /**
+     * Gets the name of this benchmark.
+     *
+     * @return The name.
+     */
+    public final String getName() {
+        return name;
+    }
+
+    /**
+     * Is each operation of this benchmark timed on its own, with the
+     * state set up again before it?
+     *
+     * @return True if this is a single shot benchmark.
+     */
+    public boolean isSingleShot() {
+        return false;
+    }
+
+    /**
+     * Set up the state for a trial of this benchmark.
+     *
+     * @exception Exception if the state can not be set up.
+     */
+    public void setUp() throws Exception {}
+
+    /**
+     * Set up the state for a single operation.  Only called for
+     * single shot benchmarks.
+     *
+     * @exception Exception if the state can not be set up.
+     */
+    public void setUpInvocation() throws Exception {}
+
+    /**
+     * Run one operation.
+     *
+     * @return The result of the operation, which is consumed.
+     * @exception Exception if the operation fails.
+     */
+    public abstract Object run() throws Exception;
+
+    /**
+     * Tear down the state of a trial of this benchmark.
+     *
+     * @exception Exception if the state can not be torn down.
+     */
+    public void tearDown() throws Exception {}
+
+    /**
+     * Consume a result.
+     *
+     * @param result The result to consume.
+     */
+    public static void consume(Object result) {
+        sink = result;
+    }
+}
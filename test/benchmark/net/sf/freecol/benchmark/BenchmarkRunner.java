@@ -0,0 +1,415 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import net.sf.freecol.common.i18n.Messages;
+
+
+/**
+ * Runs the benchmarks, in the manner of JMH.
+ *
+ * Each benchmark is set up, warmed up for a number of iterations,
+ * then measured for a number of iterations, and torn down.  An
+ * iteration runs the operation repeatedly for a fixed time and
+ * reports the average time per operation, except for single shot
+ * benchmarks whose iterations run the operation just once.
+ *
+ * As with JMH, each benchmark is run in virtual machines of its own,
+ * forked from this one, so that the code compiled and the garbage
+ * left by one benchmark do not skew the next.  The measured
+ * iterations of all the forks are reported together.
+ *
+ * The bytes allocated per operation by all the threads are also
+ * reported, where the virtual machine can tell, so that the work of
+ * the parallel benchmarks is counted too.  The allocations of a
+ * thread that ends during an iteration are lost though, in which
+ * case the figure is only a lower bound and is marked with a
+ * leading &gt;.
+ *
+ * Usage: BenchmarkRunner [-f forks] [-w warmups] [-i iterations]
+ * [-t millis] [regex], where the regular expression selects
+ * benchmarks by name.  With no forks, all the benchmarks run in
+ * this virtual machine, which is only good for debugging them.
+ */
+public class BenchmarkRunner {
+
+    /** The result of measuring a benchmark. */
+    private static class Result {
+
+        /** The time per operation of each iteration, in nanoseconds. */
+        public final double[] times;
+
+        /** The bytes allocated per operation, or negative if unknown. */
+        public double allocated = 0.0;
+
+        /** Were some allocations lost? */
+        public boolean partial = false;
+
+        public Result(int iterations) {
+            this.times = new double[iterations];
+        }
+
+        /**
+         * Gets the mean time per operation.
+         *
+         * @return The mean time in nanoseconds.
+         */
+        public double getMean() {
+            double sum = 0.0;
+            for (double t : times) sum += t;
+            return sum / times.length;
+        }
+
+        /**
+         * Gets the standard deviation of the time per operation.
+         *
+         * @return The standard deviation in nanoseconds.
+         */
+        public double getDeviation() {
+            if (times.length < 2) return 0.0;
+            final double mean = getMean();
+            double sum = 0.0;
+            for (double t : times) sum += (t - mean) * (t - mean);
+            return Math.sqrt(sum / (times.length - 1));
+        }
+    }
+
+    /** The thread bean, to measure allocation with. */
+    private static final ThreadMXBean threads
+        = ManagementFactory.getThreadMXBean();
+
+    /** The prefix of the line a fork reports its result on. */
+    private static final String RESULT_PREFIX = "result:";
+
+    /** The number of virtual machines to fork for each benchmark. */
+    private int forks = 1;
+
+    /** The number of warm up iterations. */
+    private int warmups = 3;
+
+    /** The number of measured iterations. */
+    private int iterations = 5;
+
+    /** The time to run each iteration for, in milliseconds. */
+    private long iterationTime = 1000;
+
+
+    /**
+     * Gets all the benchmarks.
+     *
+     * @return A list of all the <code>Benchmark</code>s.
+     */
+    public static List<Benchmark> getBenchmarks() {
+        List<Benchmark> result = new ArrayList<>();
+        for (Fixture f : new Fixture[] { Fixture.GENERATED, Fixture.SAVED }) {
+            result.add(new PathBenchmark(f, false));
+            result.add(new PathBenchmark(f, true));
+        }
+        result.add(new ChangeSetBenchmark(Fixture.GENERATED, false));
+        result.add(new ChangeSetBenchmark(Fixture.GENERATED, true));
+        for (Fixture f : new Fixture[] { Fixture.GENERATED, Fixture.SAVED }) {
+            result.add(new SerializationBenchmark(f, false));
+            result.add(new SerializationBenchmark(f, true));
+        }
+        result.add(new ProductionBenchmark(Fixture.TEST, false));
+        result.add(new ProductionBenchmark(Fixture.TEST, true));
+        result.add(new CombatBenchmark(Fixture.TEST));
+        result.add(new AIBenchmark(Fixture.SAVED));
+        return result;
+    }
+
+    /**
+     * Gets the bytes allocated so far by each live thread.
+     *
+     * @return A map of thread identifier to bytes allocated, or null
+     *     if unknown.
+     */
+    private static Map<Long, Long> getAllocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun
+                = (com.sun.management.ThreadMXBean)threads;
+            if (sun.isThreadAllocatedMemorySupported()
+                && sun.isThreadAllocatedMemoryEnabled()) {
+                final long[] ids = sun.getAllThreadIds();
+                final long[] bytes = sun.getThreadAllocatedBytes(ids);
+                Map<Long, Long> result = new HashMap<>();
+                for (int i = 0; i < ids.length; i++) {
+                    if (bytes[i] >= 0) result.put(ids[i], bytes[i]);
+                }
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run one iteration of a benchmark.
+     *
+     * @param benchmark The <code>Benchmark</code> to run.
+     * @param result An optional <code>Result</code> to add to.
+     * @param index The index of the iteration in the result.
+     * @exception Exception if the benchmark fails.
+     */
+    private void iterate(Benchmark benchmark, Result result, int index)
+        throws Exception {
+        if (benchmark.isSingleShot()) benchmark.setUpInvocation();
+        long ops = 0;
+        final long started = threads.getTotalStartedThreadCount();
+        final Map<Long, Long> alloc = getAllocatedBytes();
+        final long start = System.nanoTime();
+        long now;
+        if (benchmark.isSingleShot()) {
+            Benchmark.consume(benchmark.run());
+            ops++;
+            now = System.nanoTime();
+        } else {
+            final long end = start + iterationTime * 1000000L;
+            do {
+                Benchmark.consume(benchmark.run());
+                ops++;
+            } while ((now = System.nanoTime()) < end);
+        }
+        if (result == null) return;
+        result.times[index] = (double)(now - start) / ops;
+        final Map<Long, Long> allocated = getAllocatedBytes();
+        if (alloc == null || allocated == null || result.allocated < 0) {
+            result.allocated = -1.0;
+            return;
+        }
+        long bytes = 0;
+        int born = 0;
+        for (Map.Entry<Long, Long> e : allocated.entrySet()) {
+            Long before = alloc.get(e.getKey());
+            if (before == null) {
+                born++;
+                before = 0L;
+            }
+            bytes += e.getValue() - before;
+        }
+        // Threads that ended, or came and went, took their counts along
+        if (!allocated.keySet().containsAll(alloc.keySet())
+            || threads.getTotalStartedThreadCount() - started > born) {
+            result.partial = true;
+        }
+        result.allocated += (double)bytes / ops / result.times.length;
+    }
+
+    /**
+     * Measure a benchmark.
+     *
+     * @param benchmark The <code>Benchmark</code> to measure.
+     * @return The <code>Result</code> of the measurement.
+     * @exception Exception if the benchmark fails.
+     */
+    private Result measure(Benchmark benchmark) throws Exception {
+        Result result = new Result(iterations);
+        benchmark.setUp();
+        try {
+            for (int i = 0; i < warmups; i++) iterate(benchmark, null, i);
+            for (int i = 0; i < iterations; i++) iterate(benchmark, result, i);
+        } finally {
+            benchmark.tearDown();
+        }
+        return result;
+    }
+
+    /**
+     * Measure a benchmark in forked virtual machines.
+     *
+     * @param benchmark The <code>Benchmark</code> to measure.
+     * @return The <code>Result</code> of the measurement.
+     * @exception Exception if the benchmark fails.
+     */
+    private Result fork(Benchmark benchmark) throws Exception {
+        Result result = new Result(forks * iterations);
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator
+            + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean()
+            .getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BenchmarkRunner.class.getName());
+        command.add("-f");
+        command.add("0");
+        command.add("-w");
+        command.add(Integer.toString(warmups));
+        command.add("-i");
+        command.add(Integer.toString(iterations));
+        command.add("-t");
+        command.add(Long.toString(iterationTime));
+        command.add("-r");
+        command.add(benchmark.getName());
+        for (int f = 0; f < forks; f++) {
+            Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            String[] fields = null;
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith(RESULT_PREFIX)) {
+                        fields = line.substring(RESULT_PREFIX.length())
+                            .trim().split(" ");
+                    } else {
+                        System.out.println(line);
+                    }
+                }
+            }
+            if (process.waitFor() != 0 || fields == null
+                || fields.length != iterations + 2) {
+                throw new IOException("Fork " + f + " of "
+                    + benchmark.getName() + " failed");
+            }
+            double allocated = Double.parseDouble(fields[0]);
+            if (allocated < 0 || result.allocated < 0) {
+                result.allocated = -1.0;
+            } else {
+                result.allocated += allocated / forks;
+            }
+            result.partial |= Boolean.parseBoolean(fields[1]);
+            for (int i = 0; i < iterations; i++) {
+                result.times[f * iterations + i]
+                    = Double.parseDouble(fields[i + 2]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Measure the named benchmark in this virtual machine, and report
+     * the result for the virtual machine that forked this one.
+     *
+     * @param name The name of the <code>Benchmark</code> to measure.
+     * @return True if the benchmark ran.
+     */
+    public boolean report(String name) {
+        for (Benchmark b : getBenchmarks()) {
+            if (!b.getName().equals(name)) continue;
+            Result result;
+            try {
+                result = measure(b);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return false;
+            }
+            StringBuilder sb = new StringBuilder(RESULT_PREFIX);
+            sb.append(' ').append(result.allocated)
+                .append(' ').append(result.partial);
+            for (double t : result.times) sb.append(' ').append(t);
+            System.out.println(sb.toString());
+            return true;
+        }
+        System.err.println("No benchmark " + name);
+        return false;
+    }
+
+    /**
+     * Run the selected benchmarks.
+     *
+     * @param pattern A <code>Pattern</code> to select benchmarks by name.
+     * @return True if all the benchmarks ran.
+     */
+    public boolean run(Pattern pattern) {
+        boolean ok = true;
+        System.out.println(String.format("%-40s %4s %4s %12s %10s %6s %12s",
+                "Benchmark", "Mode", "Cnt", "Score", "StdDev", "Units",
+                "B/op"));
+        for (Benchmark b : getBenchmarks()) {
+            if (!pattern.matcher(b.getName()).find()) continue;
+            Result result;
+            try {
+                result = (forks > 0) ? fork(b) : measure(b);
+            } catch (Exception e) {
+                System.out.println(b.getName() + " failed: " + e);
+                e.printStackTrace();
+                ok = false;
+                continue;
+            }
+            final boolean ss = b.isSingleShot();
+            final double scale = (ss) ? 1.0e6 : 1.0e3;
+            System.out.println(String.format(
+                    "%-40s %4s %4d %12.3f %10.3f %6s %12s",
+                    b.getName(), (ss) ? "ss" : "avgt", result.times.length,
+                    result.getMean() / scale, result.getDeviation() / scale,
+                    (ss) ? "ms/op" : "us/op",
+                    (result.allocated < 0) ? "?"
+                    : String.format("%s%.0f", (result.partial) ? ">" : "",
+                                    result.allocated)));
+        }
+        return ok;
+    }
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args) {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        String regex = ".*";
+        String name = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if ("-f".equals(args[i])) {
+                    runner.forks = Integer.parseInt(args[++i]);
+                } else if ("-r".equals(args[i])) {
+                    name = args[++i];
+                } else if ("-w".equals(args[i])) {
+                    runner.warmups = Integer.parseInt(args[++i]);
+                } else if ("-i".equals(args[i])) {
+                    runner.iterations = Integer.parseInt(args[++i]);
+                } else if ("-t".equals(args[i])) {
+                    runner.iterationTime = Long.parseLong(args[++i]);
+                } else {
+                    regex = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException|NumberFormatException e) {
+            System.err.println("Usage: BenchmarkRunner [-f forks]"
+                + " [-w warmups] [-i iterations] [-t millis] [regex]");
+            System.exit(2);
+        }
+        if (runner.iterations <= 0) runner.iterations = 1;
+
+        // As for the tests, but without the logging, which would
+        // swamp the operations measured.
+        Messages.loadMessageBundle(Locale.US);
+        Logger.getLogger("net.sf.freecol").setLevel(Level.WARNING);
+        boolean ok = (name != null) ? runner.report(name)
+            : runner.run(Pattern.compile(regex));
+        System.exit((ok) ? 0 : 1);
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.freecol.common.model.Player;
+import net.sf.freecol.common.model.Tile;
+import net.sf.freecol.server.control.ChangeSet;
+import net.sf.freecol.server.control.ChangeSet.See;
+import net.sf.freecol.server.model.ServerGame;
+import net.sf.freecol.server.model.ServerPlayer;
+
+
+/**
+ * Benchmarks <code>ChangeSet.build</code>, building the updates of a
+ * change set like those of a new turn for every live player.
+ */
+public class ChangeSetBenchmark extends Benchmark {
+
+    /** The game to run on. */
+    private final Fixture fixture;
+
+    /** Build for all the players at once, in parallel? */
+    private final boolean parallel;
+
+    /** The players to build for. */
+    private final List<ServerPlayer> players = new ArrayList<>();
+
+    /** The change set to build. */
+    private ChangeSet cs;
+
+    /** The executor for parallel builds. */
+    private ExecutorService executor = null;
+
+
+    /**
+     * Create a new change set benchmark.
+     *
+     * @param fixture The <code>Fixture</code> to run on.
+     * @param parallel If true, build for all players in parallel.
+     */
+    public ChangeSetBenchmark(Fixture fixture, boolean parallel) {
+        super("changeSet.build" + ((parallel) ? ".parallel" : "")
+            + "." + fixture.getName());
+        this.fixture = fixture;
+        this.parallel = parallel;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUp() throws Exception {
+        final ServerGame game = fixture.start();
+        players.clear();
+        cs = new ChangeSet();
+        // Each player sees its own units, everyone perhaps sees the
+        // tiles with units or settlements on them.
+        for (Player p : game.getLivePlayers(null)) {
+            ServerPlayer sp = (ServerPlayer)p;
+            players.add(sp);
+            cs.add(See.only(sp), sp.getUnits());
+        }
+        for (Tile t : game.getMap().getAllTiles()) {
+            if (t.hasSettlement() || t.getFirstUnit() != null) {
+                cs.add(See.perhaps(), t);
+            }
+        }
+        if (parallel) executor = Executors.newCachedThreadPool();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object run() {
+        if (parallel) return cs.build(players, executor);
+        for (ServerPlayer sp : players) consume(cs.build(sp));
+        return cs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        fixture.stop();
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+import net.sf.freecol.common.model.Colony;
+import net.sf.freecol.common.model.CombatModel;
+import net.sf.freecol.common.model.Map;
+import net.sf.freecol.common.model.Specification;
+import net.sf.freecol.common.model.Unit;
+import net.sf.freecol.server.model.ServerGame;
+import net.sf.freecol.server.model.ServerPlayer;
+import net.sf.freecol.server.model.ServerUnit;
+import net.sf.freecol.util.test.FreeColTestUtils;
+
+
+/**
+ * Benchmarks the combat odds of the <code>SimpleCombatModel</code>,
+ * for a dragoon attacking a soldier in the open and attacking a
+ * colony.
+ */
+public class CombatBenchmark extends Benchmark {
+
+    /** The game to run on. */
+    private final Fixture fixture;
+
+    private CombatModel combatModel;
+
+    /** The attacker, and its targets. */
+    private Unit attacker, defender;
+    private Colony colony;
+
+
+    /**
+     * Create a new combat benchmark.
+     *
+     * @param fixture The <code>Fixture</code> to run on.
+     */
+    public CombatBenchmark(Fixture fixture) {
+        super("combat.odds." + fixture.getName());
+        this.fixture = fixture;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUp() throws Exception {
+        final ServerGame game = fixture.start();
+        final Specification spec = game.getSpecification();
+        final Map map = game.getMap();
+        final ServerPlayer dutch
+            = (ServerPlayer)game.getPlayer("model.nation.dutch");
+        final ServerPlayer french
+            = (ServerPlayer)game.getPlayer("model.nation.french");
+        combatModel = game.getCombatModel();
+
+        colony = FreeColTestUtils.getColonyBuilder().player(french)
+            .colonyTile(map.getTile(5, 8)).initialColonists(3).build();
+        attacker = new ServerUnit(game, map.getTile(4, 8), dutch,
+            spec.getUnitType("model.unit.veteranSoldier"),
+            spec.getRole("model.role.dragoon"));
+        defender = new ServerUnit(game, map.getTile(3, 8), french,
+            spec.getUnitType("model.unit.freeColonist"),
+            spec.getRole("model.role.soldier"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object run() {
+        return combatModel.calculateCombatOdds(attacker, defender).win
+            + combatModel.calculateCombatOdds(attacker,
+                colony.getDefendingUnit(attacker)).win;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tearDown() {
+        fixture.stop();
+    }
+}
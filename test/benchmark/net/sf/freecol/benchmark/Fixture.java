@@ -0,0 +1,114 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+import java.io.File;
+
+import net.sf.freecol.common.FreeColException;
+import net.sf.freecol.common.model.Player;
+import net.sf.freecol.server.FreeColServer;
+import net.sf.freecol.server.ServerTestHelper;
+import net.sf.freecol.server.control.PreGameController;
+import net.sf.freecol.server.model.ServerGame;
+import net.sf.freecol.server.model.ServerPlayer;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+/**
+ * The games the benchmarks run on, started on the test server.
+ */
+public enum Fixture {
+    /** The small all plains test map of the unit tests. */
+    TEST,
+    /** A map made by the map generator for a new game. */
+    GENERATED,
+    /** A generated game that has been saved and loaded again. */
+    SAVED;
+
+    /** The saved game, if any. */
+    private File file = null;
+
+
+    /**
+     * Gets the name of this fixture, as used in benchmark names.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return toString().toLowerCase();
+    }
+
+    /**
+     * Start a server game on this fixture.
+     *
+     * @return The new <code>ServerGame</code>.
+     * @exception FreeColException if the game can not be started.
+     */
+    public ServerGame start() throws FreeColException {
+        ServerGame game;
+        switch (this) {
+        case TEST:
+            game = (ServerGame)ServerTestHelper
+                .startServerGame(FreeColTestCase.getTestMap(true));
+            break;
+        case GENERATED:
+            FreeColServer server = ServerTestHelper.startServer(false, true);
+            ((PreGameController)server.getController()).startGame();
+            game = server.getGame();
+            break;
+        case SAVED:
+            if (file == null) file = ServerTestHelper.createRandomSaveGame();
+            game = ServerTestHelper.startServer(file, false, true).getGame();
+            break;
+        default:
+            throw new IllegalStateException("Bogus fixture: " + this);
+        }
+        if (game.getCurrentPlayer() == null) {
+            game.setCurrentPlayer(game.getFirstPlayer());
+        }
+        FreeColTestCase.setGame(game);
+        return game;
+    }
+
+    /**
+     * Gets the first European player that is not a royal expeditionary
+     * force.
+     *
+     * @param game The <code>ServerGame</code> to look in.
+     * @return The player found.
+     */
+    public static ServerPlayer getEuropeanPlayer(ServerGame game) {
+        for (Player p : game.getLiveEuropeanPlayers(null)) {
+            if (!p.isREF()) return (ServerPlayer)p;
+        }
+        throw new IllegalStateException("No European player");
+    }
+
+    /**
+     * Stop the server game, and clean up any saved game.
+     */
+    public void stop() {
+        ServerTestHelper.stopServerGame();
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+}
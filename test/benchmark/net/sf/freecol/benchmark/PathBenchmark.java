@@ -0,0 +1,183 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import net.sf.freecol.common.model.Map;
+import net.sf.freecol.common.model.PathNode;
+import net.sf.freecol.common.model.Tile;
+import net.sf.freecol.common.model.Unit;
+import net.sf.freecol.common.model.pathfinding.GoalDecider;
+import net.sf.freecol.server.model.ServerGame;
+import net.sf.freecol.server.model.ServerPlayer;
+import net.sf.freecol.server.model.ServerUnit;
+
+
+/**
+ * Benchmarks path finding with <code>Map.findPath</code>, from one
+ * end of the largest land mass to as far as can be reached, and with
+ * <code>Map.search</code>, exploring everywhere a ship can go in a
+ * few turns.
+ */
+public class PathBenchmark extends Benchmark {
+
+    /**
+     * A goal decider that is never satisfied, so the whole range is
+     * searched, and counts the nodes it is asked about.
+     */
+    private static class CountingGoalDecider implements GoalDecider {
+
+        public int count = 0;
+
+        @Override
+        public PathNode getGoal() { return null; }
+        @Override
+        public boolean hasSubGoals() { return false; }
+        @Override
+        public boolean check(Unit u, PathNode path) {
+            count++;
+            return false;
+        }
+    }
+
+    /** The number of turns to search for. */
+    private static final int SEARCH_TURNS = 4;
+
+    /** The game to run on. */
+    private final Fixture fixture;
+
+    /** Search rather than find a path? */
+    private final boolean search;
+
+    private Map map;
+
+    /** The unit to find a path for, and where it is going. */
+    private Unit colonist;
+    private Tile end;
+
+    /** The ship to search with. */
+    private Unit ship;
+
+
+    /**
+     * Create a new path benchmark.
+     *
+     * @param fixture The <code>Fixture</code> to run on.
+     * @param search If true, benchmark searching, otherwise finding
+     *     a path.
+     */
+    public PathBenchmark(Fixture fixture, boolean search) {
+        super("map." + ((search) ? "search" : "findPath")
+            + "." + fixture.getName());
+        this.fixture = fixture;
+        this.search = search;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUp() throws Exception {
+        final ServerGame game = fixture.start();
+        final ServerPlayer player = Fixture.getEuropeanPlayer(game);
+        map = game.getMap();
+
+        if (search) {
+            for (Unit u : player.getUnits()) {
+                if (u.isNaval() && u.hasTile()) {
+                    ship = u;
+                    break;
+                }
+            }
+            if (ship == null) throw new IllegalStateException("No ship");
+        } else {
+            // Find the largest land mass, and its first tile.
+            HashMap<Integer, Integer> sizes = new HashMap<>();
+            Tile start = null;
+            int best = 0;
+            for (Tile t : map.getAllTiles()) {
+                if (!t.isLand() || t.hasSettlement()) continue;
+                Integer n = sizes.get(t.getContiguity());
+                n = (n == null) ? 1 : n + 1;
+                sizes.put(t.getContiguity(), n);
+                if (n > best) best = n;
+            }
+            for (Tile t : map.getAllTiles()) {
+                if (t.isLand() && !t.hasSettlement()
+                    && sizes.get(t.getContiguity()) == best) {
+                    start = t;
+                    break;
+                }
+            }
+            // Go to its furthest tile that can be reached.
+            final Tile from = start;
+            List<Tile> ends = new ArrayList<>();
+            for (Tile t : map.getAllTiles()) {
+                if (t.isLand() && !t.hasSettlement()
+                    && t.getContiguity() == from.getContiguity()) {
+                    ends.add(t);
+                }
+            }
+            Collections.sort(ends, new Comparator<Tile>() {
+                    @Override
+                    public int compare(Tile t1, Tile t2) {
+                        return from.getDistanceTo(t2)
+                            - from.getDistanceTo(t1);
+                    }
+                });
+            colonist = new ServerUnit(game, start, player,
+                game.getSpecification().getDefaultUnitType());
+            for (Tile t : ends) {
+                end = t;
+                if (run() != null) break;
+            }
+        }
+        if (run() == null) throw new IllegalStateException("No path");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object run() {
+        if (search) {
+            CountingGoalDecider gd = new CountingGoalDecider();
+            map.search(ship, ship.getLocation(), gd, null,
+                       SEARCH_TURNS, null, null);
+            return (gd.count > 1) ? gd.count : null;
+        }
+        return map.findPath(colonist, colonist.getLocation(), end,
+                            null, null, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tearDown() {
+        fixture.stop();
+    }
+}
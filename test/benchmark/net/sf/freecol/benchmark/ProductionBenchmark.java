@@ -0,0 +1,99 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+import java.util.List;
+
+import net.sf.freecol.common.model.Colony;
+import net.sf.freecol.common.model.GoodsType;
+import net.sf.freecol.util.test.FreeColTestUtils;
+
+
+/**
+ * Benchmarks the production of a colony, as calculated by its
+ * <code>ProductionCache</code>.  The cache is either used as is, or
+ * invalidated before every query so that the production is worked
+ * out again, which mostly exercises the modifier lookups.
+ */
+public class ProductionBenchmark extends Benchmark {
+
+    /** The number of colonists in the colony. */
+    private static final int COLONISTS = 6;
+
+    /** The game to run on. */
+    private final Fixture fixture;
+
+    /** Invalidate the cache before each query? */
+    private final boolean invalidate;
+
+    /** The colony to query. */
+    private Colony colony;
+
+    /** The goods types to query. */
+    private List<GoodsType> goodsTypes;
+
+
+    /**
+     * Create a new production benchmark.
+     *
+     * @param fixture The <code>Fixture</code> to run on.
+     * @param invalidate If true, invalidate the cache before each query.
+     */
+    public ProductionBenchmark(Fixture fixture, boolean invalidate) {
+        super("colony.production." + ((invalidate) ? "invalidated"
+                : "cached") + "." + fixture.getName());
+        this.fixture = fixture;
+        this.invalidate = invalidate;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUp() throws Exception {
+        fixture.start();
+        colony = FreeColTestUtils.getColonyBuilder()
+            .initialColonists(COLONISTS).build();
+        goodsTypes = colony.getSpecification().getGoodsTypeList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object run() {
+        if (invalidate) colony.invalidateCache();
+        int result = 0;
+        for (GoodsType gt : goodsTypes) {
+            result += colony.getNetProductionOf(gt);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tearDown() {
+        colony = null;
+        fixture.stop();
+    }
+}
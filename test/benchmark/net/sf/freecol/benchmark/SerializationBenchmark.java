@@ -0,0 +1,115 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import net.sf.freecol.common.io.FreeColXMLReader;
+import net.sf.freecol.common.io.FreeColXMLWriter;
+import net.sf.freecol.common.io.FreeColXMLWriter.WriteScope;
+import net.sf.freecol.server.model.ServerGame;
+
+
+/**
+ * Benchmarks serializing a whole game as it is saved, with
+ * <code>FreeColXMLWriter</code>, and reading it back as it is loaded,
+ * with <code>FreeColXMLReader</code>.
+ */
+public class SerializationBenchmark extends Benchmark {
+
+    /** The game to run on. */
+    private final Fixture fixture;
+
+    /** Read rather than write? */
+    private final boolean read;
+
+    /** The game to write. */
+    private ServerGame game;
+
+    /** The serialized game. */
+    private byte[] bytes;
+
+
+    /**
+     * Create a new serialization benchmark.
+     *
+     * @param fixture The <code>Fixture</code> to run on.
+     * @param read If true, benchmark reading, otherwise writing.
+     */
+    public SerializationBenchmark(Fixture fixture, boolean read) {
+        super("xml." + ((read) ? "read" : "write") + "." + fixture.getName());
+        this.fixture = fixture;
+        this.read = read;
+    }
+
+
+    /**
+     * Write the game.
+     *
+     * @return The serialized game.
+     * @exception Exception if the game can not be written.
+     */
+    private byte[] write() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+        try (
+            FreeColXMLWriter xw = new FreeColXMLWriter(out,
+                WriteScope.toSave(), false);
+        ) {
+            game.toXML(xw);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUp() throws Exception {
+        game = fixture.start();
+        bytes = write();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object run() throws Exception {
+        if (!read) return write();
+        try (
+            FreeColXMLReader xr = new FreeColXMLReader(
+                new ByteArrayInputStream(bytes));
+        ) {
+            xr.setReadScope(FreeColXMLReader.ReadScope.SERVER);
+            xr.nextTag();
+            return new ServerGame(null, xr, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tearDown() {
+        game = null;
+        bytes = null;
+        fixture.stop();
+    }
+}
@@ -28,6 +28,8 @@ public class AllTests {
     public static Test suite() {
 	TestSuite suite = new TestSuite("Test for net.sf.freecol.common.option");
         suite.addTestSuite(ModTest.class);
+        suite.addTestSuite(ReadAheadInputStreamTest.class);
+        suite.addTestSuite(XMLEventBufferTest.class);
         return suite;
     }
 
@@ -0,0 +1,90 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class ReadAheadInputStreamTest extends FreeColTestCase {
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1000];
+        int n;
+        while ((n = is.read(buf, 0, buf.length)) >= 0) out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+
+    public void testCopy() throws IOException {
+        byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        // Small chunks and queue, so the reader has to wait
+        try (InputStream is = new ReadAheadInputStream(
+                new ByteArrayInputStream(data), "test", 777, 2)) {
+            assertEquals(data[0] & 0xff, is.read());
+            byte[] rest = readAll(is);
+            assertTrue(Arrays.equals(Arrays.copyOfRange(data, 1, data.length),
+                                     rest));
+            assertEquals(-1, is.read());
+        }
+        try (InputStream is = new ReadAheadInputStream(
+                new ByteArrayInputStream(new byte[0]), "test")) {
+            assertEquals(-1, is.read());
+        }
+    }
+
+    public void testFailure() throws IOException {
+        InputStream broken = new InputStream() {
+                private int count = 0;
+
+                @Override
+                public int read() throws IOException {
+                    if (++count > 10) throw new IOException("broken");
+                    return count;
+                }
+            };
+        try (InputStream is = new ReadAheadInputStream(broken, "test",
+                                                       4, 2)) {
+            readAll(is);
+            fail("Failure should be passed on");
+        } catch (IOException ioe) {
+            assertEquals("broken", ioe.getMessage());
+        }
+    }
+
+    public void testClose() throws IOException {
+        byte[] data = new byte[100000];
+        InputStream is = new ReadAheadInputStream(
+            new ByteArrayInputStream(data), "test", 100, 2);
+        assertEquals(0, is.read());
+        is.close();
+        try {
+            is.read();
+            fail("Closed stream should not be readable");
+        } catch (IOException ioe) {}
+    }
+}
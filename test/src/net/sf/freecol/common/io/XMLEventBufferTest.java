@@ -0,0 +1,99 @@
+/**
+ *  Copyright (C) 2002-2015   The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.io;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import net.sf.freecol.common.model.Colony;
+import net.sf.freecol.common.model.Game;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class XMLEventBufferTest extends FreeColTestCase {
+
+    public void testReplay() throws XMLStreamException {
+        XMLEventBuffer buffer = new XMLEventBuffer();
+        XMLStreamWriter xw = buffer.getWriter();
+        xw.writeStartDocument();
+        xw.writeStartElement("a");
+        xw.writeAttribute("id", "<1 & \"2\">");
+        xw.writeAttribute("n", "3");
+        xw.writeEmptyElement("b");
+        xw.writeAttribute("x", "y");
+        xw.writeStartElement("c");
+        xw.writeCharacters("some ");
+        xw.writeCharacters("text");
+        xw.writeEndElement();
+        xw.writeEndDocument();
+        xw.close();
+        assertEquals(7, buffer.size());
+
+        // The buffer can be read more than once.
+        for (int pass = 0; pass < 2; pass++) {
+            XMLStreamReader xr = buffer.getReader();
+            assertEquals(XMLStreamConstants.START_DOCUMENT, xr.getEventType());
+            assertEquals(XMLStreamConstants.START_ELEMENT, xr.nextTag());
+            assertEquals("a", xr.getLocalName());
+            assertEquals(2, xr.getAttributeCount());
+            assertEquals("<1 & \"2\">", xr.getAttributeValue(null, "id"));
+            assertEquals("n", xr.getAttributeLocalName(1));
+            assertEquals("3", xr.getAttributeValue(1));
+            assertNull(xr.getAttributeValue(null, "x"));
+            assertEquals(XMLStreamConstants.START_ELEMENT, xr.nextTag());
+            assertEquals("b", xr.getLocalName());
+            assertEquals("y", xr.getAttributeValue(null, "x"));
+            assertEquals(XMLStreamConstants.END_ELEMENT, xr.nextTag());
+            assertEquals("b", xr.getLocalName());
+            assertEquals(XMLStreamConstants.START_ELEMENT, xr.nextTag());
+            assertEquals("c", xr.getLocalName());
+            assertEquals(0, xr.getAttributeCount());
+            assertEquals("some text", xr.getElementText());
+            assertEquals(XMLStreamConstants.END_ELEMENT, xr.nextTag());
+            assertEquals("a", xr.getLocalName());
+            assertEquals(XMLStreamConstants.END_DOCUMENT, xr.next());
+            assertFalse(xr.hasNext());
+        }
+    }
+
+    public void testCopy() throws IOException, XMLStreamException {
+        Game game = getGame();
+        game.setMap(getTestMap(true));
+        Colony colony = getStandardColony(3);
+
+        // A copy through the buffer matches one read back from text.
+        Colony copy = colony.copy(game, Colony.class);
+        assertNotNull(copy);
+        assertFalse(copy == colony);
+        assertEquals(colony.serialize(), copy.serialize());
+        try (FreeColXMLReader xr
+            = new FreeColXMLReader(new StringReader(colony.serialize()))) {
+            Colony text = xr.copy(game, Colony.class);
+            assertEquals(text.serialize(), copy.serialize());
+            assertEquals(text.getUnitCount(), copy.getUnitCount());
+        }
+        assertTrue(game.getFreeColGameObject(colony.getId()) == colony);
+    }
+}
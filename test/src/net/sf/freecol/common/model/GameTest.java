@@ -25,7 +25,9 @@ import java.util.List;
 
 import net.sf.freecol.common.FreeColException;
 import net.sf.freecol.server.model.ServerGame;
+import net.sf.freecol.server.model.ServerModelObject;
 import net.sf.freecol.server.model.ServerPlayer;
+import net.sf.freecol.server.model.ServerUnit;
 import net.sf.freecol.util.test.FreeColTestCase;
 
 
@@ -69,6 +71,46 @@ public class GameTest extends FreeColTestCase {
         assertEquals(players, game.getPlayers());
     }
 
+    public void testTypedObjects() {
+        Game game = getStandardGame();
+        game.setMap(getTestMap());
+        Player dutch = game.getPlayer("model.nation.dutch");
+        UnitType colonistType = spec().getUnitType("model.unit.freeColonist");
+        Tile tile = game.getMap().getTile(5, 8);
+        Unit unit = new ServerUnit(game, tile, dutch, colonistType);
+
+        // The side indices agree with a full scan
+        List<Unit> units = new ArrayList<>();
+        List<Tile> tiles = new ArrayList<>();
+        int smos = 0;
+        for (FreeColGameObject fcgo : game.getFreeColGameObjects()) {
+            if (fcgo instanceof Unit) units.add((Unit)fcgo);
+            if (fcgo instanceof Tile) tiles.add((Tile)fcgo);
+            if (fcgo instanceof ServerModelObject) smos++;
+        }
+        assertEquals(units.size(), game.getFreeColGameObjects(Unit.class).size());
+        assertTrue(game.getFreeColGameObjects(Unit.class).containsAll(units));
+        assertEquals(tiles.size(), game.getFreeColGameObjects(Tile.class).size());
+        assertEquals(smos, ((ServerGame)game).getServerModelObjects().size());
+        assertTrue(smos > 0);
+
+        // Handles find the object
+        int handle = game.getFreeColGameObjectHandle(unit.getId());
+        assertTrue(handle >= 0);
+        assertEquals(unit, game.getFreeColGameObject(handle));
+
+        // Removal takes the object out of the indices, and the handle
+        // is reused
+        unit.dispose();
+        assertNull(game.getFreeColGameObject(unit.getId()));
+        assertTrue(game.getFreeColGameObjectHandle(unit.getId()) < 0);
+        assertNull(game.getFreeColGameObject(handle));
+        assertFalse(game.getFreeColGameObjects(Unit.class).contains(unit));
+        Unit other = new ServerUnit(game, tile, dutch, colonistType);
+        assertNotNull(game.getFreeColGameObject(handle));
+        assertTrue(game.getFreeColGameObjects(Unit.class).contains(other));
+    }
+
     public void testTurn() {
         assertEquals(1492, Turn.getStartingYear());
         assertEquals(1600, Turn.getSeasonYear());
@@ -162,6 +162,40 @@ public class MapTest extends FreeColTestCase {
         assertEquals(150 - 1, surroundingTiles.size());
     }
 
+    public void testRingTiles() {
+        Game game = getStandardGame();
+
+        MapBuilder builder = new MapBuilder(game);
+        Map map = builder.setDimensions(10, 15).build();
+        game.setMap(map);
+
+        for (Tile center : map.getAllTiles()) {
+            for (int min = 0; min <= 3; min++) {
+                for (int max = min; max <= 20; max += 3) {
+                    List<Tile> ring = center.getSurroundingTiles(min, max);
+                    Set<Tile> expect = new HashSet<>();
+                    for (Tile t : map.getAllTiles()) {
+                        int d = center.getDistanceTo(t);
+                        if (min <= d && d <= max) expect.add(t);
+                    }
+                    assertEquals(expect.size(), ring.size());
+                    assertEquals(expect, new HashSet<>(ring));
+                }
+            }
+            for (Direction d : Direction.values()) {
+                Map.Position step = d.step(center.getX(), center.getY());
+                assertEquals(map.getTile(step.x, step.y),
+                             map.getAdjacentTile(center, d));
+            }
+        }
+
+        // Adjacent tiles follow changes to the map
+        Tile tile = map.getTile(4, 8);
+        Tile other = new Tile(game, plainsType, 4, 7);
+        map.setTile(other, 4, 7);
+        assertEquals(other, tile.getNeighbourOrNull(Direction.NE));
+    }
+
     public void testGetReverseDirection() {
         assertEquals(Direction.S, Direction.N.getReverseDirection());
         assertEquals(Direction.N, Direction.S.getReverseDirection());
@@ -609,4 +643,141 @@ public class MapTest extends FreeColTestCase {
         assertFalse(otherColony == colony);
         assertEquals(otherColony.getId(), colony.getId());
     }
+
+    public void testSearchStateHeap() {
+        final int size = 64;
+        PathSearchState state = new PathSearchState(size);
+        try {
+            PathNode[] nodes = new PathNode[size];
+            for (int i = 0; i < size; i++) {
+                nodes[i] = new PathNode(null, 0, 0, false, null, null);
+                state.putOpen(i, nodes[i], (i * 37) % size + size);
+            }
+            // Improve every third node, moving it towards the front.
+            for (int i = 0; i < size; i += 3) state.putOpen(i, nodes[i], i);
+            assertSame(nodes[2], state.getOpen(2));
+
+            int last = -1, count = 0;
+            while (!state.isOpenEmpty()) {
+                PathNode node = state.pollOpen();
+                int index = -1;
+                for (int i = 0; i < size; i++) {
+                    if (nodes[i] == node) index = i;
+                }
+                int f = (index % 3 == 0) ? index : (index * 37) % size + size;
+                assertTrue("Heap order", f >= last);
+                assertNull(state.getOpen(index));
+                last = f;
+                count++;
+            }
+            assertEquals(size, count);
+        } finally {
+            state.clear();
+        }
+        assertTrue(state.isOpenEmpty());
+        assertNull(state.getOpen(2));
+        assertNull(state.getClosed(5));
+    }
+
+    public void testSearchStateReuse() {
+        Game game = getStandardGame();
+        Map map = getCoastTestMap(plainsType, true);
+        game.setMap(map);
+
+        Player dutch = game.getPlayer("model.nation.dutch");
+        Tile landTile = map.getTile(2, 2);
+        Tile seaTile = map.getTile(13, 2);
+        Unit colonist = new ServerUnit(game, landTile, dutch, colonistType);
+        Unit galleon = new ServerUnit(game, seaTile, dutch, galleonType);
+        List<Tile> ends = new ArrayList<>();
+        for (int y = 1; y < map.getHeight(); y += 3) {
+            for (int x = 1; x < map.getWidth(); x += 3) {
+                ends.add(map.getTile(x, y));
+            }
+        }
+
+        // Search with a fresh state each time.
+        List<String> fresh = new ArrayList<>();
+        int found = 0;
+        for (Tile end : ends) {
+            map.clearSearchStates();
+            PathNode path = map.findPath(colonist, landTile, end, galleon,
+                                         null, null);
+            fresh.add((path == null) ? null : path.fullPathToString());
+            if (path != null) found++;
+        }
+        assertTrue("Most paths found", 2 * found > ends.size());
+
+        // Search again in the reverse order, reusing the states, with
+        // a search for another unit between each.
+        for (int i = ends.size() - 1; i >= 0; i--) {
+            map.findPath(galleon, seaTile, ends.get(i), null, null, null);
+            PathNode path = map.findPath(colonist, landTile, ends.get(i),
+                                         galleon, null, null);
+            assertEquals("Path to " + ends.get(i), fresh.get(i),
+                (path == null) ? null : path.fullPathToString());
+        }
+    }
+
+    public void testComponentLabeller() {
+        // Compare with flood filling from each unfilled position in
+        // scan order, on a random map with many small components.
+        final int width = 23, height = 41;
+        Random random = new Random(21);
+        boolean[][] grid = new boolean[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                grid[x][y] = random.nextInt(100) < 35;
+            }
+        }
+        ComponentLabeller labeller = new ComponentLabeller(grid);
+        int[][] expect = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) expect[x][y] = -1;
+        }
+        int count = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!grid[x][y] || expect[x][y] >= 0) continue;
+                boolean[][] fill = Map.floodFill(grid, x, y);
+                int size = 0, minX = width, maxX = -1, minY = height, maxY = -1;
+                for (int xx = 0; xx < width; xx++) {
+                    for (int yy = 0; yy < height; yy++) {
+                        if (!fill[xx][yy]) continue;
+                        expect[xx][yy] = count;
+                        size++;
+                        minX = Math.min(minX, xx);
+                        maxX = Math.max(maxX, xx);
+                        minY = Math.min(minY, yy);
+                        maxY = Math.max(maxY, yy);
+                    }
+                }
+                assertEquals(size, labeller.getSize(count));
+                assertEquals(minX, labeller.getMinX(count));
+                assertEquals(maxX, labeller.getMaxX(count));
+                assertEquals(minY, labeller.getMinY(count));
+                assertEquals(maxY, labeller.getMaxY(count));
+                count++;
+            }
+        }
+        assertTrue(count > 16);
+        assertEquals(count, labeller.getCount());
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                assertEquals(expect[x][y], labeller.getLabel(x, y));
+            }
+        }
+        assertEquals(ComponentLabeller.NONE, labeller.getLabel(-1, 0));
+
+        // A limited fill stops at the limit.
+        int c = 0;
+        while (labeller.getSize(c) < 4) c++;
+        boolean[][] part = Map.floodFill(grid, labeller.getMinX(c),
+                                         labeller.getMinY(c), 3);
+        int n = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) if (part[x][y]) n++;
+        }
+        assertEquals(3, n);
+    }
 }
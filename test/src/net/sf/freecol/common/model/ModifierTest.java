@@ -346,4 +346,64 @@ public class ModifierTest extends FreeColTestCase {
         assertEquals(Modifier.UNKNOWN,
             featureContainer.applyModifiers(1, new Turn(15), "test", null));
     }
+
+    /**
+     * The resolved modifiers must follow changes to the container.
+     */
+    public void testResolvedModifiers() {
+        Modifier modifier1 = new Modifier("test", 3,
+                                          ModifierType.ADDITIVE);
+        Modifier modifier2 = new Modifier("test", 2,
+                                          ModifierType.MULTIPLICATIVE);
+        Scope scope = new Scope();
+        scope.setType("model.unit.frigate");
+        List<Scope> scopes = new ArrayList<>();
+        scopes.add(scope);
+        modifier2.setScopes(scopes);
+
+        FeatureContainer featureContainer = new FeatureContainer();
+        assertEquals(1f, featureContainer.applyModifiers(1, null,
+                                                         "test", frigate));
+        featureContainer.addModifier(modifier1);
+        assertEquals(4f, featureContainer.applyModifiers(1, null,
+                                                         "test", frigate));
+        featureContainer.addModifier(modifier2);
+        assertEquals(8f, featureContainer.applyModifiers(1, null,
+                                                         "test", frigate));
+        assertEquals(4f, featureContainer.applyModifiers(1, null,
+                                                         "test", carpenter));
+
+        // The set returned is a copy
+        Set<Modifier> result
+            = featureContainer.getModifiers("test", frigate, null);
+        assertEquals(2, result.size());
+        result.clear();
+        assertEquals(2, featureContainer.getModifiers("test", frigate,
+                                                      null).size());
+
+        featureContainer.removeModifier(modifier1);
+        assertEquals(2f, featureContainer.applyModifiers(1, null,
+                                                         "test", frigate));
+        assertEquals(1f, featureContainer.applyModifiers(1, null,
+                                                         "test", carpenter));
+
+        UnitType source = new UnitType("model.unit.modifierSource", spec());
+        source.addModifier(new Modifier("test", 3, ModifierType.ADDITIVE,
+                                        source));
+        featureContainer.addFeatures(source);
+        assertEquals(8f, featureContainer.applyModifiers(1, null,
+                                                         "test", frigate));
+        featureContainer.removeFeatures(source);
+        assertEquals(2f, featureContainer.applyModifiers(1, null,
+                                                         "test", frigate));
+        featureContainer.removeModifiers("test");
+        assertTrue(featureContainer.getModifiers("test", frigate,
+                                                 null).isEmpty());
+        featureContainer.addModifier(modifier1);
+        assertEquals(4f, featureContainer.applyModifiers(1, null,
+                                                         "test", frigate));
+        featureContainer.clear();
+        assertEquals(1f, featureContainer.applyModifiers(1, null,
+                                                         "test", frigate));
+    }
 }
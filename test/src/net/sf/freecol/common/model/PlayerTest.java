@@ -19,7 +19,9 @@
 
 package net.sf.freecol.common.model;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import net.sf.freecol.server.model.ServerGame;
 import net.sf.freecol.server.model.ServerPlayer;
@@ -73,6 +75,121 @@ public class PlayerTest extends FreeColTestCase {
         assertTrue(french.hasUnit(unit2));
     }
 
+    public void testUnitIndices() {
+        Game game = getStandardGame();
+        Player dutch = game.getPlayer("model.nation.dutch");
+        Player french = game.getPlayer("model.nation.french");
+        Map map = getTestMap(spec().getTileType("model.tile.plains"));
+        game.setMap(map);
+
+        Unit unit1 = new ServerUnit(game, map.getTile(4, 7), dutch,
+                                    freeColonist);
+        Unit unit2 = new ServerUnit(game, map.getTile(4, 8), dutch,
+                                    freeColonist);
+        Unit ship = new ServerUnit(game, map.getTile(3, 7), dutch,
+                                   galleonType);
+        List<Unit> units = dutch.getUnits();
+        assertEquals(3, units.size());
+        assertEquals(3, dutch.getUnits(Unit.UnitState.ACTIVE).size());
+        assertEquals(2, dutch.getUnits(freeColonist).size());
+        assertEquals(1, dutch.getUnits(galleonType).size());
+        assertTrue(dutch.hasUnitType(galleonType.getId()));
+
+        // Changes of state and type move the unit between indices,
+        // leaving lists already handed out alone
+        unit1.setState(Unit.UnitState.SENTRY);
+        assertEquals(2, dutch.getUnits(Unit.UnitState.ACTIVE).size());
+        assertEquals(unit1, dutch.getUnits(Unit.UnitState.SENTRY).get(0));
+        unit2.changeType(spec().getUnitType("model.unit.expertFarmer"));
+        assertEquals(1, dutch.getUnits(freeColonist).size());
+        assertEquals(3, units.size());
+
+        // Removal takes the unit out of every index
+        ship.dispose();
+        assertTrue(dutch.getUnits(galleonType).isEmpty());
+        assertFalse(dutch.hasUnitType(galleonType.getId()));
+        unit1.changeOwner(french);
+        assertTrue(dutch.getUnits(Unit.UnitState.SENTRY).isEmpty());
+        assertEquals(unit1, french.getUnits(Unit.UnitState.SENTRY).get(0));
+        assertEquals(1, dutch.getUnits().size());
+
+        // The active unit iterator only offers active units
+        dutch.resetIterators();
+        assertEquals(unit2, dutch.getNextActiveUnit());
+
+        try {
+            dutch.getUnits().clear();
+            fail("Unit list should be read-only");
+        } catch (UnsupportedOperationException e) {}
+    }
+
+    public void testCanSee() {
+        Game game = getStandardGame();
+        Map map = getTestMap();
+        game.setMap(map);
+        Player dutch = game.getPlayer("model.nation.dutch");
+        Tile tile1 = map.getTile(5, 5);
+        Tile tile2 = map.getTile(6, 5);
+        Tile tile3 = map.getTile(10, 12);
+        List<Tile> visible = new ArrayList<>();
+        List<Tile> fogged = new ArrayList<>();
+
+        Unit unit1 = new ServerUnit(game, tile1, dutch, freeColonist);
+        Unit unit2 = new ServerUnit(game, tile2, dutch, freeColonist);
+        dutch.invalidateCanSeeTiles();
+        assertTrue(dutch.canSee(tile1));
+        assertTrue(dutch.canSee(tile2));
+        assertFalse(dutch.canSee(tile3));
+        dutch.takeVisibilityChanges(visible, fogged);
+
+        // Moving one unit away only fogs the tiles the other can not see
+        unit1.setLocation(tile3);
+        dutch.invalidateCanSeeTiles();
+        visible.clear();
+        fogged.clear();
+        dutch.takeVisibilityChanges(visible, fogged);
+        assertTrue(dutch.canSee(tile1));
+        assertTrue(dutch.canSee(tile3));
+        assertTrue(visible.contains(tile3));
+        assertFalse(visible.contains(tile1));
+        assertFalse(fogged.isEmpty());
+        for (Tile t : fogged) {
+            assertFalse(dutch.canSee(t));
+            assertTrue(tile2.getDistanceTo(t) > unit2.getLineOfSight());
+        }
+
+        // Nothing changes if nothing moves
+        Tile seen = fogged.get(0);
+        dutch.invalidateCanSeeTiles();
+        visible.clear();
+        fogged.clear();
+        dutch.takeVisibilityChanges(visible, fogged);
+        assertTrue(dutch.canSee(tile3));
+        assertTrue(visible.isEmpty());
+        assertTrue(fogged.isEmpty());
+
+        // Changes accumulate until taken, and moving back and forth
+        // changes nothing
+        unit1.setLocation(tile1);
+        dutch.invalidateCanSeeTiles();
+        assertTrue(dutch.canSee(seen));
+        unit1.setLocation(tile3);
+        dutch.invalidateCanSeeTiles();
+        assertFalse(dutch.canSee(seen));
+        dutch.takeVisibilityChanges(visible, fogged);
+        assertTrue(visible.isEmpty());
+        assertTrue(fogged.isEmpty());
+
+        // A disposed unit no longer sees
+        unit2.dispose();
+        dutch.invalidateCanSeeTiles();
+        assertFalse(dutch.canSee(tile2));
+        assertTrue(dutch.canSee(tile3));
+        dutch.takeVisibilityChanges(visible, fogged);
+        assertTrue(visible.isEmpty());
+        assertTrue(fogged.contains(tile2));
+    }
+
     public void testEuropeanPlayer(Player player) {
         assertTrue(player.canBuildColonies());
         assertTrue(player.canHaveFoundingFathers());
@@ -0,0 +1,174 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import net.sf.freecol.common.model.Game;
+import net.sf.freecol.common.model.Map;
+import net.sf.freecol.common.model.Player;
+import net.sf.freecol.common.model.Tile;
+import net.sf.freecol.common.model.Unit;
+import net.sf.freecol.common.model.UnitType;
+import net.sf.freecol.server.ServerTestHelper;
+import net.sf.freecol.server.control.ChangeSet;
+import net.sf.freecol.server.control.ChangeSet.See;
+import net.sf.freecol.server.model.ServerPlayer;
+import net.sf.freecol.server.model.ServerUnit;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+
+public class BinaryCodecTest extends FreeColTestCase {
+
+    private static final UnitType colonistType
+        = spec().getUnitType("model.unit.freeColonist");
+
+
+    @Override
+    public void tearDown() throws Exception {
+        ServerTestHelper.stopServerGame();
+        super.tearDown();
+    }
+
+    private static byte[] encode(Element element,
+                                 BinaryCodec.StringTable table)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCodec.write(element, out, table);
+        return out.toByteArray();
+    }
+
+    private static Element decode(byte[] frame, BinaryCodec.StringTable table)
+        throws IOException {
+        assertEquals(BinaryCodec.FRAME_MARKER, frame[0]);
+        int length = BinaryCodec.readLength(frame, 0);
+        assertTrue(BinaryCodec.isValidLength(length));
+        assertEquals(frame.length, BinaryCodec.HEADER_LENGTH + length);
+        return BinaryCodec.read(frame, BinaryCodec.HEADER_LENGTH, length,
+                                table).getDocumentElement();
+    }
+
+    private Element getUpdate() {
+        Game game = ServerTestHelper.startServerGame(getTestMap());
+        Map map = game.getMap();
+        ServerPlayer dutch = (ServerPlayer)game.getPlayer("model.nation.dutch");
+        Tile tile = map.getTile(5, 8);
+        Unit unit = new ServerUnit(game, tile, dutch, colonistType);
+        dutch.exploreForUnit(unit);
+
+        ChangeSet cs = new ChangeSet();
+        cs.add(See.only(dutch), tile, map.getTile(6, 8));
+        cs.addPartial(See.only(dutch), dutch, "gold");
+        Element update = cs.build(dutch);
+        assertNotNull(update);
+        return update;
+    }
+
+    public void testRoundTrip() throws IOException {
+        Element update = getUpdate();
+        Element copy = decode(encode(update, new BinaryCodec.StringTable()),
+                              new BinaryCodec.StringTable());
+        assertEquals(MessageCodec.toString(update),
+                     MessageCodec.toString(copy));
+    }
+
+    public void testText() throws IOException {
+        Game game = getStandardGame();
+        Player dutch = game.getPlayer("model.nation.dutch");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10; i++) sb.append("A long chat message & <").append(i);
+        Element chat = new ChatMessage(dutch, sb.toString(), false)
+            .toXMLElement();
+        Document doc = chat.getOwnerDocument();
+        Element text = doc.createElement("text");
+        text.appendChild(doc.createTextNode("  mixed "));
+        text.appendChild(doc.createElement("child"));
+        text.appendChild(doc.createTextNode("\n"));
+        chat.appendChild(text);
+
+        Element copy = decode(encode(chat, new BinaryCodec.StringTable()),
+                              new BinaryCodec.StringTable());
+        assertEquals(MessageCodec.toString(chat),
+                     MessageCodec.toString(copy));
+    }
+
+    public void testStringTableReuse() throws IOException {
+        Element update = getUpdate();
+        BinaryCodec.StringTable out = new BinaryCodec.StringTable();
+        BinaryCodec.StringTable in = new BinaryCodec.StringTable();
+
+        byte[] first = encode(update, out);
+        int interned = out.size();
+        assertTrue(interned > 0);
+        byte[] second = encode(update, out);
+        assertEquals("Nothing new to intern", interned, out.size());
+        assertTrue("Interned strings are sent as indexes",
+                   second.length < first.length);
+
+        // The frames decode in order against the same table.
+        final String expected = MessageCodec.toString(update);
+        assertEquals(expected, MessageCodec.toString(decode(first, in)));
+        assertEquals(interned, in.size());
+        assertEquals(expected, MessageCodec.toString(decode(second, in)));
+        assertEquals(interned, in.size());
+
+        // The second frame can not be decoded without the first.
+        try {
+            decode(second, new BinaryCodec.StringTable());
+            fail("Decoded a frame without its interned strings");
+        } catch (IOException ioe) {} // Expected
+    }
+
+    public void testBadFrames() throws IOException {
+        assertFalse(BinaryCodec.isValidLength(0));
+        assertFalse(BinaryCodec.isValidLength(-1));
+        assertTrue(BinaryCodec.isValidLength(BinaryCodec.MAX_FRAME_LENGTH));
+        assertFalse(BinaryCodec.isValidLength(BinaryCodec.MAX_FRAME_LENGTH + 1));
+
+        Element update = getUpdate();
+        byte[] frame = encode(update, new BinaryCodec.StringTable());
+        int length = BinaryCodec.readLength(frame, 0);
+        try {
+            BinaryCodec.read(frame, BinaryCodec.HEADER_LENGTH, length / 2,
+                             new BinaryCodec.StringTable());
+            fail("Decoded a truncated frame");
+        } catch (IOException ioe) {} // Expected
+    }
+
+    public void testLongMessage() throws IOException {
+        Element element = DOMMessage.createMessage("longMessage");
+        char[] text = new char[BinaryCodec.MAX_FRAME_LENGTH];
+        Arrays.fill(text, 'x');
+        element.appendChild(element.getOwnerDocument()
+            .createTextNode(new String(text)));
+
+        // Too long for a frame, so nothing is written or interned.
+        BinaryCodec.StringTable table = new BinaryCodec.StringTable();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertFalse(BinaryCodec.write(element, out, table));
+        assertEquals(0, out.size());
+        assertEquals(0, table.size());
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.freecol.util.test.FreeColTestCase;
+
+import org.w3c.dom.Element;
+
+
+public class ChannelSelectorTest extends FreeColTestCase {
+
+    /** A message handler that records the messages it is given. */
+    private static class Recorder implements MessageHandler {
+
+        private final List<String> tags
+            = Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> threads
+            = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch gate;
+        private final CountDownLatch done;
+
+
+        public Recorder(int n, CountDownLatch gate) {
+            this.gate = gate;
+            this.done = new CountDownLatch(n);
+        }
+
+        @Override
+        public Element handle(Connection connection, Element element) {
+            tags.add(element.getTagName());
+            threads.add(Thread.currentThread().getName());
+            if (gate != null && "disconnect".equals(element.getTagName())) {
+                try {
+                    gate.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            done.countDown();
+            return null;
+        }
+
+        public boolean await() throws InterruptedException {
+            return done.await(30, TimeUnit.SECONDS);
+        }
+    }
+
+
+    private ServerSocketChannel server;
+    private ChannelSelector selector;
+    private MessageDispatcher dispatcher;
+    private final List<Socket> clients = new ArrayList<>();
+    private final List<Connection> connections = new ArrayList<>();
+
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress(InetAddress
+            .getLoopbackAddress(), 0));
+        selector = new ChannelSelector("test");
+        selector.start();
+        dispatcher = new MessageDispatcher("test", 2);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        for (Connection c : connections) c.reallyClose();
+        for (Socket s : clients) s.close();
+        selector.shutdown();
+        dispatcher.shutdown();
+        server.close();
+        super.tearDown();
+    }
+
+    /**
+     * Connect a client socket to a new server side connection read
+     * by the selector.
+     *
+     * @param handler The <code>MessageHandler</code> for the connection.
+     * @param binary If true, accept binary frames as if logged in.
+     * @return The client <code>Socket</code>.
+     */
+    private Socket connect(MessageHandler handler, boolean binary)
+        throws IOException {
+        Socket client = new Socket(InetAddress.getLoopbackAddress(),
+                                   server.socket().getLocalPort());
+        clients.add(client);
+        SocketChannel channel = server.accept();
+        Connection c = new Connection(channel, handler,
+            "test" + connections.size(), dispatcher, selector);
+        c.setBinaryAccepted(binary);
+        connections.add(c);
+        return client;
+    }
+
+    private static byte[] binary(String tag) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCodec.write(DOMMessage.createMessage(tag), out,
+                          new BinaryCodec.StringTable());
+        return out.toByteArray();
+    }
+
+
+    public void testMessages() throws Exception {
+        Recorder recorder = new Recorder(4, null);
+        OutputStream out = connect(recorder, true).getOutputStream();
+
+        // Split the messages across writes, and mix the encodings.
+        byte[] frame = binary("second");
+        out.write("<first a=\"1\"/>\n<sec".getBytes("UTF-8"));
+        out.flush();
+        out.write("ond/>\n".getBytes("UTF-8"));
+        out.write(frame, 0, 3);
+        out.flush();
+        out.write(frame, 3, frame.length - 3);
+        out.write("<third/>\n".getBytes("UTF-8"));
+        out.flush();
+
+        assertTrue(recorder.await());
+        assertEquals(4, recorder.tags.size());
+        assertEquals("first", recorder.tags.get(0));
+        assertEquals("second", recorder.tags.get(1));
+        assertEquals("second", recorder.tags.get(2));
+        assertEquals("third", recorder.tags.get(3));
+        for (String t : recorder.threads) {
+            assertFalse("Handled off the selector thread",
+                        selector.getName().equals(t));
+        }
+    }
+
+    public void testSlowDisconnect() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        Recorder slow = new Recorder(1, gate);
+        Recorder other = new Recorder(1, null);
+        OutputStream slowOut = connect(slow, true).getOutputStream();
+        OutputStream otherOut = connect(other, true).getOutputStream();
+
+        // An empty frame disconnects, and the handler blocks.
+        slowOut.write(new byte[] { BinaryCodec.FRAME_MARKER, 0, 0, 0, 0 });
+        slowOut.flush();
+        for (int i = 0; i < 100 && slow.tags.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(Collections.singletonList("disconnect"), slow.tags);
+        assertFalse(selector.getName().equals(slow.threads.get(0)));
+
+        // The selector still reads the other channel.
+        otherOut.write("<ping/>\n".getBytes("UTF-8"));
+        otherOut.flush();
+        assertTrue(other.await());
+        assertEquals(Collections.singletonList("ping"), other.tags);
+
+        // The connection closes once the handler is done.
+        gate.countDown();
+        assertTrue(slow.await());
+        awaitClose(connections.get(0));
+    }
+
+    /**
+     * Wait for a connection to close.
+     *
+     * @param c The <code>Connection</code> to wait for.
+     */
+    private static void awaitClose(Connection c) throws InterruptedException {
+        for (int i = 0; i < 100 && c.isAlive(); i++) Thread.sleep(10);
+        assertFalse(c.isAlive());
+    }
+
+    public void testBinaryBeforeLogin() throws Exception {
+        Recorder recorder = new Recorder(1, null);
+        OutputStream out = connect(recorder, false).getOutputStream();
+        out.write(binary("ping"));
+        out.flush();
+
+        assertTrue(recorder.await());
+        assertEquals(Collections.singletonList("disconnect"), recorder.tags);
+        awaitClose(connections.get(0));
+    }
+
+    public void testLongFrame() throws Exception {
+        Recorder recorder = new Recorder(1, null);
+        OutputStream out = connect(recorder, true).getOutputStream();
+        final int n = BinaryCodec.MAX_FRAME_LENGTH + 1;
+        out.write(new byte[] { BinaryCodec.FRAME_MARKER,
+                (byte)(n >>> 24), (byte)(n >>> 16), (byte)(n >>> 8), (byte)n });
+        out.flush();
+
+        assertTrue(recorder.await());
+        assertEquals(Collections.singletonList("disconnect"), recorder.tags);
+        awaitClose(connections.get(0));
+    }
+}
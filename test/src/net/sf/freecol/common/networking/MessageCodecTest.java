@@ -0,0 +1,161 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import net.sf.freecol.common.io.FreeColXMLReader;
+import net.sf.freecol.common.model.Game;
+import net.sf.freecol.common.model.Player;
+import net.sf.freecol.common.model.Tile;
+import net.sf.freecol.common.model.Unit;
+import net.sf.freecol.common.model.UnitType;
+import net.sf.freecol.server.model.ServerUnit;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+
+public class MessageCodecTest extends FreeColTestCase {
+
+    private static final UnitType colonistType
+        = spec().getUnitType("model.unit.freeColonist");
+
+
+    /**
+     * Serialize an element as the old DOM path did, with a
+     * <code>Transformer</code>.
+     */
+    private static String transform(Element element) throws Exception {
+        Transformer t = TransformerFactory.newInstance().newTransformer();
+        t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter sw = new StringWriter();
+        t.transform(new DOMSource(element), new StreamResult(sw));
+        return sw.toString();
+    }
+
+    /**
+     * Parse a message as the old DOM path did.
+     */
+    private static Element parseDOM(byte[] b) throws Exception {
+        return new DOMMessage(new ByteArrayInputStream(b)).getDocument()
+            .getDocumentElement();
+    }
+
+    /**
+     * Parse a message with the codec.
+     */
+    private static Element parseCodec(byte[] b) throws Exception {
+        FreeColXMLReader xr = new FreeColXMLReader(new ByteArrayInputStream(b));
+        try {
+            xr.nextTag();
+            return MessageCodec.read(xr).getDocumentElement();
+        } finally {
+            xr.close();
+        }
+    }
+
+    private static byte[] encode(Element element) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessageCodec.write(element, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Check that an element survives both paths, and that each path
+     * gives the same document as the old one.
+     */
+    private static void checkRoundTrip(Element element) throws Exception {
+        final String expected = transform(element);
+        byte[] old = expected.getBytes("UTF-8");
+
+        // Reading what the old path wrote.
+        Element dom = parseDOM(old);
+        Element codec = parseCodec(old);
+        assertTrue("Read " + expected, dom.isEqualNode(codec));
+        assertEquals(expected, transform(codec));
+
+        // Reading what the codec writes.
+        byte[] b = encode(element);
+        assertTrue("Write " + expected, dom.isEqualNode(parseDOM(b)));
+        assertTrue("Round trip " + expected, dom.isEqualNode(parseCodec(b)));
+        assertEquals(expected, transform(parseCodec(b)));
+    }
+
+    private static Element text(String tag, String... texts) {
+        Element e = DOMMessage.createNewRootElement(tag);
+        Document doc = e.getOwnerDocument();
+        for (String t : texts) {
+            if (t == null) {
+                e.appendChild(doc.createElement("child"));
+            } else {
+                e.appendChild(doc.createTextNode(t));
+            }
+        }
+        return e;
+    }
+
+
+    public void testAttributes() throws Exception {
+        checkRoundTrip(DOMMessage.createMessage("test",
+                "plain", "value", "markup", "a < b & c > \"d\"",
+                "space", "  ", "empty", ""));
+    }
+
+    public void testText() throws Exception {
+        checkRoundTrip(text("text", "Some text & <markup>"));
+        checkRoundTrip(text("text", " "));
+        checkRoundTrip(text("text", "  ", null, " \t "));
+        checkRoundTrip(text("text", " mixed ", null, " content", null));
+    }
+
+    public void testWhitespace() throws Exception {
+        final String message = "<text> <a/>  <b> </b></text>";
+        Element e = parseCodec(message.getBytes("UTF-8"));
+        assertEquals(4, e.getChildNodes().getLength());
+        assertEquals(" ", e.getFirstChild().getNodeValue());
+        assertEquals(" ", e.getLastChild().getFirstChild().getNodeValue());
+        assertTrue(e.isEqualNode(parseDOM(message.getBytes("UTF-8"))));
+    }
+
+    public void testGameObject() throws Exception {
+        Game game = getStandardGame();
+        Player dutch = game.getPlayer("model.nation.dutch");
+        game.setMap(getTestMap());
+        Tile tile = game.getMap().getTile(5, 8);
+        Unit unit = new ServerUnit(game, tile, dutch, colonistType);
+        Element update = DOMMessage.createMessage("update");
+        Document doc = update.getOwnerDocument();
+        update.appendChild(unit.toXMLElement(doc));
+        Element chat = new ChatMessage(dutch, " hello\tworld ", false)
+            .toXMLElement();
+        update.appendChild(doc.importNode(chat, true));
+        checkRoundTrip(update);
+    }
+}
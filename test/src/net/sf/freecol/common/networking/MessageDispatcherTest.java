@@ -0,0 +1,166 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.networking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class MessageDispatcherTest extends FreeColTestCase {
+
+    /** A message handler that records when it runs. */
+    private static class Recorder implements Runnable {
+
+        private final int n;
+        private final List<Integer> order;
+        private final AtomicInteger active, maxActive;
+        private final CountDownLatch gate, done;
+
+
+        public Recorder(int n, List<Integer> order, AtomicInteger active,
+                        AtomicInteger maxActive, CountDownLatch gate,
+                        CountDownLatch done) {
+            this.n = n;
+            this.order = order;
+            this.active = active;
+            this.maxActive = maxActive;
+            this.gate = gate;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            int a = active.incrementAndGet();
+            int max;
+            while ((max = maxActive.get()) < a
+                && !maxActive.compareAndSet(max, a));
+            try {
+                if (gate != null) gate.await();
+                if (n % 7 == 0) Thread.sleep(1);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            order.add(n);
+            active.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+
+    public void testOrderPerQueue() throws InterruptedException {
+        final int queueCount = 4, messages = 200;
+        MessageDispatcher dispatcher = new MessageDispatcher("test", 3);
+        try {
+            List<MessageDispatcher.MessageQueue> queues = new ArrayList<>();
+            List<List<Integer>> orders = new ArrayList<>();
+            List<AtomicInteger> actives = new ArrayList<>();
+            AtomicInteger maxActive = new AtomicInteger(0);
+            CountDownLatch done = new CountDownLatch(queueCount * messages);
+            for (int q = 0; q < queueCount; q++) {
+                queues.add(dispatcher.createQueue("q" + q));
+                orders.add(Collections.synchronizedList(new ArrayList<Integer>()));
+                actives.add(new AtomicInteger(0));
+            }
+            AtomicInteger perQueueMax = new AtomicInteger(0);
+            for (int i = 0; i < messages; i++) {
+                for (int q = 0; q < queueCount; q++) {
+                    queues.get(q).execute(new Recorder(i, orders.get(q),
+                            actives.get(q), perQueueMax, null, done));
+                }
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertEquals("One message at a time per queue",
+                         1, perQueueMax.get());
+            for (int q = 0; q < queueCount; q++) {
+                List<Integer> order = orders.get(q);
+                assertEquals(messages, order.size());
+                for (int i = 0; i < messages; i++) {
+                    assertEquals("Order of q" + q, i, (int)order.get(i));
+                }
+                // The count follows the completion of the handler.
+                for (int i = 0; i < 100; i++) {
+                    if (queues.get(q).getHandledCount() >= messages) break;
+                    Thread.sleep(10);
+                }
+                assertEquals(messages, queues.get(q).getHandledCount());
+            }
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    public void testThreadBound() throws InterruptedException {
+        final int threads = 2, capacity = 2, queueCount = 10;
+        final MessageDispatcher dispatcher
+            = new MessageDispatcher("test", threads, capacity);
+        try {
+            final List<Integer> order
+                = Collections.synchronizedList(new ArrayList<Integer>());
+            final AtomicInteger active = new AtomicInteger(0);
+            final AtomicInteger maxActive = new AtomicInteger(0);
+            final CountDownLatch gate = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(queueCount);
+            final List<MessageDispatcher.MessageQueue> queues
+                = new ArrayList<>();
+            for (int q = 0; q < queueCount; q++) {
+                queues.add(dispatcher.createQueue("q" + q));
+            }
+
+            // Submit one blocked message to each queue.  Once the
+            // threads are busy and the pool queue is full, the
+            // submitting thread has to wait.
+            final CountDownLatch submitted = new CountDownLatch(1);
+            Thread submitter = new Thread() {
+                    @Override
+                    public void run() {
+                        for (int q = 0; q < queueCount; q++) {
+                            queues.get(q).execute(new Recorder(q, order,
+                                    active, maxActive, gate, done));
+                        }
+                        submitted.countDown();
+                    }
+                };
+            submitter.start();
+            assertFalse("Submitter waits for room",
+                        submitted.await(200, TimeUnit.MILLISECONDS));
+            assertEquals(Integer.toString(threads),
+                dispatcher.getStatistics().get("dispatcherThreads"));
+            assertEquals("1",
+                dispatcher.getStatistics().get("dispatcherWaits"));
+
+            gate.countDown();
+            assertTrue(submitted.await(30, TimeUnit.SECONDS));
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertEquals(queueCount, order.size());
+            assertTrue("At most " + threads + " handlers at once",
+                       maxActive.get() <= threads);
+            assertTrue(Integer.parseInt(dispatcher.getStatistics()
+                    .get("dispatcherThreads")) <= threads);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+}
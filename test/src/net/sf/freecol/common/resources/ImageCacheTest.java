@@ -0,0 +1,114 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.common.resources;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Map;
+
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class ImageCacheTest extends FreeColTestCase {
+
+    private static final File IMAGE_FILE
+        = new File("data/base/resources/images/ui/menuborder-e.png");
+
+
+    private static BufferedImage makeImage(int width, int height) {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    public void testEviction() {
+        final ImageResource r = new ImageResource(IMAGE_FILE.toURI());
+        final ImageCache cache = new ImageCache(3 * 400);
+        final ImageCache.Key k1 = new ImageCache.Key(r, "test", 1, 1);
+        final ImageCache.Key k2 = new ImageCache.Key(r, "test", 2, 2);
+        final ImageCache.Key k3 = new ImageCache.Key(r, "test", 3, 3);
+        final ImageCache.Key k4 = new ImageCache.Key(r, "test", 4, 4);
+        final BufferedImage i1 = makeImage(10, 10);
+        assertEquals(400, ImageCache.getSize(i1));
+
+        // Copies made to a scale are not confused with those made to
+        // a size, however the numbers line up
+        assertFalse(new ImageCache.Key(r, "test", 2.0f)
+            .equals(new ImageCache.Key(r, "test",
+                    Float.floatToIntBits(2.0f), 0)));
+        assertEquals(new ImageCache.Key(r, "test", 2.0f),
+                     new ImageCache.Key(r, "test", 2.0f));
+
+        assertNull(cache.get(k1));
+        cache.put(k1, i1, ImageCache.getSize(i1));
+        cache.put(k2, makeImage(10, 10), 400);
+        cache.put(k3, makeImage(10, 10), 400);
+        assertEquals(3, cache.count(r));
+        assertSame(i1, cache.get(new ImageCache.Key(r, "test", 1, 1)));
+
+        // k2 is now the least recently used, and is evicted first
+        cache.put(k4, makeImage(10, 10), 400);
+        assertEquals(3, cache.count(r));
+        Map<String, String> stats = cache.getStatistics();
+        assertEquals("1", stats.get("imageCacheEvictions"));
+        assertEquals("1200", stats.get("imageCacheSize"));
+        assertNotNull(cache.get(k1));
+        assertNotNull(cache.get(k3));
+        assertNotNull(cache.get(k4));
+
+        // Shrinking the cache evicts more
+        cache.setMaximumSize(400);
+        assertEquals(1, cache.count(r));
+        assertEquals("400", cache.getStatistics().get("imageCacheSize"));
+
+        cache.remove(r);
+        assertEquals(0, cache.count(r));
+        assertEquals("0", cache.getStatistics().get("imageCacheSize"));
+        assertNull(cache.get(k1));
+    }
+
+    public void testImageResource() {
+        final ImageCache cache = ImageCache.getInstance();
+        final ImageResource r = new ImageResource(IMAGE_FILE.toURI());
+        final BufferedImage image = r.getImage();
+        assertNotNull(image);
+        assertSame(image, r.getImage(1.0f));
+        assertEquals(0, r.getCount());
+        final long size
+            = Long.parseLong(cache.getStatistics().get("imageCacheSize"));
+
+        BufferedImage scaled = r.getImage(2.0f);
+        assertEquals(2 * image.getWidth(), scaled.getWidth());
+        assertSame(scaled, r.getImage(2.0f));
+        BufferedImage gray = r.getGrayscaleImage(2.0f);
+        assertNotSame(scaled, gray);
+        assertSame(gray, r.getGrayscaleImage(new Dimension(scaled.getWidth(),
+                                                            scaled.getHeight())));
+        assertEquals(2, r.getCount());
+        assertEquals(Long.toString(size + ImageCache.getSize(scaled)
+                                   + ImageCache.getSize(gray)),
+                     cache.getStatistics().get("imageCacheSize"));
+
+        r.clean();
+        assertEquals(0, r.getCount());
+        assertEquals(Long.toString(size),
+                     cache.getStatistics().get("imageCacheSize"));
+        assertNotSame(scaled, r.getImage(2.0f));
+    }
+}
@@ -29,6 +29,8 @@ public class AllTests {
         TestSuite suite = new TestSuite("Test for net.sf.freecol.server");
         //$JUnit-BEGIN$
         suite.addTestSuite(SaveLoadTest.class);
+        suite.addTestSuite(SimulationTest.class);
+        suite.addTestSuite(TurnProfilerTest.class);
         //$JUnit-END$
         suite.addTest(net.sf.freecol.server.ai.AllTests.suite());
         suite.addTest(net.sf.freecol.server.control.AllTests.suite());
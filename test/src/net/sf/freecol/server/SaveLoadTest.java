@@ -23,6 +23,7 @@ import java.io.File;
 
 import net.sf.freecol.common.FreeColException;
 import net.sf.freecol.common.io.FreeColSavegameFile;
+import net.sf.freecol.common.model.Turn;
 import net.sf.freecol.common.option.FileOption;
 import net.sf.freecol.common.option.MapGeneratorOptions;
 import net.sf.freecol.server.control.Controller;
@@ -65,6 +66,30 @@ public class SaveLoadTest extends FreeColTestCase {
         assertFalse(file.exists());
     }
     
+    public void testSnapshot() throws Exception {
+        File file = ServerTestHelper.createRandomSaveGame();
+        ServerTestHelper.stopServer();
+        FreeColServer server = ServerTestHelper.startServer(file, false, true);
+        final int turn = server.getGame().getTurn().getNumber();
+
+        // Later changes to the game do not show in the snapshot
+        SavegameSnapshot snapshot = server.takeSnapshot(null, null);
+        server.getGame().setTurn(new Turn(turn + 10));
+        assertTrue(snapshot.getSize() > 0);
+
+        // Writing replaces the existing file, and cleans up
+        snapshot.write(file);
+        File tmp = new File(file.getAbsoluteFile().getParentFile(),
+                            file.getName() + ".tmp");
+        assertFalse(tmp.exists());
+        ServerTestHelper.stopServer();
+
+        server = ServerTestHelper.startServer(file, false, true);
+        assertEquals(turn, server.getGame().getTurn().getNumber());
+        file.delete();
+        assertFalse(file.exists());
+    }
+
     public void testImport() {
         File file = ServerTestHelper.createRandomSaveGame();
         ServerTestHelper.stopServer();
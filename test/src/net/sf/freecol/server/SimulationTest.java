@@ -0,0 +1,89 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server;
+
+import java.util.Map;
+
+import net.sf.freecol.FreeCol;
+import net.sf.freecol.common.FreeColSeed;
+import net.sf.freecol.common.io.FreeColTcFile;
+import net.sf.freecol.common.model.Specification;
+import net.sf.freecol.server.model.ServerGame;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class SimulationTest extends FreeColTestCase {
+
+    @Override
+    public void tearDown() throws Exception {
+        ServerTestHelper.stopServer();
+        super.tearDown();
+    }
+
+    public void testSimulation() throws Exception {
+        FreeColServer server = ServerTestHelper.startServer(false, true);
+        Map<String, String> stats = new Simulation(server).run(1);
+        assertEquals(FreeColServer.GameState.IN_GAME, server.getGameState());
+        assertFalse(server.getInGameController().isSimulation());
+        assertEquals("1", stats.get("turns"));
+        assertEquals("turns", stats.get("ended"));
+        assertTrue(Integer.parseInt(stats.get("playerTurns")) > 0);
+
+        // The checksum is of the final state
+        final ServerGame game = server.getGame();
+        assertEquals(stats.get("checksum"), Simulation.getChecksum(game));
+        assertEquals(Simulation.getChecksum(game),
+                     Simulation.getChecksum(game));
+
+        // The turn was profiled.  The game starts with the natives,
+        // so only they have played by the end of the first turn.
+        assertNotNull(game.getStatistics().get("server.csNewTurn.calls"));
+        assertNotNull(server.getAIMain().getAIStatistics()
+            .get("ai.native.startWorking.calls"));
+
+        // Running again continues the game
+        final int turn = game.getTurn().getNumber();
+        final String checksum = stats.get("checksum");
+        stats = new Simulation(server).run(1);
+        assertEquals(turn + 1, game.getTurn().getNumber());
+        assertFalse(checksum.equals(stats.get("checksum")));
+    }
+
+    private static String simulate(int turns) throws Exception {
+        // Starting a game locks the specification options, so each
+        // run needs a fresh specification.
+        Specification spec = FreeCol.loadSpecification(
+            new FreeColTcFile("freecol"), null, "model.difficulty.medium");
+        FreeColServer server = ServerTestHelper.startServer(false, true,
+            spec, FreeColServer.NO_PORT, null);
+        assertEquals("No public socket", -1, server.getPort());
+        return new Simulation(server).run(turns).get("checksum");
+    }
+
+    public void testReproducible() throws Exception {
+        FreeColSeed.setFreeColSeed("1492");
+        try {
+            String checksum = simulate(2);
+            assertEquals("Same seed, same game", checksum, simulate(2));
+        } finally {
+            FreeColSeed.setFreeColSeed(Long.toString(FreeColSeed.DEFAULT_SEED));
+        }
+    }
+}
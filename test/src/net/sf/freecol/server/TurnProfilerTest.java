@@ -0,0 +1,79 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class TurnProfilerTest extends FreeColTestCase {
+
+    public void testTimers() throws Exception {
+        TurnProfiler.endTurn();
+        TurnProfiler.stop("test.timer", TurnProfiler.start());
+        TurnProfiler.stop("test.timer", TurnProfiler.start());
+        Map<String, String> stats = TurnProfiler.getStatistics("test.");
+        assertEquals("2", stats.get("test.timer.calls"));
+        assertEquals("", stats.get("test.timer.histogram"));
+
+        // The end of the turn fills in the histogram
+        TurnProfiler.endTurn();
+        stats = TurnProfiler.getStatistics("test.");
+        final String histogram = stats.get("test.timer.histogram");
+        assertTrue(histogram.endsWith("ms:1"));
+        assertEquals(-1, histogram.indexOf(' '));
+        assertNotNull(TurnProfiler.getStatistics("server.")
+            .get(TurnProfiler.TURN + ".calls"));
+
+        // Turns without calls are not counted
+        TurnProfiler.endTurn();
+        stats = TurnProfiler.getStatistics("test.");
+        assertEquals("2", stats.get("test.timer.calls"));
+        assertEquals(histogram, stats.get("test.timer.histogram"));
+        assertTrue(TurnProfiler.getInstance().dump().contains("test.timer"));
+    }
+
+    public void testDisabled() {
+        TurnProfiler profiler = TurnProfiler.getInstance();
+        profiler.setEnabled(false);
+        try {
+            long start = TurnProfiler.start();
+            assertEquals(0L, start);
+            TurnProfiler.stop("test.disabled", start);
+            assertTrue(TurnProfiler.getStatistics("test.disabled").isEmpty());
+        } finally {
+            profiler.setEnabled(true);
+        }
+    }
+
+    public void testManagement() throws Exception {
+        ObjectName name = new ObjectName(TurnProfiler.OBJECT_NAME);
+        TurnProfiler.getInstance();
+        assertTrue(ManagementFactory.getPlatformMBeanServer()
+            .isRegistered(name));
+        assertEquals(TurnProfiler.getInstance().getTurns(),
+            ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(name, "Turns"));
+    }
+}
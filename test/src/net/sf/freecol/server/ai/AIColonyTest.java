@@ -19,6 +19,10 @@
 
 package net.sf.freecol.server.ai;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import net.sf.freecol.common.model.BuildableType;
 import net.sf.freecol.common.model.Building;
 import net.sf.freecol.common.model.BuildingType;
@@ -27,6 +31,7 @@ import net.sf.freecol.common.model.ColonyTile;
 import net.sf.freecol.common.model.Game;
 import net.sf.freecol.common.model.GoodsContainer;
 import net.sf.freecol.common.model.GoodsType;
+import net.sf.freecol.common.model.Location;
 import net.sf.freecol.common.model.Map;
 import net.sf.freecol.common.model.Tile;
 import net.sf.freecol.common.model.TileType;
@@ -359,4 +364,47 @@ public class AIColonyTest extends FreeColTestCase {
         Colony colony = getStandardColony();
         assertEquals(artilleryType, colony.getBestDefenderType());
     }
+
+    public void testPlanColonies() {
+        Game game = ServerTestHelper.startServerGame(getTestMap(savannahType));
+        AIMain aiMain = ServerTestHelper.getServer().getAIMain();
+
+        Colony colony = getStandardColony(6);
+        Colony otherColony = getStandardColony(3, 10, 8);
+        assertTrue("Colony owner should be an AI", colony.getOwner().isAI());
+        AIColony aiColony = aiMain.getAIColony(colony);
+        AIColony otherAIColony = aiMain.getAIColony(otherColony);
+        assertTrue("No plan yet",
+                   aiColony.getPlannedBuildableTypes().isEmpty());
+
+        List<AIColony> aiColonies = new ArrayList<>();
+        aiColonies.add(aiColony);
+        aiColonies.add(otherAIColony);
+        aiMain.planColonies(aiColonies);
+        assertTrue("Plan should be current", aiColony.isPlanned());
+        assertTrue("Plan should be current", otherAIColony.isPlanned());
+
+        // The plans made in parallel match plans made one at a time.
+        for (AIColony aic : aiColonies) {
+            ColonyPlan plan = new ColonyPlan(aiMain, aic.getColony());
+            plan.update();
+            assertFalse("Colony should be planned",
+                        aic.getPlannedBuildableTypes().isEmpty());
+            assertEquals(plan.getBuildableTypes(),
+                         aic.getPlannedBuildableTypes());
+        }
+
+        // Swap a worker for another, keeping the same number of units.
+        Unit worker = colony.getUnitList().get(0);
+        Unit other = new ServerUnit(game, colony.getTile(),
+                                    colony.getOwner(), colonistType);
+        Location wl = worker.getLocation();
+        worker.setLocation(colony.getTile());
+        other.setLocation(wl);
+        assertEquals(6, colony.getUnitCount());
+        assertFalse("Plan should be stale", aiColony.isPlanned());
+
+        aiMain.planColonies(Collections.singletonList(aiColony));
+        assertTrue("Plan should be current again", aiColony.isPlanned());
+    }
 }
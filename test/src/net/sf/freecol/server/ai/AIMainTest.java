@@ -0,0 +1,66 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server.ai;
+
+import net.sf.freecol.common.model.Game;
+import net.sf.freecol.common.model.Tile;
+import net.sf.freecol.common.model.UnitType;
+import net.sf.freecol.server.ServerTestHelper;
+import net.sf.freecol.server.model.ServerPlayer;
+import net.sf.freecol.server.model.ServerUnit;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class AIMainTest extends FreeColTestCase {
+
+    private static final UnitType colonistType
+        = spec().getUnitType("model.unit.freeColonist");
+
+
+    @Override
+    public void tearDown() throws Exception {
+        ServerTestHelper.stopServerGame();
+        super.tearDown();
+    }
+
+
+    public void testCheckIntegrity() {
+        Game game = ServerTestHelper.startServerGame(getTestMap());
+        AIMain aiMain = ServerTestHelper.getServer().getAIMain();
+        ServerPlayer dutch = (ServerPlayer)game.getPlayer("model.nation.dutch");
+        Tile tile = game.getMap().getTile(5, 8);
+
+        // Enough AI units to be validated in several batches.
+        for (int i = 0; i < 2500; i++) {
+            new ServerUnit(game, tile, dutch, colonistType);
+        }
+        assertTrue(dutch.getUnits().size() >= 2500);
+        assertTrue(aiMain.checkIntegrity(false) > 0);
+
+        // An AI unit without a unit is dropped by the fix.
+        final String id = "unit:bogus";
+        new AIUnit(aiMain, id);
+        assertTrue(aiMain.checkIntegrity(false) < 0);
+        assertNotNull(aiMain.getAIObject(id));
+        assertEquals(0, aiMain.checkIntegrity(true));
+        assertNull(aiMain.getAIObject(id));
+        assertTrue(aiMain.checkIntegrity(false) > 0);
+    }
+}
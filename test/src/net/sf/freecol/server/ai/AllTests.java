@@ -29,9 +29,11 @@ public class AllTests {
         TestSuite suite = new TestSuite("Test for net.sf.freecol.server.ai");
         //$JUnit-BEGIN$
         suite.addTestSuite(AIColonyTest.class);
+        suite.addTestSuite(AIMainTest.class);
         suite.addTestSuite(ContactTest.class);
         suite.addTestSuite(ColonyPlanTest.class);
         suite.addTestSuite(MissionAssignmentTest.class);
+        suite.addTestSuite(PathCacheTest.class);
         suite.addTestSuite(REFTest.class);
         suite.addTestSuite(StandardAIPlayerTest.class);
         suite.addTestSuite(TensionTest.class);
@@ -0,0 +1,121 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server.ai;
+
+import net.sf.freecol.common.model.Game;
+import net.sf.freecol.common.model.Map;
+import net.sf.freecol.common.model.PathNode;
+import net.sf.freecol.common.model.Tile;
+import net.sf.freecol.common.model.Unit;
+import net.sf.freecol.common.model.UnitType;
+import net.sf.freecol.server.ServerTestHelper;
+import net.sf.freecol.server.ai.mission.BuildColonyMission;
+import net.sf.freecol.server.control.ChangeSet;
+import net.sf.freecol.server.control.ChangeSet.See;
+import net.sf.freecol.server.model.ServerPlayer;
+import net.sf.freecol.server.model.ServerUnit;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class PathCacheTest extends FreeColTestCase {
+
+    private static final UnitType colonistType
+        = spec().getUnitType("model.unit.freeColonist");
+
+
+    @Override
+    public void tearDown() throws Exception {
+        ServerTestHelper.stopServerGame();
+        super.tearDown();
+    }
+
+
+    public void testSharedTargetPath() {
+        Game game = ServerTestHelper.startServerGame(getTestMap());
+        Map map = game.getMap();
+        AIMain aiMain = ServerTestHelper.getServer().getAIMain();
+        PathCache cache = aiMain.getPathCache();
+
+        ServerPlayer dutch = (ServerPlayer)game.getPlayer("model.nation.dutch");
+        Tile tile = map.getTile(5, 8);
+        Unit colonist1 = new ServerUnit(game, tile, dutch, colonistType);
+        Unit colonist2 = new ServerUnit(game, tile, dutch, colonistType);
+        AIUnit aiUnit1 = aiMain.getAIUnit(colonist1);
+        AIUnit aiUnit2 = aiMain.getAIUnit(colonist2);
+        assertEquals(PathCache.makeKey("k", colonist1, 4, false, true),
+                     PathCache.makeKey("k", colonist2, 4, false, true));
+        assertFalse("Unshared searches are keyed by unit",
+            PathCache.makeKey("k", colonist1, 4, false, false)
+                .equals(PathCache.makeKey("k", colonist2, 4, false, false)));
+
+        // Not used unless an AI player is working.
+        int misses = cache.getMisses(), hits = cache.getHits();
+        BuildColonyMission.findTargetPath(aiUnit1, 4, false);
+        assertEquals(misses, cache.getMisses());
+
+        cache.begin();
+        PathNode path = BuildColonyMission.findTargetPath(aiUnit1, 4, false);
+        assertEquals(misses + 1, cache.getMisses());
+        assertEquals("Same search shares the answer", String.valueOf(path),
+            String.valueOf(BuildColonyMission.findTargetPath(aiUnit2, 4,
+                                                             false)));
+        assertEquals(hits + 1, cache.getHits());
+
+        // A change to the map discards the answer.
+        ChangeSet cs = new ChangeSet();
+        cs.add(See.perhaps(), tile);
+        assertTrue(cs.changesMap());
+        cs.build(dutch);
+        BuildColonyMission.findTargetPath(aiUnit2, 4, false);
+        assertEquals(misses + 2, cache.getMisses());
+
+        // As does a change of moves left, which changes the key.
+        colonist2.setMovesLeft(0);
+        assertFalse(PathCache.makeKey("k", colonist1, 4, false, true)
+            .equals(PathCache.makeKey("k", colonist2, 4, false, true)));
+        cache.end();
+    }
+
+    public void testCopiedPaths() {
+        Game game = ServerTestHelper.startServerGame(getTestMap());
+        Map map = game.getMap();
+        PathCache cache = ServerTestHelper.getServer().getAIMain()
+            .getPathCache();
+
+        PathNode path = new PathNode(map.getTile(5, 8), 3, 0, false,
+                                     null, null);
+        path.next = new PathNode(map.getTile(6, 8), 0, 1, false, path, null);
+        final String expected = path.fullPathToString();
+
+        cache.begin();
+        assertSame(path, cache.put(game, "k", path));
+        path.getLastNode().setTurns(99);
+        PathNode copy = cache.get("k");
+        assertNotSame(path, copy);
+        assertEquals("Cache is not changed by the caller",
+                     expected, copy.fullPathToString());
+        assertSame(copy, copy.next.previous);
+
+        copy.setMovesLeft(0);
+        assertEquals("Each caller gets its own copy",
+                     expected, cache.get("k").fullPathToString());
+        cache.end();
+    }
+}
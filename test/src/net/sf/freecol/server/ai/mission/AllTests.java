@@ -30,6 +30,7 @@ public class AllTests {
         //$JUnit-BEGIN$
         suite.addTestSuite(PioneeringMissionTest.class);
         suite.addTestSuite(PrivateerMissionTest.class);
+        suite.addTestSuite(RouteOptimizerTest.class);
         suite.addTestSuite(ScoutingMissionTest.class);
         suite.addTestSuite(TransportMissionTest.class);
         suite.addTestSuite(UnitSeekAndDestroyMissionTest.class);
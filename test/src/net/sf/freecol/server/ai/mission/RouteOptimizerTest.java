@@ -0,0 +1,115 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server.ai.mission;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.freecol.common.util.CollectionUtils;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class RouteOptimizerTest extends FreeColTestCase {
+
+    /**
+     * Make a route problem with targets at random points on a line,
+     * travel times being the distances.
+     */
+    private static RouteOptimizer makeProblem(Random random, int n,
+                                              int[] space, int maxHolds) {
+        int[] x = new int[n];
+        for (int i = 0; i < n; i++) x[i] = random.nextInt(20) - 10;
+        double[] fromStart = new double[n];
+        double[][] between = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            fromStart[i] = Math.abs(x[i]);
+            for (int j = 0; j < n; j++) between[i][j] = Math.abs(x[i] - x[j]);
+        }
+        return new RouteOptimizer(fromStart, between, space, 2, maxHolds);
+    }
+
+    private static double bruteForce(RouteOptimizer ro, int n) {
+        List<Integer> l = new ArrayList<>();
+        for (int i = 0; i < n; i++) l.add(i);
+        double best = -1.0;
+        int[] order = new int[n];
+        for (List<Integer> p : CollectionUtils.getPermutations(l)) {
+            for (int i = 0; i < n; i++) order[i] = p.get(i);
+            double v = ro.score(order, n);
+            if (v >= 0.0 && (best < 0.0 || v < best)) best = v;
+        }
+        return best;
+    }
+
+    public void testExact() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 50; trial++) {
+            int n = 2 + random.nextInt(5);
+            int[] space = new int[n];
+            for (int i = 0; i < n; i++) space[i] = random.nextInt(5) - 2;
+            RouteOptimizer ro = makeProblem(random, n, space, 4);
+            double best = bruteForce(ro, n);
+            int[] order = ro.optimize();
+            if (best < 0.0) {
+                assertNull(order);
+            } else {
+                assertNotNull(order);
+                assertEquals(best, ro.score(order, n), 1e-6);
+            }
+        }
+    }
+
+    public void testHeuristic() {
+        Random random = new Random(42);
+        final int n = RouteOptimizer.EXACT_LIMIT + 4;
+        for (int trial = 0; trial < 20; trial++) {
+            int[] space = new int[n];
+            for (int i = 0; i < n; i++) space[i] = random.nextInt(2);
+            RouteOptimizer ro = makeProblem(random, n, space, 100);
+            int[] order = ro.optimize();
+            assertNotNull(order);
+
+            // A permutation, not worse than the given order
+            boolean[] seen = new boolean[n];
+            for (int i : order) {
+                assertFalse(seen[i]);
+                seen[i] = true;
+            }
+            int[] given = new int[n];
+            for (int i = 0; i < n; i++) given[i] = i;
+            double value = ro.score(order, n);
+            assertTrue(value >= 0.0);
+            assertTrue(value <= ro.score(given, n));
+        }
+    }
+
+    public void testOverfill() {
+        // Two pickups of 3 with room for 4 must be split by a delivery
+        double[] fromStart = { 1, 1, 5 };
+        double[][] between = { { 0, 1, 5 }, { 1, 0, 5 }, { 5, 5, 0 } };
+        int[] space = { 3, 3, -3 };
+        RouteOptimizer ro = new RouteOptimizer(fromStart, between, space,
+                                               0, 4);
+        int[] order = ro.optimize();
+        assertNotNull(order);
+        assertEquals(2, order[1]);
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server.control;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.freecol.common.model.Game;
+import net.sf.freecol.common.model.GoodsType;
+import net.sf.freecol.common.model.Map;
+import net.sf.freecol.common.model.Player;
+import net.sf.freecol.common.model.Stance;
+import net.sf.freecol.common.model.Tile;
+import net.sf.freecol.common.model.Unit;
+import net.sf.freecol.common.model.UnitType;
+import net.sf.freecol.common.networking.DOMMessage;
+import net.sf.freecol.common.networking.MessageCodec;
+import net.sf.freecol.server.ServerTestHelper;
+import net.sf.freecol.server.control.ChangeSet.ChangePriority;
+import net.sf.freecol.server.control.ChangeSet.See;
+import net.sf.freecol.server.model.ServerPlayer;
+import net.sf.freecol.server.model.ServerUnit;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+
+public class ChangeSetTest extends FreeColTestCase {
+
+    private static final UnitType colonistType
+        = spec().getUnitType("model.unit.freeColonist");
+    private static final UnitType galleonType
+        = spec().getUnitType("model.unit.galleon");
+
+
+    private static String toString(Element element) {
+        return (element == null) ? null : MessageCodec.toString(element);
+    }
+
+    public void testParallelBuild() {
+        final Game game = ServerTestHelper.startServerGame(getTestMap());
+        final Map map = game.getMap();
+
+        ServerPlayer dutch = (ServerPlayer)game.getPlayer("model.nation.dutch");
+        ServerPlayer french = (ServerPlayer)game.getPlayer("model.nation.french");
+        ServerPlayer english = (ServerPlayer)game.getPlayer("model.nation.english");
+        Tile tile = map.getTile(5, 8);
+        Unit unit = new ServerUnit(game, tile, dutch, colonistType);
+
+        ChangeSet cs = new ChangeSet();
+        cs.add(See.perhaps(), tile);
+        cs.addPartial(See.all(), dutch, "gold");
+        cs.addStance(See.all(), dutch, Stance.PEACE, french);
+        cs.addTrivial(See.only(french), "trivial", ChangePriority.CHANGE_LATE,
+                      "unit", unit.getId());
+        cs.addAttribute(See.all(), "flush", Boolean.TRUE.toString());
+
+        List<ServerPlayer> players = new ArrayList<>();
+        players.add(dutch);
+        players.add(french);
+        players.add(english);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            java.util.Map<ServerPlayer, Element> built
+                = cs.build(players, executor);
+            assertEquals(players.size(), built.size());
+            for (ServerPlayer sp : players) {
+                assertEquals("Update for " + sp.getName(),
+                             toString(cs.build(sp)), toString(built.get(sp)));
+            }
+            assertTrue(toString(built.get(french)).contains("trivial"));
+            assertFalse(toString(built.get(dutch)).contains("trivial"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testParallelAttackBuild() {
+        final Game game = ServerTestHelper.startServerGame(getTestMap());
+        final Map map = game.getMap();
+
+        ServerPlayer dutch = (ServerPlayer)game.getPlayer("model.nation.dutch");
+        ServerPlayer french = (ServerPlayer)game.getPlayer("model.nation.french");
+        Unit attacker = new ServerUnit(game, map.getTile(5, 8), dutch,
+                                       colonistType);
+        Unit defender = new ServerUnit(game, map.getTile(6, 8), french,
+                                       colonistType);
+        final GoodsType cotton = spec().getGoodsType("model.goods.cotton");
+        defender.setWorkType(cotton);
+
+        ChangeSet cs = new ChangeSet();
+        cs.addAttack(See.all(), attacker, defender, true);
+        cs.add(See.perhaps(), attacker.getTile(), defender.getTile());
+        List<ServerPlayer> players = new ArrayList<>();
+        for (Player p : game.getLivePlayers(null)) {
+            players.add((ServerPlayer)p);
+            cs.addStance(See.all(), dutch, Stance.PEACE, p);
+        }
+        assertTrue(players.size() > 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                java.util.Map<ServerPlayer, Element> built
+                    = cs.build(players, executor);
+                for (ServerPlayer sp : players) {
+                    assertEquals("Update for " + sp.getName(),
+                                 toString(cs.build(sp)),
+                                 toString(built.get(sp)));
+                }
+                assertTrue(toString(built.get(french))
+                    .contains("animateAttack"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("The defender is not changed",
+                     cotton, defender.getWorkType());
+    }
+
+    public void testClientWriteLeavesModel() {
+        final Game game = ServerTestHelper.startServerGame(getTestMap(true));
+        final Map map = game.getMap();
+
+        ServerPlayer dutch = (ServerPlayer)game.getPlayer("model.nation.dutch");
+        Tile tile = map.getTile(6, 8);
+        Unit galleon = new ServerUnit(game, tile, dutch, galleonType);
+        Unit colonist = new ServerUnit(game, galleon, dutch, colonistType);
+        // Break the colonist location, which server writes repair.
+        colonist.setLocationNoUpdate(tile);
+
+        Document doc = DOMMessage.createNewDocument();
+        galleon.toXMLElement(doc, dutch);
+        assertEquals("Client writes do not repair", tile,
+                     colonist.getLocation());
+        galleon.toXMLElement(doc);
+        assertEquals("Server writes repair", galleon, colonist.getLocation());
+    }
+}
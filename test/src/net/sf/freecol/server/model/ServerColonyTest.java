@@ -19,6 +19,7 @@
 
 package net.sf.freecol.server.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import net.sf.freecol.common.model.AbstractGoods;
@@ -109,6 +110,28 @@ public class ServerColonyTest extends FreeColTestCase {
                      foodExpected, colony.getGoodsCount(foodGoodsType));
     }
 
+    public void testFoodProductionManyColonies() {
+        Game game = ServerTestHelper.startServerGame(getTestMap(plains));
+
+        // Enough colonies for the new turn to prepare them in parallel.
+        List<Colony> colonies = new ArrayList<>();
+        int[] expected = new int[6];
+        for (int i = 0; i < expected.length; i++) {
+            Colony colony = getStandardColony(2, 3 + 5 * (i % 3),
+                                              3 + 5 * (i / 3));
+            colony.addGoods(foodGoodsType, colony.getFoodConsumption() * 2);
+            expected[i] = colony.getGoodsCount(foodGoodsType)
+                - colony.getFoodConsumption() + colony.getFoodProduction();
+            colonies.add(colony);
+        }
+
+        ServerTestHelper.newTurn();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Unexpected food in " + colonies.get(i).getName(),
+                expected[i], colonies.get(i).getGoodsCount(foodGoodsType));
+        }
+    }
+
     public void testEqualFoodProductionConsumptionCase() {
         Game game = ServerTestHelper.startServerGame(getTestMap(desert));
 
@@ -0,0 +1,65 @@
+/**
+ *  Copyright (C) 2002-2015  The FreeCol Team
+ *
+ *  This file is part of FreeCol.
+ *
+ *  FreeCol is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  FreeCol is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with FreeCol.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.sf.freecol.server.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.freecol.common.model.BuildableType;
+import net.sf.freecol.common.model.BuildingType;
+import net.sf.freecol.common.model.Colony;
+import net.sf.freecol.common.model.Game;
+import net.sf.freecol.server.ServerTestHelper;
+import net.sf.freecol.util.test.FreeColTestCase;
+
+
+public class ServerGameTest extends FreeColTestCase {
+
+    private static final BuildingType newspaperType
+        = spec().getBuildingType("model.building.newspaper");
+
+
+    @Override
+    public void tearDown() throws Exception {
+        ServerTestHelper.stopServerGame();
+        super.tearDown();
+    }
+
+
+    public void testCheckIntegrity() {
+        Game game = ServerTestHelper.startServerGame(getTestMap(true));
+        Colony colony = getStandardColony(3);
+        assertTrue(game.checkIntegrity(false) > 0);
+
+        // A newspaper needs a printing press first.
+        List<BuildableType> queue = new ArrayList<>();
+        queue.add(newspaperType);
+        colony.setBuildQueue(queue);
+
+        // Validating the parts in parallel does not fix anything.
+        assertTrue(game.checkIntegrity(false) < 0);
+        assertEquals(1, colony.getBuildQueue().size());
+
+        // Fixing does.
+        assertEquals(0, game.checkIntegrity(true));
+        assertTrue(colony.getBuildQueue().isEmpty());
+        assertTrue(game.checkIntegrity(false) > 0);
+    }
+}